@@ -3,6 +3,9 @@ package com.fooddel.order.client;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "RESTAURANT-SERVICE")
 public interface RestaurantServiceClient {
@@ -12,4 +15,8 @@ public interface RestaurantServiceClient {
     
     @GetMapping("/api/menus/item/{id}")
     MenuItemDTO getMenuItem(@PathVariable("id") Long id);
+
+    // Ids that do not exist are left out of the result
+    @GetMapping("/api/menus/items")
+    List<MenuItemDTO> getMenuItems(@RequestParam("ids") List<Long> ids);
 }
@@ -0,0 +1,54 @@
+package com.fooddel.order.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the id sequences of orders and order items past the ids already in use.
+ *
+ * MySQL has no sequences, so Hibernate keeps each one as a one-row table whose {@code next_val} is
+ * the top of the next block of {@value #ALLOCATION_SIZE} ids it hands out. A database from before
+ * the sequences gets them created at 1 while its tables already hold AUTO_INCREMENT ids, and the
+ * first inserts would clash with those. This runs once at startup, after the schema update and
+ * before any order is written, and only ever raises {@code next_val}, so it is safe to run while
+ * other instances are already allocating.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "order.id-sequences.align-on-startup", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class IdSequenceInitializer implements InitializingBean {
+
+    // allocationSize of the @SequenceGenerator on Order and OrderItem
+    static final int ALLOCATION_SIZE = 50;
+
+    // sequence table -> the table whose ids it hands out
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "order_seq", "orders",
+            "order_item_seq", "order_items");
+
+    private static final String RAISE = "UPDATE %1$s SET next_val = (SELECT COALESCE(MAX(id), 0) + ? FROM %2$s) "
+            + "WHERE next_val < (SELECT COALESCE(MAX(id), 0) + ? FROM %2$s)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach((sequence, table) -> {
+            // The next block then starts right after the highest id
+            if (jdbcTemplate.update(String.format(RAISE, sequence, table), ALLOCATION_SIZE, ALLOCATION_SIZE) > 0) {
+                log.info("Moved {} past the ids already in {}", sequence, table);
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.fooddel.order.config;
 
 import com.fooddelivery.events.DeliveryEvent;
+import com.fooddelivery.events.RestaurantEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,6 +15,8 @@ import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,6 +30,16 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${order.menu-replica.group-id-prefix:order-menu-replica}")
+    private String menuReplicaGroupIdPrefix;
+
+    // Blank: the host name and server port
+    @Value("${order.menu-replica.instance-id:}")
+    private String menuReplicaInstanceId;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
     @Bean
     public ConsumerFactory<String, DeliveryEvent> deliveryEventConsumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -61,4 +74,50 @@ public class KafkaConsumerConfig {
         
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Every instance keeps its own menu replica, so each one reads all of restaurant-events under a
+     * consumer group of its own. The group is named after the instance, so a restart rejoins it
+     * rather than leaving an orphaned group behind; RestaurantEventConsumer rewinds to the beginning
+     * whenever it is assigned the partitions.
+     */
+    @Bean
+    public ConsumerFactory<String, RestaurantEvent> restaurantEventConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, menuReplicaGroupIdPrefix + "-" + menuReplicaInstanceId());
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, RestaurantEvent.class.getName());
+        configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, RestaurantEvent> restaurantEventKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, RestaurantEvent> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(restaurantEventConsumerFactory());
+        return factory;
+    }
+
+    private String menuReplicaInstanceId() {
+        if (!menuReplicaInstanceId.isBlank()) {
+            return menuReplicaInstanceId;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + serverPort;
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Could not name the menu replica consumer group after this host; "
+                    + "set order.menu-replica.instance-id", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.fooddel.order.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class LookupExecutorConfig {
+
+    /**
+     * Runs the Feign lookups of an order concurrently, one virtual thread per call. Each task carries
+     * the security context of the request that submitted it, so FeignClientInterceptor still forwards
+     * the caller's token.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService lookupExecutor() {
+        return new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
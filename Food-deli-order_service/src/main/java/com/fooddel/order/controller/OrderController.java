@@ -1,6 +1,7 @@
 package com.fooddel.order.controller;
 
 import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.dto.OrderPage;
 import com.fooddel.order.dto.OrderResponse;
 import com.fooddel.order.dto.UpdateOrderStatusRequest;
 import com.fooddel.order.service.OrderService;
@@ -11,8 +12,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
@@ -23,9 +22,11 @@ public class OrderController {
     private final OrderService orderService;
 
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+    public ResponseEntity<OrderResponse> createOrder(
+            @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("Received request to create order for customer: {}", request.getCustomerId());
-        OrderResponse response = orderService.createOrder(request);
+        OrderResponse response = orderService.createOrder(request, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -37,23 +38,31 @@ public class OrderController {
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<OrderResponse>> getOrdersByCustomer(@PathVariable Long customerId) {
+    public ResponseEntity<OrderPage> getOrdersByCustomer(
+            @PathVariable Long customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         log.info("Received request to get orders for customer: {}", customerId);
-        List<OrderResponse> orders = orderService.getOrdersByCustomer(customerId);
+        OrderPage orders = orderService.getOrdersByCustomer(customerId, cursor, size);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/restaurant/{restaurantId}")
-    public ResponseEntity<List<OrderResponse>> getOrdersByRestaurant(@PathVariable Long restaurantId) {
+    public ResponseEntity<OrderPage> getOrdersByRestaurant(
+            @PathVariable Long restaurantId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         log.info("Received request to get orders for restaurant: {}", restaurantId);
-        List<OrderResponse> orders = orderService.getOrdersByRestaurant(restaurantId);
+        OrderPage orders = orderService.getOrdersByRestaurant(restaurantId, cursor, size);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
+    public ResponseEntity<OrderPage> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         log.info("Received request to get all orders");
-        List<OrderResponse> orders = orderService.getAllOrders();
+        OrderPage orders = orderService.getAllOrders(cursor, size);
         return ResponseEntity.ok(orders);
     }
 
@@ -0,0 +1,11 @@
+package com.fooddel.order.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * An order item read straight into its columns, with its order's id, for listing many orders'
+ * items in one query.
+ */
+public record OrderItemRow(Long orderId, Long id, Long menuItemId, String menuItemName, Integer quantity,
+                           BigDecimal pricePerUnit, BigDecimal subtotal) {
+}
@@ -0,0 +1,20 @@
+package com.fooddel.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of orders, newest first. {@code nextCursor} is passed back as {@code cursor} for the
+ * page after this one, and is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPage {
+
+    private List<OrderResponse> orders;
+    private String nextCursor;
+}
@@ -0,0 +1,68 @@
+package com.fooddel.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order created under an {@code Idempotency-Key}. The row is written as a claim before the
+ * order exists; {@code orderId} and {@code response} are filled in once it has been created.
+ *
+ * The key is assigned, not generated, so {@link #isNew()} tells Spring Data to persist a new claim
+ * rather than merge it: a second claim on the same key must fail on the primary key, not quietly
+ * update the first.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    // Customer id and the client's key, as "<customerId>:<key>"
+    @Id
+    @Column(length = 160)
+    private String idempotencyKey;
+
+    // SHA-256 of the request as JSON, hex encoded
+    @Column(nullable = false, length = 64)
+    private String requestDigest;
+
+    private Long orderId;
+
+    // The OrderResponse as JSON
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set once the row is in the database, whether this instance inserted it or loaded it
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private boolean stored;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+}
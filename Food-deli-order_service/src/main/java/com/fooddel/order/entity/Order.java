@@ -15,14 +15,21 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Serve the keyset pages of OrderRepository, newest first
+        @Index(name = "idx_orders_customer_created", columnList = "customerId, createdAt, id"),
+        @Index(name = "idx_orders_restaurant_created", columnList = "restaurantId, createdAt, id"),
+        @Index(name = "idx_orders_created", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
+    // From a pooled sequence rather than IDENTITY, so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -15,8 +15,10 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class OrderItem {
 
+    // Pooled like Order's, so an order's items go out as one batched insert
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,7 @@
+package com.fooddel.order.exception;
+
+public class InvalidPageRequestException extends RuntimeException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,308 @@
+package com.fooddel.order.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.dto.OrderResponse;
+import com.fooddel.order.entity.IdempotencyRecord;
+import com.fooddel.order.exception.IdempotencyConflictException;
+import com.fooddel.order.exception.InvalidIdempotencyKeyException;
+import com.fooddel.order.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the order created for each {@code Idempotency-Key}, so a client retrying
+ * {@code POST /api/orders} gets the original response back instead of a second order.
+ *
+ * Keys are scoped to the customer. In memory they are split by hash over a fixed number of
+ * stripes, each an insertion-ordered map under its own lock: a lookup is one hash and one short
+ * critical section, and retries of different keys seldom wait on each other. A stripe holds at
+ * most its share of {@code max-entries} and drops entries past their TTL from its head as new ones
+ * come in. The first request for a key claims it before the order is created; a concurrent retry
+ * on the same instance waits for that result instead of validating and inserting again.
+ *
+ * Behind the memory is the {@code idempotency_keys} table, for retries that reach another instance
+ * or come after a restart. The row is claimed before the order is created and given the response
+ * afterwards. A retry that finds a claim without a response is refused with a conflict, as is a
+ * key reused with a different request; requests are told apart by a SHA-256 digest of their JSON.
+ * Expired rows are purged on a schedule.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private static final int STRIPES = 64;
+    private static final String IN_PROGRESS = "An order with this Idempotency-Key is still being created";
+    private static final String REUSED = "Idempotency-Key was already used for a different order";
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final long ttlMs;
+    private final long waitMs;
+    private final int entriesPerStripe;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final Counter created;
+    private final Counter replayed;
+    private final Counter conflicts;
+
+    @Autowired
+    public IdempotencyStore(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${order.idempotency.ttl-ms:86400000}") long ttlMs,
+                            @Value("${order.idempotency.max-entries:50000}") int maxEntries,
+                            @Value("${order.idempotency.wait-ms:30000}") long waitMs) {
+        this(repository, objectMapper, meterRegistry, ttlMs, maxEntries, waitMs, Clock.systemUTC());
+    }
+
+    IdempotencyStore(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry, long ttlMs, int maxEntries, long waitMs, Clock clock) {
+        if (ttlMs <= 0 || maxEntries <= 0 || waitMs < 0) {
+            throw new IllegalArgumentException("Idempotency TTL and max entries must be positive and wait "
+                    + "must not be negative: " + ttlMs + ", " + maxEntries + ", " + waitMs);
+        }
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttlMs = ttlMs;
+        this.waitMs = waitMs;
+        this.entriesPerStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.created = requestCounter(meterRegistry, "created");
+        this.replayed = requestCounter(meterRegistry, "replayed");
+        this.conflicts = requestCounter(meterRegistry, "conflict");
+    }
+
+    /**
+     * Create the order once per key: the first call runs {@code createOrder}, later calls with the
+     * same key and request return its response.
+     *
+     * @throws InvalidIdempotencyKeyException if the key is blank or too long
+     * @throws IdempotencyConflictException if the key was used for a different request, or its
+     *         order is still being created elsewhere
+     */
+    public OrderResponse execute(String idempotencyKey, CreateOrderRequest request,
+                                 Supplier<OrderResponse> createOrder) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String key = request.getCustomerId() + ":" + idempotencyKey;
+        String requestDigest = digest(request);
+        long now = clock.millis();
+
+        int h = key.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        Entry entry;
+        boolean first = false;
+        synchronized (stripe) {
+            entry = stripe.get(key, now);
+            if (entry == null) {
+                entry = new Entry(requestDigest, now + ttlMs);
+                stripe.put(key, entry, now);
+                first = true;
+            }
+        }
+        if (!first) {
+            // Waited on outside the stripe lock, so a slow first request holds up no other key
+            return replay(entry, requestDigest);
+        }
+
+        try {
+            OrderResponse response = claimAndCreate(key, requestDigest, createOrder);
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // Nothing was created under the key, so a later retry may try again
+            synchronized (stripe) {
+                stripe.remove(key, entry);
+            }
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(LocalDateTime.now(clock));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * SHA-256 of the request as JSON, hex encoded. Jackson writes the fields in declaration order,
+     * so equal requests give equal digests on every instance.
+     */
+    String digest(CreateOrderRequest request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Order request could not be written as JSON", e);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private OrderResponse replay(Entry entry, String requestDigest) {
+        if (!entry.requestDigest.equals(requestDigest)) {
+            conflicts.increment();
+            throw new IdempotencyConflictException(REUSED);
+        }
+        try {
+            OrderResponse replay = entry.response.get(waitMs, TimeUnit.MILLISECONDS);
+            replayed.increment();
+            return replay;
+        } catch (TimeoutException e) {
+            conflicts.increment();
+            throw new IdempotencyConflictException(IN_PROGRESS);
+        } catch (ExecutionException e) {
+            // The same failure the first request got
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original order", e);
+        }
+    }
+
+    private OrderResponse claimAndCreate(String key, String requestDigest, Supplier<OrderResponse> createOrder) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        IdempotencyRecord existing = repository.findById(key).orElse(null);
+        if (existing != null && !existing.getExpiresAt().isAfter(now)) {
+            // The claim below is a plain insert, so an expired row has to go first
+            repository.deleteIfExpired(key, now);
+            existing = null;
+        }
+        if (existing != null) {
+            if (!existing.getRequestDigest().equals(requestDigest)) {
+                conflicts.increment();
+                throw new IdempotencyConflictException(REUSED);
+            }
+            if (existing.getResponse() == null) {
+                conflicts.increment();
+                throw new IdempotencyConflictException(IN_PROGRESS);
+            }
+            replayed.increment();
+            return readResponse(existing.getResponse());
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(key);
+        record.setRequestDigest(requestDigest);
+        record.setExpiresAt(now.plusNanos(ttlMs * 1_000_000));
+        try {
+            // An INSERT: the record is new (see IdempotencyRecord.isNew), so a key claimed meanwhile fails here
+            record = repository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance claimed the key between the lookup and the insert
+            conflicts.increment();
+            throw new IdempotencyConflictException(IN_PROGRESS);
+        }
+
+        OrderResponse response;
+        try {
+            response = createOrder.get();
+        } catch (RuntimeException e) {
+            repository.deleteById(key);
+            throw e;
+        }
+        created.increment();
+
+        try {
+            record.setOrderId(response.getId());
+            record.setResponse(objectMapper.writeValueAsString(response));
+            repository.save(record);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The order exists; retries elsewhere see the bare claim and get a conflict until it expires
+            log.error("Failed to record response for order {} under idempotency key {}", response.getId(), key, e);
+        }
+        return response;
+    }
+
+    private OrderResponse readResponse(String json) {
+        try {
+            return objectMapper.readValue(json, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored order response could not be read", e);
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.idempotency.requests")
+                .description("Order creations carrying an Idempotency-Key, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Entry {
+        final String requestDigest;
+        final long expiresAt;
+        final CompletableFuture<OrderResponse> response = new CompletableFuture<>();
+
+        Entry(String requestDigest, long expiresAt) {
+            this.requestDigest = requestDigest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Guarded by its own monitor
+    private final class Stripe {
+        // Every entry lives for the same TTL, so insertion order is also expiry order
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        Entry get(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= now) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+
+        void put(String key, Entry entry, long now) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (eldest.hasNext()) {
+                Entry next = eldest.next();
+                if (next.expiresAt > now && entries.size() < entriesPerStripe) {
+                    break;
+                }
+                eldest.remove();
+            }
+            entries.put(key, entry);
+        }
+
+        void remove(String key, Entry entry) {
+            entries.remove(key, entry);
+        }
+    }
+}
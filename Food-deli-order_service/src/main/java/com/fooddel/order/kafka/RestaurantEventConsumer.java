@@ -0,0 +1,48 @@
+package com.fooddel.order.kafka;
+
+import com.fooddel.order.menu.MenuReplica;
+import com.fooddelivery.events.KafkaTopics;
+import com.fooddelivery.events.RestaurantEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantEventConsumer implements ConsumerSeekAware {
+
+    private final MenuReplica menuReplica;
+
+    /**
+     * The replica lives in memory, so it is rebuilt from the start of the topic whatever offsets the
+     * instance's consumer group committed before a restart.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToBeginning(assignments.keySet());
+    }
+
+    @KafkaListener(
+        topics = KafkaTopics.RESTAURANT_EVENTS,
+        containerFactory = "restaurantEventKafkaListenerContainerFactory"
+    )
+    public void consumeRestaurantEvent(RestaurantEvent event) {
+        log.debug("Received restaurant event: {}", event);
+
+        try {
+            if (event.getRestaurantId() == null || event.getVersion() == null) {
+                log.warn("Skipping restaurant event without restaurant id or version: {}", event);
+                return;
+            }
+            menuReplica.apply(event);
+        } catch (Exception e) {
+            log.error("Error applying restaurant event for restaurant: {}", event.getRestaurantId(), e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.fooddel.order.menu;
+
+import com.fooddel.order.client.MenuItemDTO;
+import com.fooddel.order.client.RestaurantDTO;
+import com.fooddelivery.events.RestaurantEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local copy of the restaurants and menu items of restaurant-service, built from
+ * {@code restaurant-events}, so an order can be priced and checked without a call.
+ *
+ * Menu items are kept by id and restaurants by id, each in a {@link LongObjectMap}. Every event
+ * carries its restaurant's catalog version, which goes up by one per change: an event at or below
+ * the version already applied is a replay and is dropped. An event further ahead than the next
+ * version means changes were missed, so the restaurant's items are evicted and its active flag is
+ * forgotten until a restaurant event brings it back. Anything the replica does not hold is a miss,
+ * for the caller to look up in restaurant-service.
+ */
+@Component
+@Slf4j
+public class MenuReplica {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectMap<Item> items = new LongObjectMap<>(1024);
+    private final LongObjectMap<Restaurant> restaurants = new LongObjectMap<>(64);
+
+    private final Counter applied;
+    private final Counter stale;
+    private final Counter gaps;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MenuReplica(MeterRegistry meterRegistry) {
+        this.applied = eventCounter(meterRegistry, "applied");
+        this.stale = eventCounter(meterRegistry, "stale");
+        this.gaps = eventCounter(meterRegistry, "gap");
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("order.menu-replica.items", this, MenuReplica::itemCount)
+                .description("Menu items held in the local replica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Apply one restaurant event.
+     *
+     * @return false if the event was a replay of a version already applied, or of an unknown type
+     */
+    public boolean apply(RestaurantEvent event) {
+        long restaurantId = event.getRestaurantId();
+        long version = event.getVersion();
+        lock.writeLock().lock();
+        try {
+            Restaurant current = restaurants.get(restaurantId);
+            if (current != null && version <= current.version()) {
+                stale.increment();
+                return false;
+            }
+            String name = current != null ? current.name() : null;
+            Boolean active = current != null ? current.active() : null;
+            if (version > (current != null ? current.version() : 0) + 1) {
+                // Some earlier change never arrived: trust nothing of this restaurant but the event itself
+                gaps.increment();
+                log.warn("Restaurant {} jumped to catalog version {} from {}; evicting its menu",
+                        restaurantId, version, current != null ? current.version() : 0);
+                evictItems(restaurantId);
+                active = null;
+            }
+
+            switch (event.getEventType()) {
+                case "RESTAURANT_REGISTERED", "RESTAURANT_STATUS_CHANGED" -> {
+                    name = event.getRestaurantName();
+                    active = event.getActive();
+                }
+                case "RESTAURANT_DELETED" -> {
+                    // Kept as inactive, so orders are turned away without asking restaurant-service
+                    evictItems(restaurantId);
+                    active = false;
+                }
+                case "MENU_ITEM_UPDATED" -> items.put(event.getMenuItemId(), new Item(restaurantId,
+                        event.getMenuItemName(), event.getPrice(), Boolean.TRUE.equals(event.getAvailable())));
+                case "MENU_ITEM_DELETED" -> items.remove(event.getMenuItemId());
+                default -> {
+                    log.warn("Ignoring restaurant event of unknown type {}", event.getEventType());
+                    return false;
+                }
+            }
+            restaurants.put(restaurantId, new Restaurant(version, name, active));
+            applied.increment();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The restaurant, if the replica knows whether it is active; null otherwise.
+     */
+    public RestaurantDTO restaurant(long restaurantId) {
+        Restaurant restaurant;
+        lock.readLock().lock();
+        try {
+            restaurant = restaurants.get(restaurantId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (restaurant == null || restaurant.active() == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        RestaurantDTO dto = new RestaurantDTO();
+        dto.setId(restaurantId);
+        dto.setName(restaurant.name());
+        dto.setActive(restaurant.active());
+        return dto;
+    }
+
+    /**
+     * The menu item, or null if the replica does not hold it.
+     */
+    public MenuItemDTO menuItem(long menuItemId) {
+        Item item;
+        lock.readLock().lock();
+        try {
+            item = items.get(menuItemId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (item == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        MenuItemDTO dto = new MenuItemDTO();
+        dto.setId(menuItemId);
+        dto.setName(item.name());
+        dto.setPrice(item.price());
+        dto.setAvailable(item.available());
+        dto.setRestaurantId(item.restaurantId());
+        return dto;
+    }
+
+    public int itemCount() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void evictItems(long restaurantId) {
+        List<Long> evicted = new ArrayList<>();
+        items.forEach((menuItemId, item) -> {
+            if (item.restaurantId() == restaurantId) {
+                evicted.add(menuItemId);
+            }
+        });
+        evicted.forEach(items::remove);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.menu-replica.events")
+                .description("Restaurant events applied to the menu replica, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.menu-replica.lookups")
+                .description("Menu replica lookups, by whether the replica held the entry")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Item(long restaurantId, String name, BigDecimal price, boolean available) {}
+
+    // A null active flag means it is unknown since changes were missed
+    private record Restaurant(long version, String name, Boolean active) {}
+}
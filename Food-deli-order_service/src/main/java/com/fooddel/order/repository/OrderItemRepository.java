@@ -1,13 +1,23 @@
 package com.fooddel.order.repository;
 
+import com.fooddel.order.dto.OrderItemRow;
 import com.fooddel.order.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
     List<OrderItem> findByOrderId(Long orderId);
+
+    // The items of a page of orders in one query, without loading the orders again
+    @Query("SELECT new com.fooddel.order.dto.OrderItemRow(i.order.id, i.id, i.menuItemId, i.menuItemName, "
+            + "i.quantity, i.pricePerUnit, i.subtotal) "
+            + "FROM OrderItem i WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItemRow> findRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
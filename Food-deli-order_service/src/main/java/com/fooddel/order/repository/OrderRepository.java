@@ -2,9 +2,13 @@ package com.fooddel.order.repository;
 
 import com.fooddel.order.entity.Order;
 import com.fooddel.order.enums.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -17,4 +21,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByOrderStatus(OrderStatus status);
 
     List<Order> findByCustomerIdOrderByCreatedAtDesc(Long customerId);
+
+    // Keyset pages, newest first: the first page, then the page after a (createdAt, id) cursor
+
+    List<Order> findByCustomerIdOrderByCreatedAtDescIdDesc(Long customerId, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.customerId = :customerId "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByCustomerIdAfter(@Param("customerId") Long customerId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, Limit limit);
+
+    List<Order> findByRestaurantIdOrderByCreatedAtDescIdDesc(Long restaurantId, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.restaurantId = :restaurantId "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByRestaurantIdAfter(@Param("restaurantId") Long restaurantId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id, Limit limit);
+
+    List<Order> findAllByOrderByCreatedAtDescIdDesc(Limit limit);
+
+    @Query("SELECT o FROM Order o "
+            + "WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findAllAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
 }
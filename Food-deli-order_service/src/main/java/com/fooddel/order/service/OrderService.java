@@ -1,11 +1,9 @@
 package com.fooddel.order.service;
 
 import com.fooddel.order.client.MenuItemDTO;
-import com.fooddel.order.client.RestaurantDTO;
-import com.fooddel.order.client.RestaurantServiceClient;
-import com.fooddel.order.client.UserDTO;
-import com.fooddel.order.client.UserServiceClient;
 import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.dto.OrderItemRow;
+import com.fooddel.order.dto.OrderPage;
 import com.fooddel.order.dto.OrderResponse;
 import com.fooddel.order.entity.Order;
 import com.fooddelivery.events.OrderEvent;
@@ -14,16 +12,27 @@ import com.fooddel.order.entity.OrderItem;
 import com.fooddel.order.enums.OrderStatus;
 import com.fooddel.order.enums.PaymentStatus;
 import com.fooddel.order.exception.InvalidOrderStatusException;
+import com.fooddel.order.exception.InvalidPageRequestException;
 import com.fooddel.order.exception.OrderNotFoundException;
+import com.fooddel.order.idempotency.IdempotencyStore;
 import com.fooddel.order.kafka.OrderEventProducer;
+import com.fooddel.order.repository.OrderItemRepository;
 import com.fooddel.order.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,28 +40,33 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final OrderEventProducer orderEventProducer;
-    private final RestaurantServiceClient restaurantServiceClient;
-    private final UserServiceClient userServiceClient;
+    private final OrderValidator orderValidator;
+    private final IdempotencyStore idempotencyStore;
+
+    /**
+     * Create the order, or return the one already created under the same Idempotency-Key.
+     * Without a key every call creates a new order.
+     */
+    public OrderResponse createOrder(CreateOrderRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return createOrder(request);
+        }
+        return idempotencyStore.execute(idempotencyKey, request, () -> createOrder(request));
+    }
 
-    @Transactional
+    // Not @Transactional: the lookups are remote calls and must not hold a connection open. The
+    // order and its items are written by the single save below, in the repository's own transaction.
     public OrderResponse createOrder(CreateOrderRequest request) {
         log.info("Creating order for customer: {}, restaurant: {}", 
                 request.getCustomerId(), request.getRestaurantId());
 
-        // Validate customer exists
-        log.debug("Validating customer: {}", request.getCustomerId());
-        UserDTO customer = userServiceClient.getUser(request.getCustomerId());
-        log.debug("Customer validated: {}", customer.getUsername());
-
-        // Validate restaurant exists and is active
-        log.debug("Validating restaurant: {}", request.getRestaurantId());
-        RestaurantDTO restaurant = restaurantServiceClient.getRestaurant(request.getRestaurantId());
-        if (!restaurant.isActive()) {
-            throw new IllegalStateException("Restaurant is not currently accepting orders");
-        }
-        log.debug("Restaurant validated: {}", restaurant.getName());
+        // Validate customer, restaurant and menu items
+        OrderValidator.ValidatedOrder validated = orderValidator.validate(request);
 
         // Create order entity
         Order order = new Order();
@@ -63,17 +77,11 @@ public class OrderService {
         order.setOrderStatus(OrderStatus.PENDING);
         order.setPaymentStatus(PaymentStatus.PENDING);
 
-        // Create order items with validation
+        // Create order items at the actual prices
         BigDecimal totalAmount = BigDecimal.ZERO;
         for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
-            // Validate menu item exists and get actual price
-            log.debug("Validating menu item: {}", itemRequest.getMenuItemId());
-            MenuItemDTO menuItem = restaurantServiceClient.getMenuItem(itemRequest.getMenuItemId());
-            
-            if (!menuItem.isAvailable()) {
-                throw new IllegalStateException("Menu item " + menuItem.getName() + " is not available");
-            }
-            
+            MenuItemDTO menuItem = validated.menuItems().get(itemRequest.getMenuItemId());
+
             OrderItem orderItem = new OrderItem();
             orderItem.setMenuItemId(itemRequest.getMenuItemId());
             orderItem.setMenuItemName(menuItem.getName());
@@ -114,31 +122,41 @@ public class OrderService {
         return mapToOrderResponse(order);
     }
 
+    // Listings are keyset pages, newest first: a cursor is the (createdAt, id) of the last order
+    // returned, so each page is an index range scan however deep it is, and no page holds more
+    // than MAX_PAGE_SIZE orders. Their items are read for the whole page in one query.
+
     @Transactional(readOnly = true)
-    public List<OrderResponse> getOrdersByCustomer(Long customerId) {
+    public OrderPage getOrdersByCustomer(Long customerId, String cursor, int size) {
         log.info("Fetching orders for customer: {}", customerId);
-        List<Order> orders = orderRepository.findByCustomerIdOrderByCreatedAtDesc(customerId);
-        return orders.stream()
-                .map(this::mapToOrderResponse)
-                .collect(Collectors.toList());
+        PageCursor after = decodeCursor(cursor);
+        Limit limit = pageLimit(size);
+        List<Order> orders = after == null
+                ? orderRepository.findByCustomerIdOrderByCreatedAtDescIdDesc(customerId, limit)
+                : orderRepository.findByCustomerIdAfter(customerId, after.createdAt(), after.id(), limit);
+        return toOrderPage(orders, size);
     }
 
     @Transactional(readOnly = true)
-    public List<OrderResponse> getOrdersByRestaurant(Long restaurantId) {
+    public OrderPage getOrdersByRestaurant(Long restaurantId, String cursor, int size) {
         log.info("Fetching orders for restaurant: {}", restaurantId);
-        List<Order> orders = orderRepository.findByRestaurantId(restaurantId);
-        return orders.stream()
-                .map(this::mapToOrderResponse)
-                .collect(Collectors.toList());
+        PageCursor after = decodeCursor(cursor);
+        Limit limit = pageLimit(size);
+        List<Order> orders = after == null
+                ? orderRepository.findByRestaurantIdOrderByCreatedAtDescIdDesc(restaurantId, limit)
+                : orderRepository.findByRestaurantIdAfter(restaurantId, after.createdAt(), after.id(), limit);
+        return toOrderPage(orders, size);
     }
 
     @Transactional(readOnly = true)
-    public List<OrderResponse> getAllOrders() {
+    public OrderPage getAllOrders(String cursor, int size) {
         log.info("Fetching all orders");
-        List<Order> orders = orderRepository.findAll();
-        return orders.stream()
-                .map(this::mapToOrderResponse)
-                .collect(Collectors.toList());
+        PageCursor after = decodeCursor(cursor);
+        Limit limit = pageLimit(size);
+        List<Order> orders = after == null
+                ? orderRepository.findAllByOrderByCreatedAtDescIdDesc(limit)
+                : orderRepository.findAllAfter(after.createdAt(), after.id(), limit);
+        return toOrderPage(orders, size);
     }
 
     @Transactional
@@ -252,7 +270,72 @@ public class OrderService {
         }
     }
 
+    // One more than the page, to tell whether another page follows
+    private Limit pageLimit(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return Limit.of(size + 1);
+    }
+
+    private OrderPage toOrderPage(List<Order> orders, int size) {
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            Order last = orders.get(size - 1);
+            nextCursor = encodeCursor(new PageCursor(last.getCreatedAt(), last.getId()));
+        }
+        if (orders.isEmpty()) {
+            return new OrderPage(List.of(), null);
+        }
+
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        Map<Long, List<OrderResponse.OrderItemResponse>> itemsByOrder = new HashMap<>();
+        for (OrderItemRow row : orderItemRepository.findRowsByOrderIdIn(orderIds)) {
+            itemsByOrder.computeIfAbsent(row.orderId(), id -> new ArrayList<>())
+                    .add(new OrderResponse.OrderItemResponse(row.id(), row.menuItemId(), row.menuItemName(),
+                            row.quantity(), row.pricePerUnit(), row.subtotal()));
+        }
+        List<OrderResponse> responses = orders.stream()
+                .map(order -> mapToOrderResponse(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .collect(Collectors.toList());
+        return new OrderPage(responses, nextCursor);
+    }
+
+    private static String encodeCursor(PageCursor cursor) {
+        String value = cursor.createdAt() + "|" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PageCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new PageCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new InvalidPageRequestException("Invalid page cursor: " + cursor);
+        }
+    }
+
     private OrderResponse mapToOrderResponse(Order order) {
+        List<OrderResponse.OrderItemResponse> items = order.getOrderItems().stream()
+                .map(item -> new OrderResponse.OrderItemResponse(
+                        item.getId(),
+                        item.getMenuItemId(),
+                        item.getMenuItemName(),
+                        item.getQuantity(),
+                        item.getPricePerUnit(),
+                        item.getSubtotal()
+                ))
+                .collect(Collectors.toList());
+        return mapToOrderResponse(order, items);
+    }
+
+    private OrderResponse mapToOrderResponse(Order order, List<OrderResponse.OrderItemResponse> items) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setCustomerId(order.getCustomerId());
@@ -264,19 +347,9 @@ public class OrderService {
         response.setSpecialInstructions(order.getSpecialInstructions());
         response.setCreatedAt(order.getCreatedAt());
         response.setUpdatedAt(order.getUpdatedAt());
-
-        List<OrderResponse.OrderItemResponse> items = order.getOrderItems().stream()
-                .map(item -> new OrderResponse.OrderItemResponse(
-                        item.getId(),
-                        item.getMenuItemId(),
-                        item.getMenuItemName(),
-                        item.getQuantity(),
-                        item.getPricePerUnit(),
-                        item.getSubtotal()
-                ))
-                .collect(Collectors.toList());
         response.setItems(items);
-
         return response;
     }
+
+    private record PageCursor(LocalDateTime createdAt, Long id) {}
 }
@@ -0,0 +1,130 @@
+package com.fooddel.order.service;
+
+import com.fooddel.order.client.MenuItemDTO;
+import com.fooddel.order.client.RestaurantDTO;
+import com.fooddel.order.client.RestaurantServiceClient;
+import com.fooddel.order.client.UserDTO;
+import com.fooddel.order.client.UserServiceClient;
+import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.menu.MenuReplica;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Checks the customer, the restaurant and the menu items of a new order against the services
+ * that own them. The three lookups run at the same time, and the menu items come back in calls of
+ * up to {@value #MAX_ITEMS_PER_LOOKUP}, restaurant-service's limit, also run side by side, so an
+ * order costs one round trip however many items it has.
+ *
+ * The restaurant and menu items are read from the {@link MenuReplica} first; restaurant-service
+ * is only asked for what the replica misses.
+ */
+@Service
+@Slf4j
+public class OrderValidator {
+
+    static final int MAX_ITEMS_PER_LOOKUP = 100;
+
+    private final UserServiceClient userServiceClient;
+    private final RestaurantServiceClient restaurantServiceClient;
+    private final MenuReplica menuReplica;
+    private final ExecutorService lookupExecutor;
+
+    public OrderValidator(UserServiceClient userServiceClient,
+                          RestaurantServiceClient restaurantServiceClient,
+                          MenuReplica menuReplica,
+                          @Qualifier("lookupExecutor") ExecutorService lookupExecutor) {
+        this.userServiceClient = userServiceClient;
+        this.restaurantServiceClient = restaurantServiceClient;
+        this.menuReplica = menuReplica;
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    public ValidatedOrder validate(CreateOrderRequest request) {
+        List<Long> menuItemIds = request.getItems().stream()
+                .map(CreateOrderRequest.OrderItemRequest::getMenuItemId)
+                .distinct()
+                .toList();
+
+        Map<Long, MenuItemDTO> menuItems = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long menuItemId : menuItemIds) {
+            MenuItemDTO menuItem = menuReplica.menuItem(menuItemId);
+            if (menuItem != null) {
+                menuItems.put(menuItemId, menuItem);
+            } else {
+                missing.add(menuItemId);
+            }
+        }
+        RestaurantDTO replicatedRestaurant = menuReplica.restaurant(request.getRestaurantId());
+
+        CompletableFuture<UserDTO> customerLookup = CompletableFuture.supplyAsync(
+                () -> userServiceClient.getUser(request.getCustomerId()), lookupExecutor);
+        CompletableFuture<RestaurantDTO> restaurantLookup = replicatedRestaurant != null
+                ? CompletableFuture.completedFuture(replicatedRestaurant)
+                : CompletableFuture.supplyAsync(
+                        () -> restaurantServiceClient.getRestaurant(request.getRestaurantId()), lookupExecutor);
+        List<CompletableFuture<List<MenuItemDTO>>> menuItemsLookups = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += MAX_ITEMS_PER_LOOKUP) {
+            List<Long> chunk = missing.subList(from, Math.min(from + MAX_ITEMS_PER_LOOKUP, missing.size()));
+            menuItemsLookups.add(CompletableFuture.supplyAsync(
+                    () -> restaurantServiceClient.getMenuItems(chunk), lookupExecutor));
+        }
+
+        // Validate customer exists
+        UserDTO customer = await(customerLookup);
+        log.debug("Customer validated: {}", customer.getUsername());
+
+        // Validate restaurant exists and is active
+        RestaurantDTO restaurant = await(restaurantLookup);
+        if (!restaurant.isActive()) {
+            throw new IllegalStateException("Restaurant is not currently accepting orders");
+        }
+        log.debug("Restaurant validated: {}", restaurant.getName());
+
+        // Validate every menu item exists and is available
+        for (CompletableFuture<List<MenuItemDTO>> menuItemsLookup : menuItemsLookups) {
+            for (MenuItemDTO menuItem : await(menuItemsLookup)) {
+                menuItems.put(menuItem.getId(), menuItem);
+            }
+        }
+        for (Long menuItemId : menuItemIds) {
+            MenuItemDTO menuItem = menuItems.get(menuItemId);
+            if (menuItem == null) {
+                throw new IllegalStateException("Menu item " + menuItemId + " not found");
+            }
+            if (!menuItem.isAvailable()) {
+                throw new IllegalStateException("Menu item " + menuItem.getName() + " is not available");
+            }
+        }
+        log.debug("{} menu items validated", menuItems.size());
+
+        return new ValidatedOrder(customer, restaurant, menuItems);
+    }
+
+    // Rethrow what the lookup threw, so FeignException still reaches GlobalExceptionHandler
+    private static <T> T await(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The looked-up customer and restaurant, and the menu items of the order by id.
+     */
+    public record ValidatedOrder(UserDTO customer, RestaurantDTO restaurant, Map<Long, MenuItemDTO> menuItems) {}
+}
@@ -0,0 +1,172 @@
+package com.fooddel.order.benchmark;
+
+import com.fooddel.order.client.MenuItemDTO;
+import com.fooddel.order.client.RestaurantDTO;
+import com.fooddel.order.client.RestaurantServiceClient;
+import com.fooddel.order.client.UserDTO;
+import com.fooddel.order.client.UserServiceClient;
+import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.dto.OrderResponse;
+import com.fooddel.order.entity.Order;
+import com.fooddel.order.idempotency.IdempotencyStore;
+import com.fooddel.order.kafka.OrderEventProducer;
+import com.fooddel.order.menu.MenuReplica;
+import com.fooddel.order.repository.OrderItemRepository;
+import com.fooddel.order.repository.OrderRepository;
+import com.fooddel.order.service.OrderService;
+import com.fooddel.order.service.OrderValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latency of {@link OrderService#createOrder} when every remote call costs {@code rttMillis}, sampled
+ * so the p99 can be read off the histogram. {@code sequentialLookups} is the call pattern createOrder
+ * had before validation was batched and concurrent: user, restaurant, then one call per item.
+ *
+ * The Feign clients are stubs that sleep for the round trip; the repository and producer are mocks.
+ * The menu replica is empty, so every lookup goes over the network.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=OrderCreateBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCreateBenchmark {
+
+    @Param({"1", "10"})
+    public int items;
+
+    @Param({"5"})
+    public int rttMillis;
+
+    private ExecutorService lookupExecutor;
+    private UserServiceClient userServiceClient;
+    private RestaurantServiceClient restaurantServiceClient;
+    private OrderService orderService;
+    private CreateOrderRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.fooddel.order"))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        userServiceClient = id -> {
+            roundTrip();
+            UserDTO user = new UserDTO();
+            user.setId(id);
+            user.setUsername("customer" + id);
+            user.setActive(true);
+            return user;
+        };
+        restaurantServiceClient = new RestaurantServiceClient() {
+            @Override
+            public RestaurantDTO getRestaurant(Long id) {
+                roundTrip();
+                RestaurantDTO restaurant = new RestaurantDTO();
+                restaurant.setId(id);
+                restaurant.setName("Restaurant " + id);
+                restaurant.setActive(true);
+                return restaurant;
+            }
+
+            @Override
+            public MenuItemDTO getMenuItem(Long id) {
+                roundTrip();
+                return menuItem(id);
+            }
+
+            @Override
+            public List<MenuItemDTO> getMenuItems(List<Long> ids) {
+                roundTrip();
+                return ids.stream().map(OrderCreateBenchmark::menuItem).toList();
+            }
+        };
+
+        AtomicLong ids = new AtomicLong();
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(ids.incrementAndGet());
+            return order;
+        });
+        lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        orderService = new OrderService(orderRepository, mock(OrderItemRepository.class),
+                mock(OrderEventProducer.class),
+                new OrderValidator(userServiceClient, restaurantServiceClient,
+                        new MenuReplica(new SimpleMeterRegistry()), lookupExecutor),
+                mock(IdempotencyStore.class));
+
+        List<CreateOrderRequest.OrderItemRequest> itemRequests = new ArrayList<>();
+        for (long id = 1; id <= items; id++) {
+            itemRequests.add(new CreateOrderRequest.OrderItemRequest(id, 1));
+        }
+        request = new CreateOrderRequest(100L, 200L, "123 Main St", null, itemRequests);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public OrderResponse createOrder() {
+        return orderService.createOrder(request);
+    }
+
+    @Benchmark
+    public List<MenuItemDTO> sequentialLookups() {
+        userServiceClient.getUser(request.getCustomerId());
+        restaurantServiceClient.getRestaurant(request.getRestaurantId());
+        List<MenuItemDTO> menuItems = new ArrayList<>();
+        for (CreateOrderRequest.OrderItemRequest item : request.getItems()) {
+            menuItems.add(restaurantServiceClient.getMenuItem(item.getMenuItemId()));
+        }
+        return menuItems;
+    }
+
+    private void roundTrip() {
+        try {
+            Thread.sleep(rttMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MenuItemDTO menuItem(Long id) {
+        MenuItemDTO menuItem = new MenuItemDTO();
+        menuItem.setId(id);
+        menuItem.setName("Item " + id);
+        menuItem.setPrice(BigDecimal.valueOf(9.50));
+        menuItem.setAvailable(true);
+        return menuItem;
+    }
+}
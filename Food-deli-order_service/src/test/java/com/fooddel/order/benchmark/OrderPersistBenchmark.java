@@ -0,0 +1,122 @@
+package com.fooddel.order.benchmark;
+
+import com.fooddel.order.entity.Order;
+import com.fooddel.order.entity.OrderItem;
+import com.fooddel.order.enums.OrderStatus;
+import com.fooddel.order.enums.PaymentStatus;
+import org.h2.tools.Server;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second written the way {@code OrderRepository.save} writes one: the order and its
+ * {@code items} cart lines in one transaction. The database is H2 behind its TCP server, so each
+ * statement is a real round trip over a socket. {@code jdbcBatchSize} 1 turns batching off and sends
+ * an INSERT per row, as IDENTITY ids forced before; 50 is the setting in application.yml. The
+ * prepared statements per order are printed at the end of each trial.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=OrderPersistBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPersistBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int items;
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    private Server server;
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.hibernate"))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL,
+                        "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:orders;DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .applySetting(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+                .applySetting(AvailableSettings.POOL_SIZE, 4)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, jdbcBatchSize)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .applySetting(AvailableSettings.GENERATE_STATISTICS, true)
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Order.class)
+                .addAnnotatedClass(OrderItem.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Statistics statistics = sessionFactory.getStatistics();
+        System.out.printf("%n%d items, batch size %d: %.2f statements per order%n", items, jdbcBatchSize,
+                (double) statistics.getPrepareStatementCount() / statistics.getSuccessfulTransactionCount());
+        sessionFactory.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public Long persistOrder() {
+        Order order = new Order();
+        order.setCustomerId(100L);
+        order.setRestaurantId(200L);
+        order.setDeliveryAddress("123 Main St");
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setPaymentStatus(PaymentStatus.PENDING);
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (long id = 1; id <= items; id++) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setMenuItemId(id);
+            orderItem.setMenuItemName("Item " + id);
+            orderItem.setPricePerUnit(BigDecimal.valueOf(9.50));
+            orderItem.setQuantity(1);
+            orderItem.calculateSubtotal();
+            totalAmount = totalAmount.add(orderItem.getSubtotal());
+            order.addOrderItem(orderItem);
+        }
+        order.setTotalAmount(totalAmount);
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(order);
+            session.getTransaction().commit();
+        }
+        return order.getId();
+    }
+}
@@ -0,0 +1,62 @@
+package com.fooddel.order.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdSequenceInitializerTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        // The tables Hibernate creates for the sequences on MySQL, as the schema update leaves them
+        for (String table : new String[] {"orders", "order_items"}) {
+            jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY)");
+        }
+        for (String sequence : new String[] {"order_seq", "order_item_seq"}) {
+            jdbcTemplate.execute("CREATE TABLE " + sequence + " (next_val BIGINT)");
+            jdbcTemplate.update("INSERT INTO " + sequence + " VALUES (1)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testAfterPropertiesSet_MovesSequencesPastExistingIds() {
+        jdbcTemplate.update("INSERT INTO orders VALUES (7), (1234)");
+        jdbcTemplate.update("INSERT INTO order_items VALUES (98765)");
+
+        new IdSequenceInitializer(jdbcTemplate).afterPropertiesSet();
+
+        // The first block handed out is next_val - 49 .. next_val
+        assertEquals(1234 + 1, nextVal("order_seq") - IdSequenceInitializer.ALLOCATION_SIZE + 1);
+        assertEquals(98765 + 1, nextVal("order_item_seq") - IdSequenceInitializer.ALLOCATION_SIZE + 1);
+    }
+
+    @Test
+    void testAfterPropertiesSet_NeverLowersASequence() {
+        jdbcTemplate.update("INSERT INTO orders VALUES (10)");
+        jdbcTemplate.update("UPDATE order_seq SET next_val = 5000");
+
+        new IdSequenceInitializer(jdbcTemplate).afterPropertiesSet();
+
+        assertEquals(5000, nextVal("order_seq"));
+    }
+
+    private long nextVal(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM " + sequence, Long.class);
+    }
+}
@@ -2,6 +2,7 @@ package com.fooddel.order.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.dto.OrderPage;
 import com.fooddel.order.dto.OrderResponse;
 import com.fooddel.order.dto.UpdateOrderStatusRequest;
 import com.fooddel.order.enums.OrderStatus;
@@ -22,6 +23,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -63,7 +65,7 @@ class OrderControllerTest {
 
     @Test
     void testCreateOrder_Success() throws Exception {
-        when(orderService.createOrder(any(CreateOrderRequest.class))).thenReturn(orderResponse);
+        when(orderService.createOrder(any(CreateOrderRequest.class), isNull())).thenReturn(orderResponse);
 
         mockMvc.perform(post("/api/orders")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -86,12 +88,14 @@ class OrderControllerTest {
 
     @Test
     void testGetOrdersByCustomer_Success() throws Exception {
-        when(orderService.getOrdersByCustomer(100L)).thenReturn(List.of(orderResponse));
+        when(orderService.getOrdersByCustomer(100L, null, 20))
+                .thenReturn(new OrderPage(List.of(orderResponse), "next"));
 
         mockMvc.perform(get("/api/orders/customer/100"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].customerId").value(100));
+                .andExpect(jsonPath("$.orders[0].id").value(1))
+                .andExpect(jsonPath("$.orders[0].customerId").value(100))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
     }
 
     @Test
@@ -0,0 +1,264 @@
+package com.fooddel.order.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.dto.OrderResponse;
+import com.fooddel.order.entity.IdempotencyRecord;
+import com.fooddel.order.enums.OrderStatus;
+import com.fooddel.order.exception.IdempotencyConflictException;
+import com.fooddel.order.exception.InvalidIdempotencyKeyException;
+import com.fooddel.order.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    private static final long TTL_MS = 60_000;
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger creations = new AtomicInteger();
+
+    private IdempotencyStore store;
+    private CreateOrderRequest request;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(repository.saveAndFlush(any(IdempotencyRecord.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        store = new IdempotencyStore(repository, objectMapper, new SimpleMeterRegistry(), TTL_MS, 1_000, 5_000, clock);
+        request = new CreateOrderRequest(100L, 200L, "123 Main St", null,
+                List.of(new CreateOrderRequest.OrderItemRequest(101L, 2)));
+    }
+
+    @Test
+    void testExecute_RetryReturnsOriginalResponse() {
+        OrderResponse first = store.execute("key-1", request, createOrder());
+        OrderResponse retry = store.execute("key-1", request, createOrder());
+
+        assertSame(first, retry);
+        assertEquals(1, creations.get());
+        verify(repository, times(1)).findById("100:key-1");
+        verify(repository).save(argThat(record ->
+                record.getOrderId().equals(first.getId()) && record.getResponse() != null));
+    }
+
+    @Test
+    void testExecute_KeyReusedForDifferentRequest() {
+        store.execute("key-1", request, createOrder());
+        CreateOrderRequest other = new CreateOrderRequest(100L, 200L, "9 Side St", null, request.getItems());
+
+        assertThrows(IdempotencyConflictException.class, () -> store.execute("key-1", other, createOrder()));
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    void testExecute_SameKeyFromAnotherCustomerIsSeparate() {
+        CreateOrderRequest other = new CreateOrderRequest(101L, 200L, "123 Main St", null, request.getItems());
+
+        OrderResponse first = store.execute("key-1", request, createOrder());
+        OrderResponse second = store.execute("key-1", other, createOrder());
+
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    void testExecute_ConcurrentRetriesCreateOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<OrderResponse> slowCreate = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return createOrder().get();
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OrderResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(executor.submit(() -> store.execute("key-1", request, slowCreate)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            OrderResponse first = responses.get(0).get();
+            for (Future<OrderResponse> response : responses) {
+                assertSame(first, response.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    void testExecute_FailureReleasesKey() {
+        assertThrows(IllegalStateException.class, () -> store.execute("key-1", request, () -> {
+            throw new IllegalStateException("Menu item 101 is not available");
+        }));
+        verify(repository).deleteById("100:key-1");
+
+        assertNotNull(store.execute("key-1", request, createOrder()));
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    void testExecute_RetryOnAnotherInstanceReadsStoredResponse() throws Exception {
+        OrderResponse original = response(42L);
+        when(repository.findById("100:key-1"))
+                .thenReturn(Optional.of(record(store.digest(request), objectMapper.writeValueAsString(original))));
+
+        OrderResponse retry = store.execute("key-1", request, createOrder());
+
+        assertEquals(original, retry);
+        assertEquals(0, creations.get());
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testExecute_ClaimWithoutResponseIsConflict() {
+        when(repository.findById("100:key-1")).thenReturn(Optional.of(record(store.digest(request), null)));
+
+        assertThrows(IdempotencyConflictException.class, () -> store.execute("key-1", request, createOrder()));
+        assertEquals(0, creations.get());
+    }
+
+    @Test
+    void testExecute_ExpiredKeyCreatesAgain() {
+        OrderResponse first = store.execute("key-1", request, createOrder());
+        clock.advance(TTL_MS);
+
+        OrderResponse second = store.execute("key-1", request, createOrder());
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(2, creations.get());
+    }
+
+    @Test
+    void testExecute_StoredDigestOfDifferentRequestIsConflict() throws Exception {
+        CreateOrderRequest other = new CreateOrderRequest(100L, 200L, "9 Side St", null, request.getItems());
+        when(repository.findById("100:key-1"))
+                .thenReturn(Optional.of(record(store.digest(other), objectMapper.writeValueAsString(response(42L)))));
+
+        assertThrows(IdempotencyConflictException.class, () -> store.execute("key-1", request, createOrder()));
+        assertEquals(0, creations.get());
+    }
+
+    @Test
+    void testDigest_SameForEqualRequests() {
+        CreateOrderRequest copy = new CreateOrderRequest(100L, 200L, "123 Main St", null,
+                List.of(new CreateOrderRequest.OrderItemRequest(101L, 2)));
+
+        assertEquals(store.digest(request), store.digest(copy));
+        assertEquals(64, store.digest(request).length());
+    }
+
+    @Test
+    void testExecute_ExpiredRowIsDeletedBeforeClaiming() {
+        IdempotencyRecord expired = record(store.digest(request), null);
+        expired.setExpiresAt(LocalDateTime.now(clock).minusMinutes(1));
+        when(repository.findById("100:key-1")).thenReturn(Optional.of(expired));
+
+        assertNotNull(store.execute("key-1", request, createOrder()));
+
+        verify(repository).deleteIfExpired("100:key-1", LocalDateTime.now(clock));
+        verify(repository).saveAndFlush(argThat(IdempotencyRecord::isNew));
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    void testExecute_ConcurrentClaimOnAnotherInstanceIsConflict() {
+        when(repository.saveAndFlush(any(IdempotencyRecord.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry '100:key-1'"));
+
+        assertThrows(IdempotencyConflictException.class, () -> store.execute("key-1", request, createOrder()));
+        assertEquals(0, creations.get());
+    }
+
+    @Test
+    void testExecute_InvalidKey() {
+        assertThrows(InvalidIdempotencyKeyException.class, () -> store.execute(" ", request, createOrder()));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> store.execute("k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1), request, createOrder()));
+        verifyNoInteractions(repository);
+    }
+
+    private Supplier<OrderResponse> createOrder() {
+        return () -> response(creations.incrementAndGet());
+    }
+
+    private IdempotencyRecord record(String requestDigest, String response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey("100:key-1");
+        record.setRequestDigest(requestDigest);
+        record.setResponse(response);
+        record.setExpiresAt(LocalDateTime.now(clock).plusHours(1));
+        return record;
+    }
+
+    private static OrderResponse response(long orderId) {
+        OrderResponse response = new OrderResponse();
+        response.setId(orderId);
+        response.setCustomerId(100L);
+        response.setRestaurantId(200L);
+        response.setOrderStatus(OrderStatus.PENDING);
+        response.setTotalAmount(new BigDecimal("25.50"));
+        response.setCreatedAt(LocalDateTime.of(2026, 1, 1, 12, 0));
+        response.setItems(List.of());
+        return response;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T12:00:00Z");
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.fooddel.order.menu;
+
+import com.fooddel.order.client.MenuItemDTO;
+import com.fooddelivery.events.RestaurantEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuReplicaTest {
+
+    private MenuReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        replica = new MenuReplica(new SimpleMeterRegistry());
+        assertTrue(replica.apply(restaurantEvent("RESTAURANT_REGISTERED", 1, true)));
+        assertTrue(replica.apply(itemEvent("MENU_ITEM_UPDATED", 2, 11L, "9.50", true)));
+        assertTrue(replica.apply(itemEvent("MENU_ITEM_UPDATED", 3, 12L, "4.00", true)));
+    }
+
+    @Test
+    void testApply_ServesLatestItemState() {
+        assertTrue(replica.apply(itemEvent("MENU_ITEM_UPDATED", 4, 11L, "10.25", false)));
+
+        MenuItemDTO item = replica.menuItem(11L);
+        assertEquals(new BigDecimal("10.25"), item.getPrice());
+        assertFalse(item.isAvailable());
+        assertEquals(7L, item.getRestaurantId());
+        assertTrue(replica.restaurant(7L).isActive());
+        assertNull(replica.menuItem(99L));
+    }
+
+    @Test
+    void testApply_ReplayedVersionIgnored() {
+        assertFalse(replica.apply(itemEvent("MENU_ITEM_UPDATED", 2, 11L, "1.00", false)));
+
+        assertEquals(new BigDecimal("9.50"), replica.menuItem(11L).getPrice());
+    }
+
+    @Test
+    void testApply_MissedVersionEvictsRestaurant() {
+        // Version 4 never arrived
+        assertTrue(replica.apply(itemEvent("MENU_ITEM_UPDATED", 5, 13L, "2.00", true)));
+
+        assertNull(replica.menuItem(11L));
+        assertNull(replica.menuItem(12L));
+        assertNotNull(replica.menuItem(13L));
+        assertNull(replica.restaurant(7L));
+
+        assertTrue(replica.apply(restaurantEvent("RESTAURANT_STATUS_CHANGED", 6, false)));
+        assertFalse(replica.restaurant(7L).isActive());
+    }
+
+    @Test
+    void testApply_DeletesRemoveEntries() {
+        assertTrue(replica.apply(itemEvent("MENU_ITEM_DELETED", 4, 12L, "4.00", true)));
+        assertNull(replica.menuItem(12L));
+        assertEquals(1, replica.itemCount());
+
+        assertTrue(replica.apply(restaurantEvent("RESTAURANT_DELETED", 5, true)));
+        assertEquals(0, replica.itemCount());
+        assertFalse(replica.restaurant(7L).isActive());
+    }
+
+    @Test
+    void testLongObjectMap_RemoveKeepsCollidingKeysReachable() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        for (long key = 0; key < 1_000; key++) {
+            map.put(key * 64, "v" + key);
+        }
+        for (long key = 0; key < 1_000; key += 2) {
+            assertEquals("v" + key, map.remove(key * 64));
+        }
+
+        assertEquals(500, map.size());
+        for (long key = 0; key < 1_000; key++) {
+            assertEquals(key % 2 == 0 ? null : "v" + key, map.get(key * 64));
+        }
+    }
+
+    private static RestaurantEvent restaurantEvent(String eventType, long version, boolean active) {
+        return RestaurantEvent.builder().eventType(eventType).restaurantId(7L).version(version)
+                .restaurantName("Spice Route").active(active).build();
+    }
+
+    private static RestaurantEvent itemEvent(String eventType, long version, Long menuItemId, String price,
+                                             boolean available) {
+        return RestaurantEvent.builder().eventType(eventType).restaurantId(7L).version(version)
+                .menuItemId(menuItemId).menuItemName("Item " + menuItemId).price(new BigDecimal(price))
+                .available(available).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.fooddel.order.repository;
+
+import com.fooddel.order.entity.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The slice swaps MySQL for embedded H2, so the dialect set in application.yml has to follow
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class IdempotencyRecordRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Test
+    void testSecondClaimOnAKeyFails() {
+        repository.saveAndFlush(claim("a".repeat(64), NOW.plusHours(1)));
+        // As if the second claim came from another instance
+        entityManager.clear();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.saveAndFlush(claim("b".repeat(64), NOW.plusHours(1))));
+    }
+
+    @Test
+    void testDeleteIfExpiredKeepsLiveClaims() {
+        repository.saveAndFlush(claim("a".repeat(64), NOW.plusHours(1)));
+        entityManager.clear();
+
+        assertEquals(0, repository.deleteIfExpired("100:key-1", NOW));
+        assertEquals(1, repository.deleteIfExpired("100:key-1", NOW.plusHours(1)));
+    }
+
+    private static IdempotencyRecord claim(String requestDigest, LocalDateTime expiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey("100:key-1");
+        record.setRequestDigest(requestDigest);
+        record.setExpiresAt(expiresAt);
+        return record;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fooddel.order.repository;
+
+import com.fooddel.order.dto.OrderItemRow;
+import com.fooddel.order.entity.Order;
+import com.fooddel.order.entity.OrderItem;
+import com.fooddel.order.enums.OrderStatus;
+import com.fooddel.order.enums.PaymentStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The slice swaps MySQL for embedded H2, so the dialect set in application.yml has to follow
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class OrderRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Test
+    void testKeysetPagesByCustomer() {
+        for (int i = 0; i < 5; i++) {
+            persist(100L, 2);
+        }
+        persist(101L, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Order> first = orderRepository.findByCustomerIdOrderByCreatedAtDescIdDesc(100L, Limit.of(3));
+        assertEquals(3, first.size());
+        Order last = first.get(2);
+        List<Order> rest = orderRepository.findByCustomerIdAfter(100L, last.getCreatedAt(), last.getId(), Limit.of(3));
+        assertEquals(2, rest.size());
+        assertTrue(rest.stream().noneMatch(first::contains));
+        assertEquals(6, orderRepository.findAllByOrderByCreatedAtDescIdDesc(Limit.of(10)).size());
+
+        List<OrderItemRow> rows = orderItemRepository.findRowsByOrderIdIn(first.stream().map(Order::getId).toList());
+        assertEquals(6, rows.size());
+    }
+
+    private void persist(Long customerId, int items) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setRestaurantId(200L);
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setPaymentStatus(PaymentStatus.PENDING);
+        order.setDeliveryAddress("123 Main St");
+        order.setTotalAmount(BigDecimal.TEN);
+        for (long id = 1; id <= items; id++) {
+            OrderItem item = new OrderItem();
+            item.setMenuItemId(id);
+            item.setMenuItemName("Item " + id);
+            item.setQuantity(1);
+            item.setPricePerUnit(BigDecimal.ONE);
+            item.calculateSubtotal();
+            order.addOrderItem(item);
+        }
+        entityManager.persist(order);
+    }
+}
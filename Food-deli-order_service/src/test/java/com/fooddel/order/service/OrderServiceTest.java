@@ -1,14 +1,20 @@
 package com.fooddel.order.service;
 
+import com.fooddel.order.client.MenuItemDTO;
 import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.dto.OrderItemRow;
+import com.fooddel.order.dto.OrderPage;
 import com.fooddel.order.dto.OrderResponse;
 import com.fooddel.order.entity.Order;
 import com.fooddelivery.events.PaymentEvent;
 import com.fooddel.order.enums.OrderStatus;
 import com.fooddel.order.enums.PaymentStatus;
 import com.fooddel.order.exception.InvalidOrderStatusException;
+import com.fooddel.order.exception.InvalidPageRequestException;
 import com.fooddel.order.exception.OrderNotFoundException;
+import com.fooddel.order.idempotency.IdempotencyStore;
 import com.fooddel.order.kafka.OrderEventProducer;
+import com.fooddel.order.repository.OrderItemRepository;
 import com.fooddel.order.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,10 +22,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,9 +41,18 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
     @Mock
     private OrderEventProducer orderEventProducer;
 
+    @Mock
+    private OrderValidator orderValidator;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -61,6 +79,13 @@ class OrderServiceTest {
 
     @Test
     void testCreateOrder_Success() {
+        MenuItemDTO menuItem = new MenuItemDTO();
+        menuItem.setId(101L);
+        menuItem.setName("Paneer Tikka");
+        menuItem.setPrice(BigDecimal.valueOf(12.75));
+        menuItem.setAvailable(true);
+        when(orderValidator.validate(createOrderRequest))
+                .thenReturn(new OrderValidator.ValidatedOrder(null, null, Map.of(101L, menuItem)));
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
 
         OrderResponse response = orderService.createOrder(createOrderRequest);
@@ -91,6 +116,46 @@ class OrderServiceTest {
         assertThrows(OrderNotFoundException.class, () -> orderService.getOrderById(999L));
     }
 
+    @Test
+    void testGetOrdersByCustomer_KeysetPages() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+        Order newest = listedOrder(3L, now);
+        Order middle = listedOrder(2L, now.minusMinutes(5));
+        Order oldest = listedOrder(1L, now.minusMinutes(10));
+        when(orderRepository.findByCustomerIdOrderByCreatedAtDescIdDesc(100L, Limit.of(3)))
+                .thenReturn(List.of(newest, middle, oldest));
+        when(orderItemRepository.findRowsByOrderIdIn(List.of(3L, 2L))).thenReturn(List.of(
+                new OrderItemRow(3L, 31L, 101L, "Paneer Tikka", 1, new BigDecimal("12.75"), new BigDecimal("12.75")),
+                new OrderItemRow(2L, 21L, 102L, "Naan", 2, new BigDecimal("3.00"), new BigDecimal("6.00")),
+                new OrderItemRow(3L, 32L, 102L, "Naan", 1, new BigDecimal("3.00"), new BigDecimal("3.00"))));
+
+        OrderPage first = orderService.getOrdersByCustomer(100L, null, 2);
+
+        assertEquals(List.of(3L, 2L), first.getOrders().stream().map(OrderResponse::getId).toList());
+        assertEquals(List.of(31L, 32L), first.getOrders().get(0).getItems().stream()
+                .map(OrderResponse.OrderItemResponse::getId).toList());
+        assertEquals(1, first.getOrders().get(1).getItems().size());
+        assertNotNull(first.getNextCursor());
+        verify(orderItemRepository, times(1)).findRowsByOrderIdIn(any());
+
+        when(orderRepository.findByCustomerIdAfter(100L, middle.getCreatedAt(), 2L, Limit.of(3)))
+                .thenReturn(List.of(oldest));
+        when(orderItemRepository.findRowsByOrderIdIn(List.of(1L))).thenReturn(List.of());
+
+        OrderPage second = orderService.getOrdersByCustomer(100L, first.getNextCursor(), 2);
+
+        assertEquals(List.of(1L), second.getOrders().stream().map(OrderResponse::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetAllOrders_InvalidPageRequest() {
+        assertThrows(InvalidPageRequestException.class, () -> orderService.getAllOrders("not-a-cursor", 20));
+        assertThrows(InvalidPageRequestException.class,
+                () -> orderService.getAllOrders(null, OrderService.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     void testUpdateOrderStatus_ValidTransition() {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
@@ -161,4 +226,17 @@ class OrderServiceTest {
         verify(orderRepository, times(1)).save(any(Order.class));
         verify(orderEventProducer, never()).publishOrderEvent(any());
     }
+
+    private static Order listedOrder(Long id, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId(100L);
+        order.setRestaurantId(200L);
+        order.setOrderStatus(OrderStatus.DELIVERED);
+        order.setPaymentStatus(PaymentStatus.COMPLETED);
+        order.setTotalAmount(BigDecimal.valueOf(15.75));
+        order.setDeliveryAddress("123 Main St");
+        order.setCreatedAt(createdAt);
+        return order;
+    }
 }
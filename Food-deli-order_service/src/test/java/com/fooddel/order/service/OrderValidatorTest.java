@@ -0,0 +1,204 @@
+package com.fooddel.order.service;
+
+import com.fooddel.order.client.MenuItemDTO;
+import com.fooddel.order.client.RestaurantDTO;
+import com.fooddel.order.client.RestaurantServiceClient;
+import com.fooddel.order.client.UserDTO;
+import com.fooddel.order.client.UserServiceClient;
+import com.fooddel.order.dto.CreateOrderRequest;
+import com.fooddel.order.menu.MenuReplica;
+import com.fooddelivery.events.RestaurantEvent;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderValidatorTest {
+
+    private UserServiceClient userServiceClient;
+    private RestaurantServiceClient restaurantServiceClient;
+    private MenuReplica menuReplica;
+    private ExecutorService executor;
+    private OrderValidator validator;
+
+    private CreateOrderRequest request;
+
+    @BeforeEach
+    void setUp() {
+        userServiceClient = mock(UserServiceClient.class);
+        restaurantServiceClient = mock(RestaurantServiceClient.class);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        menuReplica = new MenuReplica(new SimpleMeterRegistry());
+        validator = new OrderValidator(userServiceClient, restaurantServiceClient, menuReplica, executor);
+
+        request = new CreateOrderRequest(100L, 200L, "123 Main St", null, List.of(
+                new CreateOrderRequest.OrderItemRequest(101L, 2),
+                new CreateOrderRequest.OrderItemRequest(102L, 1),
+                new CreateOrderRequest.OrderItemRequest(101L, 1)));
+
+        UserDTO customer = new UserDTO();
+        customer.setId(100L);
+        customer.setUsername("asha");
+        RestaurantDTO restaurant = new RestaurantDTO();
+        restaurant.setId(200L);
+        restaurant.setName("Spice Route");
+        restaurant.setActive(true);
+        when(userServiceClient.getUser(100L)).thenReturn(customer);
+        when(restaurantServiceClient.getRestaurant(200L)).thenReturn(restaurant);
+        when(restaurantServiceClient.getMenuItems(List.of(101L, 102L)))
+                .thenReturn(List.of(menuItem(101L, true), menuItem(102L, true)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testValidate_AllItemsInOneCall() {
+        OrderValidator.ValidatedOrder validated = validator.validate(request);
+
+        assertEquals("asha", validated.customer().getUsername());
+        assertEquals("Spice Route", validated.restaurant().getName());
+        assertEquals(Set.of(101L, 102L), validated.menuItems().keySet());
+        verify(restaurantServiceClient).getMenuItems(List.of(101L, 102L));
+        verify(restaurantServiceClient, never()).getMenuItem(anyLong());
+    }
+
+    @Test
+    void testValidate_LargeOrderFetchedInChunks() {
+        List<CreateOrderRequest.OrderItemRequest> items = LongStream.rangeClosed(1, 250)
+                .mapToObj(id -> new CreateOrderRequest.OrderItemRequest(id, 1))
+                .toList();
+        when(restaurantServiceClient.getMenuItems(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> menuItem(id, true)).toList();
+        });
+
+        OrderValidator.ValidatedOrder validated =
+                validator.validate(new CreateOrderRequest(100L, 200L, "123 Main St", null, items));
+
+        assertEquals(250, validated.menuItems().size());
+        verify(restaurantServiceClient).getMenuItems(LongStream.rangeClosed(1, 100).boxed().toList());
+        verify(restaurantServiceClient).getMenuItems(LongStream.rangeClosed(101, 200).boxed().toList());
+        verify(restaurantServiceClient).getMenuItems(LongStream.rangeClosed(201, 250).boxed().toList());
+    }
+
+    @Test
+    void testValidate_LookupsRunConcurrently() {
+        // Each lookup waits for the other two, so this only completes if all three are in flight together
+        CountDownLatch started = new CountDownLatch(3);
+        UserDTO customer = new UserDTO();
+        RestaurantDTO restaurant = new RestaurantDTO();
+        restaurant.setActive(true);
+        when(userServiceClient.getUser(100L)).thenAnswer(invocation -> awaitOthers(started, customer));
+        when(restaurantServiceClient.getRestaurant(200L)).thenAnswer(invocation -> awaitOthers(started, restaurant));
+        when(restaurantServiceClient.getMenuItems(List.of(101L, 102L))).thenAnswer(invocation ->
+                awaitOthers(started, List.of(menuItem(101L, true), menuItem(102L, true))));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> validator.validate(request));
+    }
+
+    @Test
+    void testValidate_MissingItemRejected() {
+        when(restaurantServiceClient.getMenuItems(List.of(101L, 102L))).thenReturn(List.of(menuItem(101L, true)));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> validator.validate(request));
+        assertEquals("Menu item 102 not found", e.getMessage());
+    }
+
+    @Test
+    void testValidate_UnavailableItemRejected() {
+        when(restaurantServiceClient.getMenuItems(List.of(101L, 102L)))
+                .thenReturn(List.of(menuItem(101L, true), menuItem(102L, false)));
+
+        assertThrows(IllegalStateException.class, () -> validator.validate(request));
+    }
+
+    @Test
+    void testValidate_InactiveRestaurantRejected() {
+        RestaurantDTO closed = new RestaurantDTO();
+        closed.setActive(false);
+        when(restaurantServiceClient.getRestaurant(200L)).thenReturn(closed);
+
+        assertThrows(IllegalStateException.class, () -> validator.validate(request));
+    }
+
+    @Test
+    void testValidate_FeignErrorPassedThrough() {
+        Request feignRequest = Request.create(Request.HttpMethod.GET, "/api/users/100", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        when(userServiceClient.getUser(100L))
+                .thenThrow(new FeignException.NotFound("Not Found", feignRequest, null, Map.of()));
+
+        assertThrows(FeignException.NotFound.class, () -> validator.validate(request));
+    }
+
+    @Test
+    void testValidate_ReplicaHitsSkipRestaurantService() {
+        menuReplica.apply(RestaurantEvent.builder().eventType("RESTAURANT_REGISTERED")
+                .restaurantId(200L).version(1L).restaurantName("Spice Route").active(true).build());
+        menuReplica.apply(menuItemEvent(101L, 2L));
+        menuReplica.apply(menuItemEvent(102L, 3L));
+
+        OrderValidator.ValidatedOrder validated = validator.validate(request);
+
+        assertEquals("Spice Route", validated.restaurant().getName());
+        assertEquals(BigDecimal.valueOf(4.25), validated.menuItems().get(102L).getPrice());
+        verify(userServiceClient).getUser(100L);
+        verifyNoInteractions(restaurantServiceClient);
+    }
+
+    @Test
+    void testValidate_OnlyReplicaMissesFetched() {
+        menuReplica.apply(menuItemEvent(101L, 1L));
+        when(restaurantServiceClient.getMenuItems(List.of(102L))).thenReturn(List.of(menuItem(102L, true)));
+
+        OrderValidator.ValidatedOrder validated = validator.validate(request);
+
+        assertEquals(Set.of(101L, 102L), validated.menuItems().keySet());
+        verify(restaurantServiceClient).getRestaurant(200L);
+        verify(restaurantServiceClient).getMenuItems(List.of(102L));
+    }
+
+    private static RestaurantEvent menuItemEvent(Long menuItemId, Long version) {
+        return RestaurantEvent.builder().eventType("MENU_ITEM_UPDATED").restaurantId(200L).version(version)
+                .menuItemId(menuItemId).menuItemName("Item " + menuItemId).price(BigDecimal.valueOf(4.25))
+                .available(true).build();
+    }
+
+    private static <T> T awaitOthers(CountDownLatch started, T value) throws InterruptedException {
+        started.countDown();
+        if (!started.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Lookups ran one after another");
+        }
+        return value;
+    }
+
+    private static MenuItemDTO menuItem(Long id, boolean available) {
+        MenuItemDTO menuItem = new MenuItemDTO();
+        menuItem.setId(id);
+        menuItem.setName("Item " + id);
+        menuItem.setPrice(BigDecimal.TEN);
+        menuItem.setAvailable(available);
+        menuItem.setRestaurantId(200L);
+        return menuItem;
+    }
+}
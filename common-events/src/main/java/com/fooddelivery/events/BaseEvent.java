@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
     @JsonSubTypes.Type(value = OrderEvent.class, name = "ORDER"),
     @JsonSubTypes.Type(value = UserEvent.class, name = "USER"),
     @JsonSubTypes.Type(value = PaymentEvent.class, name = "PAYMENT"),
-    @JsonSubTypes.Type(value = DeliveryEvent.class, name = "DELIVERY")
+    @JsonSubTypes.Type(value = DeliveryEvent.class, name = "DELIVERY"),
+    @JsonSubTypes.Type(value = RestaurantEvent.class, name = "RESTAURANT")
 })
 public abstract class BaseEvent implements Serializable {
     
@@ -0,0 +1,173 @@
+package com.fooddelivery.events;
+
+import java.math.BigDecimal;
+
+/**
+ * Event published when a restaurant or one of its menu items changes.
+ * Event types: RESTAURANT_REGISTERED, RESTAURANT_STATUS_CHANGED, RESTAURANT_DELETED,
+ * MENU_ITEM_UPDATED, MENU_ITEM_DELETED
+ *
+ * Restaurant events carry the restaurant's name and active flag; menu item events carry the
+ * item's full state. Every change to a restaurant or its menu bumps the restaurant's version
+ * by one, so a consumer can tell a stale or missed event by its version.
+ */
+public class RestaurantEvent extends BaseEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long restaurantId;
+    private Long version;
+    private String restaurantName;
+    private Boolean active;
+    private Long menuItemId;
+    private String menuItemName;
+    private BigDecimal price;
+    private Boolean available;
+
+    public RestaurantEvent() {
+        super();
+    }
+
+    public RestaurantEvent(String eventType, Long restaurantId, Long version) {
+        super(eventType);
+        this.restaurantId = restaurantId;
+        this.version = version;
+    }
+
+    // Builder pattern
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final RestaurantEvent event = new RestaurantEvent();
+
+        public Builder eventType(String eventType) {
+            event.setEventType(eventType);
+            return this;
+        }
+
+        public Builder restaurantId(Long restaurantId) {
+            event.restaurantId = restaurantId;
+            return this;
+        }
+
+        public Builder version(Long version) {
+            event.version = version;
+            return this;
+        }
+
+        public Builder restaurantName(String restaurantName) {
+            event.restaurantName = restaurantName;
+            return this;
+        }
+
+        public Builder active(Boolean active) {
+            event.active = active;
+            return this;
+        }
+
+        public Builder menuItemId(Long menuItemId) {
+            event.menuItemId = menuItemId;
+            return this;
+        }
+
+        public Builder menuItemName(String menuItemName) {
+            event.menuItemName = menuItemName;
+            return this;
+        }
+
+        public Builder price(BigDecimal price) {
+            event.price = price;
+            return this;
+        }
+
+        public Builder available(Boolean available) {
+            event.available = available;
+            return this;
+        }
+
+        public RestaurantEvent build() {
+            return event;
+        }
+    }
+
+    // Getters and Setters
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public void setRestaurantId(Long restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getRestaurantName() {
+        return restaurantName;
+    }
+
+    public void setRestaurantName(String restaurantName) {
+        this.restaurantName = restaurantName;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+
+    public void setMenuItemId(Long menuItemId) {
+        this.menuItemId = menuItemId;
+    }
+
+    public String getMenuItemName() {
+        return menuItemName;
+    }
+
+    public void setMenuItemName(String menuItemName) {
+        this.menuItemName = menuItemName;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Boolean getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(Boolean available) {
+        this.available = available;
+    }
+
+    @Override
+    public String toString() {
+        return "RestaurantEvent{" +
+                "eventType='" + getEventType() + '\'' +
+                ", restaurantId=" + restaurantId +
+                ", version=" + version +
+                ", active=" + active +
+                ", menuItemId=" + menuItemId +
+                ", price=" + price +
+                ", available=" + available +
+                ", timestamp=" + getTimestamp() +
+                '}';
+    }
+}
@@ -0,0 +1,144 @@
+package com.foodDelivery.agent;
+
+import com.foodDelivery.entity.DeliveryAgent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes AVAILABLE agents OFFLINE once they have missed {@code missed-heartbeats} heartbeats, so an
+ * agent whose app died stops being offered deliveries.
+ *
+ * Every location ping is a heartbeat; it only moves the agent's last-active time in
+ * {@link AgentStateTable} and never touches the wheel. Each AVAILABLE agent has one entry in a
+ * {@link HierarchicalTimingWheel}, due one timeout after its last activity. When an entry comes due
+ * the agent is checked: if it was active since, the entry is pushed to the new deadline; if it is
+ * no longer AVAILABLE it is dropped; otherwise the agent is silent and is taken offline together
+ * with the other silent agents of that tick in one bulk UPDATE. Nothing scans the agents table, and
+ * a tick costs O(entries due), however many agents are online.
+ */
+@Component
+public class AgentHeartbeatMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentHeartbeatMonitor.class);
+
+    // 4 levels of 64 slots cover 2^24 ticks, about 194 days at one-second ticks
+    private static final int WHEEL_BITS_PER_LEVEL = 6;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final AgentStateTable agentStates;
+    private final HierarchicalTimingWheel wheel;
+    // Agents with an entry in the wheel, so each agent has at most one; guarded by this
+    private final Set<Long> tracked = new HashSet<>();
+    // Activity recorded before startup is not trusted; every agent gets a full timeout to ping again
+    private final long startedAtMillis;
+
+    private final Counter reaped;
+    private final Timer tickTimer;
+
+    @Value("${delivery.heartbeat.interval-ms:10000}")
+    private long heartbeatIntervalMs = 10_000;
+
+    @Value("${delivery.heartbeat.missed-heartbeats:3}")
+    private int missedHeartbeats = 3;
+
+    public AgentHeartbeatMonitor(AgentStateTable agentStates,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${delivery.heartbeat.tick-ms:1000}") long tickMillis) {
+        this.agentStates = agentStates;
+        this.startedAtMillis = System.currentTimeMillis();
+        this.wheel = new HierarchicalTimingWheel(tickMillis, WHEEL_BITS_PER_LEVEL, WHEEL_LEVELS, startedAtMillis);
+        this.reaped = Counter.builder("delivery.agents.reaped")
+                .description("AVAILABLE agents taken offline after missing heartbeats")
+                .register(meterRegistry);
+        this.tickTimer = Timer.builder("delivery.agents.heartbeat.tick")
+                .description("Time to advance the heartbeat wheel and take silent agents offline")
+                .register(meterRegistry);
+        Gauge.builder("delivery.agents.heartbeat.tracked", this, AgentHeartbeatMonitor::trackedCount)
+                .description("AVAILABLE agents whose heartbeats are being watched")
+                .register(meterRegistry);
+        agentStates.addStatusListener(this::track);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.heartbeat.tick-ms:1000}")
+    public void tick() {
+        try {
+            reap(System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("Heartbeat tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Advance the wheel to {@code nowMillis} and take every silent AVAILABLE agent offline.
+     *
+     * @return ids of the agents taken offline
+     */
+    public List<Long> reap(long nowMillis) {
+        long start = System.nanoTime();
+        long timeout = timeoutMillis();
+        long silentSince = nowMillis - timeout;
+
+        List<Long> silent = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(nowMillis, agentId -> {
+                AgentState state = agentStates.peek(agentId).orElse(null);
+                if (state == null || state.status() != DeliveryAgent.AgentStatus.AVAILABLE) {
+                    tracked.remove(agentId);
+                } else if (lastActive(state) >= silentSince) {
+                    wheel.schedule(agentId, lastActive(state) + timeout);
+                } else {
+                    tracked.remove(agentId);
+                    silent.add(agentId);
+                }
+            });
+        }
+        if (silent.isEmpty()) {
+            tickTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return silent;
+        }
+
+        List<Long> takenOffline = agentStates.takeOffline(silent, silentSince);
+        // Agents that pinged or changed status between the check and the update go back on the wheel
+        if (takenOffline.size() < silent.size()) {
+            Set<Long> offline = new HashSet<>(takenOffline);
+            silent.stream()
+                    .filter(id -> !offline.contains(id))
+                    .forEach(id -> agentStates.peek(id).ifPresent(this::track));
+        }
+        reaped.increment(takenOffline.size());
+        tickTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("Took {} agents offline after {} ms without a heartbeat", takenOffline.size(), timeout);
+        return takenOffline;
+    }
+
+    public synchronized int trackedCount() {
+        return tracked.size();
+    }
+
+    synchronized void track(AgentState state) {
+        if (state.status() == DeliveryAgent.AgentStatus.AVAILABLE && tracked.add(state.id())) {
+            wheel.schedule(state.id(), lastActive(state) + timeoutMillis());
+        }
+    }
+
+    private long lastActive(AgentState state) {
+        return Math.max(state.lastActiveMillis(), startedAtMillis);
+    }
+
+    private long timeoutMillis() {
+        return heartbeatIntervalMs * missedHeartbeats;
+    }
+}
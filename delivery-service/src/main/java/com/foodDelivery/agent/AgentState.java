@@ -0,0 +1,44 @@
+package com.foodDelivery.agent;
+
+import com.foodDelivery.entity.DeliveryAgent;
+
+import java.time.ZoneId;
+
+/**
+ * The part of a delivery agent that assignment, tracking and ETA read on every request.
+ * Latitude and longitude are NaN while the position is unknown; lastActiveMillis is 0 if never seen.
+ */
+public record AgentState(long id,
+                         DeliveryAgent.AgentStatus status,
+                         double latitude,
+                         double longitude,
+                         DeliveryAgent.VehicleType vehicleType,
+                         double rating,
+                         long lastActiveMillis) {
+
+    public static AgentState of(DeliveryAgent agent) {
+        return new AgentState(agent.getId(),
+                agent.getStatus(),
+                agent.getCurrentLatitude() != null ? agent.getCurrentLatitude() : Double.NaN,
+                agent.getCurrentLongitude() != null ? agent.getCurrentLongitude() : Double.NaN,
+                agent.getVehicleType(),
+                agent.getRating() != null ? agent.getRating() : 0.0,
+                agent.getLastActiveAt() != null
+                        ? agent.getLastActiveAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        : 0L);
+    }
+
+    public boolean hasPosition() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    public AgentState withStatus(DeliveryAgent.AgentStatus newStatus, long epochMillis) {
+        return new AgentState(id, newStatus, latitude, longitude, vehicleType, rating,
+                Math.max(lastActiveMillis, epochMillis));
+    }
+
+    public AgentState withPosition(double newLatitude, double newLongitude, long epochMillis) {
+        return new AgentState(id, status, newLatitude, newLongitude, vehicleType, rating,
+                Math.max(lastActiveMillis, epochMillis));
+    }
+}
@@ -0,0 +1,289 @@
+package com.foodDelivery.agent;
+
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.repository.AgentStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory table of every agent's {@link AgentState}; what hot paths read instead of loading the
+ * {@link DeliveryAgent} entity. The entity is only loaded for profile endpoints.
+ *
+ * Positions and last-active times are written behind by the location flush. Status changes are
+ * written through with a single narrow UPDATE, because the claim compare-and-set in
+ * {@code AgentClaimService} reads the status from the row; the table takes the new status once that
+ * transaction commits. Agents missing from the table (created by another instance) are loaded on
+ * first access.
+ */
+@Component
+public class AgentStateTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentStateTable.class);
+
+    private final AgentStateRepository repository;
+    private final AgentSpatialIndex spatialIndex;
+    private final ConcurrentHashMap<Long, AgentState> states = new ConcurrentHashMap<>();
+    private final List<Consumer<AgentState>> statusListeners = new CopyOnWriteArrayList<>();
+
+    public AgentStateTable(AgentStateRepository repository, AgentSpatialIndex spatialIndex) {
+        this.repository = repository;
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * Load every agent and index the AVAILABLE ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<AgentState> loaded = repository.findAll();
+        loaded.forEach(this::put);
+        logger.info("Agent state table loaded with {} agents, {} available and indexed", states.size(),
+                spatialIndex.size());
+    }
+
+    public Optional<AgentState> get(long agentId) {
+        AgentState state = states.get(agentId);
+        if (state != null) {
+            return Optional.of(state);
+        }
+        return repository.findById(agentId).map(loaded -> {
+            AgentState existing = states.putIfAbsent(agentId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            spatialIndex.sync(loaded);
+            return loaded;
+        });
+    }
+
+    /**
+     * The agent's state if it is in the table, without loading it.
+     */
+    public Optional<AgentState> peek(long agentId) {
+        return Optional.ofNullable(states.get(agentId));
+    }
+
+    public AgentState require(long agentId) {
+        return get(agentId).orElseThrow(
+                () -> new ResourceNotFoundException("Delivery agent not found with id: " + agentId));
+    }
+
+    /**
+     * Take over a freshly saved or reloaded entity.
+     */
+    public void put(DeliveryAgent agent) {
+        put(AgentState.of(agent));
+    }
+
+    public void put(AgentState state) {
+        states.put(state.id(), state);
+        spatialIndex.sync(state);
+        notifyStatus(state);
+    }
+
+    /**
+     * Be told about every state taken over with {@link #put} and every status applied. Position
+     * updates are not reported.
+     */
+    public void addStatusListener(Consumer<AgentState> listener) {
+        statusListeners.add(listener);
+    }
+
+    /**
+     * Record a new position. The caller is responsible for persisting it.
+     *
+     * @throws ResourceNotFoundException if the agent does not exist
+     */
+    public AgentState updatePosition(long agentId, double latitude, double longitude, long epochMillis) {
+        require(agentId);
+        AgentState updated = states.computeIfPresent(agentId,
+                (id, state) -> state.withPosition(latitude, longitude, epochMillis));
+        if (updated == null) {
+            throw new ResourceNotFoundException("Delivery agent not found with id: " + agentId);
+        }
+        return updated;
+    }
+
+    /**
+     * Persist a status change and apply it to the table once the surrounding transaction commits
+     * (immediately without one).
+     *
+     * @param completedDelivery whether the change ends a delivery that counts towards the agent's total
+     * @return the agent's state as it will be after the commit
+     */
+    public AgentState changeStatus(long agentId, DeliveryAgent.AgentStatus status, boolean completedDelivery) {
+        AgentState current = require(agentId);
+        long now = System.currentTimeMillis();
+        if (repository.updateStatus(agentId, status, completedDelivery, now) == 0) {
+            throw new ResourceNotFoundException("Delivery agent not found with id: " + agentId);
+        }
+        runAfterCommit(() -> applyStatus(agentId, status, now));
+        return current.withStatus(status, now);
+    }
+
+    /**
+     * One of the agent's deliveries is over. The agent becomes AVAILABLE once the last of its
+     * (possibly stacked) deliveries is released, and stays BUSY before that. Applied to the table
+     * after the surrounding transaction commits.
+     *
+     * @return the agent's state as it will be after the commit
+     */
+    public AgentState releaseDelivery(long agentId, boolean completedDelivery) {
+        AgentState current = require(agentId);
+        long now = System.currentTimeMillis();
+        DeliveryAgent.AgentStatus status = repository.releaseDelivery(agentId, completedDelivery, now)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery agent not found with id: " + agentId));
+        runAfterCommit(() -> applyStatus(agentId, status, now));
+        return current.withStatus(status, now);
+    }
+
+    /**
+     * Apply a status that is already committed to the row, e.g. by the claim compare-and-set.
+     */
+    public void applyStatus(long agentId, DeliveryAgent.AgentStatus status, long epochMillis) {
+        AgentState updated = states.computeIfPresent(agentId, (id, state) -> state.withStatus(status, epochMillis));
+        if (updated != null) {
+            spatialIndex.sync(updated);
+            notifyStatus(updated);
+        }
+    }
+
+    /**
+     * Take the agent's status from its row, for when the row turned out to disagree with the table,
+     * e.g. a claim compare-and-set found the agent already taken by another instance. The position
+     * is kept: the table's is newer than the row's. An agent whose row is gone is dropped.
+     */
+    public void refreshStatus(long agentId) {
+        // Taken before the read, so a status change applied meanwhile is not overwritten with the older row
+        AgentState current = states.get(agentId);
+        if (current == null) {
+            return;
+        }
+        Optional<AgentState> row = repository.findById(agentId);
+        if (row.isEmpty()) {
+            remove(agentId);
+            return;
+        }
+        if (row.get().status() == current.status()) {
+            return;
+        }
+        AgentState refreshed = current.withStatus(row.get().status(), row.get().lastActiveMillis());
+        if (states.replace(agentId, current, refreshed)) {
+            spatialIndex.sync(refreshed);
+            notifyStatus(refreshed);
+        }
+    }
+
+    /**
+     * Take the given agents OFFLINE in one bulk UPDATE if they are still AVAILABLE and have not been
+     * active since {@code silentSinceMillis}, here or in the row. Agents claimed in the meantime, or
+     * whose pings reached the row through another instance, are left alone.
+     *
+     * The table then follows the rows rather than its own re-check: an agent whose ping arrived while
+     * the UPDATE ran is OFFLINE in the database all the same, and left AVAILABLE here it could never
+     * be claimed again, since every claim requires an AVAILABLE row. An agent the UPDATE skipped takes
+     * the row's status and last-active time, so it is not found silent again on the next tick.
+     *
+     * @return ids of the agents taken offline
+     */
+    public List<Long> takeOffline(Collection<Long> agentIds, long silentSinceMillis) {
+        List<Long> silent = agentIds.stream()
+                .filter(id -> {
+                    AgentState state = states.get(id);
+                    return state != null && isSilentAvailable(state, silentSinceMillis);
+                })
+                .toList();
+        if (silent.isEmpty()) {
+            return silent;
+        }
+
+        // The row guards keep a concurrent claim (AVAILABLE -> BUSY) and activity seen by another
+        // instance from being overwritten
+        repository.markOffline(silent, silentSinceMillis, System.currentTimeMillis());
+
+        // Taken before reading the rows back: a status change that commits after the read applies
+        // itself once its transaction is done, and replace() below then leaves it be
+        List<AgentState> before = silent.stream().map(states::get).toList();
+        Map<Long, AgentState> rows = repository.findAllById(silent).stream()
+                .collect(Collectors.toMap(AgentState::id, Function.identity()));
+
+        List<Long> takenOffline = new ArrayList<>(silent.size());
+        for (int i = 0; i < silent.size(); i++) {
+            Long agentId = silent.get(i);
+            AgentState current = before.get(i);
+            AgentState row = rows.get(agentId);
+            if (current == null || row == null || current.status() == DeliveryAgent.AgentStatus.OFFLINE) {
+                continue;
+            }
+            if (row.status() == DeliveryAgent.AgentStatus.OFFLINE) {
+                AgentState offline = current.withStatus(DeliveryAgent.AgentStatus.OFFLINE, current.lastActiveMillis());
+                if (states.replace(agentId, current, offline)) {
+                    spatialIndex.sync(offline);
+                    notifyStatus(offline);
+                    takenOffline.add(agentId);
+                }
+                continue;
+            }
+            AgentState refreshed = current.withStatus(row.status(), row.lastActiveMillis());
+            if (!refreshed.equals(current) && states.replace(agentId, current, refreshed)) {
+                spatialIndex.sync(refreshed);
+                notifyStatus(refreshed);
+            }
+        }
+        return takenOffline;
+    }
+
+    public void remove(long agentId) {
+        states.remove(agentId);
+        spatialIndex.remove(agentId);
+    }
+
+    public List<AgentState> withStatus(DeliveryAgent.AgentStatus status) {
+        return states.values().stream().filter(s -> s.status() == status).toList();
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    private void notifyStatus(AgentState state) {
+        for (Consumer<AgentState> listener : statusListeners) {
+            listener.accept(state);
+        }
+    }
+
+    private static boolean isSilentAvailable(AgentState state, long silentSinceMillis) {
+        return state.status() == DeliveryAgent.AgentStatus.AVAILABLE && state.lastActiveMillis() < silentSinceMillis;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.foodDelivery.agent;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of {@code long} keys with millisecond deadlines.
+ *
+ * Each level has {@code 2^bitsPerLevel} slots; a slot on level 0 spans one tick and a slot on level
+ * {@code n} spans {@code 2^(n * bitsPerLevel)} ticks. An entry sits on the lowest level whose span
+ * covers its distance to the deadline and is cascaded one level down each time the wheel below
+ * wraps, so scheduling is O(1) and each tick only touches the entries that are due plus the ones
+ * being cascaded, independent of how many keys are scheduled in total.
+ *
+ * The wheel does not deduplicate keys and has no cancel; callers decide on expiry whether the key
+ * is still interesting. Not thread-safe.
+ */
+public class HierarchicalTimingWheel {
+
+    private final long tickMillis;
+    private final int bitsPerLevel;
+    private final int slotMask;
+    private final long maxSpanTicks;
+    private final Bucket[][] levels;
+
+    // Last tick whose level-0 slot has been processed
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int bitsPerLevel, int levelCount, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        if (bitsPerLevel <= 0 || levelCount <= 0 || (long) bitsPerLevel * levelCount > 48) {
+            throw new IllegalArgumentException("Wheel of " + levelCount + " levels of 2^" + bitsPerLevel
+                    + " slots is out of range");
+        }
+        this.tickMillis = tickMillis;
+        this.bitsPerLevel = bitsPerLevel;
+        this.slotMask = (1 << bitsPerLevel) - 1;
+        this.maxSpanTicks = 1L << (bitsPerLevel * levelCount);
+        this.levels = new Bucket[levelCount][1 << bitsPerLevel];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule {@code key} to expire on the first tick at or after {@code deadlineMillis}. Deadlines
+     * already passed expire on the next tick.
+     */
+    public void schedule(long key, long deadlineMillis) {
+        long deadlineTick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        place(key, deadlineTick);
+        size++;
+    }
+
+    /**
+     * Advance the wheel to {@code nowMillis}, handing every key whose deadline has passed to
+     * {@code expired}. The callback may schedule keys again.
+     *
+     * @return number of keys expired
+     */
+    public int advance(long nowMillis, LongConsumer expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        int count = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            Bucket due = levels[0][(int) (currentTick & slotMask)];
+            if (due == null || due.size == 0) {
+                continue;
+            }
+            long[] keys = due.keys;
+            long[] deadlines = due.deadlines;
+            int n = due.size;
+            // Detach the slot first so callbacks that reschedule for the next round land in a fresh bucket
+            levels[0][(int) (currentTick & slotMask)] = null;
+            size -= n;
+            for (int i = 0; i < n; i++) {
+                if (deadlines[i] <= currentTick) {
+                    count++;
+                    expired.accept(keys[i]);
+                } else {
+                    place(keys[i], deadlines[i]);
+                    size++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    // When the level below wraps, move this level's current slot down; recurse first so that
+    // entries cascading from higher levels are redistributed before this slot is emptied
+    private void cascade(int level) {
+        if (level >= levels.length) {
+            return;
+        }
+        long belowTicks = currentTick >>> (bitsPerLevel * (level - 1));
+        if ((belowTicks & slotMask) != 0) {
+            return;
+        }
+        cascade(level + 1);
+        int slot = (int) ((currentTick >>> (bitsPerLevel * level)) & slotMask);
+        Bucket bucket = levels[level][slot];
+        if (bucket == null || bucket.size == 0) {
+            return;
+        }
+        levels[level][slot] = null;
+        for (int i = 0; i < bucket.size; i++) {
+            place(bucket.keys[i], bucket.deadlines[i]);
+        }
+    }
+
+    private void place(long key, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        // Deadlines beyond the top level wait in its farthest slot and are re-placed when it cascades
+        long placementTick = delta < maxSpanTicks ? deadlineTick : currentTick + maxSpanTicks - 1;
+        int level = 0;
+        while (level < levels.length - 1 && (placementTick - currentTick) >>> (bitsPerLevel * (level + 1)) != 0) {
+            level++;
+        }
+        // The current slot of level n has already been cascaded this revolution, so an entry that
+        // falls into it belongs one level lower
+        while (level > 0 && (placementTick >>> (bitsPerLevel * level)) == (currentTick >>> (bitsPerLevel * level))) {
+            level--;
+        }
+        int slot = (int) ((placementTick >>> (bitsPerLevel * level)) & slotMask);
+        Bucket bucket = levels[level][slot];
+        if (bucket == null) {
+            bucket = new Bucket();
+            levels[level][slot] = bucket;
+        }
+        bucket.add(key, deadlineTick);
+    }
+
+    private static final class Bucket {
+        private long[] keys = new long[8];
+        private long[] deadlines = new long[8];
+        private int size;
+
+        void add(long key, long deadlineTick) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+            }
+            keys[size] = key;
+            deadlines[size] = deadlineTick;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.foodDelivery.assignment;
+
+import com.foodDelivery.geo.AgentSpatialIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * PENDING deliveries that found no agent, ordered by when they are due for another attempt.
+ *
+ * Each failed attempt doubles the wait (up to a cap) and widens the search radius. Pickups are kept
+ * in a grid index keyed by delivery id, so an agent becoming AVAILABLE can pull the waiting
+ * deliveries it is close enough to serve to the front without looking at the rest. Entries
+ * that are rescheduled or expedited leave their old heap node behind; stale nodes are skipped
+ * when they surface.
+ */
+@Component
+public class AssignmentRetryQueue {
+
+    private static final Comparator<Node> BY_DUE = Comparator.comparingLong(Node::dueAtMillis)
+            .thenComparingLong(Node::seq);
+
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double initialRadiusKm;
+    private final double radiusGrowth;
+    private final double maxRadiusKm;
+
+    private final PriorityQueue<Node> heap = new PriorityQueue<>(BY_DUE);
+    private final Map<Long, Waiting> waiting = new HashMap<>();
+    private final AgentSpatialIndex pickups;
+    private long nextSeq;
+
+    public AssignmentRetryQueue(@Value("${delivery.assignment.retry.initial-backoff-ms:2000}") long initialBackoffMs,
+                                @Value("${delivery.assignment.retry.max-backoff-ms:60000}") long maxBackoffMs,
+                                @Value("${delivery.assignment.search-radius-km:25}") double initialRadiusKm,
+                                @Value("${delivery.assignment.retry.radius-growth:1.5}") double radiusGrowth,
+                                @Value("${delivery.assignment.retry.max-radius-km:50}") double maxRadiusKm,
+                                @Value("${delivery.assignment.retry.cell-size-degrees:0.1}") double cellSizeDegrees) {
+        if (initialBackoffMs <= 0 || maxBackoffMs < initialBackoffMs) {
+            throw new IllegalArgumentException("Backoff must satisfy 0 < initial <= max: "
+                    + initialBackoffMs + ", " + maxBackoffMs);
+        }
+        if (initialRadiusKm <= 0 || radiusGrowth < 1 || maxRadiusKm < initialRadiusKm) {
+            throw new IllegalArgumentException("Radius must satisfy 0 < initial <= max and growth >= 1: "
+                    + initialRadiusKm + ", " + radiusGrowth + ", " + maxRadiusKm);
+        }
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.initialRadiusKm = initialRadiusKm;
+        this.radiusGrowth = radiusGrowth;
+        this.maxRadiusKm = maxRadiusKm;
+        this.pickups = new AgentSpatialIndex(cellSizeDegrees);
+    }
+
+    /**
+     * Queue a delivery whose first attempt found no agent. Its first retry is one initial backoff
+     * away. Does nothing if the delivery is already queued.
+     *
+     * @param pickupLatitude null if the pickup point is unknown; such deliveries are only retried on schedule
+     */
+    public synchronized void add(long deliveryId, Double pickupLatitude, Double pickupLongitude, long nowMillis) {
+        if (waiting.containsKey(deliveryId)) {
+            return;
+        }
+        Waiting entry = new Waiting(deliveryId);
+        waiting.put(deliveryId, entry);
+        if (pickupLatitude != null && pickupLongitude != null) {
+            pickups.upsert(deliveryId, pickupLatitude, pickupLongitude);
+        }
+        push(entry, nowMillis + initialBackoffMs);
+    }
+
+    /**
+     * Take the deliveries due by {@code nowMillis}, earliest first. Each stays queued until it is
+     * {@link #remove removed} or {@link #reschedule rescheduled}.
+     */
+    public synchronized List<Attempt> pollDue(long nowMillis, int limit) {
+        List<Attempt> due = new ArrayList<>();
+        while (due.size() < limit && !heap.isEmpty() && heap.peek().dueAtMillis() <= nowMillis) {
+            Node node = heap.poll();
+            Waiting entry = waiting.get(node.deliveryId());
+            if (entry == null || entry.seq != node.seq()) {
+                continue;
+            }
+            // Not in the heap while the attempt runs; reschedule puts it back
+            entry.seq = -1;
+            due.add(new Attempt(entry.deliveryId, entry.attempt + 1, radiusKm(entry.attempt + 1)));
+        }
+        return due;
+    }
+
+    /**
+     * Record another failed attempt and schedule the next one with a doubled wait.
+     */
+    public synchronized void reschedule(long deliveryId, long nowMillis) {
+        Waiting entry = waiting.get(deliveryId);
+        if (entry == null) {
+            return;
+        }
+        entry.attempt++;
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(entry.attempt, 20));
+        push(entry, nowMillis + backoff);
+    }
+
+    /**
+     * Retry the delivery now, keeping the radius it has grown to. Queues it if it is not queued yet.
+     */
+    public synchronized void expedite(long deliveryId, Double pickupLatitude, Double pickupLongitude, long nowMillis) {
+        Waiting entry = waiting.get(deliveryId);
+        if (entry == null) {
+            add(deliveryId, pickupLatitude, pickupLongitude, nowMillis);
+            entry = waiting.get(deliveryId);
+        } else if (entry.seq == -1) {
+            // An attempt is running right now and will reschedule or remove the entry
+            return;
+        }
+        push(entry, nowMillis);
+    }
+
+    /**
+     * Make the waiting deliveries an agent at the given point could serve due now: those whose
+     * current search radius reaches the agent, nearest first.
+     *
+     * @return number of deliveries expedited
+     */
+    public synchronized int expediteNear(double latitude, double longitude, int limit, long nowMillis) {
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+        int expedited = 0;
+        for (AgentSpatialIndex.Neighbor pickup : pickups.withinRadius(latitude, longitude, maxRadiusKm)) {
+            if (expedited == limit) {
+                break;
+            }
+            Waiting entry = waiting.get(pickup.agentId());
+            if (entry == null || entry.seq == -1 || pickup.distanceKm() > radiusKm(entry.attempt + 1)) {
+                continue;
+            }
+            push(entry, nowMillis);
+            expedited++;
+        }
+        return expedited;
+    }
+
+    public synchronized boolean remove(long deliveryId) {
+        pickups.remove(deliveryId);
+        return waiting.remove(deliveryId) != null;
+    }
+
+    public synchronized boolean contains(long deliveryId) {
+        return waiting.containsKey(deliveryId);
+    }
+
+    public synchronized int size() {
+        return waiting.size();
+    }
+
+    /**
+     * Search radius for the given attempt: the initial radius, grown on every earlier retry up to the cap.
+     */
+    double radiusKm(int attempt) {
+        return Math.min(maxRadiusKm, initialRadiusKm * Math.pow(radiusGrowth, Math.max(0, attempt - 1)));
+    }
+
+    private void push(Waiting entry, long dueAtMillis) {
+        entry.seq = nextSeq++;
+        heap.add(new Node(entry.deliveryId, dueAtMillis, entry.seq));
+        // Expedited entries leave stale nodes behind; rebuild once they dominate the heap
+        if (heap.size() > 2 * waiting.size() + 64) {
+            heap.removeIf(node -> {
+                Waiting current = waiting.get(node.deliveryId());
+                return current == null || current.seq != node.seq();
+            });
+        }
+    }
+
+    /**
+     * One retry to run: the delivery, which attempt this is (1 for the first retry), and how far to look.
+     */
+    public record Attempt(long deliveryId, int attempt, double radiusKm) {}
+
+    private record Node(long deliveryId, long dueAtMillis, long seq) {}
+
+    private static final class Waiting {
+        private final long deliveryId;
+        // Failed retries so far
+        private int attempt;
+        // Sequence of the entry's live heap node; -1 while an attempt is running
+        private long seq;
+
+        Waiting(long deliveryId) {
+            this.deliveryId = deliveryId;
+        }
+    }
+}
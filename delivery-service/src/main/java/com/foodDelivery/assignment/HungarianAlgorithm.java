@@ -0,0 +1,112 @@
+package com.foodDelivery.assignment;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost bipartite assignment (Hungarian algorithm with potentials, O(n^2 * m)).
+ */
+public final class HungarianAlgorithm {
+
+    private HungarianAlgorithm() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Solve the assignment problem for a rectangular cost matrix.
+     *
+     * @param cost cost[row][col]; use a large finite value for pairs that must not be matched
+     * @return for every row, the column it is matched to, or -1 when there are more rows than columns
+     *         and the row was left out
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int cols = cost[0].length;
+        if (cols == 0) {
+            int[] none = new int[rows];
+            Arrays.fill(none, -1);
+            return none;
+        }
+
+        if (rows <= cols) {
+            return solveRowsAtMostCols(cost, rows, cols);
+        }
+
+        // More rows than columns: solve the transposed problem and invert the mapping
+        double[][] transposed = new double[cols][rows];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                transposed[c][r] = cost[r][c];
+            }
+        }
+        int[] colToRow = solveRowsAtMostCols(transposed, cols, rows);
+        int[] rowToCol = new int[rows];
+        Arrays.fill(rowToCol, -1);
+        for (int c = 0; c < cols; c++) {
+            rowToCol[colToRow[c]] = c;
+        }
+        return rowToCol;
+    }
+
+    private static int[] solveRowsAtMostCols(double[][] a, int n, int m) {
+        // 1-based arrays; index 0 is the virtual column used to start each augmenting path
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double cur = a[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] rowToCol = new int[n];
+        Arrays.fill(rowToCol, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                rowToCol[p[j] - 1] = j - 1;
+            }
+        }
+        return rowToCol;
+    }
+}
@@ -0,0 +1,45 @@
+package com.foodDelivery.assignment;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ids of PENDING deliveries waiting for the next batch-assignment window.
+ * Filled by {@code DeliveryService} after the delivery row is committed, drained by
+ * {@code BatchAssignmentService}, so the matcher never has to scan the deliveries table; it only
+ * reads it once at startup to pick up deliveries left PENDING by a previous run.
+ */
+@Component
+public class PendingDeliveryQueue {
+
+    private final Set<Long> pending = new LinkedHashSet<>();
+
+    public synchronized void add(Long deliveryId) {
+        pending.add(deliveryId);
+    }
+
+    public synchronized void addAll(Iterable<Long> deliveryIds) {
+        deliveryIds.forEach(pending::add);
+    }
+
+    public synchronized boolean remove(Long deliveryId) {
+        return pending.remove(deliveryId);
+    }
+
+    /**
+     * Take everything queued so far, oldest first.
+     */
+    public synchronized List<Long> drain() {
+        List<Long> batch = new ArrayList<>(pending);
+        pending.clear();
+        return batch;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+}
@@ -1,6 +1,8 @@
 package com.foodDelivery.config;
 
+import com.foodDelivery.kafka.KeyedRecordExecutor;
 import com.fooddelivery.events.OrderEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,9 +11,13 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,8 +30,24 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${delivery.order-events.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${delivery.order-events.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${delivery.heatmap.group-id-prefix:delivery-service-heatmap}")
+    private String heatmapGroupIdPrefix;
+
+    // Blank: the host name and server port
+    @Value("${delivery.heatmap.instance-id:}")
+    private String heatmapInstanceId;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
     @Bean
-    public ConsumerFactory<String, OrderEvent> consumerFactory() {
+    public ConsumerFactory<String, OrderEvent> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
@@ -35,14 +57,70 @@ public class KafkaConsumerConfig {
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
         configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName());
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        DefaultKafkaConsumerFactory<String, OrderEvent> factory = new DefaultKafkaConsumerFactory<>(configProps);
+        // Client metrics, including records-lag and records-lag-max per partition
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
+    /**
+     * Records are handed to {@link KeyedRecordExecutor} and acknowledged from the worker once
+     * handled. With async acks the container accepts those acknowledgments in any order and commits
+     * only up to the lowest offset below which every record is done, so a crash never skips an
+     * unfinished record.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> kafkaListenerContainerFactory(
+            ConsumerFactory<String, OrderEvent> consumerFactory) {
         ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+
+    /**
+     * Listeners feeding the in-memory demand heatmap. Every instance keeps its own heatmap, so each
+     * joins a consumer group of its own and lets the client auto-commit; the value type is set per
+     * listener. The group is named after the instance, so a restart rejoins it rather than leaving an
+     * orphaned group behind; HeatmapEventConsumer skips to the latest offsets whenever it is assigned
+     * the partitions.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> heatmapListenerContainerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, heatmapGroupIdPrefix + "-" + heatmapInstanceId());
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
         return factory;
     }
+
+    @Bean(destroyMethod = "close")
+    public KeyedRecordExecutor orderEventExecutor() {
+        return new KeyedRecordExecutor(maxInFlight);
+    }
+
+    private String heatmapInstanceId() {
+        if (!heatmapInstanceId.isBlank()) {
+            return heatmapInstanceId;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + serverPort;
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Could not name the heatmap consumer group after this host; "
+                    + "set delivery.heatmap.instance-id", e);
+        }
+    }
 }
@@ -10,6 +10,8 @@ public class KafkaTopicConfig {
 
     // Topics for consuming events from other services
     public static final String ORDER_EVENTS_TOPIC = "order-events";
+    // Order events that still failed after every retry
+    public static final String ORDER_EVENTS_DLT_TOPIC = "order-events.DLT";
     
     // Topics for publishing delivery events
     public static final String DELIVERY_EVENTS_TOPIC = "delivery-events";
@@ -23,6 +25,14 @@ public class KafkaTopicConfig {
                 .build();
     }
 
+    @Bean
+    public NewTopic orderEventsDltTopic() {
+        return TopicBuilder.name(ORDER_EVENTS_DLT_TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
     @Bean
     public NewTopic deliveryEventsTopic() {
         return TopicBuilder.name(DELIVERY_EVENTS_TOPIC)
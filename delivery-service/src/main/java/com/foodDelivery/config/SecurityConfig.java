@@ -26,6 +26,7 @@
 package com.foodDelivery.config;
 
 import com.foodDelivery.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -59,6 +60,8 @@ public class SecurityConfig {
                 .requestMatchers("/delivery-service/api/v1/auth/**").permitAll()
                 .requestMatchers("/api/v1/test/**").permitAll()
                 .requestMatchers("/error").permitAll()
+                // Async re-dispatches of an already authorized request (tracking streams)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 
                 // Agent endpoints - require authentication (role check in JWT filter)
                 .requestMatchers("/api/v1/agents/me/**").authenticated()
@@ -1,10 +1,14 @@
 package com.foodDelivery.controller;
 
+import com.foodDelivery.dto.AgentRouteResponse;
+import com.foodDelivery.dto.CursorPageResponse;
 import com.foodDelivery.dto.DeliveryAgentResponse;
+import com.foodDelivery.dto.RepositioningSuggestionResponse;
 import com.foodDelivery.dto.UpdateLocationRequest;
 import com.foodDelivery.dto.UpdateStatusRequest;
 import com.foodDelivery.entity.DeliveryAgent;
 import com.foodDelivery.service.DeliveryAgentService;
+import com.foodDelivery.service.DemandHeatmapService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,9 +21,11 @@ import java.util.List;
 public class DeliveryAgentController {
 
     private final DeliveryAgentService agentService;
+    private final DemandHeatmapService heatmapService;
 
-    public DeliveryAgentController(DeliveryAgentService agentService) {
+    public DeliveryAgentController(DeliveryAgentService agentService, DemandHeatmapService heatmapService) {
         this.agentService = agentService;
+        this.heatmapService = heatmapService;
     }
 
     // Get current agent's profile
@@ -44,23 +50,41 @@ public class DeliveryAgentController {
 
     // Update agent location
     @PutMapping("/me/location")
-    public ResponseEntity<DeliveryAgentResponse> updateMyLocation(
+    public ResponseEntity<Void> updateMyLocation(
             HttpServletRequest request,
             @RequestBody UpdateLocationRequest locationRequest) {
         Long agentId = (Long) request.getAttribute("userId");
-        DeliveryAgentResponse response = agentService.updateAgentLocation(
+        agentService.updateAgentLocation(
                 agentId,
                 locationRequest.getLatitude(),
                 locationRequest.getLongitude()
         );
-        return ResponseEntity.ok(response);
+        // Buffered; persisted on the next location flush
+        return ResponseEntity.accepted().build();
+    }
+
+    // Get current agent's stops in visiting order
+    @GetMapping("/me/route")
+    public ResponseEntity<AgentRouteResponse> getMyRoute(HttpServletRequest request) {
+        Long agentId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(agentService.getAgentRoute(agentId));
+    }
+
+    // Where the current agent should wait for the next order, if anywhere
+    @GetMapping("/me/repositioning")
+    public ResponseEntity<RepositioningSuggestionResponse> getMyRepositioning(HttpServletRequest request) {
+        Long agentId = (Long) request.getAttribute("userId");
+        return heatmapService.getRepositioningSuggestion(agentId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
     }
 
-    // Get all agents (for admin)
+    // Get all agents, one page at a time (for admin)
     @GetMapping
-    public ResponseEntity<List<DeliveryAgentResponse>> getAllAgents() {
-        List<DeliveryAgentResponse> agents = agentService.getAllAgents();
-        return ResponseEntity.ok(agents);
+    public ResponseEntity<CursorPageResponse<DeliveryAgentResponse>> getAllAgents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(agentService.getAllAgents(cursor, limit));
     }
 
     // Get available agents
@@ -77,6 +101,12 @@ public class DeliveryAgentController {
         return ResponseEntity.ok(agent);
     }
 
+    // Get agent's stops in visiting order (for admin)
+    @GetMapping("/{id}/route")
+    public ResponseEntity<AgentRouteResponse> getAgentRoute(@PathVariable Long id) {
+        return ResponseEntity.ok(agentService.getAgentRoute(id));
+    }
+
     // Update agent status by ID (for admin)
     @PutMapping("/{id}/status")
     public ResponseEntity<DeliveryAgentResponse> updateAgentStatus(
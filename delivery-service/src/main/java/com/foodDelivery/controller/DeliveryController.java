@@ -1,15 +1,23 @@
 package com.foodDelivery.controller;
 
+import com.foodDelivery.dto.CursorPageResponse;
 import com.foodDelivery.dto.DeliveryRequest;
 import com.foodDelivery.dto.DeliveryResponse;
 import com.foodDelivery.dto.DeliveryTrackingResponse;
+import com.foodDelivery.dto.HeatmapCellResponse;
+import com.foodDelivery.dto.RepositioningSuggestionResponse;
 import com.foodDelivery.entity.Delivery;
 import com.foodDelivery.service.DeliveryService;
+import com.foodDelivery.service.DemandHeatmapService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -18,9 +26,11 @@ import java.util.Map;
 public class DeliveryController {
 
     private final DeliveryService deliveryService;
+    private final DemandHeatmapService heatmapService;
 
-    public DeliveryController(DeliveryService deliveryService) {
+    public DeliveryController(DeliveryService deliveryService, DemandHeatmapService heatmapService) {
         this.deliveryService = deliveryService;
+        this.heatmapService = heatmapService;
     }
 
     @PostMapping
@@ -49,6 +59,18 @@ public class DeliveryController {
         return ResponseEntity.ok(response);
     }
 
+    // Pending, assigned and late deliveries per geohash cell, with counts over the last minutes
+    @GetMapping("/heatmap")
+    public ResponseEntity<List<HeatmapCellResponse>> getHeatmap(@RequestParam(defaultValue = "15") int minutes) {
+        return ResponseEntity.ok(heatmapService.getHeatmap(minutes));
+    }
+
+    // Where idle agents should move to meet demand
+    @GetMapping("/heatmap/repositioning")
+    public ResponseEntity<List<RepositioningSuggestionResponse>> getRepositioningSuggestions() {
+        return ResponseEntity.ok(heatmapService.getRepositioningSuggestions());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<DeliveryResponse> getDeliveryById(@PathVariable Long id) {
         DeliveryResponse response = deliveryService.getDeliveryById(id);
@@ -61,16 +83,28 @@ public class DeliveryController {
         return ResponseEntity.ok(response);
     }
 
+    // Newest first, one page at a time; follow nextCursor for older deliveries
     @GetMapping("/agent/{agentId}")
-    public ResponseEntity<List<DeliveryResponse>> getDeliveriesByAgent(@PathVariable Long agentId) {
-        List<DeliveryResponse> deliveries = deliveryService.getDeliveriesByAgent(agentId);
-        return ResponseEntity.ok(deliveries);
+    public ResponseEntity<CursorPageResponse<DeliveryResponse>> getDeliveriesByAgent(
+            @PathVariable Long agentId,
+            @RequestParam(required = false) Delivery.DeliveryStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(deliveryService.getDeliveriesByAgent(agentId, status, from, to, cursor, limit));
     }
 
+    // Newest first, one page at a time; follow nextCursor for older deliveries
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<DeliveryResponse>> getDeliveriesByCustomer(@PathVariable Long customerId) {
-        List<DeliveryResponse> deliveries = deliveryService.getDeliveriesByCustomer(customerId);
-        return ResponseEntity.ok(deliveries);
+    public ResponseEntity<CursorPageResponse<DeliveryResponse>> getDeliveriesByCustomer(
+            @PathVariable Long customerId,
+            @RequestParam(required = false) Delivery.DeliveryStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(deliveryService.getDeliveriesByCustomer(customerId, status, from, to, cursor, limit));
     }
 
     @GetMapping("/{deliveryId}/tracking")
@@ -79,6 +113,12 @@ public class DeliveryController {
         return ResponseEntity.ok(tracking);
     }
 
+    // Server-Sent Events: "location" and "status" updates as they happen, instead of polling /tracking
+    @GetMapping(value = "/{deliveryId}/tracking/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDeliveryTracking(@PathVariable Long deliveryId) {
+        return deliveryService.streamDeliveryTracking(deliveryId);
+    }
+
     @PostMapping("/{deliveryId}/location")
     public ResponseEntity<DeliveryTrackingResponse> updateDeliveryLocation(
             @PathVariable Long deliveryId,
@@ -87,6 +127,7 @@ public class DeliveryController {
         Double longitude = ((Number) locationData.get("longitude")).doubleValue();
         String remarks = (String) locationData.get("remarks");
         DeliveryTrackingResponse response = deliveryService.updateDeliveryLocation(deliveryId, latitude, longitude, remarks);
-        return ResponseEntity.ok(response);
+        // Buffered; persisted on the next location flush
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
     }
 }
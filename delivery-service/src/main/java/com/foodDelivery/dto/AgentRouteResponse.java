@@ -0,0 +1,43 @@
+package com.foodDelivery.dto;
+
+import java.util.List;
+
+public class AgentRouteResponse {
+
+    private Long agentId;
+    private List<RouteStopResponse> stops;
+    // Straight-line length from the agent's last known position through every stop
+    private Double totalDistanceKm;
+
+    public AgentRouteResponse() {}
+
+    public AgentRouteResponse(Long agentId, List<RouteStopResponse> stops, Double totalDistanceKm) {
+        this.agentId = agentId;
+        this.stops = stops;
+        this.totalDistanceKm = totalDistanceKm;
+    }
+
+    public Long getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(Long agentId) {
+        this.agentId = agentId;
+    }
+
+    public List<RouteStopResponse> getStops() {
+        return stops;
+    }
+
+    public void setStops(List<RouteStopResponse> stops) {
+        this.stops = stops;
+    }
+
+    public Double getTotalDistanceKm() {
+        return totalDistanceKm;
+    }
+
+    public void setTotalDistanceKm(Double totalDistanceKm) {
+        this.totalDistanceKm = totalDistanceKm;
+    }
+}
@@ -12,6 +12,7 @@ public class DeliveryTrackingResponse {
     private Delivery.DeliveryStatus statusUpdate;
     private String remarks;
     private LocalDateTime timestamp;
+    private LocalDateTime estimatedDeliveryTime;
 
     // Constructors
     public DeliveryTrackingResponse() {}
@@ -37,4 +38,7 @@ public class DeliveryTrackingResponse {
 
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+
+    public LocalDateTime getEstimatedDeliveryTime() { return estimatedDeliveryTime; }
+    public void setEstimatedDeliveryTime(LocalDateTime estimatedDeliveryTime) { this.estimatedDeliveryTime = estimatedDeliveryTime; }
 }
@@ -0,0 +1,100 @@
+package com.foodDelivery.dto;
+
+public class HeatmapCellResponse {
+
+    private String geohash;
+    private Double latitude;
+    private Double longitude;
+    private int pending;
+    private int assigned;
+    private int late;
+    private int recentPending;
+    private int recentAssigned;
+    private int recentLate;
+
+    public HeatmapCellResponse() {}
+
+    public HeatmapCellResponse(String geohash, Double latitude, Double longitude, int pending, int assigned, int late, int recentPending, int recentAssigned, int recentLate) {
+        this.geohash = geohash;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.pending = pending;
+        this.assigned = assigned;
+        this.late = late;
+        this.recentPending = recentPending;
+        this.recentAssigned = recentAssigned;
+        this.recentLate = recentLate;
+    }
+
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    public int getAssigned() {
+        return assigned;
+    }
+
+    public void setAssigned(int assigned) {
+        this.assigned = assigned;
+    }
+
+    public int getLate() {
+        return late;
+    }
+
+    public void setLate(int late) {
+        this.late = late;
+    }
+
+    public int getRecentPending() {
+        return recentPending;
+    }
+
+    public void setRecentPending(int recentPending) {
+        this.recentPending = recentPending;
+    }
+
+    public int getRecentAssigned() {
+        return recentAssigned;
+    }
+
+    public void setRecentAssigned(int recentAssigned) {
+        this.recentAssigned = recentAssigned;
+    }
+
+    public int getRecentLate() {
+        return recentLate;
+    }
+
+    public void setRecentLate(int recentLate) {
+        this.recentLate = recentLate;
+    }
+}
@@ -0,0 +1,70 @@
+package com.foodDelivery.dto;
+
+public class RepositioningSuggestionResponse {
+
+    private Long agentId;
+    private String geohash;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;
+    private int deficit;
+
+    public RepositioningSuggestionResponse() {}
+
+    public RepositioningSuggestionResponse(Long agentId, String geohash, Double latitude, Double longitude, Double distanceKm, int deficit) {
+        this.agentId = agentId;
+        this.geohash = geohash;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distanceKm = distanceKm;
+        this.deficit = deficit;
+    }
+
+    public Long getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(Long agentId) {
+        this.agentId = agentId;
+    }
+
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public Double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(Double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+
+    public int getDeficit() {
+        return deficit;
+    }
+
+    public void setDeficit(int deficit) {
+        this.deficit = deficit;
+    }
+}
@@ -0,0 +1,64 @@
+package com.foodDelivery.dto;
+
+public class RouteStopResponse {
+
+    public enum StopType {
+        PICKUP, DROP
+    }
+
+    private int sequence;
+    private Long deliveryId;
+    private StopType type;
+    private Double latitude;
+    private Double longitude;
+
+    public RouteStopResponse() {}
+
+    public RouteStopResponse(int sequence, Long deliveryId, StopType type, Double latitude, Double longitude) {
+        this.sequence = sequence;
+        this.deliveryId = deliveryId;
+        this.type = type;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    public Long getDeliveryId() {
+        return deliveryId;
+    }
+
+    public void setDeliveryId(Long deliveryId) {
+        this.deliveryId = deliveryId;
+    }
+
+    public StopType getType() {
+        return type;
+    }
+
+    public void setType(StopType type) {
+        this.type = type;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+}
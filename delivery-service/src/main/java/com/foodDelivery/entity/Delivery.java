@@ -8,7 +8,11 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "deliveries")
+@Table(name = "deliveries", indexes = {
+        // Keyset pages of an agent's or a customer's deliveries, newest first; InnoDB appends the id
+        @Index(name = "idx_deliveries_agent_created", columnList = "delivery_agent_id, created_at"),
+        @Index(name = "idx_deliveries_customer_created", columnList = "customer_id, created_at")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Delivery {
 
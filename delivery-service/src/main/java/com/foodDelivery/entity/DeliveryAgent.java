@@ -1,6 +1,7 @@
 package com.foodDelivery.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -9,6 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "delivery_agents")
+// Only write changed columns, so a status change never overwrites a concurrent location update
+@DynamicUpdate
 @EntityListeners(AuditingEntityListener.class)
 public class DeliveryAgent {
 
@@ -52,6 +55,8 @@ public class DeliveryAgent {
     
     private Double rating = 0.0;
     private Integer totalDeliveries = 0;
+    // Deliveries currently assigned to the agent; more than one when orders are stacked
+    private Integer activeDeliveries = 0;
     private Boolean isVerified = false;
     private Boolean isActive = true;
 
@@ -220,6 +225,14 @@ public class DeliveryAgent {
         this.isVerified = isVerified;
     }
 
+    public Integer getActiveDeliveries() {
+        return activeDeliveries;
+    }
+
+    public void setActiveDeliveries(Integer activeDeliveries) {
+        this.activeDeliveries = activeDeliveries;
+    }
+
     public Boolean getIsActive() {
         return isActive;
     }
@@ -0,0 +1,84 @@
+package com.foodDelivery.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The breadcrumb trail of one delivery, stored as {@link com.foodDelivery.location.TrackCodec}
+ * chunks in a single row. Appended to with plain JDBC; read in one fetch.
+ */
+@Entity
+@Table(name = "delivery_tracks")
+public class DeliveryTrack {
+
+    @Id
+    private Long deliveryId;
+
+    @Column(nullable = false)
+    private int pointCount;
+
+    @Column(nullable = false)
+    private int chunkCount;
+
+    // Epoch millis of the last point stored, so an append that already landed is not made twice
+    @Column(nullable = false)
+    private long lastPointAt;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    private LocalDateTime updatedAt;
+
+    public DeliveryTrack() {
+    }
+
+    public Long getDeliveryId() {
+        return deliveryId;
+    }
+
+    public void setDeliveryId(Long deliveryId) {
+        this.deliveryId = deliveryId;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public void setPointCount(int pointCount) {
+        this.pointCount = pointCount;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public long getLastPointAt() {
+        return lastPointAt;
+    }
+
+    public void setLastPointAt(long lastPointAt) {
+        this.lastPointAt = lastPointAt;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
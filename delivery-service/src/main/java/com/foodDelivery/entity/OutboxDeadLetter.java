@@ -0,0 +1,86 @@
+package com.foodDelivery.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox event that {@code OutboxRelay} gave up on: it failed to publish too many times for a
+ * reason retrying will not fix, such as a payload that cannot be read or is too large for the
+ * broker. Kept for inspection and manual replay instead of blocking the events behind it.
+ */
+@Entity
+@Table(name = "delivery_outbox_dead_letter")
+public class OutboxDeadLetter {
+
+    // Id the event had in the outbox
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String messageKey;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime parkedAt;
+
+    public OutboxDeadLetter() {
+    }
+
+    public OutboxDeadLetter(OutboxEvent event, String lastError) {
+        this.id = event.getId();
+        this.messageKey = event.getMessageKey();
+        this.eventType = event.getEventType();
+        this.payload = event.getPayload();
+        this.attempts = event.getAttempts();
+        this.lastError = lastError != null && lastError.length() > 1000 ? lastError.substring(0, 1000) : lastError;
+        this.createdAt = event.getCreatedAt();
+        this.parkedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getParkedAt() {
+        return parkedAt;
+    }
+}
@@ -0,0 +1,259 @@
+package com.foodDelivery.eta;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.GeoDistance;
+import com.foodDelivery.repository.DeliveryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivery ETA from distance, vehicle and what the fleet has recently managed in each zone.
+ *
+ * Remaining distance is the Haversine distance of the legs still to drive (agent to pickup to drop,
+ * or agent to drop once picked up) times a road factor. The speed is the vehicle's nominal speed
+ * scaled by the zone's learned speed ratio: consecutive breadcrumbs of active deliveries give
+ * observed speeds, which are folded into a per-zone exponential moving average of
+ * observed / nominal. All state is in memory and every operation is O(1). The deliveries followed
+ * are rebuilt from the deliveries table once at startup; zone speeds are learned afresh.
+ */
+@Component
+public class EtaEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(EtaEngine.class);
+
+    private static final List<Delivery.DeliveryStatus> OPEN_STATUSES = List.of(
+            Delivery.DeliveryStatus.ASSIGNED, Delivery.DeliveryStatus.PICKED_UP, Delivery.DeliveryStatus.IN_TRANSIT);
+
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    // Breadcrumb pairs outside these bounds say nothing about driving speed
+    private static final long MIN_SAMPLE_GAP_MS = 2_000;
+    private static final long MAX_SAMPLE_GAP_MS = 120_000;
+    private static final double MIN_SAMPLE_SPEED_KMH = 2;
+    private static final double MAX_SAMPLE_SPEED_KMH = 120;
+
+    private final ConcurrentHashMap<Long, ZoneSpeed> zones = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Trip> trips = new ConcurrentHashMap<>();
+
+    private final DeliveryRepository deliveryRepository;
+
+    @Value("${delivery.eta.road-factor:1.3}")
+    private double roadFactor = 1.3;
+
+    @Value("${delivery.eta.pickup-handover-minutes:4}")
+    private double pickupHandoverMinutes = 4;
+
+    @Value("${delivery.eta.zone-size-degrees:0.05}")
+    private double zoneSizeDegrees = 0.05;
+
+    @Value("${delivery.eta.smoothing:0.1}")
+    private double smoothing = 0.1;
+
+    @Value("${delivery.eta.min-zone-samples:20}")
+    private int minZoneSamples = 20;
+
+    @Value("${delivery.eta.update-threshold-seconds:120}")
+    private long updateThresholdSeconds = 120;
+
+    public EtaEngine(DeliveryRepository deliveryRepository) {
+        this.deliveryRepository = deliveryRepository;
+    }
+
+    /**
+     * Follow the deliveries a previous run left open, from the ETA last reported for each.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        int loaded = 0;
+        for (Object[] row : deliveryRepository.findOpenEtaDeliveries(OPEN_STATUSES)) {
+            if (row[2] == null || row[3] == null || row[4] == null || row[5] == null) {
+                continue;
+            }
+            long deliveryId = (Long) row[0];
+            LocalDateTime eta = (LocalDateTime) row[7];
+            track(deliveryId, (DeliveryAgent.VehicleType) row[1], (Double) row[2], (Double) row[3],
+                    (Double) row[4], (Double) row[5],
+                    eta != null ? eta.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L);
+            onStatusChanged(deliveryId, (Delivery.DeliveryStatus) row[6]);
+            loaded++;
+        }
+        logger.info("Following the ETA of {} open deliveries", loaded);
+    }
+
+    /**
+     * Remaining travel time in milliseconds.
+     *
+     * @param pickedUp whether the order is already on board, so only the drop leg remains
+     */
+    public long estimateMillis(DeliveryAgent.VehicleType vehicle, double agentLat, double agentLon,
+                               double pickupLat, double pickupLon, double dropLat, double dropLon, boolean pickedUp) {
+        double km = pickedUp
+                ? GeoDistance.haversineKm(agentLat, agentLon, dropLat, dropLon)
+                : GeoDistance.haversineKm(agentLat, agentLon, pickupLat, pickupLon)
+                        + GeoDistance.haversineKm(pickupLat, pickupLon, dropLat, dropLon);
+        double hours = km * roadFactor / speedKmh(vehicle, agentLat, agentLon);
+        double handoverMillis = pickedUp ? 0 : pickupHandoverMinutes * 60_000;
+        return (long) (hours * MILLIS_PER_HOUR + handoverMillis);
+    }
+
+    /**
+     * Travel time in milliseconds along a multi-stop route: {@code routeKm} of straight-line legs
+     * starting around the given point, with a handover at each of the {@code pickups} on the way.
+     */
+    public long estimateRouteMillis(DeliveryAgent.VehicleType vehicle, double agentLat, double agentLon,
+                                    double routeKm, int pickups) {
+        double hours = routeKm * roadFactor / speedKmh(vehicle, agentLat, agentLon);
+        return (long) (hours * MILLIS_PER_HOUR + pickups * pickupHandoverMinutes * 60_000);
+    }
+
+    /**
+     * Expected speed of the vehicle around the given point.
+     */
+    public double speedKmh(DeliveryAgent.VehicleType vehicle, double lat, double lon) {
+        double nominal = nominalSpeed(vehicle);
+        ZoneSpeed zone = zones.get(zoneKey(lat, lon));
+        if (zone == null) {
+            return nominal;
+        }
+        // Trust the zone gradually as samples come in
+        double weight = Math.min(1.0, zone.samples / (double) minZoneSamples);
+        return nominal * (1 - weight + weight * zone.ratio);
+    }
+
+    /**
+     * Start following an assigned delivery.
+     */
+    public void track(long deliveryId, DeliveryAgent.VehicleType vehicle, double pickupLat, double pickupLon,
+                      double dropLat, double dropLon, long etaEpochMillis) {
+        trips.put(deliveryId, new Trip(vehicle, pickupLat, pickupLon, dropLat, dropLon, etaEpochMillis));
+    }
+
+    public void onStatusChanged(long deliveryId, Delivery.DeliveryStatus status) {
+        switch (status) {
+            case DELIVERED, CANCELLED, FAILED -> trips.remove(deliveryId);
+            case PICKED_UP, IN_TRANSIT -> {
+                Trip trip = trips.get(deliveryId);
+                if (trip != null) {
+                    trip.pickedUp = true;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Learn from the breadcrumb and recompute the delivery's ETA.
+     *
+     * @return the new ETA (epoch millis) if it moved by more than the update threshold since the
+     *         last one reported; empty otherwise or if the delivery is not followed
+     */
+    public OptionalLong onPing(long deliveryId, double lat, double lon, long epochMillis) {
+        Trip trip = trips.get(deliveryId);
+        if (trip == null) {
+            return OptionalLong.empty();
+        }
+        synchronized (trip) {
+            long gap = epochMillis - trip.lastMillis;
+            if (trip.lastMillis > 0 && gap >= MIN_SAMPLE_GAP_MS && gap <= MAX_SAMPLE_GAP_MS) {
+                double kmh = GeoDistance.haversineKm(trip.lastLat, trip.lastLon, lat, lon) * MILLIS_PER_HOUR / gap;
+                if (kmh >= MIN_SAMPLE_SPEED_KMH && kmh <= MAX_SAMPLE_SPEED_KMH) {
+                    learn(trip.vehicle, lat, lon, kmh);
+                }
+            }
+            trip.lastLat = lat;
+            trip.lastLon = lon;
+            trip.lastMillis = epochMillis;
+
+            long eta = epochMillis + estimateMillis(trip.vehicle, lat, lon,
+                    trip.pickupLat, trip.pickupLon, trip.dropLat, trip.dropLon, trip.pickedUp);
+            if (Math.abs(eta - trip.reportedEta) < updateThresholdSeconds * 1000) {
+                return OptionalLong.empty();
+            }
+            trip.reportedEta = eta;
+            return OptionalLong.of(eta);
+        }
+    }
+
+    public int trackedDeliveries() {
+        return trips.size();
+    }
+
+    private void learn(DeliveryAgent.VehicleType vehicle, double lat, double lon, double observedKmh) {
+        double ratio = observedKmh / nominalSpeed(vehicle);
+        zones.computeIfAbsent(zoneKey(lat, lon), key -> new ZoneSpeed()).add(ratio, smoothing);
+    }
+
+    private long zoneKey(double lat, double lon) {
+        long latIdx = (long) Math.floor(lat / zoneSizeDegrees);
+        long lonIdx = (long) Math.floor(lon / zoneSizeDegrees);
+        return (latIdx << 32) | (lonIdx & 0xffffffffL);
+    }
+
+    /**
+     * Nominal city speed in km/h; an agent without a vehicle type is taken to ride a bike.
+     */
+    private static double nominalSpeed(DeliveryAgent.VehicleType vehicle) {
+        if (vehicle == null) {
+            return 25;
+        }
+        return switch (vehicle) {
+            case BIKE -> 25;
+            case SCOOTER -> 22;
+            case CAR -> 20;
+            case BICYCLE -> 12;
+        };
+    }
+
+    /**
+     * Moving average of observed / nominal speed in one zone.
+     */
+    private static final class ZoneSpeed {
+
+        private volatile double ratio;
+        private volatile long samples;
+
+        synchronized void add(double sample, double smoothing) {
+            ratio = samples == 0 ? sample : ratio + smoothing * (sample - ratio);
+            samples++;
+        }
+    }
+
+    /**
+     * What the engine needs to know about one active delivery.
+     */
+    private static final class Trip {
+
+        private final DeliveryAgent.VehicleType vehicle;
+        private final double pickupLat;
+        private final double pickupLon;
+        private final double dropLat;
+        private final double dropLon;
+        private volatile boolean pickedUp;
+        private double lastLat;
+        private double lastLon;
+        private long lastMillis;
+        private long reportedEta;
+
+        Trip(DeliveryAgent.VehicleType vehicle, double pickupLat, double pickupLon,
+             double dropLat, double dropLon, long reportedEta) {
+            this.vehicle = vehicle;
+            this.pickupLat = pickupLat;
+            this.pickupLon = pickupLon;
+            this.dropLat = dropLat;
+            this.dropLon = dropLon;
+            this.reportedEta = reportedEta;
+        }
+    }
+}
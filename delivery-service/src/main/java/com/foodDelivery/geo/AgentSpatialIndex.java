@@ -0,0 +1,255 @@
+package com.foodDelivery.geo;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.entity.DeliveryAgent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live grid index of AVAILABLE agent positions.
+ *
+ * The world is cut into square lat/lon cells of {@code cellSizeDegrees}; each cell keeps the agents
+ * currently inside it as a {@link CoordinateBlock}, replaced on every change, which queries scan with
+ * {@link HaversineKernel}. Nearest and radius queries only visit the cells around the query point,
+ * so they cost O(agents nearby) instead of O(all available agents) and never touch MySQL.
+ *
+ * The index is a candidate filter, not the source of truth: callers must still confirm the agent's
+ * status before assigning (see {@code AgentClaimService}).
+ */
+@Component
+public class AgentSpatialIndex {
+
+    private static final Comparator<Neighbor> BY_DISTANCE = Comparator.comparingDouble(Neighbor::distanceKm);
+
+    private final double cellSizeDegrees;
+    private final double cellSizeKm;
+
+    private final ConcurrentHashMap<Long, Position> positions = new ConcurrentHashMap<>();
+    // cell key -> the agents inside that cell
+    private final ConcurrentHashMap<Long, CoordinateBlock> cells = new ConcurrentHashMap<>();
+
+    public AgentSpatialIndex(@Value("${delivery.assignment.index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0 || cellSizeDegrees > 1) {
+            throw new IllegalArgumentException("Cell size must be in (0, 1] degrees: " + cellSizeDegrees);
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.cellSizeKm = cellSizeDegrees * GeoDistance.KM_PER_DEGREE;
+    }
+
+    /**
+     * Keep the index in line with an agent's current state: AVAILABLE agents with a known
+     * position are indexed, everyone else is dropped.
+     */
+    public void sync(AgentState agent) {
+        if (agent.status() == DeliveryAgent.AgentStatus.AVAILABLE && agent.hasPosition()) {
+            upsert(agent.id(), agent.latitude(), agent.longitude());
+        } else {
+            remove(agent.id());
+        }
+    }
+
+    public void upsert(long agentId, double latitude, double longitude) {
+        long newCell = cellKey(latitude, longitude);
+        positions.compute(agentId, (id, old) -> {
+            if (old != null && old.cellKey() != newCell) {
+                removeFromCell(old.cellKey(), id);
+            }
+            cells.compute(newCell, (cell, members) ->
+                    (members != null ? members : CoordinateBlock.EMPTY).with(id, latitude, longitude));
+            return new Position(latitude, longitude, newCell);
+        });
+    }
+
+    public void remove(long agentId) {
+        positions.computeIfPresent(agentId, (id, old) -> {
+            removeFromCell(old.cellKey(), id);
+            return null;
+        });
+    }
+
+    public boolean contains(long agentId) {
+        return positions.containsKey(agentId);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public void clear() {
+        positions.clear();
+        cells.clear();
+    }
+
+    /**
+     * Up to {@code k} agents closest to the given point and no further than {@code maxRadiusKm},
+     * nearest first.
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, int k, double maxRadiusKm) {
+        if (k <= 0 || positions.isEmpty()) {
+            return List.of();
+        }
+        NearestAgents nearest = new NearestAgents(k);
+        nearest(latitude, longitude, maxRadiusKm, nearest);
+        List<Neighbor> result = new ArrayList<>(nearest.size());
+        for (int i = 0; i < nearest.size(); i++) {
+            result.add(new Neighbor(nearest.agentId(i), nearest.latitude(i), nearest.longitude(i),
+                    nearest.distanceKm(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Fill {@code nearest} with up to {@link NearestAgents#capacity()} agents closest to the given
+     * point and no further than {@code maxRadiusKm}, nearest first, without allocating per candidate.
+     *
+     * @return number of agents found
+     */
+    public int nearest(double latitude, double longitude, double maxRadiusKm, NearestAgents nearest) {
+        nearest.clear();
+        if (positions.isEmpty()) {
+            nearest.sort();
+            return 0;
+        }
+
+        HaversineKernel.Origin origin = HaversineKernel.Origin.of(latitude, longitude);
+        double maxTerm = HaversineKernel.kmToTerm(maxRadiusKm);
+        int centerLat = latIndex(latitude);
+        int centerLon = lonIndex(longitude);
+        int maxRing = (int) Math.ceil(maxRadiusKm / minCellSideKm(latitude, 0)) + 1;
+        maxRing = Math.min(maxRing, (int) Math.ceil(360 / cellSizeDegrees));
+        int seen = 0;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Anything in this ring is at least (ring - 1) whole cells away from the query point
+            double ringLowerBoundKm = Math.max(0, ring - 1) * minCellSideKm(latitude, ring);
+            if (ringLowerBoundKm > maxRadiusKm) {
+                break;
+            }
+            if (nearest.isFull() && HaversineKernel.termToKm(nearest.worstTerm()) <= ringLowerBoundKm) {
+                break;
+            }
+
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                int step = (Math.abs(dLat) == ring) ? 1 : 2 * ring;
+                for (int dLon = -ring; dLon <= ring; dLon += step) {
+                    CoordinateBlock block = cells.get(cellKey(centerLat + dLat, centerLon + dLon));
+                    if (block != null) {
+                        HaversineKernel.scan(origin, block, maxTerm, nearest);
+                        seen += block.size();
+                    }
+                }
+            }
+            if (seen >= positions.size()) {
+                // Every indexed agent has been looked at; wider rings are empty
+                break;
+            }
+        }
+
+        nearest.sort();
+        return nearest.size();
+    }
+
+    /**
+     * All agents within {@code radiusKm} of the given point, nearest first.
+     */
+    public List<Neighbor> withinRadius(double latitude, double longitude, double radiusKm) {
+        if (positions.isEmpty() || radiusKm < 0) {
+            return List.of();
+        }
+
+        HaversineKernel.Origin origin = HaversineKernel.Origin.of(latitude, longitude);
+        double maxTerm = HaversineKernel.kmToTerm(radiusKm);
+        int centerLat = latIndex(latitude);
+        int centerLon = lonIndex(longitude);
+        int latCells = (int) Math.ceil(radiusKm / cellSizeKm);
+        int lonCells = (int) Math.ceil(radiusKm / minCellSideKm(latitude, latCells));
+        lonCells = Math.min(lonCells, (int) Math.ceil(360 / cellSizeDegrees));
+
+        List<Neighbor> result = new ArrayList<>();
+        for (int dLat = -latCells; dLat <= latCells; dLat++) {
+            for (int dLon = -lonCells; dLon <= lonCells; dLon++) {
+                CoordinateBlock block = cells.get(cellKey(centerLat + dLat, centerLon + dLon));
+                if (block != null) {
+                    collectWithin(origin, block, maxTerm, result);
+                }
+            }
+        }
+        result.sort(BY_DISTANCE);
+        return result;
+    }
+
+    /**
+     * Visit every indexed agent once, cell by cell. Agents moved or removed during the walk may be
+     * seen at their old position, or not at all.
+     */
+    public void forEach(AgentVisitor visitor) {
+        for (CoordinateBlock block : cells.values()) {
+            for (int i = 0, n = block.size(); i < n; i++) {
+                visitor.visit(block.id(i), block.latitude(i), block.longitude(i));
+            }
+        }
+    }
+
+    private static void collectWithin(HaversineKernel.Origin origin, CoordinateBlock block, double maxTerm,
+                                      List<Neighbor> result) {
+        double[] latRad = block.latRad();
+        double[] lonRad = block.lonRad();
+        double[] cosLat = block.cosLat();
+        for (int i = 0, n = block.size(); i < n; i++) {
+            if (HaversineKernel.lowerBound(origin, latRad[i], lonRad[i], cosLat[i]) > maxTerm) {
+                continue;
+            }
+            double term = HaversineKernel.term(origin, latRad[i], lonRad[i], cosLat[i]);
+            if (term <= maxTerm) {
+                result.add(new Neighbor(block.id(i), block.latitude(i), block.longitude(i),
+                        HaversineKernel.termToKm(term)));
+            }
+        }
+    }
+
+    private void removeFromCell(long cell, long agentId) {
+        cells.computeIfPresent(cell, (c, members) -> {
+            CoordinateBlock remaining = members.without(agentId);
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    /**
+     * Shortest side of a cell, in km, for cells up to {@code rings} cells away from the given latitude.
+     * Longitude cells shrink towards the poles, so use the most poleward latitude reached.
+     */
+    private double minCellSideKm(double latitude, int rings) {
+        double poleward = Math.min(89.0, Math.abs(latitude) + (rings + 1) * cellSizeDegrees);
+        return cellSizeKm * Math.cos(Math.toRadians(poleward));
+    }
+
+    private int latIndex(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellSizeDegrees);
+    }
+
+    private int lonIndex(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellSizeDegrees);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(latIndex(latitude), lonIndex(longitude));
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+
+    private record Position(double latitude, double longitude, long cellKey) {}
+
+    public record Neighbor(long agentId, double latitude, double longitude, double distanceKm) {}
+
+    @FunctionalInterface
+    public interface AgentVisitor {
+        void visit(long agentId, double latitude, double longitude);
+    }
+}
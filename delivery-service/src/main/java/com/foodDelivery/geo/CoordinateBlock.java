@@ -0,0 +1,138 @@
+package com.foodDelivery.geo;
+
+import java.util.Arrays;
+
+/**
+ * Immutable struct-of-arrays block of agent positions: ids, degrees, and the radians and latitude
+ * cosine {@link HaversineKernel} scans with. Changes return a new block, so readers iterate a
+ * consistent snapshot without locking.
+ */
+public final class CoordinateBlock {
+
+    public static final CoordinateBlock EMPTY = new CoordinateBlock(new long[0], new double[0], new double[0],
+            new double[0], new double[0], new double[0]);
+
+    private final long[] ids;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final double[] latRad;
+    private final double[] lonRad;
+    private final double[] cosLat;
+
+    private CoordinateBlock(long[] ids, double[] latitude, double[] longitude,
+                            double[] latRad, double[] lonRad, double[] cosLat) {
+        this.ids = ids;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.latRad = latRad;
+        this.lonRad = lonRad;
+        this.cosLat = cosLat;
+    }
+
+    /**
+     * A block of the given points; the arrays are copied.
+     */
+    public static CoordinateBlock of(long[] ids, double[] latitudes, double[] longitudes) {
+        int n = ids.length;
+        if (latitudes.length != n || longitudes.length != n) {
+            throw new IllegalArgumentException("ids, latitudes and longitudes must have the same length");
+        }
+        CoordinateBlock block = new CoordinateBlock(ids.clone(), latitudes.clone(), longitudes.clone(),
+                new double[n], new double[n], new double[n]);
+        for (int i = 0; i < n; i++) {
+            block.prepare(i);
+        }
+        return block;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public long id(int index) {
+        return ids[index];
+    }
+
+    public double latitude(int index) {
+        return latitude[index];
+    }
+
+    public double longitude(int index) {
+        return longitude[index];
+    }
+
+    public int indexOf(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This block with the point added, or moved if the id is already in it.
+     */
+    public CoordinateBlock with(long id, double lat, double lon) {
+        int index = indexOf(id);
+        int n = index >= 0 ? ids.length : ids.length + 1;
+        CoordinateBlock block = new CoordinateBlock(Arrays.copyOf(ids, n), Arrays.copyOf(latitude, n),
+                Arrays.copyOf(longitude, n), Arrays.copyOf(latRad, n), Arrays.copyOf(lonRad, n),
+                Arrays.copyOf(cosLat, n));
+        int at = index >= 0 ? index : n - 1;
+        block.ids[at] = id;
+        block.latitude[at] = lat;
+        block.longitude[at] = lon;
+        block.prepare(at);
+        return block;
+    }
+
+    /**
+     * This block without the point; the same block if the id is not in it.
+     */
+    public CoordinateBlock without(long id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return this;
+        }
+        int last = ids.length - 1;
+        if (last == 0) {
+            return EMPTY;
+        }
+        // Move the last point into the gap
+        CoordinateBlock block = new CoordinateBlock(Arrays.copyOf(ids, last), Arrays.copyOf(latitude, last),
+                Arrays.copyOf(longitude, last), Arrays.copyOf(latRad, last), Arrays.copyOf(lonRad, last),
+                Arrays.copyOf(cosLat, last));
+        if (index != last) {
+            block.ids[index] = ids[last];
+            block.latitude[index] = latitude[last];
+            block.longitude[index] = longitude[last];
+            block.latRad[index] = latRad[last];
+            block.lonRad[index] = lonRad[last];
+            block.cosLat[index] = cosLat[last];
+        }
+        return block;
+    }
+
+    double[] latRad() {
+        return latRad;
+    }
+
+    double[] lonRad() {
+        return lonRad;
+    }
+
+    double[] cosLat() {
+        return cosLat;
+    }
+
+    private void prepare(int index) {
+        latRad[index] = Math.toRadians(latitude[index]);
+        lonRad[index] = Math.toRadians(longitude[index]);
+        cosLat[index] = Math.cos(latRad[index]);
+    }
+}
@@ -0,0 +1,93 @@
+package com.foodDelivery.geo;
+
+/**
+ * Geohash cells as {@code long}s: the interleaved longitude/latitude bits of a geohash of
+ * {@code precision} characters, 5 bits per character. Cells are keyed by these longs and only turned
+ * into the familiar base32 string for display.
+ */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    public static final int MAX_PRECISION = 12;
+
+    private Geohash() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Bits of the cell containing the point; the first bit splits longitude.
+     */
+    public static long encode(double latitude, double longitude, int precision) {
+        checkPrecision(precision);
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        long bits = 0;
+        for (int i = 0; i < precision * 5; i++) {
+            bits <<= 1;
+            if ((i & 1) == 0) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    bits |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    bits |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return bits;
+    }
+
+    public static String toBase32(long cell, int precision) {
+        checkPrecision(precision);
+        char[] chars = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            chars[i] = BASE32[(int) (cell & 31)];
+            cell >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Centre of the cell as {@code [latitude, longitude]}.
+     */
+    public static double[] center(long cell, int precision) {
+        checkPrecision(precision);
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        int bitCount = precision * 5;
+        for (int i = 0; i < bitCount; i++) {
+            boolean set = ((cell >>> (bitCount - 1 - i)) & 1) != 0;
+            if ((i & 1) == 0) {
+                double mid = (minLon + maxLon) / 2;
+                if (set) {
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (set) {
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return new double[]{(minLat + maxLat) / 2, (minLon + maxLon) / 2};
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Geohash precision must be 1-" + MAX_PRECISION + ": " + precision);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.foodDelivery.geo;
+
+/**
+ * Haversine over struct-of-arrays coordinates ({@link CoordinateBlock}), for scanning many agents
+ * from one point.
+ *
+ * Each agent's latitude and longitude in radians and the cosine of its latitude are computed once,
+ * when its position is stored, and the query point's once per scan. Candidates are ranked by the
+ * haversine term {@code a = sin²(Δφ/2) + cos φ1 cos φ2 sin²(Δλ/2)}, which grows with distance, so
+ * the {@code atan2} and square roots are only paid for the results. Before the two sines, a
+ * polynomial lower bound of {@code a} rejects points that cannot beat the current worst candidate.
+ *
+ * Plain scalar loops: the incubating Vector API would need {@code --add-modules} on every build and
+ * launch, and the prefilter already skips the trigonometry for most points.
+ */
+public final class HaversineKernel {
+
+    private HaversineKernel() {
+        // Prevent instantiation
+    }
+
+    /**
+     * The query point, prepared once per scan.
+     */
+    public record Origin(double latRad, double lonRad, double cosLat) {
+
+        public static Origin of(double latitude, double longitude) {
+            double latRad = Math.toRadians(latitude);
+            return new Origin(latRad, Math.toRadians(longitude), Math.cos(latRad));
+        }
+    }
+
+    /**
+     * Haversine term between the origin and a prepared point; 0 for the same point, 1 for antipodes.
+     */
+    public static double term(Origin origin, double latRad, double lonRad, double cosLat) {
+        double sinLat = Math.sin((latRad - origin.latRad) * 0.5);
+        double sinLon = Math.sin((lonRad - origin.lonRad) * 0.5);
+        return sinLat * sinLat + origin.cosLat * cosLat * sinLon * sinLon;
+    }
+
+    /**
+     * A lower bound of {@link #term} without trigonometry, from {@code sin x >= x - x³/6} for
+     * {@code 0 <= x <= π/2}; within 0.1% of the term for points a few km apart.
+     */
+    public static double lowerBound(Origin origin, double latRad, double lonRad, double cosLat) {
+        double halfLat = Math.abs(latRad - origin.latRad) * 0.5;
+        double halfLon = Math.abs(lonRad - origin.lonRad) * 0.5;
+        if (halfLon > Math.PI / 2) {
+            // Shorter the other way around
+            halfLon = Math.PI - halfLon;
+        }
+        double lat = halfLat * (1 - halfLat * halfLat / 6);
+        double lon = halfLon * (1 - halfLon * halfLon / 6);
+        return lat * lat + origin.cosLat * cosLat * lon * lon;
+    }
+
+    public static double termToKm(double term) {
+        double a = Math.min(1, Math.max(0, term));
+        return 2 * GeoDistance.EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * The haversine term of points {@code km} apart; anything at most that far has a term at most this.
+     */
+    public static double kmToTerm(double km) {
+        if (km >= Math.PI * GeoDistance.EARTH_RADIUS_KM) {
+            return 1;
+        }
+        double sin = Math.sin(Math.max(0, km) / (2 * GeoDistance.EARTH_RADIUS_KM));
+        return sin * sin;
+    }
+
+    /**
+     * Distances in km from the origin to every point of the block, written to {@code out}.
+     */
+    public static void distancesKm(Origin origin, CoordinateBlock block, double[] out) {
+        double[] latRad = block.latRad();
+        double[] lonRad = block.lonRad();
+        double[] cosLat = block.cosLat();
+        for (int i = 0, n = block.size(); i < n; i++) {
+            out[i] = termToKm(term(origin, latRad[i], lonRad[i], cosLat[i]));
+        }
+    }
+
+    /**
+     * Offer every point of the block to {@code nearest}, skipping any whose term exceeds
+     * {@code maxTerm} or cannot beat the current worst candidate.
+     */
+    public static void scan(Origin origin, CoordinateBlock block, double maxTerm, NearestAgents nearest) {
+        double[] latRad = block.latRad();
+        double[] lonRad = block.lonRad();
+        double[] cosLat = block.cosLat();
+        double bound = nearest.isFull() ? Math.min(maxTerm, nearest.worstTerm()) : maxTerm;
+        for (int i = 0, n = block.size(); i < n; i++) {
+            if (lowerBound(origin, latRad[i], lonRad[i], cosLat[i]) > bound) {
+                continue;
+            }
+            double term = term(origin, latRad[i], lonRad[i], cosLat[i]);
+            if (term <= bound && nearest.offer(block.id(i), block.latitude(i), block.longitude(i), term)
+                    && nearest.isFull()) {
+                bound = Math.min(maxTerm, nearest.worstTerm());
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.foodDelivery.geo;
+
+/**
+ * The {@code k} nearest agents found so far, in primitive arrays so a nearest-k query does not box
+ * a distance per candidate. Fill it with {@link AgentSpatialIndex#nearest(double, double, double, NearestAgents)};
+ * afterwards it is sorted nearest first. Reusable via {@link #clear()}; not thread-safe.
+ */
+public final class NearestAgents {
+
+    private final long[] ids;
+    private final double[] latitude;
+    private final double[] longitude;
+    // Haversine terms while collecting, distances in km once sorted
+    private final double[] keys;
+    private int size;
+    private boolean sorted;
+
+    public NearestAgents(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.ids = new long[k];
+        this.latitude = new double[k];
+        this.longitude = new double[k];
+        this.keys = new double[k];
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == ids.length;
+    }
+
+    public void clear() {
+        size = 0;
+        sorted = false;
+    }
+
+    public long agentId(int index) {
+        checkSorted(index);
+        return ids[index];
+    }
+
+    public double latitude(int index) {
+        checkSorted(index);
+        return latitude[index];
+    }
+
+    public double longitude(int index) {
+        checkSorted(index);
+        return longitude[index];
+    }
+
+    public double distanceKm(int index) {
+        checkSorted(index);
+        return keys[index];
+    }
+
+    /**
+     * Haversine term of the farthest candidate kept; only meaningful while collecting.
+     */
+    double worstTerm() {
+        return keys[0];
+    }
+
+    /**
+     * Keep the candidate if there is room or it is nearer than the farthest kept one.
+     *
+     * @return whether it was kept
+     */
+    boolean offer(long id, double lat, double lon, double term) {
+        if (size < ids.length) {
+            set(size, id, lat, lon, term);
+            siftUp(size++);
+            return true;
+        }
+        if (term >= keys[0]) {
+            return false;
+        }
+        set(0, id, lat, lon, term);
+        siftDown(0, size);
+        return true;
+    }
+
+    /**
+     * Turn the max-heap into a list sorted nearest first, with distances in km.
+     */
+    void sort() {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        for (int i = 0; i < size; i++) {
+            keys[i] = HaversineKernel.termToKm(keys[i]);
+        }
+        sorted = true;
+    }
+
+    private void checkSorted(int index) {
+        if (!sorted || index >= size) {
+            throw new IndexOutOfBoundsException("No result at " + index + " of " + (sorted ? size : 0));
+        }
+    }
+
+    private void set(int i, long id, double lat, double lon, double term) {
+        ids[i] = id;
+        latitude[i] = lat;
+        longitude[i] = lon;
+        keys[i] = term;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] >= keys[i]) {
+                return;
+            }
+            swap(parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < end && keys[left] > keys[largest]) {
+                largest = left;
+            }
+            if (right < end && keys[right] > keys[largest]) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double lat = latitude[a];
+        latitude[a] = latitude[b];
+        latitude[b] = lat;
+        double lon = longitude[a];
+        longitude[a] = longitude[b];
+        longitude[b] = lon;
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+    }
+}
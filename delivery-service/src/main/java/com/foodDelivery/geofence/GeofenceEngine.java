@@ -0,0 +1,320 @@
+package com.foodDelivery.geofence;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.geo.GeoDistance;
+import com.foodDelivery.repository.DeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Watches the pickup and drop of every open delivery and turns location pings into arrival and
+ * departure transitions.
+ *
+ * A delivery has one live fence at a time: its pickup until it is picked up, then its drop. A ping
+ * is checked against the live fences of its agent, at most one per delivery the agent holds, with
+ * an equirectangular distance against the squared radius; the cosine of the fence's latitude is
+ * taken once when it is set up, so a ping costs a few multiplications. Arrival needs the agent to
+ * stay within {@code radius-m} for {@code arrival-dwell-ms}, departure to stay beyond
+ * {@code exit-radius-m} for {@code departure-dwell-ms}; in between, the fence keeps its state, so
+ * GPS jitter at the edge neither arrives nor leaves.
+ *
+ * Transitions are queued and applied by {@code GeofenceTransitionService}, off the ping path.
+ */
+@Component
+public class GeofenceEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceEngine.class);
+
+    private static final List<Delivery.DeliveryStatus> OPEN_STATUSES = List.of(
+            Delivery.DeliveryStatus.ASSIGNED, Delivery.DeliveryStatus.PICKED_UP, Delivery.DeliveryStatus.IN_TRANSIT);
+
+    private static final double KM_PER_METER = 0.001;
+
+    // Phases of the live fence
+    private static final int OUTSIDE = 0;
+    private static final int ENTERING = 1;
+    private static final int ARRIVED = 2;
+    private static final int LEAVING = 3;
+    private static final int DEPARTED = 4;
+
+    public enum Fence { PICKUP, DROP }
+
+    public enum Kind { ARRIVED, DEPARTED }
+
+    private final DeliveryRepository deliveryRepository;
+    private final double radiusSquaredKm;
+    private final double exitRadiusSquaredKm;
+    private final long arrivalDwellMs;
+    private final long departureDwellMs;
+
+    private final ConcurrentHashMap<Long, Watch> byDelivery = new ConcurrentHashMap<>();
+    // Copy-on-write lists, replaced inside compute
+    private final ConcurrentHashMap<Long, List<Watch>> byAgent = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Transition> fired = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger firedCount = new AtomicInteger();
+    // Indexed by Fence ordinal, then Kind ordinal
+    private final Counter[][] transitions = new Counter[2][2];
+
+    public GeofenceEngine(DeliveryRepository deliveryRepository,
+                          @Value("${delivery.geofence.radius-m:75}") double radiusMeters,
+                          @Value("${delivery.geofence.exit-radius-m:120}") double exitRadiusMeters,
+                          @Value("${delivery.geofence.arrival-dwell-ms:30000}") long arrivalDwellMs,
+                          @Value("${delivery.geofence.departure-dwell-ms:15000}") long departureDwellMs,
+                          MeterRegistry meterRegistry) {
+        if (radiusMeters <= 0 || exitRadiusMeters < radiusMeters) {
+            throw new IllegalArgumentException("Geofence radii must satisfy 0 < radius <= exit radius: "
+                    + radiusMeters + ", " + exitRadiusMeters);
+        }
+        if (arrivalDwellMs < 0 || departureDwellMs < 0) {
+            throw new IllegalArgumentException("Geofence dwell times must not be negative: "
+                    + arrivalDwellMs + ", " + departureDwellMs);
+        }
+        this.deliveryRepository = deliveryRepository;
+        double radiusKm = radiusMeters * KM_PER_METER;
+        double exitRadiusKm = exitRadiusMeters * KM_PER_METER;
+        this.radiusSquaredKm = radiusKm * radiusKm;
+        this.exitRadiusSquaredKm = exitRadiusKm * exitRadiusKm;
+        this.arrivalDwellMs = arrivalDwellMs;
+        this.departureDwellMs = departureDwellMs;
+        for (Fence fence : Fence.values()) {
+            for (Kind kind : Kind.values()) {
+                transitions[fence.ordinal()][kind.ordinal()] = Counter.builder("delivery.geofence.transitions")
+                        .description("Arrivals at and departures from delivery geofences")
+                        .tag("fence", fence.name().toLowerCase())
+                        .tag("kind", kind.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+        }
+        Gauge.builder("delivery.geofence.watched", byDelivery, ConcurrentHashMap::size)
+                .description("Open deliveries with a live geofence")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Watch the deliveries a previous run left open.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        int loaded = 0;
+        for (Object[] row : deliveryRepository.findOpenTripDeliveries(OPEN_STATUSES)) {
+            if (row[3] == null || row[4] == null || row[5] == null || row[6] == null) {
+                continue;
+            }
+            Delivery.DeliveryStatus status = (Delivery.DeliveryStatus) row[7];
+            track((Long) row[0], (Long) row[1], (Double) row[3], (Double) row[4], (Double) row[5], (Double) row[6],
+                    status != Delivery.DeliveryStatus.ASSIGNED);
+            loaded++;
+        }
+        logger.info("Watching geofences of {} open deliveries", loaded);
+    }
+
+    /**
+     * Start watching an assigned delivery: its pickup, or its drop if it is already on board.
+     */
+    public void track(long deliveryId, long agentId, double pickupLat, double pickupLon,
+                      double dropLat, double dropLon, boolean pickedUp) {
+        Watch watch = new Watch(deliveryId, agentId, pickupLat, pickupLon, dropLat, dropLon, pickedUp);
+        Watch previous = byDelivery.put(deliveryId, watch);
+        if (previous != null) {
+            unlink(previous);
+        }
+        byAgent.compute(agentId, (id, watches) -> {
+            List<Watch> next = new ArrayList<>(watches != null ? watches.size() + 1 : 1);
+            if (watches != null) {
+                next.addAll(watches);
+            }
+            next.add(watch);
+            return List.copyOf(next);
+        });
+    }
+
+    /**
+     * Follow the delivery's status: picked up moves the live fence to the drop, a finished delivery
+     * is no longer watched.
+     */
+    public void onStatusChanged(long deliveryId, Delivery.DeliveryStatus status) {
+        switch (status) {
+            case PICKED_UP, IN_TRANSIT -> {
+                Watch watch = byDelivery.get(deliveryId);
+                if (watch != null) {
+                    synchronized (watch) {
+                        if (!watch.pickedUp) {
+                            watch.pickedUp = true;
+                            watch.phase = OUTSIDE;
+                        }
+                    }
+                }
+            }
+            case DELIVERED, CANCELLED, FAILED -> {
+                Watch watch = byDelivery.remove(deliveryId);
+                if (watch != null) {
+                    unlink(watch);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Check the agent's position against the live fences of every delivery it holds.
+     *
+     * @return number of transitions this ping fired
+     */
+    public int onAgentPing(long agentId, double latitude, double longitude, long epochMillis) {
+        List<Watch> watches = byAgent.get(agentId);
+        if (watches == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Watch watch : watches) {
+            count += evaluate(watch, latitude, longitude, epochMillis);
+        }
+        return count;
+    }
+
+    /**
+     * Check a breadcrumb of one delivery against that delivery's live fence.
+     *
+     * @return number of transitions this ping fired
+     */
+    public int onDeliveryPing(long deliveryId, double latitude, double longitude, long epochMillis) {
+        Watch watch = byDelivery.get(deliveryId);
+        return watch != null ? evaluate(watch, latitude, longitude, epochMillis) : 0;
+    }
+
+    /**
+     * Take up to {@code max} transitions, oldest first.
+     */
+    public List<Transition> drain(int max) {
+        List<Transition> batch = new ArrayList<>(Math.min(max, firedCount.get()));
+        Transition transition;
+        while (batch.size() < max && (transition = fired.poll()) != null) {
+            firedCount.decrementAndGet();
+            batch.add(transition);
+        }
+        return batch;
+    }
+
+    public int watched() {
+        return byDelivery.size();
+    }
+
+    public int queued() {
+        return firedCount.get();
+    }
+
+    private int evaluate(Watch watch, double latitude, double longitude, long epochMillis) {
+        Transition transition;
+        synchronized (watch) {
+            double fenceLat = watch.pickedUp ? watch.dropLat : watch.pickupLat;
+            double fenceLon = watch.pickedUp ? watch.dropLon : watch.pickupLon;
+            double cosLat = watch.pickedUp ? watch.dropCosLat : watch.pickupCosLat;
+            double dy = (latitude - fenceLat) * GeoDistance.KM_PER_DEGREE;
+            double dx = (longitude - fenceLon) * GeoDistance.KM_PER_DEGREE * cosLat;
+            double distanceSquared = dx * dx + dy * dy;
+            boolean inside = distanceSquared <= radiusSquaredKm;
+            boolean outside = distanceSquared > exitRadiusSquaredKm;
+
+            Kind kind = null;
+            switch (watch.phase) {
+                case OUTSIDE -> {
+                    if (inside) {
+                        watch.phase = ENTERING;
+                        watch.sinceMillis = epochMillis;
+                    }
+                }
+                case ENTERING -> {
+                    if (outside) {
+                        watch.phase = OUTSIDE;
+                    }
+                }
+                case ARRIVED -> {
+                    if (outside) {
+                        watch.phase = LEAVING;
+                        watch.sinceMillis = epochMillis;
+                    }
+                }
+                case LEAVING -> {
+                    if (!outside) {
+                        watch.phase = ARRIVED;
+                    }
+                }
+                default -> {
+                }
+            }
+            // Dwell reached, possibly on the ping that started it when the dwell is zero
+            if (watch.phase == ENTERING && epochMillis - watch.sinceMillis >= arrivalDwellMs) {
+                watch.phase = ARRIVED;
+                kind = Kind.ARRIVED;
+            } else if (watch.phase == LEAVING && epochMillis - watch.sinceMillis >= departureDwellMs) {
+                watch.phase = DEPARTED;
+                kind = Kind.DEPARTED;
+            }
+            if (kind == null) {
+                return 0;
+            }
+            transition = new Transition(watch.deliveryId, watch.agentId, watch.pickedUp ? Fence.DROP : Fence.PICKUP,
+                    kind, epochMillis);
+        }
+        fired.add(transition);
+        firedCount.incrementAndGet();
+        transitions[transition.fence().ordinal()][transition.kind().ordinal()].increment();
+        logger.debug("Delivery {} agent {}: {} {}", transition.deliveryId(), transition.agentId(),
+                transition.kind(), transition.fence());
+        return 1;
+    }
+
+    private void unlink(Watch watch) {
+        byAgent.computeIfPresent(watch.agentId, (id, watches) -> {
+            List<Watch> next = watches.stream().filter(w -> w != watch).toList();
+            return next.isEmpty() ? null : next;
+        });
+    }
+
+    /**
+     * The agent of {@code deliveryId} arrived at or departed from the delivery's pickup or drop.
+     */
+    public record Transition(long deliveryId, long agentId, Fence fence, Kind kind, long epochMillis) {}
+
+    // Phase fields guarded by the watch itself
+    private static final class Watch {
+        private final long deliveryId;
+        private final long agentId;
+        private final double pickupLat;
+        private final double pickupLon;
+        private final double pickupCosLat;
+        private final double dropLat;
+        private final double dropLon;
+        private final double dropCosLat;
+        private boolean pickedUp;
+        private int phase = OUTSIDE;
+        private long sinceMillis;
+
+        Watch(long deliveryId, long agentId, double pickupLat, double pickupLon,
+              double dropLat, double dropLon, boolean pickedUp) {
+            this.deliveryId = deliveryId;
+            this.agentId = agentId;
+            this.pickupLat = pickupLat;
+            this.pickupLon = pickupLon;
+            this.pickupCosLat = Math.cos(Math.toRadians(pickupLat));
+            this.dropLat = dropLat;
+            this.dropLon = dropLon;
+            this.dropCosLat = Math.cos(Math.toRadians(dropLat));
+            this.pickedUp = pickedUp;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.foodDelivery.heatmap;
+
+import java.util.Arrays;
+
+/**
+ * Demand of one geohash cell: how many deliveries are pending, assigned and late right now, and a
+ * ring of per-minute counts of deliveries that became pending, assigned or late.
+ *
+ * The ring has one slot per minute of the window; each slot remembers which minute it holds and is
+ * cleared when it is reused for a later minute, so nothing has to expire counts on a timer.
+ */
+final class CellStats {
+
+    static final int PENDING = 0;
+    static final int ASSIGNED = 1;
+    static final int LATE = 2;
+    private static final int METRICS = 3;
+
+    private final long[] slotMinute;
+    private final int[][] counts;
+    private final int[] levels = new int[METRICS];
+
+    CellStats(int windowMinutes) {
+        this.slotMinute = new long[windowMinutes];
+        this.counts = new int[METRICS][windowMinutes];
+        Arrays.fill(slotMinute, Long.MIN_VALUE);
+    }
+
+    synchronized void count(int metric, long epochMinute) {
+        int slot = (int) Math.floorMod(epochMinute, (long) slotMinute.length);
+        if (slotMinute[slot] > epochMinute) {
+            // Older than the window
+            return;
+        }
+        if (slotMinute[slot] != epochMinute) {
+            slotMinute[slot] = epochMinute;
+            for (int m = 0; m < METRICS; m++) {
+                counts[m][slot] = 0;
+            }
+        }
+        counts[metric][slot]++;
+    }
+
+    synchronized void adjustLevel(int metric, int delta) {
+        levels[metric] = Math.max(0, levels[metric] + delta);
+    }
+
+    synchronized int level(int metric) {
+        return levels[metric];
+    }
+
+    /**
+     * Count of the metric over the last {@code minutes} minutes up to and including {@code nowMinute}.
+     */
+    synchronized int recent(int metric, long nowMinute, int minutes) {
+        int total = 0;
+        for (int slot = 0; slot < slotMinute.length; slot++) {
+            long age = nowMinute - slotMinute[slot];
+            if (age >= 0 && age < minutes) {
+                total += counts[metric][slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Nothing open and nothing counted within the window: the cell can be dropped.
+     */
+    synchronized boolean isIdle(long nowMinute) {
+        for (int m = 0; m < METRICS; m++) {
+            if (levels[m] > 0) {
+                return false;
+            }
+        }
+        return recent(PENDING, nowMinute, slotMinute.length) == 0
+                && recent(ASSIGNED, nowMinute, slotMinute.length) == 0
+                && recent(LATE, nowMinute, slotMinute.length) == 0;
+    }
+}
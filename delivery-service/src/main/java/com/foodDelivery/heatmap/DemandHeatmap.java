@@ -0,0 +1,255 @@
+package com.foodDelivery.heatmap;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.geo.Geohash;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling delivery demand per geohash cell, fed from the order and delivery event streams.
+ *
+ * Each open order is remembered with its pickup cell and where it stands (pending, assigned, late),
+ * and every transition moves the cell's current levels and bumps its per-minute counters (see
+ * {@link CellStats}). The two topics are not ordered against each other, so a delivery event may
+ * arrive before the order that gives it a cell; the order is then counted in its cell once the
+ * cell is known. Reading the heatmap walks the cells only and never touches MySQL.
+ *
+ * A sweep marks assigned deliveries whose ETA has passed as late, forgets orders that have not
+ * moved for {@code max-open-minutes} (their closing event was missed) and drops idle cells.
+ */
+@Component
+public class DemandHeatmap {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandHeatmap.class);
+
+    private static final long NO_CELL = -1;
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    private final int precision;
+    private final int windowMinutes;
+    private final ConcurrentHashMap<Long, CellStats> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, OpenOrder> orders = new ConcurrentHashMap<>();
+
+    @Value("${delivery.heatmap.max-open-minutes:240}")
+    private long maxOpenMinutes = 240;
+
+    public DemandHeatmap(@Value("${delivery.heatmap.geohash-precision:6}") int precision,
+                         @Value("${delivery.heatmap.window-minutes:60}") int windowMinutes,
+                         MeterRegistry meterRegistry) {
+        if (precision < 1 || precision > Geohash.MAX_PRECISION) {
+            throw new IllegalArgumentException("Geohash precision must be 1-" + Geohash.MAX_PRECISION + ": " + precision);
+        }
+        if (windowMinutes <= 0) {
+            throw new IllegalArgumentException("Window must be at least one minute: " + windowMinutes);
+        }
+        this.precision = precision;
+        this.windowMinutes = windowMinutes;
+        Gauge.builder("delivery.heatmap.cells", cells, ConcurrentHashMap::size)
+                .description("Geohash cells with recent or open demand")
+                .register(meterRegistry);
+        Gauge.builder("delivery.heatmap.open-orders", orders, ConcurrentHashMap::size)
+                .description("Orders the demand heatmap is following")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A confirmed order now waits for a delivery agent at its pickup point.
+     */
+    public void orderConfirmed(long orderId, double pickupLat, double pickupLon, long nowMillis) {
+        long cell = Geohash.encode(pickupLat, pickupLon, precision);
+        long minute = nowMillis / MILLIS_PER_MINUTE;
+        orders.compute(orderId, (id, order) -> {
+            if (order == null) {
+                order = new OpenOrder(Delivery.DeliveryStatus.PENDING);
+            } else if (order.cell != NO_CELL) {
+                // Redelivered event
+                return order;
+            }
+            order.cell = cell;
+            order.touchedMillis = nowMillis;
+            OpenOrder placed = order;
+            updateCell(cell, stats -> {
+                stats.count(CellStats.PENDING, minute);
+                stats.adjustLevel(levelOf(placed.status), 1);
+                if (placed.late) {
+                    stats.adjustLevel(CellStats.LATE, 1);
+                }
+            });
+            return order;
+        });
+    }
+
+    /**
+     * The order's delivery moved to {@code status}.
+     *
+     * @param etaMillis the delivery's estimated delivery time, if known
+     */
+    public void deliveryStatusChanged(long orderId, Delivery.DeliveryStatus status, Long etaMillis, long nowMillis) {
+        long minute = nowMillis / MILLIS_PER_MINUTE;
+        orders.compute(orderId, (id, order) -> {
+            if (isClosed(status)) {
+                if (order != null) {
+                    OpenOrder closed = order;
+                    boolean deliveredLate = status == Delivery.DeliveryStatus.DELIVERED && !closed.late
+                            && closed.etaMillis > 0 && nowMillis > closed.etaMillis;
+                    updateCell(closed.cell, stats -> {
+                        stats.adjustLevel(levelOf(closed.status), -1);
+                        if (closed.late) {
+                            stats.adjustLevel(CellStats.LATE, -1);
+                        }
+                        if (deliveredLate) {
+                            stats.count(CellStats.LATE, minute);
+                        }
+                    });
+                }
+                return null;
+            }
+
+            if (order == null) {
+                order = new OpenOrder(status);
+            } else if (levelOf(order.status) != levelOf(status)) {
+                OpenOrder moved = order;
+                updateCell(order.cell, stats -> {
+                    stats.adjustLevel(levelOf(moved.status), -1);
+                    stats.adjustLevel(levelOf(status), 1);
+                    if (status == Delivery.DeliveryStatus.ASSIGNED) {
+                        stats.count(CellStats.ASSIGNED, minute);
+                    }
+                });
+            }
+            order.status = status;
+            order.touchedMillis = nowMillis;
+            if (etaMillis != null) {
+                order.etaMillis = etaMillis;
+            }
+            return order;
+        });
+    }
+
+    public void orderCancelled(long orderId, long nowMillis) {
+        deliveryStatusChanged(orderId, Delivery.DeliveryStatus.CANCELLED, null, nowMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.heatmap.sweep-ms:15000}")
+    public void tick() {
+        try {
+            sweep(System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("Heatmap sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Mark overdue deliveries late, forget stale orders and drop idle cells.
+     *
+     * @return number of deliveries that became late
+     */
+    public int sweep(long nowMillis) {
+        long minute = nowMillis / MILLIS_PER_MINUTE;
+        long staleBefore = nowMillis - maxOpenMinutes * MILLIS_PER_MINUTE;
+        int[] becameLate = new int[1];
+        for (Long orderId : orders.keySet()) {
+            orders.computeIfPresent(orderId, (id, order) -> {
+                if (order.touchedMillis < staleBefore) {
+                    updateCell(order.cell, stats -> {
+                        stats.adjustLevel(levelOf(order.status), -1);
+                        if (order.late) {
+                            stats.adjustLevel(CellStats.LATE, -1);
+                        }
+                    });
+                    return null;
+                }
+                if (!order.late && order.status != Delivery.DeliveryStatus.PENDING
+                        && order.etaMillis > 0 && order.etaMillis < nowMillis) {
+                    order.late = true;
+                    becameLate[0]++;
+                    updateCell(order.cell, stats -> {
+                        stats.adjustLevel(CellStats.LATE, 1);
+                        stats.count(CellStats.LATE, minute);
+                    });
+                }
+                return order;
+            });
+        }
+        for (Long cell : cells.keySet()) {
+            cells.computeIfPresent(cell, (key, stats) -> stats.isIdle(minute) ? null : stats);
+        }
+        return becameLate[0];
+    }
+
+    /**
+     * Every cell with open or recent demand, counting the last {@code minutes} minutes of the ring.
+     * Costs O(cells); the order does not matter.
+     */
+    public List<Cell> snapshot(int minutes, long nowMillis) {
+        int span = Math.max(1, Math.min(minutes, windowMinutes));
+        long minute = nowMillis / MILLIS_PER_MINUTE;
+        List<Cell> snapshot = new ArrayList<>(cells.size());
+        cells.forEach((cell, stats) -> {
+            double[] center = Geohash.center(cell, precision);
+            snapshot.add(new Cell(cell, Geohash.toBase32(cell, precision), center[0], center[1],
+                    stats.level(CellStats.PENDING), stats.level(CellStats.ASSIGNED), stats.level(CellStats.LATE),
+                    stats.recent(CellStats.PENDING, minute, span), stats.recent(CellStats.ASSIGNED, minute, span),
+                    stats.recent(CellStats.LATE, minute, span)));
+        });
+        return snapshot;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public int windowMinutes() {
+        return windowMinutes;
+    }
+
+    // Counted cells are only changed inside compute, so the sweep cannot drop a cell being updated
+    private void updateCell(long cell, java.util.function.Consumer<CellStats> update) {
+        if (cell == NO_CELL) {
+            return;
+        }
+        cells.compute(cell, (key, stats) -> {
+            CellStats target = stats != null ? stats : new CellStats(windowMinutes);
+            update.accept(target);
+            return target;
+        });
+    }
+
+    private static int levelOf(Delivery.DeliveryStatus status) {
+        return status == Delivery.DeliveryStatus.PENDING ? CellStats.PENDING : CellStats.ASSIGNED;
+    }
+
+    private static boolean isClosed(Delivery.DeliveryStatus status) {
+        return status == Delivery.DeliveryStatus.DELIVERED || status == Delivery.DeliveryStatus.CANCELLED
+                || status == Delivery.DeliveryStatus.FAILED;
+    }
+
+    /**
+     * Demand of one cell: current levels, and counts of the recent window.
+     */
+    public record Cell(long cell, String geohash, double latitude, double longitude,
+                       int pending, int assigned, int late,
+                       int recentPending, int recentAssigned, int recentLate) {}
+
+    // Guarded by the orders map: only read or changed inside compute for its order id
+    private static final class OpenOrder {
+        private long cell = NO_CELL;
+        private Delivery.DeliveryStatus status;
+        private long etaMillis;
+        private boolean late;
+        private long touchedMillis;
+
+        OpenOrder(Delivery.DeliveryStatus status) {
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.foodDelivery.heatmap;
+
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.geo.GeoDistance;
+import com.foodDelivery.geo.Geohash;
+import com.foodDelivery.geo.HaversineKernel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebalances idle agents between zones, the geohash cells of the {@link DemandHeatmap}, from the
+ * AVAILABLE agents in the {@link AgentSpatialIndex}.
+ *
+ * A zone's demand is what waits there now plus what arrived over the last {@code lookback-minutes},
+ * taken as the forecast for the next as many minutes; its supply is the AVAILABLE agents inside it,
+ * bucketed in one pass over the index. Zones short of supply, worst first, pull the agents nearest
+ * to their centre from the nearest zones with agents to spare, no further than {@code max-move-km}.
+ * A zone only gives up agents beyond its own demand, and no agent gets more than one suggestion.
+ * Zones with agents to spare are found through a small index of their centres, so a short zone
+ * never looks at the agents of balanced ones.
+ */
+@Component
+public class RepositioningAdvisor {
+
+    private static final Comparator<Zone> WORST_FIRST =
+            Comparator.comparingInt(Zone::deficit).reversed().thenComparingLong(zone -> zone.cell);
+
+    // Donor zones asked for at least this many at a time
+    private static final int MIN_DONORS = 8;
+
+    private final DemandHeatmap heatmap;
+    private final AgentSpatialIndex spatialIndex;
+
+    @Value("${delivery.heatmap.repositioning.lookback-minutes:15}")
+    private int lookbackMinutes = 15;
+
+    @Value("${delivery.heatmap.repositioning.max-move-km:5}")
+    private double maxMoveKm = 5;
+
+    @Value("${delivery.heatmap.repositioning.max-suggestions:200}")
+    private int maxSuggestions = 200;
+
+    public RepositioningAdvisor(DemandHeatmap heatmap, AgentSpatialIndex spatialIndex) {
+        this.heatmap = heatmap;
+        this.spatialIndex = spatialIndex;
+    }
+
+    public List<Suggestion> suggest(long nowMillis) {
+        int precision = heatmap.precision();
+        Map<Long, Zone> zones = new HashMap<>();
+        for (DemandHeatmap.Cell cell : heatmap.snapshot(lookbackMinutes, nowMillis)) {
+            int demand = cell.pending() + cell.recentPending();
+            if (demand > 0) {
+                zones.put(cell.cell(), new Zone(cell.cell(), demand));
+            }
+        }
+        if (zones.isEmpty()) {
+            return List.of();
+        }
+        spatialIndex.forEach((agentId, latitude, longitude) ->
+                zones.computeIfAbsent(Geohash.encode(latitude, longitude, precision), cell -> new Zone(cell, 0))
+                        .add(agentId, latitude, longitude));
+
+        List<Zone> shortZones = new ArrayList<>();
+        AgentSpatialIndex donors = new AgentSpatialIndex(donorCellDegrees(precision));
+        for (Zone zone : zones.values()) {
+            if (zone.deficit() > 0) {
+                shortZones.add(zone);
+            } else if (zone.spare() > 0) {
+                double[] center = Geohash.center(zone.cell, precision);
+                donors.upsert(zone.cell, center[0], center[1]);
+            }
+        }
+        if (shortZones.isEmpty() || donors.size() == 0) {
+            return List.of();
+        }
+        shortZones.sort(WORST_FIRST);
+
+        // A donor's agents may sit anywhere in its cell, up to half a diagonal from its centre
+        double reachKm = maxMoveKm + halfDiagonalKm(precision);
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (Zone target : shortZones) {
+            double[] center = Geohash.center(target.cell, precision);
+            String geohash = Geohash.toBase32(target.cell, precision);
+            int deficit = target.deficit();
+            int needed = deficit;
+            Set<Long> tried = new HashSet<>();
+            int k = Math.max(needed, MIN_DONORS);
+            while (needed > 0 && suggestions.size() < maxSuggestions && donors.size() > 0) {
+                List<AgentSpatialIndex.Neighbor> nearest = donors.nearest(center[0], center[1], k, reachKm);
+                for (AgentSpatialIndex.Neighbor neighbor : nearest) {
+                    if (needed == 0 || suggestions.size() == maxSuggestions) {
+                        break;
+                    }
+                    if (!tried.add(neighbor.agentId())) {
+                        continue;
+                    }
+                    Zone donor = zones.get(neighbor.agentId());
+                    needed -= donor.give(center[0], center[1], Math.min(needed, maxSuggestions - suggestions.size()),
+                            maxMoveKm, (agentId, fromLat, fromLon, km) -> suggestions.add(new Suggestion(agentId,
+                                    fromLat, fromLon, geohash, center[0], center[1], km, deficit)));
+                    if (donor.spare() == 0) {
+                        donors.remove(donor.cell);
+                    }
+                }
+                if (nearest.size() < k) {
+                    // Every donor in reach was tried
+                    break;
+                }
+                k *= 2;
+            }
+            if (suggestions.size() == maxSuggestions) {
+                break;
+            }
+        }
+        return suggestions;
+    }
+
+    // Cells of the donor index about one zone high, so a nearest query looks at a few zones per cell
+    private static double donorCellDegrees(int precision) {
+        return Math.min(1.0, Math.max(0.01, cellHeightDegrees(precision)));
+    }
+
+    private static double halfDiagonalKm(int precision) {
+        double height = cellHeightDegrees(precision) * GeoDistance.KM_PER_DEGREE;
+        double width = 360.0 / (1L << (precision * 5 - precision * 5 / 2)) * GeoDistance.KM_PER_DEGREE;
+        return Math.sqrt(height * height + width * width) / 2;
+    }
+
+    // Latitude takes the odd bits of a geohash, the rounded-down half of them
+    private static double cellHeightDegrees(int precision) {
+        return 180.0 / (1L << (precision * 5 / 2));
+    }
+
+    @FunctionalInterface
+    private interface Move {
+        void to(long agentId, double fromLatitude, double fromLongitude, double distanceKm);
+    }
+
+    // One zone of the solve: its demand and the idle agents inside it
+    private static final class Zone {
+        private final long cell;
+        private final int demand;
+        private int size;
+        private int given;
+        private long[] ids = new long[2];
+        private double[] lat = new double[2];
+        private double[] lon = new double[2];
+        private boolean[] moved;
+
+        Zone(long cell, int demand) {
+            this.cell = cell;
+            this.demand = demand;
+        }
+
+        void add(long agentId, double latitude, double longitude) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                lat = Arrays.copyOf(lat, size * 2);
+                lon = Arrays.copyOf(lon, size * 2);
+            }
+            ids[size] = agentId;
+            lat[size] = latitude;
+            lon[size] = longitude;
+            size++;
+        }
+
+        int deficit() {
+            return demand - size;
+        }
+
+        int spare() {
+            return size - demand - given;
+        }
+
+        /**
+         * Send up to {@code max} spare agents towards the point, nearest first, none from further
+         * than {@code maxKm}.
+         *
+         * @return number of agents sent
+         */
+        int give(double latitude, double longitude, int max, double maxKm, Move move) {
+            if (moved == null) {
+                moved = new boolean[size];
+            }
+            // Haversine terms grow with distance, so agents are ranked on them and only the ones sent
+            // are turned into km
+            HaversineKernel.Origin origin = HaversineKernel.Origin.of(latitude, longitude);
+            double maxTerm = HaversineKernel.kmToTerm(maxKm);
+            double[] terms = new double[size];
+            for (int i = 0; i < size; i++) {
+                terms[i] = moved[i] ? Double.MAX_VALUE : HaversineKernel.term(origin,
+                        Math.toRadians(lat[i]), Math.toRadians(lon[i]), Math.cos(Math.toRadians(lat[i])));
+            }
+            int sent = 0;
+            while (sent < max && spare() > 0) {
+                int best = -1;
+                double bestTerm = maxTerm;
+                for (int i = 0; i < size; i++) {
+                    if (terms[i] <= bestTerm) {
+                        best = i;
+                        bestTerm = terms[i];
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                moved[best] = true;
+                terms[best] = Double.MAX_VALUE;
+                given++;
+                sent++;
+                move.to(ids[best], lat[best], lon[best], HaversineKernel.termToKm(bestTerm));
+            }
+            return sent;
+        }
+    }
+
+    /**
+     * Move agent {@code agentId} to the centre of cell {@code geohash}, which is {@code deficit} agents short.
+     */
+    public record Suggestion(long agentId, double fromLatitude, double fromLongitude, String geohash,
+                             double toLatitude, double toLongitude, double distanceKm, int deficit) {}
+}
@@ -0,0 +1,37 @@
+package com.foodDelivery.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodDelivery.entity.OutboxEvent;
+import com.foodDelivery.repository.OutboxEventRepository;
+import com.fooddelivery.events.DeliveryEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records delivery events in the outbox table as part of the caller's transaction. Nothing is sent
+ * from here: the event is published by {@link OutboxRelay} only once the transaction has committed,
+ * and it is not lost if the service stops right after the commit.
+ */
+@Component
+public class DeliveryEventOutbox {
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public DeliveryEventOutbox(OutboxEventRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(DeliveryEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            outboxRepository.save(new OutboxEvent(event.getOrderId().toString(), event.getEventType(), payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize delivery event " + event.getEventType(), e);
+        }
+    }
+}
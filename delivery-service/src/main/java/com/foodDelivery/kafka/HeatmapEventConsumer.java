@@ -0,0 +1,99 @@
+package com.foodDelivery.kafka;
+
+import com.foodDelivery.config.KafkaTopicConfig;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.heatmap.DemandHeatmap;
+import com.fooddelivery.events.DeliveryEvent;
+import com.fooddelivery.events.KafkaTopics;
+import com.fooddelivery.events.OrderEvent;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Feeds {@link DemandHeatmap} from the order and delivery event streams.
+ *
+ * Runs in a consumer group of its own per instance (see {@code heatmapListenerContainerFactory}),
+ * next to {@link OrderEventConsumer}, and never touches MySQL; events it cannot place are skipped.
+ */
+@Service
+public class HeatmapEventConsumer implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeatmapEventConsumer.class);
+
+    private final DemandHeatmap heatmap;
+
+    public HeatmapEventConsumer(DemandHeatmap heatmap) {
+        this.heatmap = heatmap;
+    }
+
+    /**
+     * The heatmap lives in memory and only cares about current demand, so the instance starts from
+     * the end of both topics whatever offsets its consumer group committed before a restart.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+
+    @KafkaListener(topics = KafkaTopics.ORDER_EVENTS, containerFactory = "heatmapListenerContainerFactory",
+            properties = "spring.json.value.default.type=com.fooddelivery.events.OrderEvent")
+    public void onOrderEvent(OrderEvent event) {
+        if (event == null || event.getOrderId() == null || event.getEventType() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        switch (event.getEventType()) {
+            case "ORDER_CONFIRMED":
+                if (event.getPickupLatitude() == null || event.getPickupLongitude() == null) {
+                    logger.debug("Order {} has no pickup coordinates, not placed on the heatmap", event.getOrderId());
+                    return;
+                }
+                heatmap.orderConfirmed(event.getOrderId(), event.getPickupLatitude(), event.getPickupLongitude(), now);
+                break;
+            case "ORDER_CANCELLED":
+                heatmap.orderCancelled(event.getOrderId(), now);
+                break;
+            default:
+                // Other order events do not change demand
+        }
+    }
+
+    @KafkaListener(topics = KafkaTopicConfig.DELIVERY_EVENTS_TOPIC, containerFactory = "heatmapListenerContainerFactory",
+            properties = "spring.json.value.default.type=com.fooddelivery.events.DeliveryEvent")
+    public void onDeliveryEvent(DeliveryEvent event) {
+        if (event == null || event.getOrderId() == null || event.getStatus() == null) {
+            return;
+        }
+        Delivery.DeliveryStatus status;
+        try {
+            status = Delivery.DeliveryStatus.valueOf(event.getStatus());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping delivery event for orderId {} with unknown status {}", event.getOrderId(),
+                    event.getStatus());
+            return;
+        }
+        heatmap.deliveryStatusChanged(event.getOrderId(), status, etaMillis(event.getEstimatedDeliveryTime()),
+                System.currentTimeMillis());
+    }
+
+    // The producer writes LocalDateTime.toString() in its own zone, which is ours
+    static Long etaMillis(String estimatedDeliveryTime) {
+        if (estimatedDeliveryTime == null || estimatedDeliveryTime.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(estimatedDeliveryTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
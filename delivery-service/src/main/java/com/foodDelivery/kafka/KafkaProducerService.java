@@ -21,36 +21,45 @@ public class KafkaProducerService {
 		this.kafkaTemplate = kafkaTemplate;
 	}
 
-	public void sendDeliveryEvent(DeliveryEvent event) {
-		logger.info("Publishing delivery event: {}", event);
+	/**
+	 * Send one delivery event to both the delivery and the notification topic.
+	 *
+	 * @return completes when both topics have acknowledged the record
+	 */
+	public CompletableFuture<Void> publish(String key, DeliveryEvent event) {
+		logger.debug("Publishing delivery event: {}", event);
 
-		CompletableFuture<SendResult<String, Object>> future = kafkaTemplate
-				.send(KafkaTopicConfig.DELIVERY_EVENTS_TOPIC, event.getOrderId().toString(), event);
+		CompletableFuture<SendResult<String, Object>> delivery = kafkaTemplate
+				.send(KafkaTopicConfig.DELIVERY_EVENTS_TOPIC, key, event);
+		CompletableFuture<SendResult<String, Object>> notification = kafkaTemplate
+				.send(KafkaTopicConfig.NOTIFICATION_EVENTS_TOPIC, key, event);
 
-		future.whenComplete((result, ex) -> {
-			if (ex == null) {
-				logger.info("Delivery event sent successfully: orderId={}, offset={}", event.getOrderId(),
-						result.getRecordMetadata().offset());
-			} else {
+		return CompletableFuture.allOf(delivery, notification).whenComplete((result, ex) -> {
+			if (ex != null) {
 				logger.error("Failed to send delivery event: orderId={}, error={}", event.getOrderId(),
 						ex.getMessage());
 			}
 		});
 	}
 
-	public void sendNotificationEvent(DeliveryEvent event) {
-		logger.info("Publishing notification event: {}", event);
-
-		CompletableFuture<SendResult<String, Object>> future = kafkaTemplate
-				.send(KafkaTopicConfig.NOTIFICATION_EVENTS_TOPIC, event.getOrderId().toString(), event);
-
-		future.whenComplete((result, ex) -> {
-			if (ex == null) {
-				logger.info("Notification event sent successfully: orderId={}", event.getOrderId());
-			} else {
-				logger.error("Failed to send notification event: orderId={}, error={}", event.getOrderId(),
-						ex.getMessage());
+	/**
+	 * Send an event meant for an agent or customer only to the notification topic; nothing about the
+	 * delivery itself changed, so order-service and the delivery topic's readers are left out.
+	 */
+	public CompletableFuture<SendResult<String, Object>> publishNotification(String key, DeliveryEvent event) {
+		logger.debug("Publishing notification event: {}", event);
+		return kafkaTemplate.send(KafkaTopicConfig.NOTIFICATION_EVENTS_TOPIC, key, event).whenComplete((result, ex) -> {
+			if (ex != null) {
+				logger.error("Failed to send notification event: type={}, agentId={}, error={}", event.getEventType(),
+						event.getDeliveryAgentId(), ex.getMessage());
 			}
 		});
 	}
+
+	/**
+	 * Push out anything the producer is still lingering on.
+	 */
+	public void flush() {
+		kafkaTemplate.flush();
+	}
 }
@@ -0,0 +1,91 @@
+package com.foodDelivery.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs record handlers on virtual threads, in parallel across keys and strictly in submission
+ * order within a key.
+ *
+ * Each key keeps only the future of its last submitted task; a new task for the key is chained
+ * onto it, so no per-key queue or lock exists and idle keys cost nothing. At most
+ * {@code maxInFlight} tasks are submitted and not yet finished; {@link #submit} blocks the caller
+ * (the consumer thread) beyond that, which is the backpressure towards the broker.
+ */
+public class KeyedRecordExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedRecordExecutor.class);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("order-event-", 0).factory());
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    public KeyedRecordExecutor(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Run the task after every task previously submitted for the same key has finished.
+     *
+     * @return completes when the task has run; exceptionally if it threw
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) throws InterruptedException {
+        permits.acquire();
+        CompletableFuture<Void> future;
+        try {
+            future = tails.compute(key, (k, previous) -> previous == null
+                    ? CompletableFuture.runAsync(task, executor)
+                    // The previous task's outcome does not matter, only that it is done
+                    : previous.handle((result, ex) -> null).thenRunAsync(task, executor));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        // Callers see completion only once the key and permit are released
+        return future.whenComplete((result, ex) -> {
+            tails.remove(key, future);
+            permits.release();
+        });
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Number of keys with a task submitted and not yet finished.
+     */
+    public int activeKeys() {
+        return tails.size();
+    }
+
+    /**
+     * Stop accepting work and give running tasks a bounded time to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("{} order event handlers still running at shutdown", inFlight());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,49 +1,205 @@
 package com.foodDelivery.kafka;
 
+import com.foodDelivery.config.KafkaTopicConfig;
 import com.fooddelivery.events.KafkaTopics;
 import com.fooddelivery.events.OrderEvent;
 import com.foodDelivery.dto.DeliveryRequest;
 import com.foodDelivery.dto.DeliveryResponse;
 import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.exception.ResourceNotFoundException;
 import com.foodDelivery.service.DeliveryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Consumes order events in parallel across orders and in order within one order.
+ *
+ * The listener only hands each record to {@link KeyedRecordExecutor}, keyed by the record key
+ * (the order id), and acknowledges it once the handler is done; offsets are committed up to the
+ * lowest record not yet done. Failures are retried with exponential backoff and then sent to
+ * {@link KafkaTopicConfig#ORDER_EVENTS_DLT_TOPIC}; errors that retrying cannot fix (duplicate
+ * delivery, missing address, unknown delivery) are logged and skipped. A record that could not be
+ * dead-lettered either is not acknowledged: commits on its partition stop short of it, and it is
+ * delivered again after the next rebalance or restart.
+ */
 @Service
 public class OrderEventConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderEventConsumer.class);
 
     private final DeliveryService deliveryService;
+    private final KeyedRecordExecutor executor;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
 
-    public OrderEventConsumer(DeliveryService deliveryService) {
+    private final Timer processingTime;
+    private final Timer endToEndLatency;
+    private final Counter retries;
+    private final Counter deadLettered;
+
+    @Value("${delivery.order-events.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${delivery.order-events.retry-backoff-ms:200}")
+    private long retryBackoffMs = 200;
+
+    @Value("${delivery.order-events.dead-letter-timeout-ms:10000}")
+    private long deadLetterTimeoutMs = 10_000;
+
+    public OrderEventConsumer(DeliveryService deliveryService,
+                              KeyedRecordExecutor orderEventExecutor,
+                              KafkaTemplate<String, Object> kafkaTemplate,
+                              MeterRegistry meterRegistry) {
         this.deliveryService = deliveryService;
+        this.executor = orderEventExecutor;
+        this.kafkaTemplate = kafkaTemplate;
+        this.processingTime = Timer.builder("delivery.order-events.processing")
+                .description("Time spent handling one order event, retries included")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.endToEndLatency = Timer.builder("delivery.order-events.latency")
+                .description("Time from the order event being produced to it being handled")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.retries = Counter.builder("delivery.order-events.retries")
+                .description("Order event handling attempts that failed and were retried")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("delivery.order-events.dead-lettered")
+                .description("Order events sent to the dead-letter topic after the last attempt")
+                .register(meterRegistry);
+        Gauge.builder("delivery.order-events.in-flight", orderEventExecutor, KeyedRecordExecutor::inFlight)
+                .description("Order events received and not yet handled")
+                .register(meterRegistry);
+        Gauge.builder("delivery.order-events.active-keys", orderEventExecutor, KeyedRecordExecutor::activeKeys)
+                .description("Orders with events received and not yet handled")
+                .register(meterRegistry);
     }
 
     @KafkaListener(topics = KafkaTopics.ORDER_EVENTS, groupId = "${spring.kafka.consumer.group-id}")
-    public void consumeOrderEvent(OrderEvent orderEvent) {
-        logger.info("Received order event: {}", orderEvent);
+    public void consumeOrderEvent(ConsumerRecord<String, OrderEvent> record, Acknowledgment ack)
+            throws InterruptedException {
+        OrderEvent orderEvent = record.value();
+        if (orderEvent == null) {
+            logger.warn("Skipping empty order event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            ack.acknowledge();
+            return;
+        }
+        String key = record.key() != null ? record.key() : String.valueOf(orderEvent.getOrderId());
+        AtomicBoolean done = new AtomicBoolean();
+        executor.submit(key, () -> done.set(process(record))).whenComplete((result, ex) -> {
+            if (ex == null && done.get()) {
+                ack.acknowledge();
+            } else {
+                logger.error("Leaving {} for orderId {} at {}-{}@{} unacknowledged, to be delivered again",
+                        orderEvent.getEventType(), orderEvent.getOrderId(), record.topic(), record.partition(),
+                        record.offset());
+            }
+        });
+    }
 
-        try {
-            switch (orderEvent.getEventType()) {
-                case "ORDER_CONFIRMED":
-                    handleOrderCreated(orderEvent);
-                    break;
-                case "ORDER_READY_FOR_PICKUP":
-                    handleOrderReadyForPickup(orderEvent);
+    /**
+     * Handle one record with retries; never throws.
+     *
+     * @return false if the record failed and could not be dead-lettered, so it must not be acknowledged
+     */
+    boolean process(ConsumerRecord<String, OrderEvent> record) {
+        OrderEvent orderEvent = record.value();
+        logger.info("Received order event: {}", orderEvent);
+        long start = System.nanoTime();
+        boolean done = true;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                handle(orderEvent);
+                break;
+            } catch (IllegalArgumentException | ResourceNotFoundException e) {
+                logger.warn("Skipping {} for orderId {}: {}", orderEvent.getEventType(), orderEvent.getOrderId(),
+                        e.getMessage());
+                break;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    done = deadLetter(record, e);
                     break;
-                case "ORDER_CANCELLED":
-                    handleOrderCancelled(orderEvent);
+                }
+                retries.increment();
+                long backoff = retryBackoffMs << (attempt - 1);
+                logger.warn("{} for orderId {} failed on attempt {}, retrying in {} ms: {}",
+                        orderEvent.getEventType(), orderEvent.getOrderId(), attempt, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    done = deadLetter(record, e);
                     break;
-                default:
-                    logger.warn("Unknown event type: {}", orderEvent.getEventType());
+                }
+            }
+        }
+        processingTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        endToEndLatency.record(Math.max(0, System.currentTimeMillis() - record.timestamp()), TimeUnit.MILLISECONDS);
+        return done;
+    }
+
+    private void handle(OrderEvent orderEvent) {
+        switch (orderEvent.getEventType()) {
+            case "ORDER_CONFIRMED":
+                handleOrderCreated(orderEvent);
+                break;
+            case "ORDER_READY_FOR_PICKUP":
+                handleOrderReadyForPickup(orderEvent);
+                break;
+            case "ORDER_CANCELLED":
+                handleOrderCancelled(orderEvent);
+                break;
+            default:
+                logger.warn("Unknown event type: {}", orderEvent.getEventType());
+        }
+    }
+
+    /**
+     * Send the record to the dead-letter topic and wait for the broker to take it, with the same
+     * retries and backoff as handling.
+     *
+     * @return whether the record is on the dead-letter topic
+     */
+    private boolean deadLetter(ConsumerRecord<String, OrderEvent> record, Exception cause) {
+        OrderEvent orderEvent = record.value();
+        logger.error("Giving up on {} for orderId {} at {}-{}@{}, sending to {}: {}", orderEvent.getEventType(),
+                orderEvent.getOrderId(), record.topic(), record.partition(), record.offset(),
+                KafkaTopicConfig.ORDER_EVENTS_DLT_TOPIC, cause.getMessage(), cause);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                kafkaTemplate.send(KafkaTopicConfig.ORDER_EVENTS_DLT_TOPIC, record.key(), orderEvent)
+                        .get(deadLetterTimeoutMs, TimeUnit.MILLISECONDS);
+                deadLettered.increment();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                logger.error("Failed to dead-letter order event for orderId {} on attempt {}: {}",
+                        orderEvent.getOrderId(), attempt, e.getMessage());
+                if (attempt >= maxAttempts) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(retryBackoffMs << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
             }
-        } catch (Exception e) {
-            logger.error("Error processing order event: {}", e.getMessage(), e);
         }
     }
 
@@ -88,23 +244,23 @@ public class OrderEventConsumer {
 
     private void handleOrderReadyForPickup(OrderEvent orderEvent) {
         logger.info("Handling ORDER_READY_FOR_PICKUP event for orderId: {}", orderEvent.getOrderId());
-        // Logic to notify delivery agent
-        // Auto-assign delivery agent if configured
+
+        // The food is waiting: a delivery still without an agent is retried now, not at its next backoff
+        Delivery.DeliveryStatus status = deliveryService.expediteAssignment(orderEvent.getOrderId());
+        if (status == Delivery.DeliveryStatus.PENDING) {
+            logger.info("Order {} is ready but has no agent yet, assignment expedited", orderEvent.getOrderId());
+        }
     }
 
     private void handleOrderCancelled(OrderEvent orderEvent) {
         logger.info("Handling ORDER_CANCELLED event for orderId: {}", orderEvent.getOrderId());
         
-        try {
-            DeliveryResponse delivery = deliveryService.getDeliveryByOrderId(orderEvent.getOrderId());
-            deliveryService.updateDeliveryStatus(
-                delivery.getId(), 
-                Delivery.DeliveryStatus.CANCELLED, 
-                "Order cancelled by customer/restaurant"
-            );
-            logger.info("Delivery cancelled successfully: deliveryId={}", delivery.getId());
-        } catch (Exception e) {
-            logger.error("Error cancelling delivery: {}", e.getMessage());
-        }
+        DeliveryResponse delivery = deliveryService.getDeliveryByOrderId(orderEvent.getOrderId());
+        deliveryService.updateDeliveryStatus(
+            delivery.getId(), 
+            Delivery.DeliveryStatus.CANCELLED, 
+            "Order cancelled by customer/restaurant"
+        );
+        logger.info("Delivery cancelled successfully: deliveryId={}", delivery.getId());
     }
 }
@@ -0,0 +1,204 @@
+package com.foodDelivery.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodDelivery.entity.OutboxDeadLetter;
+import com.foodDelivery.entity.OutboxEvent;
+import com.foodDelivery.repository.OutboxDeadLetterRepository;
+import com.foodDelivery.repository.OutboxEventRepository;
+import com.fooddelivery.events.DeliveryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes committed outbox rows in batches.
+ *
+ * Each batch is locked, handed to the producer in one go (linger and batching do the rest),
+ * awaited, and deleted with a single statement. A row is deleted only after both topics have
+ * acknowledged it; on a failure the batch stops at the first unacknowledged row so the remaining
+ * rows are retried in their original order. Delivery is therefore at-least-once, and with the
+ * idempotent producer duplicates only appear when a relay dies between the send and the delete.
+ *
+ * A failure that retrying will not fix, such as a payload that cannot be read or a record too large
+ * for the broker, counts against the row. Once a row has failed {@code max-attempts} times it is
+ * moved to {@code delivery_outbox_dead_letter} so it stops blocking the events behind it. Transient
+ * failures (broker unavailable, timeouts) are not counted; they block the outbox until they pass.
+ *
+ * Only one relay publishes at a time: the batch is taken from the head of the outbox with NOWAIT,
+ * so on other instances the relay finds the head locked and waits for its next tick. Two relays
+ * never hold events of the same order at once, and per-order ordering is kept.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxRepository;
+    private final OutboxDeadLetterRepository deadLetterRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Counter publishedEvents;
+    private final Counter failedEvents;
+    private final Counter parkedEvents;
+    private final Timer batchTimer;
+
+    @Value("${delivery.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${delivery.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10_000;
+
+    @Value("${delivery.outbox.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       OutboxDeadLetterRepository deadLetterRepository,
+                       KafkaProducerService kafkaProducerService,
+                       TransactionTemplate transactionTemplate,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.publishedEvents = Counter.builder("delivery.outbox.published")
+                .description("Outbox events published to every topic")
+                .register(meterRegistry);
+        this.failedEvents = Counter.builder("delivery.outbox.failed")
+                .description("Outbox events left for retry after a failed send")
+                .register(meterRegistry);
+        this.parkedEvents = Counter.builder("delivery.outbox.parked")
+                .description("Outbox events moved to the dead-letter table after too many failed sends")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("delivery.outbox.batch")
+                .description("Time to publish and delete one outbox batch")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.outbox.poll-interval-ms:100}")
+    public void relay() {
+        try {
+            // Keep going while batches come back full, so a backlog drains without waiting for the next tick
+            int published;
+            do {
+                published = relayBatch();
+            } while (published == batchSize);
+        } catch (PessimisticLockingFailureException e) {
+            logger.debug("Outbox head is held by another relay: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Publish and delete one batch.
+     *
+     * @return number of events taken off the outbox, published or parked
+     */
+    public int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxEvent> batch = outboxRepository.lockNextBatch(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+
+            List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+            for (OutboxEvent row : batch) {
+                sends.add(send(row));
+            }
+            kafkaProducerService.flush();
+
+            List<Long> done = new ArrayList<>(batch.size());
+            List<Long> parked = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                OutboxEvent row = batch.get(i);
+                Throwable failure = await(sends.get(i));
+                if (failure == null) {
+                    done.add(row.getId());
+                    continue;
+                }
+                if (!isTransient(failure)) {
+                    row.setAttempts(row.getAttempts() + 1);
+                }
+                if (row.getAttempts() < maxAttempts) {
+                    logger.error("Publishing outbox event {} ({}) failed, will retry: {}", row.getId(),
+                            row.getEventType(), failure.getMessage());
+                    failedEvents.increment(batch.size() - i);
+                    break;
+                }
+                logger.error("Publishing outbox event {} ({}) failed {} times, moving it to the dead-letter table: {}",
+                        row.getId(), row.getEventType(), row.getAttempts(), failure.getMessage());
+                deadLetterRepository.save(new OutboxDeadLetter(row, String.valueOf(failure)));
+                parked.add(row.getId());
+                parkedEvents.increment();
+            }
+            List<Long> removed = new ArrayList<>(done);
+            removed.addAll(parked);
+            if (!removed.isEmpty()) {
+                outboxRepository.deleteByIdIn(removed);
+            }
+
+            publishedEvents.increment(done.size());
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.debug("Relayed {} of {} outbox events, parked {}", done.size(), batch.size(), parked.size());
+            return done.size() + parked.size();
+        });
+        return published != null ? published : 0;
+    }
+
+    private CompletableFuture<Void> send(OutboxEvent row) {
+        try {
+            DeliveryEvent event = objectMapper.readValue(row.getPayload(), DeliveryEvent.class);
+            return kafkaProducerService.publish(row.getMessageKey(), event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return why the send failed, or null once it is acknowledged
+     */
+    private Throwable await(CompletableFuture<Void> send) {
+        try {
+            send.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (TimeoutException e) {
+            return e;
+        }
+    }
+
+    // Failures that may pass on their own; they say nothing about the row
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof RetriableException || t instanceof TimeoutException || t instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
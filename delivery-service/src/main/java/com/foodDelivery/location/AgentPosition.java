@@ -0,0 +1,11 @@
+package com.foodDelivery.location;
+
+/**
+ * Last reported position of an agent.
+ */
+public record AgentPosition(long agentId, double latitude, double longitude, long epochMillis) {
+
+    public static AgentPosition newer(AgentPosition a, AgentPosition b) {
+        return b.epochMillis() >= a.epochMillis() ? b : a;
+    }
+}
@@ -0,0 +1,9 @@
+package com.foodDelivery.location;
+
+/**
+ * A sealed, encoded run of breadcrumbs to append to a delivery's stored trail.
+ *
+ * @param lastMillis time of the chunk's last point; the trail only takes chunks that end after it does
+ */
+public record TrackChunk(long deliveryId, int pointCount, long lastMillis, byte[] data) {
+}
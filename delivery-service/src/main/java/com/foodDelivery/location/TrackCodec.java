@@ -0,0 +1,138 @@
+package com.foodDelivery.location;
+
+import com.foodDelivery.entity.Delivery;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact binary encoding of a delivery's breadcrumb trail.
+ *
+ * A trail is a sequence of self-contained chunks, so sealing a chunk is a plain append to the
+ * stored blob. Each chunk is {@code varint pointCount} followed by its points, every point encoded
+ * against the previous one in the same chunk:
+ * <pre>
+ *   varint  (millisDelta &lt;&lt; 2) | remarksChanged &lt;&lt; 1 | statusChanged
+ *   zigzag  latitude delta  (1e-5 degree units, ~1.1 m)
+ *   zigzag  longitude delta
+ *   [byte   status ordinal]              if statusChanged
+ *   [varint length, UTF-8 bytes]         if remarksChanged (length 0 = no remarks)
+ * </pre>
+ * A ping a few seconds after the previous one packs into 4-5 bytes.
+ */
+public final class TrackCodec {
+
+    private static final double SCALE = 1e5;
+    private static final Delivery.DeliveryStatus[] STATUSES = Delivery.DeliveryStatus.values();
+
+    private TrackCodec() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Encode points (oldest first) as one chunk.
+     */
+    public static byte[] encodeChunk(List<TrackingPoint> points) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + points.size() * 6);
+        writeVarLong(out, points.size());
+
+        long prevTime = 0;
+        long prevLat = 0;
+        long prevLon = 0;
+        Delivery.DeliveryStatus prevStatus = null;
+        String prevRemarks = null;
+        for (TrackingPoint p : points) {
+            long lat = Math.round(p.latitude() * SCALE);
+            long lon = Math.round(p.longitude() * SCALE);
+            String remarks = p.remarks() == null || p.remarks().isEmpty() ? null : p.remarks();
+            boolean statusChanged = p.status() != prevStatus;
+            boolean remarksChanged = !Objects.equals(remarks, prevRemarks);
+
+            long millisDelta = p.epochMillis() - prevTime;
+            if (millisDelta < 0) {
+                throw new IllegalArgumentException("Tracking points must be in time order");
+            }
+            writeVarLong(out, (millisDelta << 2) | (remarksChanged ? 2 : 0) | (statusChanged ? 1 : 0));
+            writeVarLong(out, zigzag(lat - prevLat));
+            writeVarLong(out, zigzag(lon - prevLon));
+            if (statusChanged) {
+                out.write(p.status().ordinal());
+            }
+            if (remarksChanged) {
+                byte[] bytes = remarks == null ? new byte[0] : remarks.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+
+            prevTime = p.epochMillis();
+            prevLat = lat;
+            prevLon = lon;
+            prevStatus = p.status();
+            prevRemarks = remarks;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a whole trail (any number of concatenated chunks), oldest first.
+     */
+    public static List<TrackingPoint> decode(long deliveryId, byte[] data) {
+        List<TrackingPoint> points = new ArrayList<>();
+        int[] pos = {0};
+        while (pos[0] < data.length) {
+            long count = readVarLong(data, pos);
+            long time = 0;
+            long lat = 0;
+            long lon = 0;
+            Delivery.DeliveryStatus status = null;
+            String remarks = null;
+            for (long i = 0; i < count; i++) {
+                long head = readVarLong(data, pos);
+                time += head >>> 2;
+                lat += unzigzag(readVarLong(data, pos));
+                lon += unzigzag(readVarLong(data, pos));
+                if ((head & 1) != 0) {
+                    status = STATUSES[data[pos[0]++]];
+                }
+                if ((head & 2) != 0) {
+                    int length = (int) readVarLong(data, pos);
+                    remarks = length == 0 ? null : new String(data, pos[0], length, StandardCharsets.UTF_8);
+                    pos[0] += length;
+                }
+                points.add(new TrackingPoint(deliveryId, lat / SCALE, lon / SCALE, status, remarks, time));
+            }
+        }
+        return points;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return result;
+    }
+}
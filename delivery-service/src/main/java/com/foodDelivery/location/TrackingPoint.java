@@ -0,0 +1,10 @@
+package com.foodDelivery.location;
+
+import com.foodDelivery.entity.Delivery;
+
+/**
+ * One breadcrumb of a delivery's route, as reported by the agent.
+ */
+public record TrackingPoint(long deliveryId, double latitude, double longitude,
+                            Delivery.DeliveryStatus status, String remarks, long epochMillis) {
+}
@@ -0,0 +1,237 @@
+package com.foodDelivery.location;
+
+import com.foodDelivery.dto.DeliveryTrackingResponse;
+import com.foodDelivery.entity.Delivery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of live tracking updates to Server-Sent Events subscribers, keyed by delivery.
+ *
+ * Publishers never touch a socket: each update is dropped into every subscriber's small queue and
+ * the subscriber's own virtual thread writes it out, so a slow client only delays itself. When a
+ * queue is full the oldest update is discarded; a newer location supersedes it anyway.
+ * The latest status, location and ETA per delivery are replayed to new subscribers, so clients do not
+ * need to poll {@code /tracking} first.
+ */
+@Component
+public class TrackingStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingStreamHub.class);
+
+    static final String LOCATION_EVENT = "location";
+    static final String STATUS_EVENT = "status";
+    static final String ETA_EVENT = "eta";
+
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, DeliveryTrackingResponse> latestStatus = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, DeliveryTrackingResponse> latestLocation = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, DeliveryTrackingResponse> latestEta = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter droppedUpdates;
+
+    @Value("${delivery.tracking.stream.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    @Value("${delivery.tracking.stream.heartbeat-ms:15000}")
+    private long heartbeatMs = 15_000;
+
+    @Value("${delivery.tracking.stream.queue-capacity:64}")
+    private int queueCapacity = 64;
+
+    public TrackingStreamHub(MeterRegistry meterRegistry) {
+        Gauge.builder("delivery.tracking.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open tracking streams")
+                .register(meterRegistry);
+        this.droppedUpdates = Counter.builder("delivery.tracking.stream.dropped")
+                .description("Updates discarded because a subscriber fell behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a stream for the delivery.
+     *
+     * @param currentStatus the delivery's status as stored, replayed if nothing newer has been published
+     */
+    public SseEmitter subscribe(Long deliveryId, Delivery.DeliveryStatus currentStatus) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(deliveryId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        DeliveryTrackingResponse status = latestStatus.get(deliveryId);
+        if (status == null) {
+            status = new DeliveryTrackingResponse();
+            status.setDeliveryId(deliveryId);
+            status.setStatusUpdate(currentStatus);
+        }
+        boolean finished = isFinal(status.getStatusUpdate());
+        subscriber.offer(new StreamEvent(STATUS_EVENT, status, finished));
+        DeliveryTrackingResponse location = latestLocation.get(deliveryId);
+        if (location != null && !finished) {
+            subscriber.offer(new StreamEvent(LOCATION_EVENT, location, false));
+        }
+        DeliveryTrackingResponse eta = latestEta.get(deliveryId);
+        if (eta != null && !finished) {
+            subscriber.offer(new StreamEvent(ETA_EVENT, eta, false));
+        }
+
+        if (!finished) {
+            subscribers.computeIfAbsent(deliveryId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        subscriberCount.incrementAndGet();
+        subscriber.start();
+        return emitter;
+    }
+
+    public void publishLocation(DeliveryTrackingResponse update) {
+        latestLocation.put(update.getDeliveryId(), update);
+        fanOut(update.getDeliveryId(), new StreamEvent(LOCATION_EVENT, update, false));
+    }
+
+    /**
+     * Publish a revised estimated delivery time; only sent when it moved noticeably.
+     */
+    public void publishEta(Long deliveryId, LocalDateTime estimatedDeliveryTime) {
+        DeliveryTrackingResponse update = new DeliveryTrackingResponse();
+        update.setDeliveryId(deliveryId);
+        update.setEstimatedDeliveryTime(estimatedDeliveryTime);
+        update.setTimestamp(LocalDateTime.now());
+        latestEta.put(deliveryId, update);
+        fanOut(deliveryId, new StreamEvent(ETA_EVENT, update, false));
+    }
+
+    /**
+     * Publish a committed status change. A final status ends every stream of the delivery.
+     */
+    public void publishStatus(DeliveryTrackingResponse update) {
+        Long deliveryId = update.getDeliveryId();
+        if (isFinal(update.getStatusUpdate())) {
+            latestStatus.remove(deliveryId);
+            latestLocation.remove(deliveryId);
+            latestEta.remove(deliveryId);
+            Set<Subscriber> watching = subscribers.remove(deliveryId);
+            if (watching != null) {
+                StreamEvent last = new StreamEvent(STATUS_EVENT, update, true);
+                watching.forEach(s -> s.offer(last));
+            }
+            return;
+        }
+        latestStatus.put(deliveryId, update);
+        fanOut(deliveryId, new StreamEvent(STATUS_EVENT, update, false));
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void fanOut(Long deliveryId, StreamEvent event) {
+        Set<Subscriber> watching = subscribers.get(deliveryId);
+        if (watching != null) {
+            watching.forEach(s -> s.offer(event));
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.close()) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.deliveryId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    private static boolean isFinal(Delivery.DeliveryStatus status) {
+        return status == Delivery.DeliveryStatus.DELIVERED
+                || status == Delivery.DeliveryStatus.CANCELLED
+                || status == Delivery.DeliveryStatus.FAILED;
+    }
+
+    private record StreamEvent(String name, DeliveryTrackingResponse payload, boolean last) {
+    }
+
+    /**
+     * One open stream: a bounded queue drained by a dedicated virtual thread.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final Long deliveryId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicInteger state = new AtomicInteger(); // 0 open, 1 closed
+        private volatile Thread thread;
+
+        Subscriber(Long deliveryId, SseEmitter emitter) {
+            this.deliveryId = deliveryId;
+            this.emitter = emitter;
+        }
+
+        void start() {
+            thread = Thread.ofVirtual().name("tracking-stream-" + deliveryId).start(this);
+        }
+
+        void offer(StreamEvent event) {
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    droppedUpdates.increment();
+                }
+            }
+        }
+
+        /**
+         * @return true for the call that actually closed the subscriber
+         */
+        boolean close() {
+            if (!state.compareAndSet(0, 1)) {
+                return false;
+            }
+            Thread t = thread;
+            if (t != null && t != Thread.currentThread()) {
+                t.interrupt();
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (state.get() == 0) {
+                    StreamEvent event = queue.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                        continue;
+                    }
+                    emitter.send(SseEmitter.event().name(event.name()).data(event.payload()));
+                    if (event.last()) {
+                        emitter.complete();
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Usually the client went away; the container reports it through onError as well
+                logger.debug("Tracking stream for delivery {} closed: {}", deliveryId, e.getMessage());
+            } finally {
+                unsubscribe(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.foodDelivery.repository;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.entity.DeliveryAgent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Narrow reads and writes of the agent columns held in {@code AgentStateTable}; the profile
+ * columns (password hash, address, licence, profile image) are never selected here.
+ */
+@Repository
+public class AgentStateRepository {
+
+    private static final String SELECT_STATE =
+            "SELECT id, status, current_latitude, current_longitude, vehicle_type, rating, last_active_at "
+                    + "FROM delivery_agents";
+
+    private static final String UPDATE_STATUS =
+            "UPDATE delivery_agents SET status = ?, last_active_at = ?, updated_at = ?, "
+                    + "total_deliveries = COALESCE(total_deliveries, 0) + ? WHERE id = ?";
+
+    // MySQL applies single-table assignments left to right, so status still sees the old count
+    private static final String RELEASE_DELIVERY =
+            "UPDATE delivery_agents SET "
+                    + "status = CASE WHEN COALESCE(active_deliveries, 1) <= 1 THEN 'AVAILABLE' ELSE status END, "
+                    + "active_deliveries = GREATEST(COALESCE(active_deliveries, 1) - 1, 0), "
+                    + "last_active_at = ?, updated_at = ?, "
+                    + "total_deliveries = COALESCE(total_deliveries, 0) + ? WHERE id = ?";
+
+    private static final String MARK_OFFLINE =
+            "UPDATE delivery_agents SET status = 'OFFLINE', updated_at = ? WHERE status = 'AVAILABLE' "
+                    + "AND (last_active_at IS NULL OR last_active_at < ?) AND id IN (%s)";
+
+    private static final String SELECT_STATES = SELECT_STATE + " WHERE id IN (%s)";
+
+    // Keeps the IN list well below driver and optimizer limits
+    private static final int IN_LIST_CHUNK = 1000;
+
+    private static final RowMapper<AgentState> STATE_MAPPER = (rs, rowNum) -> {
+        String status = rs.getString("status");
+        String vehicleType = rs.getString("vehicle_type");
+        Double latitude = rs.getObject("current_latitude", Double.class);
+        Double longitude = rs.getObject("current_longitude", Double.class);
+        Double rating = rs.getObject("rating", Double.class);
+        Timestamp lastActive = rs.getTimestamp("last_active_at");
+        return new AgentState(rs.getLong("id"),
+                status != null ? DeliveryAgent.AgentStatus.valueOf(status) : DeliveryAgent.AgentStatus.OFFLINE,
+                latitude != null ? latitude : Double.NaN,
+                longitude != null ? longitude : Double.NaN,
+                vehicleType != null ? DeliveryAgent.VehicleType.valueOf(vehicleType) : null,
+                rating != null ? rating : 0.0,
+                lastActive != null ? lastActive.getTime() : 0L);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AgentStateRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<AgentState> findAll() {
+        return jdbcTemplate.query(SELECT_STATE, STATE_MAPPER);
+    }
+
+    public Optional<AgentState> findById(long agentId) {
+        return jdbcTemplate.query(SELECT_STATE + " WHERE id = ?", STATE_MAPPER, agentId).stream().findFirst();
+    }
+
+    /**
+     * Set the agent's status, optionally counting one more completed delivery.
+     *
+     * @return number of rows updated; 0 if the agent does not exist
+     */
+    public int updateStatus(long agentId, DeliveryAgent.AgentStatus status, boolean completedDelivery,
+                            long epochMillis) {
+        Timestamp now = new Timestamp(epochMillis);
+        return jdbcTemplate.update(UPDATE_STATUS, status.name(), now, now, completedDelivery ? 1 : 0, agentId);
+    }
+
+    /**
+     * One of the agent's deliveries is over: count it down and make the agent AVAILABLE if it was
+     * the last one.
+     *
+     * @return the agent's status afterwards; empty if the agent does not exist
+     */
+    public Optional<DeliveryAgent.AgentStatus> releaseDelivery(long agentId, boolean completedDelivery,
+                                                               long epochMillis) {
+        Timestamp now = new Timestamp(epochMillis);
+        if (jdbcTemplate.update(RELEASE_DELIVERY, now, now, completedDelivery ? 1 : 0, agentId) == 0) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.queryForList("SELECT status FROM delivery_agents WHERE id = ?", String.class, agentId)
+                .stream()
+                .findFirst()
+                .map(DeliveryAgent.AgentStatus::valueOf);
+    }
+
+    /**
+     * Set the given agents OFFLINE, skipping any that are no longer AVAILABLE or whose row records
+     * activity since {@code silentSinceMillis}, e.g. pings flushed by another instance.
+     *
+     * @return number of rows updated
+     */
+    public int markOffline(List<Long> agentIds, long silentSinceMillis, long epochMillis) {
+        Timestamp now = new Timestamp(epochMillis);
+        Timestamp silentSince = new Timestamp(silentSinceMillis);
+        int updated = 0;
+        for (int from = 0; from < agentIds.size(); from += IN_LIST_CHUNK) {
+            List<Long> chunk = agentIds.subList(from, Math.min(from + IN_LIST_CHUNK, agentIds.size()));
+            List<Object> args = new ArrayList<>(chunk.size() + 2);
+            args.add(now);
+            args.add(silentSince);
+            args.addAll(chunk);
+            String sql = String.format(MARK_OFFLINE, String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            updated += jdbcTemplate.update(sql, args.toArray());
+        }
+        return updated;
+    }
+
+    /**
+     * The rows of the given agents; agents that do not exist are left out.
+     */
+    public List<AgentState> findAllById(List<Long> agentIds) {
+        List<AgentState> found = new ArrayList<>(agentIds.size());
+        for (int from = 0; from < agentIds.size(); from += IN_LIST_CHUNK) {
+            List<Long> chunk = agentIds.subList(from, Math.min(from + IN_LIST_CHUNK, agentIds.size()));
+            String sql = String.format(SELECT_STATES, String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            found.addAll(jdbcTemplate.query(sql, STATE_MAPPER, chunk.toArray()));
+        }
+        return found;
+    }
+}
@@ -1,8 +1,11 @@
 package com.foodDelivery.repository;
 
 import com.foodDelivery.entity.DeliveryAgent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -23,4 +26,26 @@ public interface DeliveryAgentRepository extends JpaRepository<DeliveryAgent, Lo
     List<DeliveryAgent> findAvailableAgents();
     
     List<DeliveryAgent> findByStatus(DeliveryAgent.AgentStatus status);
+
+    // Keyset page of agents after the given id
+    List<DeliveryAgent> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Move an AVAILABLE agent to BUSY with its first delivery. Returns 1 on success, 0 if the agent
+     * was not AVAILABLE.
+     */
+    @Modifying
+    @Query("UPDATE DeliveryAgent da SET da.status = 'BUSY', da.activeDeliveries = 1, "
+            + "da.updatedAt = CURRENT_TIMESTAMP WHERE da.id = :agentId AND da.status = 'AVAILABLE'")
+    int claimAvailable(@Param("agentId") Long agentId);
+
+    /**
+     * Give a BUSY agent one more delivery if it holds fewer than {@code capacity}. Returns 1 on
+     * success, 0 if the agent is not BUSY or already full.
+     */
+    @Modifying
+    @Query("UPDATE DeliveryAgent da SET da.activeDeliveries = COALESCE(da.activeDeliveries, 1) + 1, "
+            + "da.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE da.id = :agentId AND da.status = 'BUSY' AND COALESCE(da.activeDeliveries, 1) < :capacity")
+    int claimAdditional(@Param("agentId") Long agentId, @Param("capacity") int capacity);
 }
@@ -1,11 +1,17 @@
 package com.foodDelivery.repository;
 
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.foodDelivery.entity.Delivery;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,10 +19,14 @@ import java.util.Optional;
 public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     
     Optional<Delivery> findByOrderId(Long orderId);
-    
-    List<Delivery> findByDeliveryAgentId(Long agentId);
-    
-    List<Delivery> findByCustomerId(Long customerId);
+
+    /**
+     * The delivery with its row locked until the transaction ends, so status changes to it are
+     * applied one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Delivery d WHERE d.id = :deliveryId")
+    Optional<Delivery> findByIdForUpdate(@Param("deliveryId") Long deliveryId);
     
     List<Delivery> findByRestaurantId(Long restaurantId);
     
@@ -25,4 +35,62 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     List<Delivery> findByDeliveryAgentIdAndStatus(Long agentId, Delivery.DeliveryStatus status);
     
     boolean existsByOrderId(Long orderId);
+
+    /**
+     * One keyset page of an agent's deliveries created at or after {@code from}, newest first, starting
+     * below {@code (before, beforeId)}; the agent is fetched in the same query.
+     */
+    @Query("SELECT d FROM Delivery d LEFT JOIN FETCH d.deliveryAgent "
+            + "WHERE d.deliveryAgent.id = :agentId AND (:status IS NULL OR d.status = :status) "
+            + "AND d.createdAt >= :from "
+            + "AND (d.createdAt < :before OR (d.createdAt = :before AND d.id < :beforeId)) "
+            + "ORDER BY d.createdAt DESC, d.id DESC")
+    List<Delivery> findPageByAgent(@Param("agentId") Long agentId,
+                                   @Param("status") Delivery.DeliveryStatus status,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("before") LocalDateTime before,
+                                   @Param("beforeId") long beforeId,
+                                   Pageable pageable);
+
+    /**
+     * Same as {@link #findPageByAgent} for a customer's deliveries.
+     */
+    @Query("SELECT d FROM Delivery d LEFT JOIN FETCH d.deliveryAgent "
+            + "WHERE d.customerId = :customerId AND (:status IS NULL OR d.status = :status) "
+            + "AND d.createdAt >= :from "
+            + "AND (d.createdAt < :before OR (d.createdAt = :before AND d.id < :beforeId)) "
+            + "ORDER BY d.createdAt DESC, d.id DESC")
+    List<Delivery> findPageByCustomer(@Param("customerId") Long customerId,
+                                      @Param("status") Delivery.DeliveryStatus status,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("before") LocalDateTime before,
+                                      @Param("beforeId") long beforeId,
+                                      Pageable pageable);
+
+    @Query("SELECT d.status FROM Delivery d WHERE d.id = :deliveryId")
+    Optional<Delivery.DeliveryStatus> findStatusById(@Param("deliveryId") Long deliveryId);
+
+    /**
+     * Id and pickup coordinates of every delivery in the given status, as {@code [id, latitude, longitude]}.
+     */
+    @Query("SELECT d.id, d.pickupLatitude, d.pickupLongitude FROM Delivery d WHERE d.status = :status")
+    List<Object[]> findIdAndPickupByStatus(@Param("status") Delivery.DeliveryStatus status);
+
+    /**
+     * Stops of every delivery an agent holds in one of the given statuses, as
+     * {@code [id, agentId, restaurantId, pickupLat, pickupLon, dropLat, dropLon, status]}, oldest first.
+     */
+    @Query("SELECT d.id, d.deliveryAgent.id, d.restaurantId, d.pickupLatitude, d.pickupLongitude, "
+            + "d.deliveryLatitude, d.deliveryLongitude, d.status FROM Delivery d "
+            + "WHERE d.deliveryAgent IS NOT NULL AND d.status IN :statuses ORDER BY d.id")
+    List<Object[]> findOpenTripDeliveries(@Param("statuses") List<Delivery.DeliveryStatus> statuses);
+
+    /**
+     * What ETA tracking needs of every delivery an agent holds in one of the given statuses, as
+     * {@code [id, vehicleType, pickupLat, pickupLon, dropLat, dropLon, status, estimatedDeliveryTime]}.
+     */
+    @Query("SELECT d.id, a.vehicleType, d.pickupLatitude, d.pickupLongitude, d.deliveryLatitude, "
+            + "d.deliveryLongitude, d.status, d.estimatedDeliveryTime FROM Delivery d JOIN d.deliveryAgent a "
+            + "WHERE d.status IN :statuses ORDER BY d.id")
+    List<Object[]> findOpenEtaDeliveries(@Param("statuses") List<Delivery.DeliveryStatus> statuses);
 }
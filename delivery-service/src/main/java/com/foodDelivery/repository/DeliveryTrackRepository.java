@@ -0,0 +1,9 @@
+package com.foodDelivery.repository;
+
+import com.foodDelivery.entity.DeliveryTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeliveryTrackRepository extends JpaRepository<DeliveryTrack, Long> {
+}
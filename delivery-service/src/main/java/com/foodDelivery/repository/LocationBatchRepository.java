@@ -0,0 +1,101 @@
+package com.foodDelivery.repository;
+
+import com.foodDelivery.location.AgentPosition;
+import com.foodDelivery.location.TrackChunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC batch writes for the location pipeline. One statement per flush instead of one
+ * JPA load-and-save per ping; with {@code rewriteBatchedStatements=true} MySQL receives each
+ * batch as a single multi-row request.
+ */
+@Repository
+public class LocationBatchRepository {
+
+    private static final String UPDATE_AGENT_POSITION =
+            "UPDATE delivery_agents SET current_latitude = ?, current_longitude = ?, last_active_at = ? WHERE id = ?";
+
+    // Finished deliveries keep the ETA they were completed with
+    private static final String UPDATE_ESTIMATED_DELIVERY_TIME =
+            "UPDATE deliveries SET estimated_delivery_time = ? WHERE id = ? "
+                    + "AND status NOT IN ('DELIVERED', 'CANCELLED', 'FAILED')";
+
+    private static final String CREATE_TRACK =
+            "INSERT IGNORE INTO delivery_tracks (delivery_id, point_count, chunk_count, last_point_at, data, updated_at) "
+                    + "VALUES (?, 0, 0, 0, '', ?)";
+
+    // Chunks are self-contained, so appending one is a byte-level concatenation. A chunk that does
+    // not end after the stored trail is already in it
+    private static final String APPEND_TRACK_CHUNK =
+            "UPDATE delivery_tracks SET data = CONCAT(data, ?), point_count = point_count + ?, "
+                    + "chunk_count = chunk_count + 1, last_point_at = ?, updated_at = ? "
+                    + "WHERE delivery_id = ? AND last_point_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public LocationBatchRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void updateAgentPositions(List<AgentPosition> positions) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_AGENT_POSITION, positions, positions.size(), (ps, p) -> {
+            ps.setDouble(1, p.latitude());
+            ps.setDouble(2, p.longitude());
+            ps.setTimestamp(3, new Timestamp(p.epochMillis()));
+            ps.setLong(4, p.agentId());
+        });
+    }
+
+    /**
+     * Write the latest ETA of each delivery, keyed by delivery id, as epoch millis.
+     */
+    public void updateEstimatedDeliveryTimes(Map<Long, Long> etas) {
+        if (etas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> rows = List.copyOf(etas.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_ESTIMATED_DELIVERY_TIME, rows, rows.size(), (ps, e) -> {
+            ps.setTimestamp(1, new Timestamp(e.getValue()));
+            ps.setLong(2, e.getKey());
+        });
+    }
+
+    /**
+     * Append encoded chunks to the deliveries' trails; at most one chunk per delivery per call.
+     *
+     * All or none of the chunks are stored. A chunk ending no later than its trail is skipped, so
+     * sending a chunk again after a failure that did reach the database does not store it twice, as
+     * long as it is sent unchanged.
+     */
+    public void appendTrackChunks(List<TrackChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(CREATE_TRACK, chunks, chunks.size(), (ps, c) -> {
+                ps.setLong(1, c.deliveryId());
+                ps.setTimestamp(2, now);
+            });
+            jdbcTemplate.batchUpdate(APPEND_TRACK_CHUNK, chunks, chunks.size(), (ps, c) -> {
+                ps.setBytes(1, c.data());
+                ps.setInt(2, c.pointCount());
+                ps.setLong(3, c.lastMillis());
+                ps.setTimestamp(4, now);
+                ps.setLong(5, c.deliveryId());
+                ps.setLong(6, c.lastMillis());
+            });
+        });
+    }
+}
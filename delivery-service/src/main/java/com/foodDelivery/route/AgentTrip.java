@@ -0,0 +1,71 @@
+package com.foodDelivery.route;
+
+import com.foodDelivery.geo.GeoDistance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The deliveries an agent holds and the order in which it will visit their remaining stops.
+ * Picked-up deliveries only have their drop left in the route.
+ */
+public record AgentTrip(long agentId, List<TripDelivery> deliveries, List<Stop> route) {
+
+    public AgentTrip {
+        deliveries = List.copyOf(deliveries);
+        route = List.copyOf(route);
+    }
+
+    public int size() {
+        return deliveries.size();
+    }
+
+    public boolean isEmpty() {
+        return deliveries.isEmpty();
+    }
+
+    /**
+     * Whether one of the trip's pickups is at the given restaurant or within {@code radiusKm} of the point.
+     */
+    public boolean hasPickupNear(Long restaurantId, double latitude, double longitude, double radiusKm) {
+        for (TripDelivery delivery : deliveries) {
+            if (restaurantId != null && restaurantId.equals(delivery.restaurantId())) {
+                return true;
+            }
+            if (GeoDistance.haversineKm(delivery.pickupLatitude(), delivery.pickupLongitude(), latitude, longitude)
+                    <= radiusKm) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public AgentTrip withDelivery(TripDelivery delivery, List<Stop> newRoute) {
+        List<TripDelivery> updated = new ArrayList<>(deliveries);
+        updated.add(delivery);
+        return new AgentTrip(agentId, updated, newRoute);
+    }
+
+    public AgentTrip withRoute(List<Stop> newRoute) {
+        return new AgentTrip(agentId, deliveries, newRoute);
+    }
+
+    /**
+     * The delivery is on board: its pickup leaves the route.
+     */
+    public AgentTrip withPickedUp(long deliveryId) {
+        List<TripDelivery> updated = deliveries.stream()
+                .map(d -> d.deliveryId() == deliveryId ? d.withPickedUp() : d)
+                .toList();
+        List<Stop> remaining = route.stream()
+                .filter(stop -> !(stop.pickup() && stop.deliveryId() == deliveryId))
+                .toList();
+        return new AgentTrip(agentId, updated, remaining);
+    }
+
+    public AgentTrip without(long deliveryId) {
+        return new AgentTrip(agentId,
+                deliveries.stream().filter(d -> d.deliveryId() != deliveryId).toList(),
+                route.stream().filter(stop -> stop.deliveryId() != deliveryId).toList());
+    }
+}
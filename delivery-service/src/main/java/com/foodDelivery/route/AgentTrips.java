@@ -0,0 +1,176 @@
+package com.foodDelivery.route;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.repository.DeliveryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The open trip of every agent holding deliveries, and the capacity model that says how many
+ * deliveries an agent may hold at once.
+ *
+ * Trips that still have room are kept in a grid index at their first pickup, so stacking can find
+ * the agents collecting at or near a restaurant without looking at every BUSY agent. Rebuilt from
+ * the deliveries table once at startup; kept current by the delivery status changes afterwards.
+ */
+@Component
+public class AgentTrips {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentTrips.class);
+
+    // Deliveries one agent can carry, indexed by VehicleType ordinal (BIKE, SCOOTER, CAR, BICYCLE)
+    private static final int[] VEHICLE_CAPACITY = {3, 3, 4, 2};
+
+    private static final List<Delivery.DeliveryStatus> OPEN_STATUSES = List.of(
+            Delivery.DeliveryStatus.ASSIGNED, Delivery.DeliveryStatus.PICKED_UP, Delivery.DeliveryStatus.IN_TRANSIT);
+
+    private final DeliveryRepository deliveryRepository;
+    private final ConcurrentHashMap<Long, AgentTrip> trips = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> agentByDelivery = new ConcurrentHashMap<>();
+    // Trips with room for another delivery, positioned at their first pickup
+    private final AgentSpatialIndex stackable;
+
+    @Value("${delivery.assignment.stacking.max-orders:3}")
+    private int maxOrders = 3;
+
+    public AgentTrips(DeliveryRepository deliveryRepository,
+                      @Value("${delivery.assignment.index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        this.deliveryRepository = deliveryRepository;
+        this.stackable = new AgentSpatialIndex(cellSizeDegrees);
+    }
+
+    /**
+     * Rebuild the trips of the deliveries a previous run left open.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<Long, List<TripDelivery>> byAgent = new LinkedHashMap<>();
+        for (Object[] row : deliveryRepository.findOpenTripDeliveries(OPEN_STATUSES)) {
+            if (row[3] == null || row[4] == null || row[5] == null || row[6] == null) {
+                continue;
+            }
+            Delivery.DeliveryStatus status = (Delivery.DeliveryStatus) row[7];
+            byAgent.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add(new TripDelivery((Long) row[0],
+                    (Long) row[2], (Double) row[3], (Double) row[4], (Double) row[5], (Double) row[6],
+                    status != Delivery.DeliveryStatus.ASSIGNED));
+        }
+        byAgent.forEach((agentId, deliveries) -> {
+            // Drops already on board first, then the rest fitted in one by one
+            List<Stop> route = deliveries.stream().filter(TripDelivery::pickedUp).map(TripDelivery::dropStop).toList();
+            for (TripDelivery delivery : deliveries) {
+                if (!delivery.pickedUp()) {
+                    route = RouteInsertion.cheapest(Double.NaN, Double.NaN, route,
+                            delivery.pickupStop(), delivery.dropStop()).route();
+                }
+            }
+            put(new AgentTrip(agentId, deliveries, route));
+        });
+        logger.info("Loaded open trips of {} agents", byAgent.size());
+    }
+
+    /**
+     * How many deliveries an agent on this vehicle may hold at once.
+     */
+    public int capacity(DeliveryAgent.VehicleType vehicle) {
+        int byVehicle = VEHICLE_CAPACITY[vehicle == null ? 0 : vehicle.ordinal()];
+        return Math.max(1, Math.min(maxOrders, byVehicle));
+    }
+
+    public Optional<AgentTrip> get(long agentId) {
+        return Optional.ofNullable(trips.get(agentId));
+    }
+
+    public Optional<Long> agentOf(long deliveryId) {
+        return Optional.ofNullable(agentByDelivery.get(deliveryId));
+    }
+
+    /**
+     * Agents whose trip has room and starts within {@code radiusKm} of the point.
+     */
+    public List<Long> stackableNear(double latitude, double longitude, double radiusKm) {
+        return stackable.withinRadius(latitude, longitude, radiusKm).stream()
+                .map(AgentSpatialIndex.Neighbor::agentId)
+                .toList();
+    }
+
+    /**
+     * The agent took on a delivery; {@code route} is its new visiting order.
+     */
+    public void add(long agentId, TripDelivery delivery, List<Stop> route) {
+        agentByDelivery.put(delivery.deliveryId(), agentId);
+        trips.compute(agentId, (id, trip) -> index(trip == null
+                ? new AgentTrip(agentId, List.of(delivery), route)
+                : trip.without(delivery.deliveryId()).withDelivery(delivery, route)));
+    }
+
+    /**
+     * Replace the visiting order of the agent's remaining stops, unless the route changed since
+     * {@code basedOn} was read.
+     *
+     * @return false if a stop was added or visited in the meantime and nothing was replaced
+     */
+    public boolean replaceRoute(long agentId, List<Stop> basedOn, List<Stop> route) {
+        boolean[] replaced = new boolean[1];
+        trips.computeIfPresent(agentId, (id, trip) -> {
+            if (!trip.route().equals(basedOn)) {
+                return trip;
+            }
+            replaced[0] = true;
+            return trip.withRoute(route);
+        });
+        return replaced[0];
+    }
+
+    public void onStatusChanged(long deliveryId, Delivery.DeliveryStatus status) {
+        Long agentId = agentByDelivery.get(deliveryId);
+        if (agentId == null) {
+            return;
+        }
+        switch (status) {
+            case PICKED_UP, IN_TRANSIT -> trips.computeIfPresent(agentId, (id, trip) -> trip.withPickedUp(deliveryId));
+            case DELIVERED, CANCELLED, FAILED -> {
+                agentByDelivery.remove(deliveryId);
+                trips.computeIfPresent(agentId, (id, trip) -> index(trip.without(deliveryId)));
+            }
+            default -> {
+            }
+        }
+    }
+
+    public int size() {
+        return trips.size();
+    }
+
+    private void put(AgentTrip trip) {
+        trip.deliveries().forEach(d -> agentByDelivery.put(d.deliveryId(), trip.agentId()));
+        trips.put(trip.agentId(), index(trip));
+    }
+
+    // Keep the stackable index in line with the trip; returns null for an empty trip so compute drops it
+    private AgentTrip index(AgentTrip trip) {
+        if (trip.isEmpty()) {
+            stackable.remove(trip.agentId());
+            return null;
+        }
+        if (trip.size() < maxOrders) {
+            TripDelivery first = trip.deliveries().get(0);
+            stackable.upsert(trip.agentId(), first.pickupLatitude(), first.pickupLongitude());
+        } else {
+            stackable.remove(trip.agentId());
+        }
+        return trip;
+    }
+}
@@ -0,0 +1,75 @@
+package com.foodDelivery.route;
+
+import com.foodDelivery.geo.GeoDistance;
+
+import java.util.List;
+
+/**
+ * Great-circle distances in km between the stops of a trip, computed once per set of stops.
+ *
+ * Stop-to-stop distances do not move with the agent, so re-sequencing on a location ping only has
+ * to compute the distances from the agent's new position. A matrix keeps serving the trip as stops
+ * are visited; it is only rebuilt when a new stop joins.
+ */
+public final class DistanceMatrix {
+
+    private final Stop[] stops;
+    // Row-major, stops.length x stops.length
+    private final double[] km;
+
+    private DistanceMatrix(Stop[] stops, double[] km) {
+        this.stops = stops;
+        this.km = km;
+    }
+
+    public static DistanceMatrix of(List<Stop> stops) {
+        Stop[] points = stops.toArray(new Stop[0]);
+        int n = points.length;
+        double[] km = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double d = GeoDistance.haversineKm(points[i].latitude(), points[i].longitude(),
+                        points[j].latitude(), points[j].longitude());
+                km[i * n + j] = d;
+                km[j * n + i] = d;
+            }
+        }
+        return new DistanceMatrix(points, km);
+    }
+
+    public int size() {
+        return stops.length;
+    }
+
+    public Stop stop(int index) {
+        return stops[index];
+    }
+
+    /**
+     * Index of the stop in the matrix, or -1 if the matrix was built without it.
+     */
+    public int indexOf(Stop stop) {
+        for (int i = 0; i < stops.length; i++) {
+            if (stops[i].equals(stop)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether every stop of the route is in the matrix.
+     */
+    public boolean covers(List<Stop> route) {
+        for (Stop stop : route) {
+            if (indexOf(stop) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public double km(int from, int to) {
+        return km[from * stops.length + to];
+    }
+}
@@ -0,0 +1,122 @@
+package com.foodDelivery.route;
+
+import com.foodDelivery.geo.GeoDistance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cheapest way to fit one more delivery into an existing route without reordering it.
+ *
+ * Every pair of positions (pickup before drop) is tried; the cost of each is computed from the
+ * distances around the two insertion points only, so one evaluation is O(n^2) distance lookups for
+ * a route of n stops. Alongside the added distance, the evaluator reports the delay in km the
+ * insertion imposes on the agent's existing customers: the extra distance driven before the last
+ * existing drop.
+ */
+public final class RouteInsertion {
+
+    private RouteInsertion() {
+        // Prevent instantiation
+    }
+
+    /**
+     * @param startLat where the agent is now; NaN if unknown, in which case the route starts at its first stop
+     * @param route    the agent's remaining stops, in visiting order
+     */
+    public static Insertion cheapest(double startLat, double startLon, List<Stop> route, Stop pickup, Stop drop) {
+        int n = route.size();
+        boolean hasStart = !Double.isNaN(startLat) && !Double.isNaN(startLon);
+        int lastDrop = -1;
+        for (int k = n - 1; k >= 0; k--) {
+            if (!route.get(k).pickup()) {
+                lastDrop = k;
+                break;
+            }
+        }
+        double direct = km(pickup, drop);
+
+        double bestAdded = Double.POSITIVE_INFINITY;
+        double bestDelay = 0;
+        int bestI = 0;
+        int bestJ = 0;
+        for (int i = 0; i <= n; i++) {
+            // Distances from whatever precedes position i: the previous stop, the agent, or nothing
+            Stop prev = i > 0 ? route.get(i - 1) : null;
+            Stop next = i < n ? route.get(i) : null;
+            double prevToPickup = fromPrevious(prev, hasStart, startLat, startLon, pickup);
+            double prevToNext = next != null ? fromPrevious(prev, hasStart, startLat, startLon, next) : 0;
+
+            // Drop straight after the pickup
+            double added = prevToPickup + direct + (next != null ? km(drop, next) - prevToNext : 0);
+            if (added < bestAdded) {
+                bestAdded = added;
+                bestDelay = lastDrop >= i ? added : 0;
+                bestI = i;
+                bestJ = i;
+            }
+            if (next == null) {
+                continue;
+            }
+
+            // Pickup before stop i, drop after some later stop
+            double pickupAdded = prevToPickup + km(pickup, next) - prevToNext;
+            for (int j = i + 1; j <= n; j++) {
+                Stop before = route.get(j - 1);
+                double dropAdded = km(before, drop);
+                if (j < n) {
+                    Stop after = route.get(j);
+                    dropAdded += km(drop, after) - km(before, after);
+                }
+                double total = pickupAdded + dropAdded;
+                if (total < bestAdded) {
+                    bestAdded = total;
+                    bestDelay = (lastDrop >= i ? pickupAdded : 0) + (lastDrop >= j ? dropAdded : 0);
+                    bestI = i;
+                    bestJ = j;
+                }
+            }
+        }
+
+        List<Stop> inserted = new ArrayList<>(n + 2);
+        inserted.addAll(route.subList(0, bestI));
+        inserted.add(pickup);
+        inserted.addAll(route.subList(bestI, bestJ));
+        inserted.add(drop);
+        inserted.addAll(route.subList(bestJ, n));
+        return new Insertion(inserted, bestAdded, Math.max(0, bestDelay));
+    }
+
+    /**
+     * Length of the route in km, from the start point if known.
+     */
+    public static double lengthKm(double startLat, double startLon, List<Stop> route) {
+        double total = 0;
+        for (int k = 0; k < route.size(); k++) {
+            if (k > 0) {
+                total += km(route.get(k - 1), route.get(k));
+            } else if (!Double.isNaN(startLat) && !Double.isNaN(startLon)) {
+                total += GeoDistance.haversineKm(startLat, startLon, route.get(0).latitude(), route.get(0).longitude());
+            }
+        }
+        return total;
+    }
+
+    private static double fromPrevious(Stop prev, boolean hasStart, double startLat, double startLon, Stop stop) {
+        if (prev != null) {
+            return km(prev, stop);
+        }
+        return hasStart ? GeoDistance.haversineKm(startLat, startLon, stop.latitude(), stop.longitude()) : 0;
+    }
+
+    private static double km(Stop a, Stop b) {
+        return GeoDistance.haversineKm(a.latitude(), a.longitude(), b.latitude(), b.longitude());
+    }
+
+    /**
+     * @param route     the route with the delivery's pickup and drop inserted
+     * @param addedKm   extra distance the whole route grows by
+     * @param delayKm   extra distance driven before the last drop that was already on the route
+     */
+    public record Insertion(List<Stop> route, double addedKm, double delayKm) {}
+}
@@ -0,0 +1,77 @@
+package com.foodDelivery.route;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-sequences an agent's trip from its latest position with {@link RouteSequencer}.
+ *
+ * Runs on every location ping of an agent holding more than one stop. Each agent's
+ * {@link DistanceMatrix} is cached and reused while its stops are being visited; a new stop
+ * rebuilds it. The new order is only taken when it saves at least {@code min-improvement-km},
+ * so small position jitter does not keep reshuffling the agent's list.
+ */
+@Component
+public class RoutePlanner {
+
+    private final AgentTrips agentTrips;
+    private final ConcurrentHashMap<Long, DistanceMatrix> matrices = new ConcurrentHashMap<>();
+
+    private final Timer sequenceTimer;
+    private final Counter resequenced;
+
+    @Value("${delivery.routing.min-improvement-km:0.2}")
+    private double minImprovementKm = 0.2;
+
+    public RoutePlanner(AgentTrips agentTrips, MeterRegistry meterRegistry) {
+        this.agentTrips = agentTrips;
+        this.sequenceTimer = Timer.builder("delivery.route.sequence")
+                .description("Time to re-sequence an agent's trip")
+                .register(meterRegistry);
+        this.resequenced = Counter.builder("delivery.route.resequenced")
+                .description("Trips whose stop order changed after re-sequencing")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Re-sequence the agent's trip from the given position.
+     *
+     * @return the agent's trip afterwards; empty if it holds no deliveries
+     */
+    public Optional<AgentTrip> replan(long agentId, double latitude, double longitude) {
+        Optional<AgentTrip> trip = agentTrips.get(agentId);
+        if (trip.isEmpty()) {
+            matrices.remove(agentId);
+            return trip;
+        }
+        List<Stop> route = trip.get().route();
+        if (route.size() < 2) {
+            return trip;
+        }
+
+        long start = System.nanoTime();
+        DistanceMatrix matrix = matrices.compute(agentId,
+                (id, cached) -> cached != null && cached.covers(route) ? cached : DistanceMatrix.of(route));
+        RouteSequencer.Sequence sequence = RouteSequencer.sequence(latitude, longitude, route, matrix);
+        sequenceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // A route changed by a concurrent assignment or status update is left alone; the next ping retries
+        if (sequence.previousKm() - sequence.lengthKm() >= minImprovementKm
+                && agentTrips.replaceRoute(agentId, route, sequence.route())) {
+            resequenced.increment();
+        }
+        return agentTrips.get(agentId);
+    }
+
+    int cachedMatrices() {
+        return matrices.size();
+    }
+}
@@ -0,0 +1,263 @@
+package com.foodDelivery.route;
+
+import com.foodDelivery.geo.GeoDistance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orders the remaining stops of an agent's trip: the shortest open path from the agent through
+ * every stop, with each delivery's pickup before its drop.
+ *
+ * Two seeds, the current order and a greedy nearest-feasible-stop path, are each improved by local
+ * search until no move helps: 2-opt reverses a segment, or-opt moves a run of up to three stops
+ * elsewhere. Moves that would put a drop before its pickup are skipped. Distances come from a
+ * {@link DistanceMatrix}, so a run costs n haversines for the agent's position plus array lookups,
+ * and every move is priced from the joins it changes. A shuffled eight-stop trip takes around ten
+ * microseconds, cheap enough for every ping.
+ */
+public final class RouteSequencer {
+
+    private static final int MAX_OR_OPT_RUN = 3;
+    private static final int MAX_PASSES = 50;
+    private static final double EPSILON = 1e-9;
+
+    private RouteSequencer() {
+        // Prevent instantiation
+    }
+
+    /**
+     * @param startLat where the agent is now; NaN if unknown, in which case the path starts at its first stop
+     * @param route    the trip's remaining stops in their current order
+     * @param matrix   distances covering every stop of the route
+     */
+    public static Sequence sequence(double startLat, double startLon, List<Stop> route, DistanceMatrix matrix) {
+        int n = route.size();
+        Problem problem = new Problem(startLat, startLon, route, matrix);
+
+        int[] current = new int[n];
+        for (int k = 0; k < n; k++) {
+            current[k] = k;
+        }
+        double currentKm = problem.cost(current);
+        if (n < 2) {
+            return new Sequence(route, currentKm, currentKm);
+        }
+
+        int[] best = current.clone();
+        double bestKm = problem.isFeasible(best) ? problem.improve(best) : Double.POSITIVE_INFINITY;
+        int[] greedy = problem.greedy();
+        double greedyKm = problem.improve(greedy);
+        if (greedyKm < bestKm - EPSILON) {
+            best = greedy;
+            bestKm = greedyKm;
+        }
+
+        List<Stop> sequenced = new ArrayList<>(n);
+        for (int k : best) {
+            sequenced.add(route.get(k));
+        }
+        return new Sequence(sequenced, bestKm, currentKm);
+    }
+
+    /**
+     * @param route       the stops in their new order
+     * @param lengthKm    length of the new order from the agent
+     * @param previousKm  length of the order the trip had; larger than lengthKm by what resequencing saves
+     */
+    public record Sequence(List<Stop> route, double lengthKm, double previousKm) {}
+
+    // Stops are numbered 0..n-1 in their current order; n stands for the agent's position
+    private static final class Problem {
+        private final int n;
+        private final double[] dist;
+        private final int[] partner;
+        private final boolean[] pickup;
+        private final int[] position;
+
+        Problem(double startLat, double startLon, List<Stop> route, DistanceMatrix matrix) {
+            n = route.size();
+            dist = new double[(n + 1) * (n + 1)];
+            partner = new int[n];
+            pickup = new boolean[n];
+            position = new int[n];
+
+            int[] index = new int[n];
+            for (int k = 0; k < n; k++) {
+                index[k] = matrix.indexOf(route.get(k));
+                if (index[k] < 0) {
+                    throw new IllegalArgumentException("Distance matrix does not cover stop " + route.get(k));
+                }
+                pickup[k] = route.get(k).pickup();
+            }
+            boolean hasStart = !Double.isNaN(startLat) && !Double.isNaN(startLon);
+            for (int a = 0; a < n; a++) {
+                for (int b = 0; b < n; b++) {
+                    dist[a * (n + 1) + b] = matrix.km(index[a], index[b]);
+                }
+                // Leaving the agent; nothing is driven to reach the first stop when the position is unknown
+                Stop stop = route.get(a);
+                dist[n * (n + 1) + a] = hasStart
+                        ? GeoDistance.haversineKm(startLat, startLon, stop.latitude(), stop.longitude())
+                        : 0;
+            }
+            for (int a = 0; a < n; a++) {
+                partner[a] = -1;
+                for (int b = 0; b < n; b++) {
+                    if (b != a && pickup[a] != pickup[b] && route.get(a).deliveryId() == route.get(b).deliveryId()) {
+                        partner[a] = b;
+                    }
+                }
+            }
+        }
+
+        double d(int from, int to) {
+            return dist[from * (n + 1) + to];
+        }
+
+        double cost(int[] order) {
+            double total = 0;
+            int previous = n;
+            for (int stop : order) {
+                total += d(previous, stop);
+                previous = stop;
+            }
+            return total;
+        }
+
+        boolean isFeasible(int[] order) {
+            for (int k = 0; k < n; k++) {
+                position[order[k]] = k;
+            }
+            for (int a = 0; a < n; a++) {
+                if (pickup[a] && partner[a] >= 0 && position[a] > position[partner[a]]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // From the agent, always drive to the nearest stop that may be visited next
+        int[] greedy() {
+            int[] order = new int[n];
+            boolean[] visited = new boolean[n];
+            int previous = n;
+            for (int k = 0; k < n; k++) {
+                int next = -1;
+                for (int a = 0; a < n; a++) {
+                    boolean ready = pickup[a] || partner[a] < 0 || visited[partner[a]];
+                    if (!visited[a] && ready && (next < 0 || d(previous, a) < d(previous, next))) {
+                        next = a;
+                    }
+                }
+                order[k] = next;
+                visited[next] = true;
+                previous = next;
+            }
+            return order;
+        }
+
+        // Local search on a feasible order, in place; returns its final length
+        double improve(int[] order) {
+            double length = cost(order);
+            int[] candidate = new int[n];
+            boolean improved = true;
+            for (int pass = 0; improved && pass < MAX_PASSES; pass++) {
+                improved = twoOpt(order) || orOpt(order, candidate);
+                if (improved) {
+                    length = cost(order);
+                }
+            }
+            return length;
+        }
+
+        // First improving segment reversal; distances are symmetric, so only the two joins change
+        private boolean twoOpt(int[] order) {
+            isFeasible(order);
+            for (int i = 0; i < n - 1; i++) {
+                int before = i == 0 ? n : order[i - 1];
+                for (int j = i + 1; j < n; j++) {
+                    double delta = d(before, order[j]) - d(before, order[i]);
+                    if (j < n - 1) {
+                        delta += d(order[i], order[j + 1]) - d(order[j], order[j + 1]);
+                    }
+                    if (delta < -EPSILON && reversible(order, i, j)) {
+                        for (int lo = i, hi = j; lo < hi; lo++, hi--) {
+                            int swap = order[lo];
+                            order[lo] = order[hi];
+                            order[hi] = swap;
+                        }
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // Reversing order[i..j] keeps the precedence unless a pickup and its drop are both inside
+        private boolean reversible(int[] order, int i, int j) {
+            for (int k = i; k <= j; k++) {
+                int other = partner[order[k]];
+                if (other >= 0 && position[other] >= i && position[other] <= j) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // First improving move of a run of 1..3 stops to another place, order kept. The change in
+        // length only involves the joins around the run and around the gap it moves into
+        private boolean orOpt(int[] order, int[] candidate) {
+            for (int run = 1; run <= MAX_OR_OPT_RUN && run < n; run++) {
+                int rest = n - run;
+                for (int i = 0; i + run <= n; i++) {
+                    int first = order[i];
+                    int last = order[i + run - 1];
+                    int before = i == 0 ? n : order[i - 1];
+                    int after = i + run < n ? order[i + run] : -1;
+                    double removed = d(before, first) + (after >= 0 ? d(last, after) - d(before, after) : 0);
+                    for (int target = 0; target <= rest; target++) {
+                        if (target == i) {
+                            continue;
+                        }
+                        // Neighbours of the gap in the order without the run
+                        int left = target == 0 ? n : order[target - 1 < i ? target - 1 : target - 1 + run];
+                        int right = target < rest ? order[target < i ? target : target + run] : -1;
+                        double added = d(left, first) + (right >= 0 ? d(last, right) - d(left, right) : 0);
+                        if (added - removed >= -EPSILON) {
+                            continue;
+                        }
+                        moveRun(order, candidate, i, run, target);
+                        if (isFeasible(candidate)) {
+                            System.arraycopy(candidate, 0, order, 0, n);
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        // candidate = order with order[i..i+run) taken out and put back starting at index target
+        private void moveRun(int[] order, int[] candidate, int i, int run, int target) {
+            int out = 0;
+            int rest = 0;
+            for (int k = 0; k < n - run; k++) {
+                if (out == target) {
+                    for (int r = 0; r < run; r++) {
+                        candidate[out++] = order[i + r];
+                    }
+                }
+                if (rest == i) {
+                    rest += run;
+                }
+                candidate[out++] = order[rest++];
+            }
+            if (out == target) {
+                for (int r = 0; r < run; r++) {
+                    candidate[out++] = order[i + r];
+                }
+            }
+        }
+    }
+}
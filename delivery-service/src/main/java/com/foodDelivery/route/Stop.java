@@ -0,0 +1,15 @@
+package com.foodDelivery.route;
+
+/**
+ * One stop of an agent's trip: the pickup or the drop of a delivery.
+ */
+public record Stop(long deliveryId, boolean pickup, double latitude, double longitude) {
+
+    public static Stop pickup(long deliveryId, double latitude, double longitude) {
+        return new Stop(deliveryId, true, latitude, longitude);
+    }
+
+    public static Stop drop(long deliveryId, double latitude, double longitude) {
+        return new Stop(deliveryId, false, latitude, longitude);
+    }
+}
@@ -0,0 +1,26 @@
+package com.foodDelivery.route;
+
+/**
+ * A delivery an agent currently holds, with the coordinates its stops need.
+ */
+public record TripDelivery(long deliveryId,
+                           Long restaurantId,
+                           double pickupLatitude,
+                           double pickupLongitude,
+                           double dropLatitude,
+                           double dropLongitude,
+                           boolean pickedUp) {
+
+    public Stop pickupStop() {
+        return Stop.pickup(deliveryId, pickupLatitude, pickupLongitude);
+    }
+
+    public Stop dropStop() {
+        return Stop.drop(deliveryId, dropLatitude, dropLongitude);
+    }
+
+    public TripDelivery withPickedUp() {
+        return new TripDelivery(deliveryId, restaurantId, pickupLatitude, pickupLongitude, dropLatitude,
+                dropLongitude, true);
+    }
+}
@@ -0,0 +1,111 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.repository.DeliveryAgentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claims an AVAILABLE agent for exactly one delivery, or a BUSY agent with spare capacity for one
+ * more stacked delivery.
+ *
+ * Two layers, neither of which takes a pessimistic lock:
+ * <ul>
+ *   <li>an in-process claim table, so threads of this instance racing for the same agent lose
+ *       immediately with a single {@code putIfAbsent} instead of queueing on the agent row;</li>
+ *   <li>a compare-and-set {@code UPDATE ... WHERE status = 'AVAILABLE'}, which is what actually
+ *       decides the winner across service instances.</li>
+ * </ul>
+ * The in-process entry lives until the surrounding transaction completes; by then the row says
+ * BUSY (commit) or AVAILABLE again (rollback).
+ *
+ * A compare-and-set that misses means {@link AgentStateTable} offered an agent whose row had
+ * already moved on (claimed or taken offline by another instance); the table then takes the row's
+ * status, so the agent is not offered again.
+ */
+@Service
+public class AgentClaimService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentClaimService.class);
+
+    private final DeliveryAgentRepository agentRepository;
+    private final AgentStateTable agentStateTable;
+
+    // agent id -> delivery id, for claims whose transaction has not finished yet
+    private final ConcurrentHashMap<Long, Long> inFlightClaims = new ConcurrentHashMap<>();
+
+    public AgentClaimService(DeliveryAgentRepository agentRepository, AgentStateTable agentStateTable) {
+        this.agentRepository = agentRepository;
+        this.agentStateTable = agentStateTable;
+    }
+
+    /**
+     * Try to move the agent from AVAILABLE to BUSY on behalf of the delivery.
+     *
+     * @return true if this caller won the agent; false if it was already claimed or is not AVAILABLE
+     */
+    @Transactional
+    public boolean claim(Long agentId, Long deliveryId) {
+        Long holder = inFlightClaims.putIfAbsent(agentId, deliveryId);
+        if (holder != null) {
+            logger.debug("Agent {} is already being claimed for delivery {}", agentId, holder);
+            return false;
+        }
+
+        try {
+            boolean claimed = agentRepository.claimAvailable(agentId) == 1;
+            if (!claimed) {
+                logger.debug("Agent {} was no longer AVAILABLE for delivery {}", agentId, deliveryId);
+                agentStateTable.refreshStatus(agentId);
+            }
+            return claimed;
+        } finally {
+            releaseOnCompletion(agentId);
+        }
+    }
+
+    /**
+     * Try to give a BUSY agent one more delivery, as long as it holds fewer than {@code capacity}.
+     *
+     * @return true if this caller got the slot; false if the agent is being claimed, is no longer
+     *         BUSY or is full
+     */
+    @Transactional
+    public boolean claimAdditional(Long agentId, Long deliveryId, int capacity) {
+        Long holder = inFlightClaims.putIfAbsent(agentId, deliveryId);
+        if (holder != null) {
+            logger.debug("Agent {} is already being claimed for delivery {}", agentId, holder);
+            return false;
+        }
+
+        try {
+            boolean claimed = agentRepository.claimAdditional(agentId, capacity) == 1;
+            if (!claimed) {
+                logger.debug("Agent {} has no room left for delivery {}", agentId, deliveryId);
+                agentStateTable.refreshStatus(agentId);
+            }
+            return claimed;
+        } finally {
+            releaseOnCompletion(agentId);
+        }
+    }
+
+    private void releaseOnCompletion(Long agentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlightClaims.remove(agentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlightClaims.remove(agentId);
+            }
+        });
+    }
+}
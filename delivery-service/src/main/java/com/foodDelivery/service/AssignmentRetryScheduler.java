@@ -0,0 +1,155 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.assignment.AssignmentRetryQueue;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.repository.DeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Retries auto-assignment of PENDING deliveries that found no agent when they were created.
+ *
+ * Waiting deliveries sit in {@link AssignmentRetryQueue}; each tick retries the ones that are due,
+ * and every miss backs off further and searches wider. An agent becoming AVAILABLE pulls the
+ * waiting deliveries near it to the front, so they are retried on the next tick instead of at
+ * their scheduled time. The deliveries table is read once at startup to pick up deliveries left
+ * PENDING by a previous run, never on a schedule.
+ *
+ * Runs in both assignment modes. In batch mode only deliveries without pickup coordinates come
+ * here, since the matcher cannot place them; the rest are carried from window to window by
+ * {@link BatchAssignmentService}.
+ */
+@Service
+public class AssignmentRetryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentRetryScheduler.class);
+
+    private final AssignmentRetryQueue retryQueue;
+    private final DeliveryService deliveryService;
+    private final DeliveryRepository deliveryRepository;
+
+    private final Counter assigned;
+    private final Counter rescheduled;
+    private final Counter dropped;
+
+    @Value("${delivery.assignment.retry.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${delivery.assignment.retry.expedite-per-agent:3}")
+    private int expeditePerAgent = 3;
+
+    @Value("${delivery.assignment.mode:greedy}")
+    private String assignmentMode = "greedy";
+
+    public AssignmentRetryScheduler(AssignmentRetryQueue retryQueue,
+                                    DeliveryService deliveryService,
+                                    DeliveryRepository deliveryRepository,
+                                    AgentStateTable agentStates,
+                                    MeterRegistry meterRegistry) {
+        this.retryQueue = retryQueue;
+        this.deliveryService = deliveryService;
+        this.deliveryRepository = deliveryRepository;
+        this.assigned = Counter.builder("delivery.assignment.retries")
+                .description("Assignment retries of PENDING deliveries, by outcome")
+                .tag("outcome", "assigned")
+                .register(meterRegistry);
+        this.rescheduled = Counter.builder("delivery.assignment.retries")
+                .description("Assignment retries of PENDING deliveries, by outcome")
+                .tag("outcome", "rescheduled")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("delivery.assignment.retries")
+                .description("Assignment retries of PENDING deliveries, by outcome")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+        Gauge.builder("delivery.assignment.retry.waiting", retryQueue, AssignmentRetryQueue::size)
+                .description("PENDING deliveries waiting for an assignment retry")
+                .register(meterRegistry);
+        agentStates.addStatusListener(this::onAgentStatus);
+    }
+
+    /**
+     * Queue the deliveries a previous run left PENDING; in batch mode only those the matcher cannot
+     * place.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        long now = System.currentTimeMillis();
+        boolean batch = "batch".equals(assignmentMode);
+        int queued = 0;
+        for (Object[] row : deliveryRepository.findIdAndPickupByStatus(Delivery.DeliveryStatus.PENDING)) {
+            if (batch && row[1] != null && row[2] != null) {
+                continue;
+            }
+            retryQueue.add((Long) row[0], (Double) row[1], (Double) row[2], now);
+            queued++;
+        }
+        logger.info("Queued {} PENDING deliveries for assignment retry", queued);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.assignment.retry.tick-ms:250}")
+    public void tick() {
+        try {
+            retryDue(System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("Assignment retry tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retry every delivery due by {@code nowMillis}, up to one batch.
+     *
+     * @return number of deliveries assigned
+     */
+    public int retryDue(long nowMillis) {
+        List<AssignmentRetryQueue.Attempt> due = retryQueue.pollDue(nowMillis, batchSize);
+        int assignedCount = 0;
+        for (AssignmentRetryQueue.Attempt attempt : due) {
+            Delivery.DeliveryStatus status;
+            try {
+                status = deliveryService.retryAssignment(attempt.deliveryId(), attempt.radiusKm());
+            } catch (ResourceNotFoundException e) {
+                status = null;
+            } catch (Exception e) {
+                logger.warn("Assignment retry {} of delivery {} failed: {}", attempt.attempt(), attempt.deliveryId(),
+                        e.getMessage());
+                status = Delivery.DeliveryStatus.PENDING;
+            }
+
+            if (status == Delivery.DeliveryStatus.PENDING) {
+                retryQueue.reschedule(attempt.deliveryId(), nowMillis);
+                rescheduled.increment();
+                logger.debug("No agent within {} km for delivery {} on retry {}", attempt.radiusKm(),
+                        attempt.deliveryId(), attempt.attempt());
+            } else {
+                retryQueue.remove(attempt.deliveryId());
+                if (status == Delivery.DeliveryStatus.ASSIGNED) {
+                    assigned.increment();
+                    assignedCount++;
+                } else {
+                    dropped.increment();
+                }
+            }
+        }
+        return assignedCount;
+    }
+
+    void onAgentStatus(AgentState agent) {
+        if (agent.status() == DeliveryAgent.AgentStatus.AVAILABLE && agent.hasPosition()) {
+            retryQueue.expediteNear(agent.latitude(), agent.longitude(), expeditePerAgent, System.currentTimeMillis());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.foodDelivery.service;
 
+import com.foodDelivery.agent.AgentStateTable;
 import com.foodDelivery.dto.AuthRequest;
 import com.foodDelivery.dto.AuthResponse;
 import com.foodDelivery.dto.RegisterAgentRequest;
@@ -18,13 +19,16 @@ public class AuthService {
     private final DeliveryAgentRepository agentRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final AgentStateTable agentStates;
 
     public AuthService(DeliveryAgentRepository agentRepository,
                       PasswordEncoder passwordEncoder,
-                      JwtUtil jwtUtil) {
+                      JwtUtil jwtUtil,
+                      AgentStateTable agentStates) {
         this.agentRepository = agentRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.agentStates = agentStates;
     }
 
     public AuthResponse register(RegisterAgentRequest request) {
@@ -60,6 +64,7 @@ public class AuthService {
         agent.setIsVerified(false);
 
         agent = agentRepository.save(agent);
+        agentStates.put(agent);
 
         // Generate JWT token
         String token = jwtUtil.generateToken(
@@ -0,0 +1,194 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.assignment.HungarianAlgorithm;
+import com.foodDelivery.assignment.PendingDeliveryQueue;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.repository.DeliveryRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Windowed assignment: instead of giving each delivery the nearest agent as it arrives, collect the
+ * deliveries created during a window and solve one min-cost matching between them and the agents
+ * near their pickups. Deliveries created in the same second no longer fight over the same agent,
+ * and whatever cannot be matched is carried into the next window instead of staying PENDING.
+ * Deliveries without pickup coordinates cannot be matched and are retried by
+ * {@link AssignmentRetryScheduler} instead.
+ *
+ * Enabled with {@code delivery.assignment.mode=batch}.
+ */
+@Service
+@ConditionalOnProperty(name = "delivery.assignment.mode", havingValue = "batch")
+public class BatchAssignmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchAssignmentService.class);
+
+    // Cost of a delivery/agent pair that is not a candidate pair; never accepted as a match
+    private static final double NO_MATCH_COST = 1e9;
+
+    private final DeliveryRepository deliveryRepository;
+    private final DeliveryService deliveryService;
+    private final AgentSpatialIndex spatialIndex;
+    private final PendingDeliveryQueue pendingDeliveryQueue;
+
+    private final Timer solveTimer;
+    private final DistributionSummary batchSize;
+    private final DistributionSummary pickupDistance;
+
+    @Value("${delivery.assignment.search-radius-km:25}")
+    private double searchRadiusKm;
+
+    @Value("${delivery.assignment.batch.candidates-per-delivery:10}")
+    private int candidatesPerDelivery;
+
+    public BatchAssignmentService(DeliveryRepository deliveryRepository,
+                                  DeliveryService deliveryService,
+                                  AgentSpatialIndex spatialIndex,
+                                  PendingDeliveryQueue pendingDeliveryQueue,
+                                  MeterRegistry meterRegistry) {
+        this.deliveryRepository = deliveryRepository;
+        this.deliveryService = deliveryService;
+        this.spatialIndex = spatialIndex;
+        this.pendingDeliveryQueue = pendingDeliveryQueue;
+        this.solveTimer = Timer.builder("delivery.assignment.batch.solve")
+                .description("Time to build and solve one batch matching")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("delivery.assignment.batch.size")
+                .description("Deliveries considered per batch")
+                .register(meterRegistry);
+        this.pickupDistance = DistributionSummary.builder("delivery.assignment.batch.pickup.distance")
+                .description("Total agent-to-pickup distance of the assignments made in one batch")
+                .baseUnit("km")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue the deliveries with a pickup point that a previous run left PENDING; the queue itself
+     * lives only in memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        List<Long> pending = deliveryRepository.findIdAndPickupByStatus(Delivery.DeliveryStatus.PENDING).stream()
+                .filter(row -> row[1] != null && row[2] != null)
+                .map(row -> (Long) row[0])
+                .toList();
+        pendingDeliveryQueue.addAll(pending);
+        logger.info("Queued {} PENDING deliveries for batch assignment", pending.size());
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.assignment.batch.window-ms:2000}")
+    public void runWindow() {
+        try {
+            assignPending();
+        } catch (Exception e) {
+            logger.error("Batch assignment window failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Match every queued PENDING delivery against the available agents near its pickup.
+     */
+    public BatchResult assignPending() {
+        List<Long> queued = pendingDeliveryQueue.drain();
+        if (queued.isEmpty()) {
+            return BatchResult.EMPTY;
+        }
+
+        long start = System.nanoTime();
+        List<Delivery> deliveries = deliveryRepository.findAllById(queued).stream()
+                .filter(d -> d.getStatus() == Delivery.DeliveryStatus.PENDING)
+                .filter(d -> d.getPickupLatitude() != null && d.getPickupLongitude() != null)
+                .toList();
+        if (deliveries.isEmpty()) {
+            return BatchResult.EMPTY;
+        }
+
+        // Columns are the union of every delivery's nearby agents
+        Map<Long, Integer> columnByAgent = new LinkedHashMap<>();
+        List<List<AgentSpatialIndex.Neighbor>> candidates = new ArrayList<>(deliveries.size());
+        for (Delivery delivery : deliveries) {
+            List<AgentSpatialIndex.Neighbor> near = spatialIndex.nearest(
+                    delivery.getPickupLatitude(), delivery.getPickupLongitude(), candidatesPerDelivery, searchRadiusKm);
+            candidates.add(near);
+            near.forEach(n -> columnByAgent.putIfAbsent(n.agentId(), columnByAgent.size()));
+        }
+
+        Map<Long, Long> agentByDelivery = new LinkedHashMap<>();
+        Map<Long, Double> distanceByDelivery = new LinkedHashMap<>();
+        if (!columnByAgent.isEmpty()) {
+            double[][] cost = new double[deliveries.size()][columnByAgent.size()];
+            for (int row = 0; row < deliveries.size(); row++) {
+                Arrays.fill(cost[row], NO_MATCH_COST);
+                for (AgentSpatialIndex.Neighbor n : candidates.get(row)) {
+                    cost[row][columnByAgent.get(n.agentId())] = n.distanceKm();
+                }
+            }
+
+            Long[] agentByColumn = columnByAgent.keySet().toArray(new Long[0]);
+            int[] match = HungarianAlgorithm.solve(cost);
+            for (int row = 0; row < match.length; row++) {
+                int col = match[row];
+                if (col >= 0 && cost[row][col] < NO_MATCH_COST) {
+                    agentByDelivery.put(deliveries.get(row).getId(), agentByColumn[col]);
+                    distanceByDelivery.put(deliveries.get(row).getId(), cost[row][col]);
+                }
+            }
+        }
+        long solveNanos = System.nanoTime() - start;
+        solveTimer.record(solveNanos, TimeUnit.NANOSECONDS);
+
+        List<Long> assigned = List.of();
+        if (!agentByDelivery.isEmpty()) {
+            try {
+                assigned = deliveryService.assignBatch(agentByDelivery);
+            } catch (Exception e) {
+                logger.error("Committing batch of {} assignments failed: {}", agentByDelivery.size(), e.getMessage(), e);
+            }
+        }
+
+        // Whatever did not get an agent waits for the next window
+        Set<Long> assignedIds = new HashSet<>(assigned);
+        List<Long> carriedOver = deliveries.stream()
+                .map(Delivery::getId)
+                .filter(id -> !assignedIds.contains(id))
+                .toList();
+        pendingDeliveryQueue.addAll(carriedOver);
+
+        double totalPickupKm = assigned.stream().mapToDouble(distanceByDelivery::get).sum();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        batchSize.record(deliveries.size());
+        pickupDistance.record(totalPickupKm);
+
+        BatchResult result = new BatchResult(deliveries.size(), columnByAgent.size(), assigned.size(),
+                totalPickupKm, TimeUnit.NANOSECONDS.toMicros(solveNanos), elapsedMs);
+        logger.info("Batch assignment: {} deliveries, {} candidate agents, {} assigned, {} carried over, "
+                        + "total pickup distance {} km, solve {} us, total {} ms",
+                result.deliveries(), result.candidateAgents(), result.assigned(), carriedOver.size(),
+                String.format("%.2f", totalPickupKm), result.solveMicros(), elapsedMs);
+        return result;
+    }
+
+    public record BatchResult(int deliveries, int candidateAgents, int assigned, double totalPickupKm,
+                              long solveMicros, long elapsedMs) {
+        static final BatchResult EMPTY = new BatchResult(0, 0, 0, 0, 0, 0);
+    }
+}
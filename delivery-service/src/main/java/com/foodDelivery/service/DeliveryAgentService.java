@@ -1,15 +1,27 @@
 package com.foodDelivery.service;
 
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.dto.AgentRouteResponse;
+import com.foodDelivery.dto.CursorPageResponse;
 import com.foodDelivery.dto.DeliveryAgentRequest;
 import com.foodDelivery.dto.DeliveryAgentResponse;
+import com.foodDelivery.dto.RouteStopResponse;
 import com.foodDelivery.entity.DeliveryAgent;
 import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geofence.GeofenceEngine;
+import com.foodDelivery.location.AgentPosition;
 import com.foodDelivery.repository.DeliveryAgentRepository;
+import com.foodDelivery.route.AgentTrip;
+import com.foodDelivery.route.RouteInsertion;
+import com.foodDelivery.route.RoutePlanner;
+import com.foodDelivery.route.Stop;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,9 +29,21 @@ import java.util.stream.Collectors;
 public class DeliveryAgentService {
 
     private final DeliveryAgentRepository deliveryAgentRepository;
-
-    public DeliveryAgentService(DeliveryAgentRepository deliveryAgentRepository) {
+    private final AgentStateTable agentStates;
+    private final LocationIngestionService locationIngestionService;
+    private final RoutePlanner routePlanner;
+    private final GeofenceEngine geofenceEngine;
+
+    public DeliveryAgentService(DeliveryAgentRepository deliveryAgentRepository,
+                                AgentStateTable agentStates,
+                                LocationIngestionService locationIngestionService,
+                                RoutePlanner routePlanner,
+                                GeofenceEngine geofenceEngine) {
         this.deliveryAgentRepository = deliveryAgentRepository;
+        this.agentStates = agentStates;
+        this.locationIngestionService = locationIngestionService;
+        this.routePlanner = routePlanner;
+        this.geofenceEngine = geofenceEngine;
     }
 
     @Transactional
@@ -45,6 +69,7 @@ public class DeliveryAgentService {
         agent.setStatus(DeliveryAgent.AgentStatus.OFFLINE);
 
         DeliveryAgent savedAgent = deliveryAgentRepository.save(agent);
+        agentStates.put(savedAgent);
         return mapToResponse(savedAgent);
     }
 
@@ -55,47 +80,88 @@ public class DeliveryAgentService {
         return mapToResponse(agent);
     }
 
+    /**
+     * The full profile; the only place the wide entity is loaded for an agent's own requests.
+     */
     @Transactional(readOnly = true)
     public DeliveryAgent getCurrentAgent(Long agentId) {
-        return deliveryAgentRepository.findById(agentId)
+        DeliveryAgent agent = deliveryAgentRepository.findById(agentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Agent not found with id: " + agentId));
+        agentStates.get(agentId).ifPresent(state -> {
+            agent.setStatus(state.status());
+            if (state.hasPosition()) {
+                agent.setCurrentLatitude(state.latitude());
+                agent.setCurrentLongitude(state.longitude());
+            }
+        });
+        return agent;
     }
 
+    /**
+     * One page of agents in id order. Pass the previous page's {@code nextCursor} to continue.
+     */
     @Transactional(readOnly = true)
-    public List<DeliveryAgentResponse> getAllAgents() {
-        return deliveryAgentRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public CursorPageResponse<DeliveryAgentResponse> getAllAgents(String cursor, int limit) {
+        PageCursor.checkLimit(limit);
+        long afterId = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor).id() : 0;
+        List<DeliveryAgent> rows = deliveryAgentRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                PageRequest.ofSize(limit + 1));
+        List<DeliveryAgent> page = rows.size() > limit ? rows.subList(0, limit) : rows;
+        String nextCursor = rows.size() > limit
+                ? new PageCursor(null, page.get(page.size() - 1).getId()).encode()
+                : null;
+        return new CursorPageResponse<>(page.stream().map(this::mapToResponse).toList(), nextCursor);
     }
 
     @Transactional(readOnly = true)
     public List<DeliveryAgentResponse> getAvailableAgents() {
-        return deliveryAgentRepository.findAvailableAgents().stream()
+        List<Long> availableIds = agentStates.withStatus(DeliveryAgent.AgentStatus.AVAILABLE).stream()
+                .map(AgentState::id)
+                .toList();
+        return deliveryAgentRepository.findAllById(availableIds).stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Change the status without loading the agent; the response carries the state fields only.
+     */
     @Transactional
     public DeliveryAgentResponse updateAgentStatus(Long id, DeliveryAgent.AgentStatus status) {
-        DeliveryAgent agent = deliveryAgentRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery agent not found with id: " + id));
-
-        agent.setStatus(status);
-        agent.setLastActiveAt(LocalDateTime.now());
-        DeliveryAgent updatedAgent = deliveryAgentRepository.save(agent);
-        return mapToResponse(updatedAgent);
+        return mapToResponse(agentStates.changeStatus(id, status, false));
     }
 
-    @Transactional
-    public DeliveryAgentResponse updateAgentLocation(Long id, Double latitude, Double longitude) {
-        DeliveryAgent agent = deliveryAgentRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery agent not found with id: " + id));
+    /**
+     * Buffer the agent's position; it is written to the database on the next location flush.
+     */
+    public void updateAgentLocation(Long id, Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Latitude and longitude are required");
+        }
+        AgentPosition position = locationIngestionService.acceptAgentPing(id, latitude, longitude);
+        // Arrivals at and departures from pickups and drops move the deliveries on by themselves
+        geofenceEngine.onAgentPing(id, latitude, longitude, position.epochMillis());
+        // Agents holding several stops get them re-ordered from where they are now
+        routePlanner.replan(id, latitude, longitude);
+    }
 
-        agent.setCurrentLatitude(latitude);
-        agent.setCurrentLongitude(longitude);
-        agent.setLastActiveAt(LocalDateTime.now());
-        DeliveryAgent updatedAgent = deliveryAgentRepository.save(agent);
-        return mapToResponse(updatedAgent);
+    /**
+     * The agent's remaining pickups and drops in the order to visit them, re-sequenced from its
+     * last known position. Empty while the agent holds no deliveries.
+     */
+    public AgentRouteResponse getAgentRoute(Long id) {
+        AgentState agent = agentStates.require(id);
+        double latitude = agent.hasPosition() ? agent.latitude() : Double.NaN;
+        double longitude = agent.hasPosition() ? agent.longitude() : Double.NaN;
+        List<Stop> route = routePlanner.replan(id, latitude, longitude).map(AgentTrip::route).orElse(List.of());
+
+        List<RouteStopResponse> stops = new ArrayList<>(route.size());
+        for (Stop stop : route) {
+            stops.add(new RouteStopResponse(stops.size() + 1, stop.deliveryId(),
+                    stop.pickup() ? RouteStopResponse.StopType.PICKUP : RouteStopResponse.StopType.DROP,
+                    stop.latitude(), stop.longitude()));
+        }
+        return new AgentRouteResponse(id, stops, RouteInsertion.lengthKm(latitude, longitude, route));
     }
 
     @Transactional
@@ -104,6 +170,8 @@ public class DeliveryAgentService {
             throw new ResourceNotFoundException("Delivery agent not found with id: " + id);
         }
         deliveryAgentRepository.deleteById(id);
+        agentStates.remove(id);
+        locationIngestionService.forgetAgent(id);
     }
 
     private DeliveryAgentResponse mapToResponse(DeliveryAgent agent) {
@@ -118,12 +186,33 @@ public class DeliveryAgentService {
         r.setCurrentLatitude(agent.getCurrentLatitude());
         r.setCurrentLongitude(agent.getCurrentLongitude());
         r.setStatus(agent.getStatus());
+        // The row may lag behind the state table by one flush
+        agentStates.get(agent.getId()).ifPresent(state -> {
+            r.setStatus(state.status());
+            if (state.hasPosition()) {
+                r.setCurrentLatitude(state.latitude());
+                r.setCurrentLongitude(state.longitude());
+            }
+        });
         r.setRating(agent.getRating());
         r.setTotalDeliveries(agent.getTotalDeliveries());
         r.setCreatedAt(agent.getCreatedAt());
         r.setUpdatedAt(agent.getUpdatedAt());
         return r;
     }
+
+    private DeliveryAgentResponse mapToResponse(AgentState state) {
+        DeliveryAgentResponse r = new DeliveryAgentResponse();
+        r.setId(state.id());
+        r.setStatus(state.status());
+        r.setVehicleType(state.vehicleType());
+        r.setRating(state.rating());
+        if (state.hasPosition()) {
+            r.setCurrentLatitude(state.latitude());
+            r.setCurrentLongitude(state.longitude());
+        }
+        return r;
+    }
     
     
 }
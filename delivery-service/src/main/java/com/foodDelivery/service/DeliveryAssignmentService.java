@@ -1,12 +1,22 @@
 package com.foodDelivery.service;
 
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
 import com.foodDelivery.entity.Delivery;
 import com.foodDelivery.entity.DeliveryAgent;
-import com.foodDelivery.repository.DeliveryAgentRepository;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.geo.GeoDistance;
+import com.foodDelivery.geo.NearestAgents;
+import com.foodDelivery.route.AgentTrip;
+import com.foodDelivery.route.AgentTrips;
+import com.foodDelivery.route.RouteInsertion;
+import com.foodDelivery.route.TripDelivery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -16,18 +26,129 @@ public class DeliveryAssignmentService {
 
     private static final Logger logger = LoggerFactory.getLogger(DeliveryAssignmentService.class);
 
-    private final DeliveryAgentRepository agentRepository;
+    private final AgentStateTable agentStates;
+    private final AgentSpatialIndex spatialIndex;
+    private final AgentTrips agentTrips;
 
-    public DeliveryAssignmentService(DeliveryAgentRepository agentRepository) {
-        this.agentRepository = agentRepository;
+    @Value("${delivery.assignment.search-radius-km:25}")
+    private double searchRadiusKm = 25;
+
+    @Value("${delivery.assignment.candidate-count:5}")
+    private int candidateCount = 5;
+
+    // A stacked pickup must be at one of the trip's restaurants or this close to one of its pickups
+    @Value("${delivery.assignment.stacking.restaurant-radius-km:1.0}")
+    private double stackingRestaurantRadiusKm = 1.0;
+
+    // Most extra distance a stacked delivery may add before the agent's existing customers are served
+    @Value("${delivery.assignment.stacking.max-detour-km:2.0}")
+    private double stackingMaxDetourKm = 2.0;
+
+    public DeliveryAssignmentService(AgentStateTable agentStates, AgentSpatialIndex spatialIndex, AgentTrips agentTrips) {
+        this.agentStates = agentStates;
+        this.spatialIndex = spatialIndex;
+        this.agentTrips = agentTrips;
     }
 
     /**
      * Find best available agent based on proximity
      */
-    public Optional<DeliveryAgent> findBestAvailableAgent(Delivery delivery) {
-        // Get all available agents
-        List<DeliveryAgent> availableAgents = agentRepository.findByStatus(DeliveryAgent.AgentStatus.AVAILABLE);
+    public Optional<AgentState> findBestAvailableAgent(Delivery delivery) {
+        return findCandidateAgents(delivery).stream().findFirst();
+    }
+
+    /**
+     * Available agents for the delivery, nearest first. Callers still have to claim one through
+     * {@link AgentClaimService}; another delivery may win any of them in the meantime.
+     */
+    public List<AgentState> findCandidateAgents(Delivery delivery) {
+        return findCandidateAgents(delivery, searchRadiusKm);
+    }
+
+    /**
+     * Like {@link #findCandidateAgents(Delivery)}, looking up to {@code radiusKm} from the pickup.
+     */
+    public List<AgentState> findCandidateAgents(Delivery delivery, double radiusKm) {
+        if (delivery.getPickupLatitude() == null || delivery.getPickupLongitude() == null) {
+            logger.warn("Delivery {} has no pickup coordinates, falling back to full agent scan", delivery.getId());
+            return findBestAvailableAgentByScan(delivery).map(List::of).orElse(List.of());
+        }
+
+        NearestAgents candidates = new NearestAgents(Math.max(1, candidateCount));
+        int found = spatialIndex.nearest(delivery.getPickupLatitude(), delivery.getPickupLongitude(), radiusKm,
+                candidates);
+
+        logger.info("Found {} candidate agents within {} km for delivery assignment", found, radiusKm);
+
+        // The index only narrows the search; the state table says whether the agent is free
+        List<AgentState> available = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            long agentId = candidates.agentId(i);
+            Optional<AgentState> agent = agentStates.get(agentId);
+            if (agent.isPresent() && agent.get().status() == DeliveryAgent.AgentStatus.AVAILABLE) {
+                available.add(agent.get());
+                continue;
+            }
+            logger.debug("Dropping stale agent {} from spatial index", agentId);
+            agent.ifPresentOrElse(spatialIndex::sync, () -> spatialIndex.remove(agentId));
+        }
+
+        if (available.isEmpty()) {
+            logger.warn("No available agents found for delivery assignment");
+        }
+        return available;
+    }
+
+    /**
+     * A BUSY agent that can take the delivery on top of its current trip: it is picking up at the
+     * same or a nearby restaurant, has room left for its vehicle, and fitting the delivery into its
+     * route delays its existing customers by no more than the detour budget. Of those, the one whose
+     * route grows the least. Callers still have to claim the slot through {@link AgentClaimService}.
+     */
+    public Optional<StackOption> findStackOption(Delivery delivery) {
+        if (delivery.getPickupLatitude() == null || delivery.getPickupLongitude() == null
+                || delivery.getDeliveryLatitude() == null || delivery.getDeliveryLongitude() == null) {
+            return Optional.empty();
+        }
+        double pickupLat = delivery.getPickupLatitude();
+        double pickupLon = delivery.getPickupLongitude();
+        TripDelivery stacked = new TripDelivery(delivery.getId(), delivery.getRestaurantId(), pickupLat, pickupLon,
+                delivery.getDeliveryLatitude(), delivery.getDeliveryLongitude(), false);
+
+        StackOption best = null;
+        // Trips are indexed at their first pickup; a nearby later pickup is caught by the wider search
+        for (Long agentId : agentTrips.stackableNear(pickupLat, pickupLon,
+                stackingRestaurantRadiusKm + stackingMaxDetourKm)) {
+            Optional<AgentState> agent = agentStates.get(agentId);
+            Optional<AgentTrip> trip = agentTrips.get(agentId);
+            // Without a position the detour its existing customers would take cannot be measured
+            if (agent.isEmpty() || trip.isEmpty() || agent.get().status() != DeliveryAgent.AgentStatus.BUSY
+                    || !agent.get().hasPosition()) {
+                continue;
+            }
+            int capacity = agentTrips.capacity(agent.get().vehicleType());
+            if (trip.get().size() >= capacity
+                    || !trip.get().hasPickupNear(delivery.getRestaurantId(), pickupLat, pickupLon,
+                            stackingRestaurantRadiusKm)) {
+                continue;
+            }
+            RouteInsertion.Insertion insertion = RouteInsertion.cheapest(agent.get().latitude(),
+                    agent.get().longitude(), trip.get().route(), stacked.pickupStop(), stacked.dropStop());
+            if (insertion.delayKm() > stackingMaxDetourKm) {
+                continue;
+            }
+            if (best == null || insertion.addedKm() < best.insertion().addedKm()) {
+                best = new StackOption(agent.get(), stacked, insertion, capacity);
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Nearest agent by scanning every AVAILABLE agent. Only used when the pickup point is unknown.
+     */
+    private Optional<AgentState> findBestAvailableAgentByScan(Delivery delivery) {
+        List<AgentState> availableAgents = agentStates.withStatus(DeliveryAgent.AgentStatus.AVAILABLE);
 
         logger.info("Found {} available agents for delivery assignment", availableAgents.size());
 
@@ -37,50 +158,33 @@ public class DeliveryAssignmentService {
         }
 
         // Find nearest agent using Haversine formula
-        DeliveryAgent nearestAgent = availableAgents.stream()
-                .min(Comparator.comparingDouble(agent -> 
+        return availableAgents.stream()
+                .min(Comparator.comparingDouble(agent ->
                     calculateDistance(
-                        delivery.getPickupLatitude(), 
+                        delivery.getPickupLatitude(),
                         delivery.getPickupLongitude(),
-                        agent.getCurrentLatitude(), 
-                        agent.getCurrentLongitude()
+                        agent.hasPosition() ? agent.latitude() : null,
+                        agent.hasPosition() ? agent.longitude() : null
                     )
-                ))
-                .orElse(null);
-
-        if (nearestAgent != null) {
-            double distance = calculateDistance(
-                delivery.getPickupLatitude(), 
-                delivery.getPickupLongitude(),
-                nearestAgent.getCurrentLatitude(), 
-                nearestAgent.getCurrentLongitude()
-            );
-            logger.info("Found best agent: {} (distance: {} km)", nearestAgent.getName(), String.format("%.2f", distance));
-        }
-
-        return Optional.ofNullable(nearestAgent);
+                ));
     }
 
     /**
      * Calculate distance between two coordinates using Haversine formula
      * Returns distance in kilometers
      */
-    private double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
+    double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
         if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) {
             logger.warn("Missing coordinates for distance calculation");
             return Double.MAX_VALUE;
         }
 
-        final int R = 6371; // Radius of the earth in km
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c;
-
-        return distance;
+        return GeoDistance.haversineKm(lat1, lon1, lat2, lon2);
     }
+
+    /**
+     * A BUSY agent the delivery can be stacked onto, and the route it would follow.
+     */
+    public record StackOption(AgentState agent, TripDelivery delivery, RouteInsertion.Insertion insertion,
+                              int capacity) {}
 }
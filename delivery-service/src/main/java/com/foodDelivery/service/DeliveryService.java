@@ -276,26 +276,53 @@
 
 package com.foodDelivery.service;
 
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.assignment.AssignmentRetryQueue;
+import com.foodDelivery.assignment.PendingDeliveryQueue;
+import com.foodDelivery.dto.CursorPageResponse;
 import com.foodDelivery.dto.DeliveryRequest;
 import com.foodDelivery.dto.DeliveryResponse;
 import com.foodDelivery.dto.DeliveryTrackingResponse;
 import com.foodDelivery.entity.Delivery;
 import com.foodDelivery.entity.DeliveryAgent;
 import com.foodDelivery.entity.DeliveryTracking;
+import com.foodDelivery.eta.EtaEngine;
 import com.fooddelivery.events.DeliveryEvent;
 import com.foodDelivery.exception.ResourceNotFoundException;
-import com.foodDelivery.kafka.KafkaProducerService;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.geofence.GeofenceEngine;
+import com.foodDelivery.kafka.DeliveryEventOutbox;
+import com.foodDelivery.location.TrackCodec;
+import com.foodDelivery.location.TrackingPoint;
+import com.foodDelivery.location.TrackingStreamHub;
 import com.foodDelivery.repository.DeliveryAgentRepository;
 import com.foodDelivery.repository.DeliveryRepository;
+import com.foodDelivery.repository.DeliveryTrackRepository;
 import com.foodDelivery.repository.DeliveryTrackingRepository;
+import com.foodDelivery.route.AgentTrips;
+import com.foodDelivery.route.RouteInsertion;
+import com.foodDelivery.route.Stop;
+import com.foodDelivery.route.TripDelivery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -303,22 +330,67 @@ public class DeliveryService {
 
     private static final Logger logger = LoggerFactory.getLogger(DeliveryService.class);
 
+    // Used when a delivery has no coordinates to estimate from
+    private static final long DEFAULT_DELIVERY_MINUTES = 30;
+    // Bounds of an open date range; both fit a MySQL DATETIME
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     private final DeliveryRepository deliveryRepository;
     private final DeliveryAgentRepository deliveryAgentRepository;
     private final DeliveryTrackingRepository trackingRepository;
-    private final KafkaProducerService kafkaProducerService;
+    private final DeliveryTrackRepository trackRepository;
+    private final DeliveryEventOutbox deliveryEventOutbox;
     private final DeliveryAssignmentService assignmentService;
+    private final AgentSpatialIndex spatialIndex;
+    private final PendingDeliveryQueue pendingDeliveryQueue;
+    private final AssignmentRetryQueue assignmentRetryQueue;
+    private final AgentClaimService agentClaimService;
+    private final AgentStateTable agentStateTable;
+    private final LocationIngestionService locationIngestionService;
+    private final TrackingStreamHub trackingStreamHub;
+    private final EtaEngine etaEngine;
+    private final AgentTrips agentTrips;
+    private final GeofenceEngine geofenceEngine;
+
+    @Value("${delivery.assignment.mode:greedy}")
+    private String assignmentMode;
+
+    @Value("${delivery.assignment.stacking.enabled:false}")
+    private boolean stackingEnabled;
 
     public DeliveryService(DeliveryRepository deliveryRepository,
                           DeliveryAgentRepository deliveryAgentRepository,
                           DeliveryTrackingRepository trackingRepository,
-                          KafkaProducerService kafkaProducerService,
-                          DeliveryAssignmentService assignmentService) {
+                          DeliveryTrackRepository trackRepository,
+                          DeliveryEventOutbox deliveryEventOutbox,
+                          DeliveryAssignmentService assignmentService,
+                          AgentSpatialIndex spatialIndex,
+                          PendingDeliveryQueue pendingDeliveryQueue,
+                          AssignmentRetryQueue assignmentRetryQueue,
+                          AgentClaimService agentClaimService,
+                          AgentStateTable agentStateTable,
+                          LocationIngestionService locationIngestionService,
+                          TrackingStreamHub trackingStreamHub,
+                          EtaEngine etaEngine,
+                          AgentTrips agentTrips,
+                          GeofenceEngine geofenceEngine) {
         this.deliveryRepository = deliveryRepository;
         this.deliveryAgentRepository = deliveryAgentRepository;
         this.trackingRepository = trackingRepository;
-        this.kafkaProducerService = kafkaProducerService;
+        this.trackRepository = trackRepository;
+        this.deliveryEventOutbox = deliveryEventOutbox;
         this.assignmentService = assignmentService;
+        this.spatialIndex = spatialIndex;
+        this.pendingDeliveryQueue = pendingDeliveryQueue;
+        this.assignmentRetryQueue = assignmentRetryQueue;
+        this.agentClaimService = agentClaimService;
+        this.agentStateTable = agentStateTable;
+        this.locationIngestionService = locationIngestionService;
+        this.trackingStreamHub = trackingStreamHub;
+        this.etaEngine = etaEngine;
+        this.agentTrips = agentTrips;
+        this.geofenceEngine = geofenceEngine;
     }
 
     @Transactional
@@ -342,45 +414,81 @@ public class DeliveryService {
         delivery.setStatus(Delivery.DeliveryStatus.PENDING);
 
         Delivery savedDelivery = deliveryRepository.save(delivery);
+
+        if (isBatchAssigned(savedDelivery)) {
+            // Matched together with the other deliveries of the current window by BatchAssignmentService
+            Long deliveryId = savedDelivery.getId();
+            runAfterCommit(() -> pendingDeliveryQueue.add(deliveryId));
+            logger.info("Delivery {} queued for batch assignment", deliveryId);
+            return mapToResponse(savedDelivery);
+        }
         
         // ✅ AUTO-ASSIGN to nearest available agent
         try {
             logger.info("Attempting to auto-assign delivery {} to available agent", savedDelivery.getId());
-            Optional<DeliveryAgent> agentOpt = assignmentService.findBestAvailableAgent(savedDelivery);
-            
-            if (agentOpt.isPresent()) {
-                DeliveryAgent agent = agentOpt.get();
-                
-                savedDelivery.setDeliveryAgent(agent);
-                savedDelivery.setStatus(Delivery.DeliveryStatus.ASSIGNED);
-                savedDelivery.setAssignedAt(LocalDateTime.now());
-                savedDelivery.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(30));
-                
-                // Update agent status to BUSY
-                agent.setStatus(DeliveryAgent.AgentStatus.BUSY);
-                deliveryAgentRepository.save(agent);
-                
-                savedDelivery = deliveryRepository.save(savedDelivery);
-                
-                // Add tracking update
-                addTrackingUpdate(savedDelivery, Delivery.DeliveryStatus.ASSIGNED, "Delivery assigned to agent");
-                
-                // Publish Kafka event
-                DeliveryEvent event = createDeliveryEvent(savedDelivery, "DELIVERY_ASSIGNED");
-                kafkaProducerService.sendDeliveryEvent(event);
-                kafkaProducerService.sendNotificationEvent(event);
-                
-                logger.info("✅ Auto-assigned delivery {} to agent {}", savedDelivery.getId(), agent.getName());
+            Optional<AgentState> assignedAgent = tryStack(savedDelivery).or(() -> assignFirstAvailable(savedDelivery,
+                    assignmentService.findCandidateAgents(savedDelivery)));
+
+            if (assignedAgent.isPresent()) {
+                logger.info("✅ Auto-assigned delivery {} to agent {}", savedDelivery.getId(), assignedAgent.get().id());
             } else {
-                logger.warn("⚠️ No available agents for delivery {}", savedDelivery.getId());
+                logger.warn("⚠️ No available agents for delivery {}, queued for retry", savedDelivery.getId());
+                queueForRetry(savedDelivery);
             }
         } catch (Exception e) {
             logger.error("❌ Auto-assignment failed for delivery {}: {}", savedDelivery.getId(), e.getMessage(), e);
+            queueForRetry(savedDelivery);
         }
         
         return mapToResponse(savedDelivery);
     }
 
+    /**
+     * Try once more to auto-assign a delivery that found no agent, looking up to {@code radiusKm}
+     * from the pickup.
+     *
+     * @return the delivery's status afterwards: ASSIGNED on success, PENDING if it still has no
+     *         agent, anything else if it no longer needs one
+     */
+    @Transactional
+    public Delivery.DeliveryStatus retryAssignment(Long deliveryId, double radiusKm) {
+        Delivery delivery = deliveryRepository.findById(deliveryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found with id: " + deliveryId));
+        if (delivery.getStatus() != Delivery.DeliveryStatus.PENDING) {
+            return delivery.getStatus();
+        }
+
+        Optional<AgentState> assignedAgent = tryStack(delivery).or(() -> assignFirstAvailable(delivery,
+                assignmentService.findCandidateAgents(delivery, radiusKm)));
+        if (assignedAgent.isEmpty()) {
+            return Delivery.DeliveryStatus.PENDING;
+        }
+        logger.info("Assigned delivery {} to agent {} on retry within {} km", deliveryId, assignedAgent.get().id(),
+                radiusKm);
+        return Delivery.DeliveryStatus.ASSIGNED;
+    }
+
+    /**
+     * The order is ready for pickup: if its delivery is still waiting for an agent, look for one
+     * right away instead of at its next scheduled retry.
+     *
+     * @return the delivery's current status
+     */
+    @Transactional(readOnly = true)
+    public Delivery.DeliveryStatus expediteAssignment(Long orderId) {
+        Delivery delivery = deliveryRepository.findByOrderId(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found for order: " + orderId));
+        if (delivery.getStatus() == Delivery.DeliveryStatus.PENDING) {
+            if (isBatchAssigned(delivery)) {
+                pendingDeliveryQueue.add(delivery.getId());
+            } else {
+                assignmentRetryQueue.expedite(delivery.getId(), delivery.getPickupLatitude(),
+                        delivery.getPickupLongitude(), System.currentTimeMillis());
+            }
+        }
+        return delivery.getStatus();
+    }
+
     @Transactional
     public DeliveryResponse assignDelivery(Long deliveryId, Long agentId) {
         Delivery delivery = deliveryRepository.findById(deliveryId)
@@ -390,35 +498,47 @@ public class DeliveryService {
             throw new IllegalArgumentException("Delivery is not in PENDING status");
         }
 
-        DeliveryAgent agent = deliveryAgentRepository.findById(agentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery agent not found with id: " + agentId));
+        AgentState agent = agentStateTable.require(agentId);
 
-        if (agent.getStatus() != DeliveryAgent.AgentStatus.AVAILABLE) {
+        if (agent.status() != DeliveryAgent.AgentStatus.AVAILABLE || !tryAssignAgent(delivery, agent)) {
             throw new IllegalArgumentException("Agent is not available");
         }
 
-        delivery.setDeliveryAgent(agent);
-        delivery.setStatus(Delivery.DeliveryStatus.ASSIGNED);
-        delivery.setAssignedAt(LocalDateTime.now());
-        delivery.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(30));
-
-        agent.setStatus(DeliveryAgent.AgentStatus.BUSY);
-        deliveryAgentRepository.save(agent);
+        return mapToResponse(delivery);
+    }
 
-        Delivery updatedDelivery = deliveryRepository.save(delivery);
-        addTrackingUpdate(delivery, Delivery.DeliveryStatus.ASSIGNED, "Delivery assigned to agent");
-        
-        // Publish Kafka event
-        DeliveryEvent event = createDeliveryEvent(updatedDelivery, "DELIVERY_ASSIGNED");
-        kafkaProducerService.sendDeliveryEvent(event);
-        kafkaProducerService.sendNotificationEvent(event);
-        
-        return mapToResponse(updatedDelivery);
+    /**
+     * Apply a whole matching round in one transaction. Pairs whose delivery is no longer PENDING or
+     * whose agent is no longer AVAILABLE (or is claimed concurrently) are skipped.
+     *
+     * @param agentByDeliveryId agent id to assign, keyed by delivery id
+     * @return ids of the deliveries that were actually assigned
+     */
+    @Transactional
+    public List<Long> assignBatch(Map<Long, Long> agentByDeliveryId) {
+        List<Long> assigned = new ArrayList<>();
+        for (Delivery delivery : deliveryRepository.findAllById(agentByDeliveryId.keySet())) {
+            Long agentId = agentByDeliveryId.get(delivery.getId());
+            if (delivery.getStatus() != Delivery.DeliveryStatus.PENDING) {
+                continue;
+            }
+            Optional<AgentState> agent = agentStateTable.get(agentId);
+            if (agent.isEmpty() || agent.get().status() != DeliveryAgent.AgentStatus.AVAILABLE) {
+                logger.debug("Skipping batch pair delivery={} agent={}: agent no longer available",
+                        delivery.getId(), agentId);
+                agent.ifPresentOrElse(spatialIndex::sync, () -> spatialIndex.remove(agentId));
+                continue;
+            }
+            if (tryAssignAgent(delivery, agent.get())) {
+                assigned.add(delivery.getId());
+            }
+        }
+        return assigned;
     }
 
     @Transactional
     public DeliveryResponse updateDeliveryStatus(Long deliveryId, Delivery.DeliveryStatus newStatus, String remarks) {
-        Delivery delivery = deliveryRepository.findById(deliveryId)
+        Delivery delivery = deliveryRepository.findByIdForUpdate(deliveryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Delivery not found with id: " + deliveryId));
 
         delivery.setStatus(newStatus);
@@ -429,37 +549,48 @@ public class DeliveryService {
                 break;
             case DELIVERED:
                 delivery.setDeliveredAt(LocalDateTime.now());
-                if (delivery.getDeliveryAgent() != null) {
-                    DeliveryAgent agent = delivery.getDeliveryAgent();
-                    agent.setStatus(DeliveryAgent.AgentStatus.AVAILABLE);
-                    agent.setTotalDeliveries(agent.getTotalDeliveries() + 1);
-                    deliveryAgentRepository.save(agent);
-                }
+                releaseAgent(delivery, true);
                 break;
             case CANCELLED:
             case FAILED:
-                if (delivery.getDeliveryAgent() != null) {
-                    DeliveryAgent agent = delivery.getDeliveryAgent();
-                    agent.setStatus(DeliveryAgent.AgentStatus.AVAILABLE);
-                    deliveryAgentRepository.save(agent);
-                }
+                releaseAgent(delivery, false);
                 delivery.setCancellationReason(remarks);
                 break;
         }
 
         Delivery updatedDelivery = deliveryRepository.save(delivery);
-        addTrackingUpdate(delivery, newStatus, remarks);
+        DeliveryTracking tracking = addTrackingUpdate(delivery, newStatus, remarks);
+        afterStatusChange(updatedDelivery, tracking);
         
         // Publish Kafka event
         String eventType = "DELIVERY_" + newStatus.name();
         DeliveryEvent event = createDeliveryEvent(updatedDelivery, eventType);
         event.setNotes(remarks);
-        kafkaProducerService.sendDeliveryEvent(event);
-        kafkaProducerService.sendNotificationEvent(event);
+        deliveryEventOutbox.enqueue(event);
         
         return mapToResponse(updatedDelivery);
     }
 
+    /**
+     * Move the delivery to {@code newStatus} only if it is still in one of {@code expected}. For
+     * changes the service detects itself, which may race with the agent's own update. The row is
+     * locked before the check, as every status update locks it, so an update that commits first is
+     * seen here and not overwritten.
+     *
+     * @return false if the delivery has moved on and nothing was changed
+     */
+    @Transactional
+    public boolean advanceStatus(Long deliveryId, Set<Delivery.DeliveryStatus> expected,
+                                 Delivery.DeliveryStatus newStatus, String remarks) {
+        Delivery delivery = deliveryRepository.findByIdForUpdate(deliveryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found with id: " + deliveryId));
+        if (!expected.contains(delivery.getStatus())) {
+            return false;
+        }
+        updateDeliveryStatus(deliveryId, newStatus, remarks);
+        return true;
+    }
+
     @Transactional(readOnly = true)
     public DeliveryResponse getDeliveryById(Long id) {
         Delivery delivery = deliveryRepository.findById(id)
@@ -485,44 +616,107 @@ public class DeliveryService {
         return deliveryRepository.findByOrderId(orderId);
     }
 
+    /**
+     * One page of the agent's deliveries, newest first, optionally limited to a status and to
+     * {@code from <= createdAt < to}. Pass the previous page's {@code nextCursor} to continue.
+     */
     @Transactional(readOnly = true)
-    public List<DeliveryResponse> getDeliveriesByAgent(Long agentId) {
-        return deliveryRepository.findByDeliveryAgentId(agentId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public CursorPageResponse<DeliveryResponse> getDeliveriesByAgent(Long agentId, Delivery.DeliveryStatus status,
+                                                                     LocalDateTime from, LocalDateTime to,
+                                                                     String cursor, int limit) {
+        Keyset keyset = keyset(to, cursor, limit);
+        return toPage(deliveryRepository.findPageByAgent(agentId, status, from != null ? from : EARLIEST,
+                keyset.before(), keyset.beforeId(), PageRequest.ofSize(limit + 1)), limit);
     }
 
+    /**
+     * Same as {@link #getDeliveriesByAgent} for the customer's deliveries.
+     */
     @Transactional(readOnly = true)
-    public List<DeliveryResponse> getDeliveriesByCustomer(Long customerId) {
-        return deliveryRepository.findByCustomerId(customerId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public CursorPageResponse<DeliveryResponse> getDeliveriesByCustomer(Long customerId, Delivery.DeliveryStatus status,
+                                                                        LocalDateTime from, LocalDateTime to,
+                                                                        String cursor, int limit) {
+        Keyset keyset = keyset(to, cursor, limit);
+        return toPage(deliveryRepository.findPageByCustomer(customerId, status, from != null ? from : EARLIEST,
+                keyset.before(), keyset.beforeId(), PageRequest.ofSize(limit + 1)), limit);
     }
 
+    // Rows strictly below (before, beforeId): the cursor's row, or the exclusive end of the date range
+    private static Keyset keyset(LocalDateTime to, String cursor, int limit) {
+        PageCursor.checkLimit(limit);
+        Keyset keyset = new Keyset(to != null ? to : LATEST, 0);
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor position = PageCursor.decode(cursor);
+            if (position.createdAt() == null) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            if (position.createdAt().isBefore(keyset.before())) {
+                keyset = new Keyset(position.createdAt(), position.id());
+            }
+        }
+        return keyset;
+    }
+
+    // Rows were fetched with one extra to tell whether another page follows
+    private CursorPageResponse<DeliveryResponse> toPage(List<Delivery> rows, int limit) {
+        List<Delivery> page = rows.size() > limit ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            Delivery last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageResponse<>(page.stream().map(this::mapToResponse).toList(), nextCursor);
+    }
+
+    private record Keyset(LocalDateTime before, long beforeId) {}
+
     @Transactional(readOnly = true)
     public List<DeliveryTrackingResponse> getDeliveryTracking(Long deliveryId) {
         if (!deliveryRepository.existsById(deliveryId)) {
             throw new ResourceNotFoundException("Delivery not found with id: " + deliveryId);
         }
-        return trackingRepository.findByDeliveryIdOrderByTimestampDesc(deliveryId).stream()
+        // Breadcrumbs: the stored trail (one row) plus the unsealed tail held in memory
+        List<TrackingPoint> trail = new ArrayList<>();
+        trackRepository.findById(deliveryId).ifPresent(track -> trail.addAll(TrackCodec.decode(deliveryId, track.getData())));
+        trail.addAll(locationIngestionService.pendingTrackingPoints(deliveryId));
+
+        // Newest first, merged with the status updates recorded in delivery_tracking
+        List<DeliveryTrackingResponse> tracking = new ArrayList<>(trail.size());
+        trail.forEach(point -> tracking.add(mapToTrackingResponse(point)));
+        trackingRepository.findByDeliveryIdOrderByTimestampDesc(deliveryId).stream()
                 .map(this::mapToTrackingResponse)
-                .collect(Collectors.toList());
+                .forEach(tracking::add);
+        tracking.sort(Comparator.comparing(DeliveryTrackingResponse::getTimestamp).reversed());
+        return tracking;
     }
 
-    @Transactional
+    /**
+     * Buffer a breadcrumb for the delivery; it is written to the database on the next location flush.
+     */
     public DeliveryTrackingResponse updateDeliveryLocation(Long deliveryId, Double latitude, Double longitude, String remarks) {
-        Delivery delivery = deliveryRepository.findById(deliveryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found with id: " + deliveryId));
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Latitude and longitude are required");
+        }
+        TrackingPoint point = locationIngestionService.acceptDeliveryPing(deliveryId, latitude, longitude, remarks);
+        DeliveryTrackingResponse response = mapToTrackingResponse(point);
+        trackingStreamHub.publishLocation(response);
+        geofenceEngine.onDeliveryPing(deliveryId, latitude, longitude, point.epochMillis());
 
-        DeliveryTracking tracking = new DeliveryTracking();
-        tracking.setDelivery(delivery);
-        tracking.setLatitude(latitude);
-        tracking.setLongitude(longitude);
-        tracking.setStatusUpdate(delivery.getStatus());
-        tracking.setRemarks(remarks);
-        DeliveryTracking savedTracking = trackingRepository.save(tracking);
+        // Only ETA shifts past the threshold reach the database and the subscribers
+        etaEngine.onPing(deliveryId, latitude, longitude, point.epochMillis()).ifPresent(eta -> {
+            locationIngestionService.recordEstimatedDeliveryTime(deliveryId, eta);
+            trackingStreamHub.publishEta(deliveryId, LocalDateTime.ofInstant(Instant.ofEpochMilli(eta), ZoneId.systemDefault()));
+        });
+        return response;
+    }
 
-        return mapToTrackingResponse(savedTracking);
+    /**
+     * Live stream of the delivery's location and status updates.
+     */
+    public SseEmitter streamDeliveryTracking(Long deliveryId) {
+        Delivery.DeliveryStatus status = deliveryRepository.findStatusById(deliveryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found with id: " + deliveryId));
+        return trackingStreamHub.subscribe(deliveryId, status);
     }
     
     @Transactional
@@ -534,26 +728,227 @@ public class DeliveryService {
             delivery.setCancellationReason(reason);
             
             // If agent was assigned, make them available again
-            if (delivery.getDeliveryAgent() != null) {
-                DeliveryAgent agent = delivery.getDeliveryAgent();
-                agent.setStatus(DeliveryAgent.AgentStatus.AVAILABLE);
-                deliveryAgentRepository.save(agent);
-            }
+            releaseAgent(delivery, false);
             
             deliveryRepository.save(delivery);
             
             // Add tracking update
-            addTrackingUpdate(delivery, Delivery.DeliveryStatus.CANCELLED, reason);
+            DeliveryTracking tracking = addTrackingUpdate(delivery, Delivery.DeliveryStatus.CANCELLED, reason);
+            afterStatusChange(delivery, tracking);
             
             // Publish Kafka event
             DeliveryEvent event = createDeliveryEvent(delivery, "DELIVERY_CANCELLED");
             event.setNotes(reason);
-            kafkaProducerService.sendDeliveryEvent(event);
-            kafkaProducerService.sendNotificationEvent(event);
+            deliveryEventOutbox.enqueue(event);
+        }
+    }
+
+    /**
+     * Assign the delivery to the first candidate that can still be claimed. Candidates come nearest
+     * first; an agent won by a concurrent delivery just moves us on to the next one.
+     */
+    private Optional<AgentState> assignFirstAvailable(Delivery delivery, List<AgentState> candidates) {
+        for (AgentState agent : candidates) {
+            if (tryAssignAgent(delivery, agent)) {
+                return Optional.of(agent);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Put the delivery on top of a BUSY agent's trip if one picks up close by and has room, see
+     * {@link DeliveryAssignmentService#findStackOption}.
+     */
+    private Optional<AgentState> tryStack(Delivery delivery) {
+        if (!stackingEnabled) {
+            return Optional.empty();
+        }
+        Optional<DeliveryAssignmentService.StackOption> option = assignmentService.findStackOption(delivery);
+        if (option.isEmpty()) {
+            return Optional.empty();
+        }
+        AgentState agent = option.get().agent();
+        if (!agentClaimService.claimAdditional(agent.id(), delivery.getId(), option.get().capacity())) {
+            return Optional.empty();
+        }
+
+        List<Stop> route = option.get().insertion().route();
+        long etaMillis = estimateStackedDeliveryTime(delivery, agent, route);
+        assignClaimedAgent(delivery, agent, etaMillis, route);
+        logger.info("Stacked delivery {} onto agent {} ({} km added, {} km detour)", delivery.getId(), agent.id(),
+                option.get().insertion().addedKm(), option.get().insertion().delayKm());
+        return Optional.of(agent);
+    }
+
+    private boolean isBatchAssigned(Delivery delivery) {
+        return "batch".equals(assignmentMode)
+                && delivery.getPickupLatitude() != null && delivery.getPickupLongitude() != null;
+    }
+
+    /**
+     * Hand a delivery that found no agent to {@code AssignmentRetryScheduler} once it is committed.
+     */
+    private void queueForRetry(Delivery delivery) {
+        Long deliveryId = delivery.getId();
+        Double pickupLat = delivery.getPickupLatitude();
+        Double pickupLon = delivery.getPickupLongitude();
+        runAfterCommit(() -> assignmentRetryQueue.add(deliveryId, pickupLat, pickupLon, System.currentTimeMillis()));
+    }
+
+    /**
+     * Claim the agent and, if that succeeds, assign the delivery to it.
+     *
+     * @return false if the agent was taken by a concurrent assignment; nothing is changed then
+     */
+    private boolean tryAssignAgent(Delivery delivery, AgentState agent) {
+        if (!agentClaimService.claim(agent.id(), delivery.getId())) {
+            return false;
+        }
+
+        // The claim already wrote BUSY to the row; the state table and the spatial index follow once
+        // this commits, so a rollback leaves the agent findable. Until then the in-flight claim turns
+        // away other assignments on this instance.
+        long agentId = agent.id();
+        long claimedAt = System.currentTimeMillis();
+        runAfterCommit(() -> agentStateTable.applyStatus(agentId, DeliveryAgent.AgentStatus.BUSY, claimedAt));
+
+        List<Stop> route = hasRouteCoordinates(delivery)
+                ? List.of(Stop.pickup(delivery.getId(), delivery.getPickupLatitude(), delivery.getPickupLongitude()),
+                        Stop.drop(delivery.getId(), delivery.getDeliveryLatitude(), delivery.getDeliveryLongitude()))
+                : List.of();
+        assignClaimedAgent(delivery, agent, estimateDeliveryTime(delivery, agent), route);
+        return true;
+    }
+
+    /**
+     * Assign the delivery to an agent whose claim already succeeded.
+     *
+     * @param route the agent's stops once it holds the delivery; empty if the delivery has no coordinates
+     */
+    private void assignClaimedAgent(Delivery delivery, AgentState agent, long etaMillis, List<Stop> route) {
+        long agentId = agent.id();
+        // Loaded rather than referenced: the event and the response carry the agent's name and phone
+        delivery.setDeliveryAgent(deliveryAgentRepository.findById(agentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery agent not found with id: " + agentId)));
+        delivery.setStatus(Delivery.DeliveryStatus.ASSIGNED);
+        delivery.setAssignedAt(LocalDateTime.now());
+        delivery.setEstimatedDeliveryTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(etaMillis), ZoneId.systemDefault()));
+
+        Delivery updatedDelivery = deliveryRepository.save(delivery);
+        if (hasRouteCoordinates(updatedDelivery)) {
+            Long deliveryId = updatedDelivery.getId();
+            DeliveryAgent.VehicleType vehicle = agent.vehicleType();
+            double pickupLat = updatedDelivery.getPickupLatitude();
+            double pickupLon = updatedDelivery.getPickupLongitude();
+            double dropLat = updatedDelivery.getDeliveryLatitude();
+            double dropLon = updatedDelivery.getDeliveryLongitude();
+            TripDelivery tripDelivery = new TripDelivery(deliveryId, updatedDelivery.getRestaurantId(),
+                    pickupLat, pickupLon, dropLat, dropLon, false);
+            runAfterCommit(() -> {
+                etaEngine.track(deliveryId, vehicle, pickupLat, pickupLon, dropLat, dropLon, etaMillis);
+                geofenceEngine.track(deliveryId, agentId, pickupLat, pickupLon, dropLat, dropLon, false);
+                agentTrips.add(agentId, tripDelivery, route);
+            });
+        }
+        DeliveryTracking tracking = addTrackingUpdate(updatedDelivery, Delivery.DeliveryStatus.ASSIGNED,
+                "Delivery assigned to agent");
+        afterStatusChange(updatedDelivery, tracking);
+
+        // Publish Kafka event
+        DeliveryEvent event = createDeliveryEvent(updatedDelivery, "DELIVERY_ASSIGNED");
+        deliveryEventOutbox.enqueue(event);
+    }
+
+    /**
+     * Estimated delivery time in epoch millis: the agent's trip to the pickup and on to the drop,
+     * or a flat 30 minutes when the delivery lacks the coordinates for an estimate.
+     */
+    private long estimateDeliveryTime(Delivery delivery, AgentState agent) {
+        long now = System.currentTimeMillis();
+        if (!hasRouteCoordinates(delivery)) {
+            return now + DEFAULT_DELIVERY_MINUTES * 60_000;
         }
+        double agentLat = agent.hasPosition() ? agent.latitude() : delivery.getPickupLatitude();
+        double agentLon = agent.hasPosition() ? agent.longitude() : delivery.getPickupLongitude();
+        return now + etaEngine.estimateMillis(agent.vehicleType(), agentLat, agentLon,
+                delivery.getPickupLatitude(), delivery.getPickupLongitude(),
+                delivery.getDeliveryLatitude(), delivery.getDeliveryLongitude(), false);
     }
 
-    private void addTrackingUpdate(Delivery delivery, Delivery.DeliveryStatus status, String remarks) {
+    /**
+     * Arrival at the delivery's drop when it is stacked onto a trip: the agent's route up to that
+     * drop, with a handover at every pickup before it.
+     */
+    private long estimateStackedDeliveryTime(Delivery delivery, AgentState agent, List<Stop> route) {
+        int dropIndex = 0;
+        int pickups = 0;
+        for (int k = 0; k < route.size(); k++) {
+            Stop stop = route.get(k);
+            if (stop.pickup()) {
+                pickups++;
+            } else if (stop.deliveryId() == delivery.getId()) {
+                dropIndex = k;
+                break;
+            }
+        }
+        List<Stop> untilDrop = route.subList(0, dropIndex + 1);
+        double agentLat = agent.hasPosition() ? agent.latitude() : delivery.getPickupLatitude();
+        double agentLon = agent.hasPosition() ? agent.longitude() : delivery.getPickupLongitude();
+        return System.currentTimeMillis() + etaEngine.estimateRouteMillis(agent.vehicleType(), agentLat, agentLon,
+                RouteInsertion.lengthKm(agentLat, agentLon, untilDrop), pickups);
+    }
+
+    /**
+     * Release the delivery's agent once the delivery is over; it goes back to the pool when this was
+     * the last delivery it held.
+     */
+    private void releaseAgent(Delivery delivery, boolean completedDelivery) {
+        if (delivery.getDeliveryAgent() != null) {
+            // getId() on the lazy association does not load the agent row
+            agentStateTable.releaseDelivery(delivery.getDeliveryAgent().getId(), completedDelivery);
+        }
+    }
+
+    private static boolean hasRouteCoordinates(Delivery delivery) {
+        return delivery.getPickupLatitude() != null && delivery.getPickupLongitude() != null
+                && delivery.getDeliveryLatitude() != null && delivery.getDeliveryLongitude() != null;
+    }
+
+    /**
+     * Once the change is committed, let the location pipeline see the new status and push it to
+     * everyone streaming the delivery.
+     */
+    private void afterStatusChange(Delivery delivery, DeliveryTracking tracking) {
+        Long deliveryId = delivery.getId();
+        Delivery.DeliveryStatus status = delivery.getStatus();
+        DeliveryTrackingResponse update = mapToTrackingResponse(tracking);
+        runAfterCommit(() -> {
+            if (status != Delivery.DeliveryStatus.PENDING) {
+                assignmentRetryQueue.remove(deliveryId);
+            }
+            locationIngestionService.onDeliveryStatusChanged(deliveryId, status);
+            etaEngine.onStatusChanged(deliveryId, status);
+            geofenceEngine.onStatusChanged(deliveryId, status);
+            agentTrips.onStatusChanged(deliveryId, status);
+            trackingStreamHub.publishStatus(update);
+        });
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private DeliveryTracking addTrackingUpdate(Delivery delivery, Delivery.DeliveryStatus status, String remarks) {
         DeliveryTracking tracking = new DeliveryTracking();
         tracking.setDelivery(delivery);
         tracking.setStatusUpdate(status);
@@ -564,8 +959,11 @@ public class DeliveryService {
         Double longitude = null;
         
         if (delivery.getDeliveryAgent() != null) {
-            latitude = delivery.getDeliveryAgent().getCurrentLatitude();
-            longitude = delivery.getDeliveryAgent().getCurrentLongitude();
+            Optional<AgentState> agent = agentStateTable.get(delivery.getDeliveryAgent().getId());
+            if (agent.isPresent() && agent.get().hasPosition()) {
+                latitude = agent.get().latitude();
+                longitude = agent.get().longitude();
+            }
         }
         
         // If agent coordinates are null, use pickup location as fallback
@@ -584,10 +982,10 @@ public class DeliveryService {
         tracking.setLatitude(latitude);
         tracking.setLongitude(longitude);
         
-        trackingRepository.save(tracking);
+        return trackingRepository.save(tracking);
     }
 
-    private DeliveryResponse mapToResponse(Delivery delivery) {
+    DeliveryResponse mapToResponse(Delivery delivery) {
         DeliveryResponse response = new DeliveryResponse();
         response.setId(delivery.getId());
         response.setOrderId(delivery.getOrderId());
@@ -631,7 +1029,18 @@ public class DeliveryService {
         return response;
     }
     
-    private DeliveryEvent createDeliveryEvent(Delivery delivery, String eventType) {
+    private DeliveryTrackingResponse mapToTrackingResponse(TrackingPoint point) {
+        DeliveryTrackingResponse response = new DeliveryTrackingResponse();
+        response.setDeliveryId(point.deliveryId());
+        response.setLatitude(point.latitude());
+        response.setLongitude(point.longitude());
+        response.setStatusUpdate(point.status());
+        response.setRemarks(point.remarks());
+        response.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(point.epochMillis()), ZoneId.systemDefault()));
+        return response;
+    }
+
+    DeliveryEvent createDeliveryEvent(Delivery delivery, String eventType) {
         DeliveryEvent event = new DeliveryEvent(
             eventType, 
             delivery.getId(), 
@@ -643,8 +1052,12 @@ public class DeliveryService {
             event.setDeliveryAgentId(delivery.getDeliveryAgent().getId());
             event.setDeliveryAgentName(delivery.getDeliveryAgent().getName());
             event.setDeliveryAgentPhone(delivery.getDeliveryAgent().getPhoneNumber());
-            event.setCurrentLatitude(delivery.getDeliveryAgent().getCurrentLatitude());
-            event.setCurrentLongitude(delivery.getDeliveryAgent().getCurrentLongitude());
+            agentStateTable.get(delivery.getDeliveryAgent().getId())
+                    .filter(AgentState::hasPosition)
+                    .ifPresent(agent -> {
+                        event.setCurrentLatitude(agent.latitude());
+                        event.setCurrentLongitude(agent.longitude());
+                    });
         }
         
         // Convert LocalDateTime to String for Kafka serialization
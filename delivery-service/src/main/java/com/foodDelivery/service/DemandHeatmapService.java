@@ -0,0 +1,159 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.dto.HeatmapCellResponse;
+import com.foodDelivery.dto.RepositioningSuggestionResponse;
+import com.foodDelivery.heatmap.DemandHeatmap;
+import com.foodDelivery.heatmap.RepositioningAdvisor;
+import com.foodDelivery.kafka.KafkaProducerService;
+import com.fooddelivery.events.DeliveryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the demand heatmap and repositioning suggestions from memory; no query reaches MySQL.
+ *
+ * The rebalancing plan is solved every {@code interval-ms} and kept until the next solve, so reading
+ * it costs nothing. Agents are told about their suggestion through the notification topic; an agent
+ * sent to the same cell again within {@code notify-cooldown-ms} is not told twice.
+ */
+@Service
+public class DemandHeatmapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandHeatmapService.class);
+
+    static final String REPOSITIONING_EVENT = "AGENT_REPOSITIONING_SUGGESTED";
+
+    private final DemandHeatmap heatmap;
+    private final RepositioningAdvisor advisor;
+    private final KafkaProducerService kafkaProducerService;
+
+    private final Timer solveTimer;
+    private final Counter notified;
+
+    private volatile Plan plan = new Plan(List.of(), Map.of());
+    // Agent id -> the cell it was last sent to and when; only touched by rebalance
+    private final Map<Long, Notified> lastNotified = new HashMap<>();
+
+    @Value("${delivery.heatmap.repositioning.notify:true}")
+    private boolean notify = true;
+
+    @Value("${delivery.heatmap.repositioning.notify-cooldown-ms:300000}")
+    private long notifyCooldownMs = 300_000;
+
+    public DemandHeatmapService(DemandHeatmap heatmap, RepositioningAdvisor advisor,
+                                KafkaProducerService kafkaProducerService, MeterRegistry meterRegistry) {
+        this.heatmap = heatmap;
+        this.advisor = advisor;
+        this.kafkaProducerService = kafkaProducerService;
+        this.solveTimer = Timer.builder("delivery.heatmap.repositioning.solve")
+                .description("Time to solve one rebalancing plan over all idle agents")
+                .register(meterRegistry);
+        this.notified = Counter.builder("delivery.heatmap.repositioning.notified")
+                .description("Repositioning suggestions sent to agents")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Every cell with open or recent demand, with counts over the last {@code minutes} minutes.
+     */
+    public List<HeatmapCellResponse> getHeatmap(int minutes) {
+        if (minutes <= 0 || minutes > heatmap.windowMinutes()) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + heatmap.windowMinutes());
+        }
+        return heatmap.snapshot(minutes, System.currentTimeMillis()).stream()
+                .map(cell -> new HeatmapCellResponse(cell.geohash(), cell.latitude(), cell.longitude(),
+                        cell.pending(), cell.assigned(), cell.late(),
+                        cell.recentPending(), cell.recentAssigned(), cell.recentLate()))
+                .toList();
+    }
+
+    /**
+     * The suggestions of the latest rebalancing plan.
+     */
+    public List<RepositioningSuggestionResponse> getRepositioningSuggestions() {
+        return plan.suggestions().stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    public Optional<RepositioningSuggestionResponse> getRepositioningSuggestion(Long agentId) {
+        return Optional.ofNullable(plan.byAgent().get(agentId)).map(this::mapToResponse);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.heatmap.repositioning.interval-ms:30000}")
+    public void tick() {
+        try {
+            rebalance(System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("Rebalancing idle agents failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Solve a new plan and tell the agents whose suggestion is new.
+     *
+     * @return number of agents notified
+     */
+    public synchronized int rebalance(long nowMillis) {
+        long start = System.nanoTime();
+        List<RepositioningAdvisor.Suggestion> suggestions = advisor.suggest(nowMillis);
+        Map<Long, RepositioningAdvisor.Suggestion> byAgent = new HashMap<>(suggestions.size() * 2);
+        suggestions.forEach(suggestion -> byAgent.put(suggestion.agentId(), suggestion));
+        plan = new Plan(suggestions, byAgent);
+        solveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        lastNotified.values().removeIf(last -> nowMillis - last.atMillis() >= notifyCooldownMs);
+        if (!notify) {
+            return 0;
+        }
+        int sent = 0;
+        for (RepositioningAdvisor.Suggestion suggestion : suggestions) {
+            Notified last = lastNotified.get(suggestion.agentId());
+            if (last != null && last.geohash().equals(suggestion.geohash())) {
+                continue;
+            }
+            kafkaProducerService.publishNotification(String.valueOf(suggestion.agentId()), toEvent(suggestion));
+            lastNotified.put(suggestion.agentId(), new Notified(suggestion.geohash(), nowMillis));
+            sent++;
+        }
+        notified.increment(sent);
+        if (!suggestions.isEmpty()) {
+            logger.debug("Rebalancing plan: {} suggestions, {} agents notified", suggestions.size(), sent);
+        }
+        return sent;
+    }
+
+    private static DeliveryEvent toEvent(RepositioningAdvisor.Suggestion suggestion) {
+        return DeliveryEvent.builder()
+                .eventType(REPOSITIONING_EVENT)
+                .deliveryAgentId(suggestion.agentId())
+                .currentLatitude(suggestion.toLatitude())
+                .currentLongitude(suggestion.toLongitude())
+                .notes(String.format(Locale.ROOT, "Orders are waiting %.1f km away (area %s, %d agents short)",
+                        suggestion.distanceKm(), suggestion.geohash(), suggestion.deficit()))
+                .build();
+    }
+
+    private RepositioningSuggestionResponse mapToResponse(RepositioningAdvisor.Suggestion suggestion) {
+        return new RepositioningSuggestionResponse(suggestion.agentId(), suggestion.geohash(),
+                suggestion.toLatitude(), suggestion.toLongitude(), suggestion.distanceKm(), suggestion.deficit());
+    }
+
+    private record Plan(List<RepositioningAdvisor.Suggestion> suggestions,
+                        Map<Long, RepositioningAdvisor.Suggestion> byAgent) {}
+
+    private record Notified(String geohash, long atMillis) {}
+}
@@ -0,0 +1,124 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geofence.GeofenceEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies the transitions fired by {@link GeofenceEngine} to the deliveries.
+ *
+ * Leaving the pickup marks the delivery PICKED_UP, arriving at the drop marks it DELIVERED; both
+ * go through the same status update, tracking row and outbox event as the agent's own update. The
+ * change only applies if the delivery is still where the transition expects it, so an agent who
+ * already updated the status by hand is not overridden. Arriving at the pickup and leaving the
+ * drop change nothing and are only counted by the engine.
+ */
+@Service
+public class GeofenceTransitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceTransitionService.class);
+
+    private static final Set<Delivery.DeliveryStatus> BEFORE_PICKUP = Set.of(Delivery.DeliveryStatus.ASSIGNED);
+    private static final Set<Delivery.DeliveryStatus> ON_BOARD = Set.of(
+            Delivery.DeliveryStatus.PICKED_UP, Delivery.DeliveryStatus.IN_TRANSIT);
+
+    private final GeofenceEngine geofenceEngine;
+    private final DeliveryService deliveryService;
+
+    private final Counter applied;
+    private final Counter stale;
+
+    @Value("${delivery.geofence.auto-status:true}")
+    private boolean autoStatus = true;
+
+    @Value("${delivery.geofence.batch-size:500}")
+    private int batchSize = 500;
+
+    public GeofenceTransitionService(GeofenceEngine geofenceEngine,
+                                     DeliveryService deliveryService,
+                                     MeterRegistry meterRegistry) {
+        this.geofenceEngine = geofenceEngine;
+        this.deliveryService = deliveryService;
+        this.applied = Counter.builder("delivery.geofence.status-changes")
+                .description("Delivery status changes derived from geofence transitions, by outcome")
+                .tag("outcome", "applied")
+                .register(meterRegistry);
+        this.stale = Counter.builder("delivery.geofence.status-changes")
+                .description("Delivery status changes derived from geofence transitions, by outcome")
+                .tag("outcome", "stale")
+                .register(meterRegistry);
+        Gauge.builder("delivery.geofence.queued", geofenceEngine, GeofenceEngine::queued)
+                .description("Geofence transitions waiting to be applied")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.geofence.tick-ms:200}")
+    public void tick() {
+        try {
+            applyFired();
+        } catch (Exception e) {
+            logger.error("Applying geofence transitions failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Apply up to one batch of fired transitions.
+     *
+     * @return number of deliveries whose status changed
+     */
+    public int applyFired() {
+        List<GeofenceEngine.Transition> batch = geofenceEngine.drain(batchSize);
+        int changed = 0;
+        for (GeofenceEngine.Transition transition : batch) {
+            if (autoStatus && apply(transition)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private boolean apply(GeofenceEngine.Transition transition) {
+        boolean pickupDeparture = transition.fence() == GeofenceEngine.Fence.PICKUP
+                && transition.kind() == GeofenceEngine.Kind.DEPARTED;
+        boolean dropArrival = transition.fence() == GeofenceEngine.Fence.DROP
+                && transition.kind() == GeofenceEngine.Kind.ARRIVED;
+        if (!pickupDeparture && !dropArrival) {
+            return false;
+        }
+
+        boolean changed;
+        try {
+            changed = pickupDeparture
+                    ? deliveryService.advanceStatus(transition.deliveryId(), BEFORE_PICKUP,
+                            Delivery.DeliveryStatus.PICKED_UP, "Agent left the pickup")
+                    : deliveryService.advanceStatus(transition.deliveryId(), ON_BOARD,
+                            Delivery.DeliveryStatus.DELIVERED, "Agent arrived at the drop");
+        } catch (ResourceNotFoundException e) {
+            changed = false;
+        } catch (Exception e) {
+            logger.warn("Geofence transition {} {} of delivery {} not applied: {}", transition.kind(),
+                    transition.fence(), transition.deliveryId(), e.getMessage());
+            return false;
+        }
+
+        if (changed) {
+            applied.increment();
+            logger.info("Delivery {} {} by geofence", transition.deliveryId(),
+                    pickupDeparture ? "picked up" : "delivered");
+        } else {
+            stale.increment();
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,298 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.location.AgentPosition;
+import com.foodDelivery.location.TrackChunk;
+import com.foodDelivery.location.TrackCodec;
+import com.foodDelivery.location.TrackingPoint;
+import com.foodDelivery.repository.DeliveryRepository;
+import com.foodDelivery.repository.LocationBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers location pings in memory and writes them to MySQL in batches.
+ *
+ * Agent pings are coalesced: only the latest position per agent is kept until the next flush, so
+ * an agent pinging every 3 s costs one row update per flush interval, not one JPA load-and-save
+ * per ping. Delivery breadcrumbs collect in a per-delivery tail; once the tail is full, old enough
+ * or the delivery is finished, it is sealed into a {@link TrackCodec} chunk and appended to the
+ * delivery's single {@code delivery_tracks} row. Current positions ({@link AgentStateTable}) and
+ * unsealed tails are served from memory.
+ */
+@Service
+public class LocationIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationIngestionService.class);
+
+    private final LocationBatchRepository batchRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final AgentSpatialIndex spatialIndex;
+    private final AgentStateTable agentStates;
+
+    // Positions not yet written to delivery_agents
+    private final ConcurrentHashMap<Long, AgentPosition> dirtyAgentPositions = new ConcurrentHashMap<>();
+    // Breadcrumbs not yet sealed into a stored chunk, oldest first per delivery
+    private final ConcurrentHashMap<Long, List<TrackingPoint>> pendingTrackingPoints = new ConcurrentHashMap<>();
+    // Deliveries whose tail should be sealed on the next flush regardless of size
+    private final Set<Long> sealRequested = ConcurrentHashMap.newKeySet();
+    // Chunks whose write failed, sent again unchanged on the next flush; their points are still in the tail
+    private final ConcurrentHashMap<Long, TrackChunk> unstoredChunks = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedTrackingPoints = new AtomicInteger();
+    // Latest ETA per delivery not yet written, epoch millis
+    private final ConcurrentHashMap<Long, Long> dirtyEstimates = new ConcurrentHashMap<>();
+    // Status of deliveries that are receiving pings; terminal deliveries are evicted and never cached
+    private final ConcurrentHashMap<Long, Delivery.DeliveryStatus> deliveryStatuses = new ConcurrentHashMap<>();
+
+    private final Counter agentPings;
+    private final Counter deliveryPings;
+    private final Timer flushTimer;
+
+    @Value("${delivery.location.track.chunk-points:32}")
+    private int chunkPoints = 32;
+
+    @Value("${delivery.location.track.max-tail-age-ms:30000}")
+    private long maxTailAgeMs = 30_000;
+
+    public LocationIngestionService(LocationBatchRepository batchRepository,
+                                    DeliveryRepository deliveryRepository,
+                                    AgentSpatialIndex spatialIndex,
+                                    AgentStateTable agentStates,
+                                    MeterRegistry meterRegistry) {
+        this.batchRepository = batchRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.spatialIndex = spatialIndex;
+        this.agentStates = agentStates;
+        this.agentPings = Counter.builder("delivery.location.pings")
+                .description("Location pings accepted")
+                .tag("source", "agent")
+                .register(meterRegistry);
+        this.deliveryPings = Counter.builder("delivery.location.pings")
+                .description("Location pings accepted")
+                .tag("source", "delivery")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("delivery.location.flush")
+                .description("Time to write one batch of buffered locations")
+                .register(meterRegistry);
+        Gauge.builder("delivery.location.buffered", dirtyAgentPositions, ConcurrentHashMap::size)
+                .description("Agent positions waiting to be flushed")
+                .tag("source", "agent")
+                .register(meterRegistry);
+        Gauge.builder("delivery.location.buffered", bufferedTrackingPoints, AtomicInteger::get)
+                .description("Tracking points not yet sealed into stored chunks")
+                .tag("source", "delivery")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record an agent's position. Visible to assignment immediately, persisted on the next flush.
+     *
+     * @throws ResourceNotFoundException if the agent does not exist
+     */
+    public AgentPosition acceptAgentPing(Long agentId, double latitude, double longitude) {
+        AgentPosition position = new AgentPosition(agentId, latitude, longitude, System.currentTimeMillis());
+        agentStates.updatePosition(agentId, latitude, longitude, position.epochMillis());
+        dirtyAgentPositions.merge(agentId, position, AgentPosition::newer);
+        // Only AVAILABLE agents are indexed; moving a BUSY agent must not make it assignable
+        if (spatialIndex.contains(agentId)) {
+            spatialIndex.upsert(agentId, latitude, longitude);
+        }
+        agentPings.increment();
+        return position;
+    }
+
+    /**
+     * Record a breadcrumb for a delivery, tagged with the delivery's current status.
+     */
+    public TrackingPoint acceptDeliveryPing(Long deliveryId, double latitude, double longitude, String remarks) {
+        Delivery.DeliveryStatus status = deliveryStatuses.get(deliveryId);
+        if (status == null) {
+            status = deliveryRepository.findStatusById(deliveryId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Delivery not found with id: " + deliveryId));
+            // A late ping for a finished delivery must not bring back the entry its status change evicted
+            if (!isTerminal(status)) {
+                deliveryStatuses.putIfAbsent(deliveryId, status);
+            }
+        }
+
+        TrackingPoint point = new TrackingPoint(deliveryId, latitude, longitude, status, remarks,
+                System.currentTimeMillis());
+        pendingTrackingPoints.compute(deliveryId, (id, points) -> {
+            List<TrackingPoint> list = points != null ? points : new ArrayList<>();
+            list.add(point);
+            return list;
+        });
+        bufferedTrackingPoints.incrementAndGet();
+        deliveryPings.increment();
+        return point;
+    }
+
+    /**
+     * Keep the cached status in step with the delivery row. Call once the change is committed.
+     */
+    public void onDeliveryStatusChanged(Long deliveryId, Delivery.DeliveryStatus status) {
+        if (isTerminal(status)) {
+            deliveryStatuses.remove(deliveryId);
+            sealRequested.add(deliveryId);
+        } else {
+            deliveryStatuses.put(deliveryId, status);
+        }
+    }
+
+    /**
+     * Record a recomputed ETA for the delivery; only the latest one per flush is written.
+     */
+    public void recordEstimatedDeliveryTime(Long deliveryId, long etaEpochMillis) {
+        dirtyEstimates.put(deliveryId, etaEpochMillis);
+    }
+
+    /**
+     * Decoded tail of the delivery's trail: breadcrumbs not yet sealed into storage, oldest first.
+     */
+    public List<TrackingPoint> pendingTrackingPoints(Long deliveryId) {
+        List<TrackingPoint> copy = new ArrayList<>();
+        pendingTrackingPoints.computeIfPresent(deliveryId, (id, points) -> {
+            copy.addAll(points);
+            return points;
+        });
+        return copy;
+    }
+
+    public void forgetAgent(Long agentId) {
+        dirtyAgentPositions.remove(agentId);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.location.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        flushTimer.record(() -> {
+            flushAgentPositions();
+            flushTrackingPoints();
+            flushEstimates();
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing {} agent positions and {} tracking points before shutdown",
+                dirtyAgentPositions.size(), bufferedTrackingPoints.get());
+        sealRequested.addAll(pendingTrackingPoints.keySet());
+        flush();
+    }
+
+    private void flushAgentPositions() {
+        List<AgentPosition> batch = new ArrayList<>(dirtyAgentPositions.size());
+        for (Long agentId : dirtyAgentPositions.keySet()) {
+            AgentPosition position = dirtyAgentPositions.remove(agentId);
+            if (position != null) {
+                batch.add(position);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            batchRepository.updateAgentPositions(batch);
+            logger.debug("Flushed {} agent positions", batch.size());
+        } catch (Exception e) {
+            logger.error("Flushing {} agent positions failed, retrying next interval: {}", batch.size(), e.getMessage());
+            // A newer ping that arrived meanwhile wins over the one we failed to write
+            batch.forEach(p -> dirtyAgentPositions.merge(p.agentId(), p, AgentPosition::newer));
+        }
+    }
+
+    private void flushEstimates() {
+        Map<Long, Long> batch = new HashMap<>();
+        for (Long deliveryId : dirtyEstimates.keySet()) {
+            Long eta = dirtyEstimates.remove(deliveryId);
+            if (eta != null) {
+                batch.put(deliveryId, eta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            batchRepository.updateEstimatedDeliveryTimes(batch);
+            logger.debug("Flushed {} delivery ETAs", batch.size());
+        } catch (Exception e) {
+            logger.error("Flushing {} delivery ETAs failed, retrying next interval: {}", batch.size(), e.getMessage());
+            batch.forEach(dirtyEstimates::putIfAbsent);
+        }
+    }
+
+    private void flushTrackingPoints() {
+        long sealBefore = System.currentTimeMillis() - maxTailAgeMs;
+        // A failed write may still have landed; only the same chunk again is recognised as stored
+        Map<Long, TrackChunk> chunks = new HashMap<>(unstoredChunks);
+        // Sealed points stay in the tail, where readers find them, until their chunk is stored
+        Map<Long, List<TrackingPoint>> sealed = new HashMap<>();
+        Set<Long> requestedNow = new HashSet<>();
+        for (Long deliveryId : pendingTrackingPoints.keySet()) {
+            if (chunks.containsKey(deliveryId)) {
+                continue;
+            }
+            boolean requested = sealRequested.remove(deliveryId);
+            if (requested) {
+                requestedNow.add(deliveryId);
+            }
+            pendingTrackingPoints.computeIfPresent(deliveryId, (id, points) -> {
+                if (requested || points.size() >= chunkPoints || points.get(0).epochMillis() <= sealBefore) {
+                    sealed.put(id, List.copyOf(points));
+                }
+                return points;
+            });
+        }
+        // Finished deliveries that had nothing buffered
+        sealRequested.removeIf(id -> !pendingTrackingPoints.containsKey(id));
+        sealed.forEach((deliveryId, points) -> chunks.put(deliveryId, new TrackChunk(deliveryId, points.size(),
+                points.get(points.size() - 1).epochMillis(), TrackCodec.encodeChunk(points))));
+        if (chunks.isEmpty()) {
+            return;
+        }
+
+        int pointCount = chunks.values().stream().mapToInt(TrackChunk::pointCount).sum();
+        try {
+            batchRepository.appendTrackChunks(List.copyOf(chunks.values()));
+        } catch (Exception e) {
+            logger.error("Sealing {} tracking points failed, retrying next interval: {}", pointCount, e.getMessage());
+            unstoredChunks.putAll(chunks);
+            sealRequested.addAll(requestedNow);
+            return;
+        }
+        unstoredChunks.keySet().removeAll(chunks.keySet());
+        // Only this flush removes points, so the sealed ones are still the head of each tail
+        chunks.forEach((deliveryId, chunk) -> pendingTrackingPoints.computeIfPresent(deliveryId, (id, tail) -> {
+            tail.subList(0, chunk.pointCount()).clear();
+            return tail.isEmpty() ? null : tail;
+        }));
+        bufferedTrackingPoints.addAndGet(-pointCount);
+        logger.debug("Sealed {} tracking points into {} chunks", pointCount, chunks.size());
+    }
+
+    private static boolean isTerminal(Delivery.DeliveryStatus status) {
+        return status == Delivery.DeliveryStatus.DELIVERED || status == Delivery.DeliveryStatus.CANCELLED
+                || status == Delivery.DeliveryStatus.FAILED;
+    }
+}
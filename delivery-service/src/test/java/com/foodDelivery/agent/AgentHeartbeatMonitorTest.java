@@ -0,0 +1,144 @@
+package com.foodDelivery.agent;
+
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.repository.AgentStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AgentHeartbeatMonitorTest {
+
+    // Defaults: 3 missed heartbeats of 10 s
+    private static final long TIMEOUT_MS = 30_000;
+
+    private AgentStateRepository repository;
+    private AgentSpatialIndex spatialIndex;
+    private AgentStateTable agentStates;
+    private AgentHeartbeatMonitor monitor;
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AgentStateRepository.class);
+        // Every row the UPDATE was given went OFFLINE, unless a test says otherwise
+        when(repository.findAllById(anyList())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0)
+                .stream()
+                .map(id -> new AgentState(id, DeliveryAgent.AgentStatus.OFFLINE, 18.52, 73.85,
+                        DeliveryAgent.VehicleType.BIKE, 4.5, 0L))
+                .toList());
+        spatialIndex = new AgentSpatialIndex(0.01);
+        agentStates = new AgentStateTable(repository, spatialIndex);
+        monitor = new AgentHeartbeatMonitor(agentStates, new SimpleMeterRegistry(), 1000);
+        start = System.currentTimeMillis();
+    }
+
+    @Test
+    void testReap_TakesSilentAgentsOfflineInOneUpdate() {
+        for (long id = 1; id <= 3; id++) {
+            agentStates.put(available(id, start));
+        }
+
+        List<Long> offline = monitor.reap(start + TIMEOUT_MS + 2_000);
+
+        assertEquals(3, offline.size());
+        // The row guard uses the same cutoff as the wheel
+        verify(repository, times(1)).markOffline(eq(List.of(1L, 2L, 3L)), eq(start + 2_000), anyLong());
+        assertEquals(DeliveryAgent.AgentStatus.OFFLINE, agentStates.peek(2L).orElseThrow().status());
+        assertFalse(spatialIndex.contains(2L));
+        assertEquals(0, monitor.trackedCount());
+    }
+
+    @Test
+    void testReap_KeepsAgentsThatPinged() {
+        agentStates.put(available(1L, start));
+        agentStates.updatePosition(1L, 18.53, 73.86, start + 20_000);
+
+        assertTrue(monitor.reap(start + TIMEOUT_MS + 2_000).isEmpty());
+        assertEquals(DeliveryAgent.AgentStatus.AVAILABLE, agentStates.peek(1L).orElseThrow().status());
+        assertEquals(1, monitor.trackedCount());
+
+        assertEquals(List.of(1L), monitor.reap(start + 20_000 + TIMEOUT_MS + 2_000));
+    }
+
+    @Test
+    void testReap_FollowsTheRowWhenAPingArrivesDuringTheUpdate() {
+        agentStates.put(available(1L, start));
+        when(repository.markOffline(anyList(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            agentStates.updatePosition(1L, 18.53, 73.86, start + TIMEOUT_MS + 1_000);
+            return 1;
+        });
+
+        assertEquals(List.of(1L), monitor.reap(start + TIMEOUT_MS + 2_000));
+        assertEquals(DeliveryAgent.AgentStatus.OFFLINE, agentStates.peek(1L).orElseThrow().status());
+        assertFalse(spatialIndex.contains(1L));
+    }
+
+    @Test
+    void testReap_FollowsTheRowWhenItWasClaimedFirst() {
+        agentStates.put(available(1L, start));
+        when(repository.findAllById(anyList())).thenReturn(List.of(
+                new AgentState(1L, DeliveryAgent.AgentStatus.BUSY, 18.52, 73.85, DeliveryAgent.VehicleType.BIKE, 4.5,
+                        start + TIMEOUT_MS + 1_000)));
+
+        assertTrue(monitor.reap(start + TIMEOUT_MS + 2_000).isEmpty());
+        assertEquals(DeliveryAgent.AgentStatus.BUSY, agentStates.peek(1L).orElseThrow().status());
+        assertFalse(spatialIndex.contains(1L));
+        assertEquals(0, monitor.trackedCount());
+    }
+
+    @Test
+    void testReap_KeepsAgentsActiveOnAnotherInstance() {
+        agentStates.put(available(1L, start));
+        // Pings that went to another instance and were flushed to the row
+        long pingedAt = start + 25_000;
+        when(repository.findAllById(anyList())).thenReturn(List.of(available(1L, pingedAt)));
+
+        assertTrue(monitor.reap(start + TIMEOUT_MS + 2_000).isEmpty());
+        assertEquals(pingedAt, agentStates.peek(1L).orElseThrow().lastActiveMillis());
+        assertTrue(spatialIndex.contains(1L));
+        assertEquals(1, monitor.trackedCount());
+
+        // Watched from the row's last activity, not found silent again on the next tick
+        assertTrue(monitor.reap(start + TIMEOUT_MS + 3_000).isEmpty());
+        verify(repository, times(1)).markOffline(anyList(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testReap_DropsAgentsThatAreNoLongerAvailable() {
+        agentStates.put(available(1L, start));
+        agentStates.applyStatus(1L, DeliveryAgent.AgentStatus.BUSY, start + 1_000);
+
+        assertTrue(monitor.reap(start + TIMEOUT_MS + 2_000).isEmpty());
+        verify(repository, never()).markOffline(anyList(), anyLong(), anyLong());
+        assertEquals(0, monitor.trackedCount());
+
+        // Back to AVAILABLE: watched again from the status change
+        long back = start + TIMEOUT_MS + 3_000;
+        agentStates.applyStatus(1L, DeliveryAgent.AgentStatus.AVAILABLE, back);
+        assertEquals(1, monitor.trackedCount());
+        assertEquals(List.of(1L), monitor.reap(back + TIMEOUT_MS + 2_000));
+    }
+
+    @Test
+    void testReap_GivesAgentsLoadedAtStartupAFullTimeout() {
+        // Last seen long before this instance started
+        agentStates.put(available(1L, start - 3_600_000));
+
+        assertTrue(monitor.reap(start + TIMEOUT_MS - 2_000).isEmpty());
+        assertEquals(List.of(1L), monitor.reap(start + TIMEOUT_MS + 2_000));
+    }
+
+    private static AgentState available(long id, long lastActiveMillis) {
+        return new AgentState(id, DeliveryAgent.AgentStatus.AVAILABLE, 18.52, 73.85,
+                DeliveryAgent.VehicleType.BIKE, 4.5, lastActiveMillis);
+    }
+}
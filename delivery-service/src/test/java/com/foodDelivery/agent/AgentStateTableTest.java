@@ -0,0 +1,117 @@
+package com.foodDelivery.agent;
+
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.repository.AgentStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AgentStateTableTest {
+
+    private AgentStateRepository repository;
+    private AgentSpatialIndex spatialIndex;
+    private AgentStateTable table;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AgentStateRepository.class);
+        spatialIndex = new AgentSpatialIndex(0.01);
+        table = new AgentStateTable(repository, spatialIndex);
+    }
+
+    @Test
+    void testLoad_IndexesOnlyAvailableAgentsWithPosition() {
+        when(repository.findAll()).thenReturn(List.of(
+                state(1L, DeliveryAgent.AgentStatus.AVAILABLE, 18.52, 73.85),
+                state(2L, DeliveryAgent.AgentStatus.OFFLINE, 18.52, 73.85),
+                state(3L, DeliveryAgent.AgentStatus.AVAILABLE, Double.NaN, Double.NaN)));
+
+        table.load();
+
+        assertEquals(3, table.size());
+        assertTrue(spatialIndex.contains(1L));
+        assertFalse(spatialIndex.contains(2L));
+        assertFalse(spatialIndex.contains(3L));
+    }
+
+    @Test
+    void testGet_LoadsMissingAgentOnce() {
+        when(repository.findById(5L)).thenReturn(Optional.of(state(5L, DeliveryAgent.AgentStatus.AVAILABLE, 18.5, 73.8)));
+
+        assertTrue(table.get(5L).isPresent());
+        assertTrue(table.get(5L).isPresent());
+
+        verify(repository, times(1)).findById(5L);
+        assertTrue(spatialIndex.contains(5L));
+        assertThrows(ResourceNotFoundException.class, () -> table.require(6L));
+    }
+
+    @Test
+    void testChangeStatus_AppliedOnlyAfterCommit() {
+        table.put(state(1L, DeliveryAgent.AgentStatus.OFFLINE, 18.52, 73.85));
+        when(repository.updateStatus(eq(1L), eq(DeliveryAgent.AgentStatus.AVAILABLE), anyBoolean(), anyLong()))
+                .thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            AgentState expected = table.changeStatus(1L, DeliveryAgent.AgentStatus.AVAILABLE, false);
+            assertEquals(DeliveryAgent.AgentStatus.AVAILABLE, expected.status());
+            assertEquals(DeliveryAgent.AgentStatus.OFFLINE, table.get(1L).orElseThrow().status());
+            assertFalse(spatialIndex.contains(1L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(DeliveryAgent.AgentStatus.AVAILABLE, table.get(1L).orElseThrow().status());
+        assertTrue(spatialIndex.contains(1L));
+    }
+
+    @Test
+    void testUpdatePosition_KeepsStatusAndAdvancesLastActive() {
+        table.put(state(1L, DeliveryAgent.AgentStatus.BUSY, 18.52, 73.85));
+
+        AgentState moved = table.updatePosition(1L, 18.60, 73.90, 5_000L);
+
+        assertEquals(DeliveryAgent.AgentStatus.BUSY, moved.status());
+        assertEquals(18.60, moved.latitude());
+        assertEquals(5_000L, moved.lastActiveMillis());
+        assertFalse(spatialIndex.contains(1L));
+    }
+
+    @Test
+    void testRefreshStatus_TakesRowStatusAndKeepsPosition() {
+        table.put(state(1L, DeliveryAgent.AgentStatus.AVAILABLE, 18.60, 73.90));
+        // Claimed by another instance; the row still has the position of the last flush
+        when(repository.findById(1L)).thenReturn(Optional.of(state(1L, DeliveryAgent.AgentStatus.BUSY, 18.52, 73.85)));
+        when(repository.findById(2L)).thenReturn(Optional.empty());
+        table.put(state(2L, DeliveryAgent.AgentStatus.AVAILABLE, 18.52, 73.85));
+
+        table.refreshStatus(1L);
+        table.refreshStatus(2L);
+
+        AgentState refreshed = table.peek(1L).orElseThrow();
+        assertEquals(DeliveryAgent.AgentStatus.BUSY, refreshed.status());
+        assertEquals(18.60, refreshed.latitude());
+        assertFalse(spatialIndex.contains(1L));
+        assertTrue(table.peek(2L).isEmpty());
+        assertFalse(spatialIndex.contains(2L));
+    }
+
+    private static AgentState state(long id, DeliveryAgent.AgentStatus status, double lat, double lon) {
+        return new AgentState(id, status, lat, lon, DeliveryAgent.VehicleType.SCOOTER, 4.5, 0L);
+    }
+}
@@ -0,0 +1,85 @@
+package com.foodDelivery.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void testAdvance_ExpiresOnDeadlineTick() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(100, 6, 4, 0);
+        wheel.schedule(7L, 450);
+        List<Long> expired = new ArrayList<>();
+
+        assertEquals(0, wheel.advance(400, expired::add));
+        assertEquals(1, wheel.advance(500, expired::add));
+
+        assertEquals(List.of(7L), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testSchedule_PastDeadlineExpiresOnNextTick() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(100, 6, 4, 1_000);
+        wheel.schedule(1L, 0);
+        List<Long> expired = new ArrayList<>();
+
+        wheel.advance(1_100, expired::add);
+
+        assertEquals(List.of(1L), expired);
+    }
+
+    @Test
+    void testAdvance_CallbackCanReschedule() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 2, 2, 0);
+        wheel.schedule(1L, 1);
+        List<Long> expiredAt = new ArrayList<>();
+        long[] now = {0};
+
+        for (now[0] = 1; now[0] <= 30; now[0]++) {
+            wheel.advance(now[0], key -> {
+                expiredAt.add(now[0]);
+                wheel.schedule(key, now[0] + 10);
+            });
+        }
+
+        assertEquals(List.of(1L, 11L, 21L), expiredAt);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void testAdvance_MatchesDeadlinesAcrossLevelsAndOverflow() {
+        // 3 levels of 4 slots span 64 ticks, so most deadlines cascade and some overflow the top level
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(10, 2, 3, 0);
+        SplittableRandom random = new SplittableRandom(5);
+        Map<Long, Long> deadlineTick = new HashMap<>();
+        long now = 0;
+        long nextKey = 0;
+
+        for (int round = 0; round < 2_000; round++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                long deadline = now + random.nextLong(0, 3_000);
+                wheel.schedule(nextKey, deadline);
+                deadlineTick.put(nextKey, Math.max(Math.ceilDiv(deadline, 10), now / 10 + 1));
+                nextKey++;
+            }
+            long to = now + random.nextLong(1, 40);
+            wheel.advance(to, key -> {
+                long expected = deadlineTick.remove(key);
+                assertTrue(expected <= to / 10, "key " + key + " expired early");
+            });
+            long tickNow = to / 10;
+            deadlineTick.values().forEach(d -> assertTrue(d > tickNow, "deadline " + d + " missed at " + tickNow));
+            now = to;
+        }
+
+        assertEquals(deadlineTick.size(), wheel.size());
+    }
+}
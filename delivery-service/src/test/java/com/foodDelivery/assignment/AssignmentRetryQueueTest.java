@@ -0,0 +1,90 @@
+package com.foodDelivery.assignment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssignmentRetryQueueTest {
+
+    private AssignmentRetryQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        // 1 s doubling to 8 s; 5 km growing by half up to 20 km
+        queue = new AssignmentRetryQueue(1_000, 8_000, 5, 1.5, 20, 0.1);
+    }
+
+    @Test
+    void testPollDue_BacksOffAndWidensRadius() {
+        queue.add(1L, 18.52, 73.85, 0);
+
+        assertTrue(queue.pollDue(999, 10).isEmpty());
+        List<AssignmentRetryQueue.Attempt> first = queue.pollDue(1_000, 10);
+        assertEquals(List.of(new AssignmentRetryQueue.Attempt(1L, 1, 5.0)), first);
+
+        queue.reschedule(1L, 1_000);
+        assertTrue(queue.pollDue(2_999, 10).isEmpty());
+        assertEquals(7.5, queue.pollDue(3_000, 10).get(0).radiusKm());
+
+        queue.reschedule(1L, 3_000);
+        queue.reschedule(1L, 3_000);
+        queue.reschedule(1L, 3_000);
+        // Capped at 8 s and 20 km
+        assertTrue(queue.pollDue(10_999, 10).isEmpty());
+        AssignmentRetryQueue.Attempt capped = queue.pollDue(11_000, 10).get(0);
+        assertEquals(5, capped.attempt());
+        assertEquals(20.0, capped.radiusKm());
+    }
+
+    @Test
+    void testPollDue_EarliestFirstAndBoundedByLimit() {
+        queue.add(1L, 18.52, 73.85, 200);
+        queue.add(2L, 18.52, 73.85, 100);
+        queue.add(3L, 18.52, 73.85, 300);
+
+        List<AssignmentRetryQueue.Attempt> due = queue.pollDue(5_000, 2);
+
+        assertEquals(List.of(2L, 1L), due.stream().map(AssignmentRetryQueue.Attempt::deliveryId).toList());
+        assertEquals(3L, queue.pollDue(5_000, 2).get(0).deliveryId());
+    }
+
+    @Test
+    void testExpediteNear_OnlyDeliveriesWhoseRadiusReachesTheAgent() {
+        queue.add(1L, 18.52, 73.85, 0);   // agent right at the pickup
+        queue.add(2L, 18.60, 73.85, 0);   // ~9 km away, beyond the 5 km first-retry radius
+        queue.add(3L, 18.53, 73.85, 0);   // ~1 km away
+
+        assertEquals(2, queue.expediteNear(18.52, 73.85, 10, 50));
+
+        List<Long> due = queue.pollDue(50, 10).stream().map(AssignmentRetryQueue.Attempt::deliveryId).toList();
+        assertEquals(2, due.size());
+        assertTrue(due.containsAll(List.of(1L, 3L)));
+        // Expedited entries do not come due a second time from their original schedule
+        assertEquals(List.of(2L), queue.pollDue(1_000, 10).stream().map(AssignmentRetryQueue.Attempt::deliveryId).toList());
+    }
+
+    @Test
+    void testRemove_DropsDeliveryFromScheduleAndPickupIndex() {
+        queue.add(1L, 18.52, 73.85, 0);
+
+        assertTrue(queue.remove(1L));
+
+        assertEquals(0, queue.expediteNear(18.52, 73.85, 10, 0));
+        assertTrue(queue.pollDue(10_000, 10).isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testExpedite_QueuesUnknownDeliveryAndSkipsRunningAttempt() {
+        queue.expedite(1L, null, null, 0);
+        assertEquals(1L, queue.pollDue(0, 10).get(0).deliveryId());
+
+        // The attempt is running; it decides whether the delivery goes back on the queue
+        queue.expedite(1L, null, null, 10);
+        assertTrue(queue.pollDue(10, 10).isEmpty());
+        assertTrue(queue.contains(1L));
+    }
+}
@@ -0,0 +1,95 @@
+package com.foodDelivery.assignment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HungarianAlgorithmTest {
+
+    @Test
+    void testSolve_SquareMatrix() {
+        double[][] cost = {
+                {4, 1, 3},
+                {2, 0, 5},
+                {3, 2, 2}
+        };
+
+        int[] match = HungarianAlgorithm.solve(cost);
+
+        assertEquals(5.0, total(cost, match));
+    }
+
+    @Test
+    void testSolve_PrefersGlobalOptimumOverGreedy() {
+        // Greedy would give agent 0 to delivery 0 (cost 1) and leave delivery 1 with cost 10
+        double[][] cost = {
+                {1, 2},
+                {1, 10}
+        };
+
+        int[] match = HungarianAlgorithm.solve(cost);
+
+        assertArrayEquals(new int[]{1, 0}, match);
+    }
+
+    @Test
+    void testSolve_MoreRowsThanColumns() {
+        double[][] cost = {
+                {5, 9},
+                {1, 8},
+                {7, 2}
+        };
+
+        int[] match = HungarianAlgorithm.solve(cost);
+
+        assertEquals(-1, match[0]);
+        assertEquals(0, match[1]);
+        assertEquals(1, match[2]);
+    }
+
+    @Test
+    void testSolve_MatchesBruteForceOnRandomMatrices() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int trial = 0; trial < 100; trial++) {
+            int rows = 1 + random.nextInt(6);
+            int cols = rows + random.nextInt(3);
+            double[][] cost = new double[rows][cols];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    cost[r][c] = random.nextDouble(0, 20);
+                }
+            }
+
+            int[] match = HungarianAlgorithm.solve(cost);
+
+            assertEquals(bruteForce(cost, 0, new boolean[cols]), total(cost, match), 1e-9);
+        }
+    }
+
+    private static double total(double[][] cost, int[] match) {
+        double sum = 0;
+        for (int r = 0; r < match.length; r++) {
+            if (match[r] >= 0) {
+                sum += cost[r][match[r]];
+            }
+        }
+        return sum;
+    }
+
+    private static double bruteForce(double[][] cost, int row, boolean[] usedCols) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < usedCols.length; c++) {
+            if (!usedCols[c]) {
+                usedCols[c] = true;
+                best = Math.min(best, cost[row][c] + bruteForce(cost, row + 1, usedCols));
+                usedCols[c] = false;
+            }
+        }
+        return best;
+    }
+}
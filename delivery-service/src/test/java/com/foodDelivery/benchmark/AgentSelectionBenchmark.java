@@ -0,0 +1,102 @@
+package com.foodDelivery.benchmark;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.geo.GeoDistance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest-agent selection: the spatial index against the old "load every AVAILABLE agent and
+ * Haversine them all" scan. The scan runs over in-memory entities, so it leaves out the MySQL
+ * round trip and entity hydration the real path pays on top.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=AgentSelectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentSelectionBenchmark {
+
+    // Roughly the Pune metro area
+    static final double MIN_LAT = 18.40;
+    static final double MAX_LAT = 18.65;
+    static final double MIN_LON = 73.70;
+    static final double MAX_LON = 74.00;
+
+    @Param({"1000", "10000", "100000"})
+    public int agentCount;
+
+    private List<DeliveryAgent> agents;
+    private AgentSpatialIndex index;
+    private double[] pickupLat;
+    private double[] pickupLon;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        agents = new ArrayList<>(agentCount);
+        index = new AgentSpatialIndex(0.01);
+        for (long id = 1; id <= agentCount; id++) {
+            DeliveryAgent agent = new DeliveryAgent();
+            agent.setId(id);
+            agent.setStatus(DeliveryAgent.AgentStatus.AVAILABLE);
+            agent.setCurrentLatitude(random.nextDouble(MIN_LAT, MAX_LAT));
+            agent.setCurrentLongitude(random.nextDouble(MIN_LON, MAX_LON));
+            agents.add(agent);
+            index.sync(AgentState.of(agent));
+        }
+
+        pickupLat = new double[1024];
+        pickupLon = new double[1024];
+        for (int i = 0; i < pickupLat.length; i++) {
+            pickupLat[i] = random.nextDouble(MIN_LAT, MAX_LAT);
+            pickupLon[i] = random.nextDouble(MIN_LON, MAX_LON);
+        }
+    }
+
+    @Benchmark
+    public Optional<DeliveryAgent> fullScan() {
+        int i = next++ & (pickupLat.length - 1);
+        Double lat = pickupLat[i];
+        Double lon = pickupLon[i];
+        return agents.stream()
+                .min(Comparator.comparingDouble(agent ->
+                        GeoDistance.haversineKm(lat, lon, agent.getCurrentLatitude(), agent.getCurrentLongitude())));
+    }
+
+    @Benchmark
+    public List<AgentSpatialIndex.Neighbor> spatialIndexNearest5() {
+        int i = next++ & (pickupLat.length - 1);
+        return index.nearest(pickupLat[i], pickupLon[i], 5, 25);
+    }
+
+    @Benchmark
+    public List<AgentSpatialIndex.Neighbor> spatialIndexWithin2Km() {
+        int i = next++ & (pickupLat.length - 1);
+        return index.withinRadius(pickupLat[i], pickupLon[i], 2);
+    }
+}
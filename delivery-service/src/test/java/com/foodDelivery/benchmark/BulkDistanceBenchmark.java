@@ -0,0 +1,117 @@
+package com.foodDelivery.benchmark;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.CoordinateBlock;
+import com.foodDelivery.geo.GeoDistance;
+import com.foodDelivery.geo.HaversineKernel;
+import com.foodDelivery.geo.NearestAgents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning a whole fleet from one pickup: the per-agent stream comparator of the full-scan
+ * fallback (boxed coordinates, both cosines recomputed per agent) against {@link HaversineKernel}
+ * over one {@link CoordinateBlock}. No grid, so every agent is looked at.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=BulkDistanceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkDistanceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int agentCount;
+
+    private List<AgentState> agents;
+    private CoordinateBlock block;
+    private double[] distances;
+    private NearestAgents nearest5;
+    private double[] pickupLat;
+    private double[] pickupLon;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        agents = new ArrayList<>(agentCount);
+        long[] ids = new long[agentCount];
+        double[] lat = new double[agentCount];
+        double[] lon = new double[agentCount];
+        for (int i = 0; i < agentCount; i++) {
+            DeliveryAgent agent = new DeliveryAgent();
+            agent.setId((long) i);
+            agent.setStatus(DeliveryAgent.AgentStatus.AVAILABLE);
+            agent.setCurrentLatitude(random.nextDouble(AgentSelectionBenchmark.MIN_LAT, AgentSelectionBenchmark.MAX_LAT));
+            agent.setCurrentLongitude(random.nextDouble(AgentSelectionBenchmark.MIN_LON, AgentSelectionBenchmark.MAX_LON));
+            agents.add(AgentState.of(agent));
+            ids[i] = i;
+            lat[i] = agent.getCurrentLatitude();
+            lon[i] = agent.getCurrentLongitude();
+        }
+        block = CoordinateBlock.of(ids, lat, lon);
+        distances = new double[agentCount];
+        nearest5 = new NearestAgents(5);
+
+        pickupLat = new double[1024];
+        pickupLon = new double[1024];
+        for (int i = 0; i < pickupLat.length; i++) {
+            pickupLat[i] = random.nextDouble(AgentSelectionBenchmark.MIN_LAT, AgentSelectionBenchmark.MAX_LAT);
+            pickupLon[i] = random.nextDouble(AgentSelectionBenchmark.MIN_LON, AgentSelectionBenchmark.MAX_LON);
+        }
+    }
+
+    @Benchmark
+    public Optional<AgentState> streamComparator() {
+        int i = next++ & (pickupLat.length - 1);
+        Double lat = pickupLat[i];
+        Double lon = pickupLon[i];
+        return agents.stream()
+                .min(Comparator.comparingDouble(agent -> distance(lat, lon, agent.latitude(), agent.longitude())));
+    }
+
+    @Benchmark
+    public double[] kernelAllDistances() {
+        int i = next++ & (pickupLat.length - 1);
+        HaversineKernel.distancesKm(HaversineKernel.Origin.of(pickupLat[i], pickupLon[i]), block, distances);
+        return distances;
+    }
+
+    @Benchmark
+    public NearestAgents kernelNearest5() {
+        int i = next++ & (pickupLat.length - 1);
+        nearest5.clear();
+        HaversineKernel.scan(HaversineKernel.Origin.of(pickupLat[i], pickupLon[i]), block, 1, nearest5);
+        return nearest5;
+    }
+
+    // Shape of DeliveryAssignmentService.calculateDistance
+    private static double distance(Double lat1, Double lon1, Double lat2, Double lon2) {
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) {
+            return Double.MAX_VALUE;
+        }
+        return GeoDistance.haversineKm(lat1, lon1, lat2, lon2);
+    }
+}
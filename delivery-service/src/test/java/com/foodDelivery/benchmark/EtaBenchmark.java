@@ -0,0 +1,81 @@
+package com.foodDelivery.benchmark;
+
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.eta.EtaEngine;
+import com.foodDelivery.repository.DeliveryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cost of an ETA refresh on the delivery-ping path with 8 concurrent callers spread over the
+ * active deliveries of a city: learn from the breadcrumb, recompute, compare against the threshold.
+ * {@code estimate} is the bare computation used at assignment time.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=EtaBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class EtaBenchmark {
+
+    @Param({"1000", "10000"})
+    public int activeDeliveries;
+
+    private EtaEngine engine;
+    private double[] dropLat;
+    private double[] dropLon;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new EtaEngine(mock(DeliveryRepository.class));
+        dropLat = new double[activeDeliveries];
+        dropLon = new double[activeDeliveries];
+        DeliveryAgent.VehicleType[] vehicles = DeliveryAgent.VehicleType.values();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < activeDeliveries; i++) {
+            dropLat[i] = random.nextDouble(18.40, 18.65);
+            dropLon[i] = random.nextDouble(73.70, 74.00);
+            engine.track(i, vehicles[i % vehicles.length], random.nextDouble(18.40, 18.65),
+                    random.nextDouble(73.70, 74.00), dropLat[i], dropLon[i], 0);
+        }
+    }
+
+    @Benchmark
+    public OptionalLong onPing() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(activeDeliveries);
+        return engine.onPing(id, dropLat[id] + random.nextDouble(-0.02, 0.02),
+                dropLon[id] + random.nextDouble(-0.02, 0.02), System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public long estimate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(activeDeliveries);
+        return engine.estimateMillis(DeliveryAgent.VehicleType.SCOOTER, random.nextDouble(18.40, 18.65),
+                random.nextDouble(73.70, 74.00), 18.52, 73.85, dropLat[id], dropLon[id], false);
+    }
+}
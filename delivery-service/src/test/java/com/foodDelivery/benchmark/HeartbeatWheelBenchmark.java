@@ -0,0 +1,87 @@
+package com.foodDelivery.benchmark;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.HierarchicalTimingWheel;
+import com.foodDelivery.entity.DeliveryAgent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One heartbeat tick over a fleet of AVAILABLE agents that keep pinging, in steady state: the wheel
+ * only visits the agents whose timeout comes due this tick and pushes them out again, while
+ * {@code scanAll} is the per-tick sweep over every agent in the state table that the wheel replaces.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=HeartbeatWheelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeartbeatWheelBenchmark {
+
+    private static final long TICK_MS = 1_000;
+    private static final long TIMEOUT_MS = 30_000;
+
+    @Param({"10000", "100000"})
+    public int agentCount;
+
+    private HierarchicalTimingWheel wheel;
+    private long[] lastActive;
+    private ConcurrentHashMap<Long, AgentState> states;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new HierarchicalTimingWheel(TICK_MS, 6, 4, 0);
+        lastActive = new long[agentCount];
+        states = new ConcurrentHashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int id = 0; id < agentCount; id++) {
+            lastActive[id] = random.nextLong(0, TIMEOUT_MS);
+            wheel.schedule(id, lastActive[id] + TIMEOUT_MS);
+            states.put((long) id, new AgentState(id, DeliveryAgent.AgentStatus.AVAILABLE, 18.52, 73.85,
+                    DeliveryAgent.VehicleType.BIKE, 4.5, lastActive[id]));
+        }
+        now = TIMEOUT_MS;
+    }
+
+    @Benchmark
+    public int wheelTick() {
+        now += TICK_MS;
+        long tickNow = now;
+        // Every agent pinged since its entry was scheduled, so each due entry is pushed out again
+        return wheel.advance(tickNow, id -> {
+            lastActive[(int) id] = tickNow - TICK_MS;
+            wheel.schedule(id, tickNow - TICK_MS + TIMEOUT_MS);
+        });
+    }
+
+    @Benchmark
+    public int scanAll() {
+        long silentSince = now - TIMEOUT_MS;
+        int silent = 0;
+        for (AgentState state : states.values()) {
+            if (state.status() == DeliveryAgent.AgentStatus.AVAILABLE && state.lastActiveMillis() < silentSince) {
+                silent++;
+            }
+        }
+        return silent;
+    }
+}
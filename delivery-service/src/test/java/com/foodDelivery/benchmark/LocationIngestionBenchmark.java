@@ -0,0 +1,104 @@
+package com.foodDelivery.benchmark;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.location.AgentPosition;
+import com.foodDelivery.location.TrackChunk;
+import com.foodDelivery.location.TrackingPoint;
+import com.foodDelivery.repository.LocationBatchRepository;
+import com.foodDelivery.service.LocationIngestionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained pings/sec through the location pipeline with 8 concurrent callers and the flusher
+ * running every 100 ms. The writer is a no-op, so this is the ceiling of the in-memory path; the
+ * previous path paid a JPA {@code findById} + {@code save} (agents) or an INSERT (tracking) per
+ * ping and was bounded by MySQL round trips instead. Tracking tails are sealed and encoded on the
+ * flusher thread, as in the service.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=LocationIngestionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LocationIngestionBenchmark {
+
+    @Param({"1000", "10000"})
+    public int agentCount;
+
+    private LocationIngestionService ingestion;
+    private ScheduledExecutorService flusher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocationBatchRepository noOpWriter = new LocationBatchRepository(null, null) {
+            @Override
+            public void updateAgentPositions(List<AgentPosition> positions) {
+            }
+
+            @Override
+            public void appendTrackChunks(List<TrackChunk> chunks) {
+            }
+        };
+        AgentSpatialIndex index = new AgentSpatialIndex(0.01);
+        AgentStateTable agentStates = new AgentStateTable(null, index);
+        ingestion = new LocationIngestionService(noOpWriter, null, index, agentStates, new SimpleMeterRegistry());
+        for (long id = 0; id < agentCount; id++) {
+            // Half the fleet is AVAILABLE and therefore indexed
+            DeliveryAgent.AgentStatus status = (id & 1) == 0
+                    ? DeliveryAgent.AgentStatus.AVAILABLE : DeliveryAgent.AgentStatus.BUSY;
+            agentStates.put(new AgentState(id, status, 18.52, 73.85, DeliveryAgent.VehicleType.BIKE, 0.0, 0L));
+            ingestion.onDeliveryStatusChanged(id, Delivery.DeliveryStatus.PICKED_UP);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(ingestion::flush, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        flusher.shutdownNow();
+    }
+
+    @Benchmark
+    public AgentPosition agentPing() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return ingestion.acceptAgentPing((long) random.nextInt(agentCount),
+                random.nextDouble(18.40, 18.65), random.nextDouble(73.70, 74.00));
+    }
+
+    @Benchmark
+    public TrackingPoint deliveryPing() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return ingestion.acceptDeliveryPing((long) random.nextInt(agentCount),
+                random.nextDouble(18.40, 18.65), random.nextDouble(73.70, 74.00), null);
+    }
+}
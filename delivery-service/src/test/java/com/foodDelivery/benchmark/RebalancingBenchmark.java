@@ -0,0 +1,83 @@
+package com.foodDelivery.benchmark;
+
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.heatmap.DemandHeatmap;
+import com.foodDelivery.heatmap.RepositioningAdvisor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full rebalancing solve: idle agents spread over the city, orders bunched around a few
+ * dozen restaurant clusters. The suggestion cap is lifted so every short zone is served.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=RebalancingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RebalancingBenchmark {
+
+    private static final int HOTSPOTS = 40;
+    private static final long NOW = 1_000 * 60_000L;
+
+    @Param({"50000"})
+    public int agentCount;
+
+    @Param({"2000", "20000"})
+    public int orderCount;
+
+    private RepositioningAdvisor advisor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        AgentSpatialIndex index = new AgentSpatialIndex(0.01);
+        for (long id = 0; id < agentCount; id++) {
+            index.upsert(id, random.nextDouble(AgentSelectionBenchmark.MIN_LAT, AgentSelectionBenchmark.MAX_LAT),
+                    random.nextDouble(AgentSelectionBenchmark.MIN_LON, AgentSelectionBenchmark.MAX_LON));
+        }
+
+        DemandHeatmap heatmap = new DemandHeatmap(6, 60, new SimpleMeterRegistry());
+        double[][] hotspots = new double[HOTSPOTS][];
+        for (int i = 0; i < HOTSPOTS; i++) {
+            hotspots[i] = new double[]{
+                    random.nextDouble(AgentSelectionBenchmark.MIN_LAT, AgentSelectionBenchmark.MAX_LAT),
+                    random.nextDouble(AgentSelectionBenchmark.MIN_LON, AgentSelectionBenchmark.MAX_LON)};
+        }
+        for (long orderId = 0; orderId < orderCount; orderId++) {
+            double[] hotspot = hotspots[random.nextInt(HOTSPOTS)];
+            // About a kilometre around the cluster
+            double lat = hotspot[0] + (random.nextDouble() - 0.5) * 0.02;
+            double lon = hotspot[1] + (random.nextDouble() - 0.5) * 0.02;
+            heatmap.orderConfirmed(orderId, lat, lon, NOW - random.nextLong(10 * 60_000L));
+        }
+
+        advisor = new RepositioningAdvisor(heatmap, index);
+        ReflectionTestUtils.setField(advisor, "maxSuggestions", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<RepositioningAdvisor.Suggestion> solve() {
+        return advisor.suggest(NOW);
+    }
+}
@@ -0,0 +1,84 @@
+package com.foodDelivery.benchmark;
+
+import com.foodDelivery.route.DistanceMatrix;
+import com.foodDelivery.route.RouteSequencer;
+import com.foodDelivery.route.Stop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of re-sequencing one agent's trip on a location ping, for trips of 2 to 8 stops (one to four
+ * deliveries not yet picked up). {@code sequenceCached} is the per-ping path with the trip's
+ * distance matrix already built; {@code sequenceWithMatrixBuild} also builds the matrix, as happens
+ * once after a new delivery joins the trip.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=RouteSequencerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteSequencerBenchmark {
+
+    private static final int TRIPS = 256;
+
+    @Param({"2", "4", "6", "8"})
+    public int stops;
+
+    private List<List<Stop>> trips;
+    private DistanceMatrix[] matrices;
+    private double[] agentLat;
+    private double[] agentLon;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        trips = new ArrayList<>(TRIPS);
+        matrices = new DistanceMatrix[TRIPS];
+        agentLat = new double[TRIPS];
+        agentLon = new double[TRIPS];
+        for (int t = 0; t < TRIPS; t++) {
+            List<Stop> route = new ArrayList<>(stops);
+            for (long id = 1; id <= stops / 2; id++) {
+                route.add(Stop.pickup(id, random.nextDouble(18.48, 18.56), random.nextDouble(73.80, 73.90)));
+                route.add(Stop.drop(id, random.nextDouble(18.40, 18.65), random.nextDouble(73.70, 74.00)));
+            }
+            trips.add(route);
+            matrices[t] = DistanceMatrix.of(route);
+            agentLat[t] = random.nextDouble(18.40, 18.65);
+            agentLon[t] = random.nextDouble(73.70, 74.00);
+        }
+    }
+
+    @Benchmark
+    public RouteSequencer.Sequence sequenceCached() {
+        int t = next++ & (TRIPS - 1);
+        return RouteSequencer.sequence(agentLat[t], agentLon[t], trips.get(t), matrices[t]);
+    }
+
+    @Benchmark
+    public RouteSequencer.Sequence sequenceWithMatrixBuild() {
+        int t = next++ & (TRIPS - 1);
+        List<Stop> route = trips.get(t);
+        return RouteSequencer.sequence(agentLat[t], agentLon[t], route, DistanceMatrix.of(route));
+    }
+}
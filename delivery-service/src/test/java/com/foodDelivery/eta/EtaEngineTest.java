@@ -0,0 +1,127 @@
+package com.foodDelivery.eta;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.GeoDistance;
+import com.foodDelivery.repository.DeliveryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EtaEngineTest {
+
+    private static final double PICKUP_LAT = 18.5204;
+    private static final double PICKUP_LON = 73.8567;
+    private static final double DROP_LAT = 18.5600;
+    private static final double DROP_LON = 73.9000;
+
+    private DeliveryRepository deliveryRepository;
+    private EtaEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        deliveryRepository = mock(DeliveryRepository.class);
+        engine = new EtaEngine(deliveryRepository);
+    }
+
+    @Test
+    void testEstimateMillis_IncludesBothLegsAndHandoverBeforePickup() {
+        double km = GeoDistance.haversineKm(PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON);
+        // 25 km/h nominal bike speed, 1.3 road factor, 4 minutes at the restaurant
+        long expected = (long) (km * 1.3 / 25 * 3_600_000 + 4 * 60_000);
+
+        long eta = engine.estimateMillis(DeliveryAgent.VehicleType.BIKE, PICKUP_LAT, PICKUP_LON,
+                PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, false);
+
+        assertEquals(expected, eta, 1);
+    }
+
+    @Test
+    void testEstimateMillis_SlowerVehicleTakesLonger() {
+        long bike = engine.estimateMillis(DeliveryAgent.VehicleType.BIKE, PICKUP_LAT, PICKUP_LON,
+                PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, true);
+        long bicycle = engine.estimateMillis(DeliveryAgent.VehicleType.BICYCLE, PICKUP_LAT, PICKUP_LON,
+                PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, true);
+
+        assertTrue(bicycle > bike);
+    }
+
+    @Test
+    void testOnPing_LearnsZoneSpeedFromBreadcrumbs() {
+        engine.track(1L, DeliveryAgent.VehicleType.BIKE, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, 0);
+        double nominal = engine.speedKmh(DeliveryAgent.VehicleType.BIKE, PICKUP_LAT, PICKUP_LON);
+
+        // Crawl at about 10 km/h: 0.0003 degrees of latitude (~33 m) every 12 seconds
+        long time = 1_000_000;
+        for (int i = 0; i < 40; i++) {
+            engine.onPing(1L, PICKUP_LAT + i * 0.0003, PICKUP_LON, time + i * 12_000L);
+        }
+
+        double learned = engine.speedKmh(DeliveryAgent.VehicleType.BIKE, PICKUP_LAT, PICKUP_LON);
+        assertEquals(25, nominal, 1e-9);
+        assertEquals(10, learned, 1.0);
+        // The zone ratio applies to every vehicle type
+        assertEquals(4.8, engine.speedKmh(DeliveryAgent.VehicleType.BICYCLE, PICKUP_LAT, PICKUP_LON), 0.5);
+    }
+
+    @Test
+    void testOnPing_EmitsOnlyWhenEtaShiftsPastThreshold() {
+        long now = 1_000_000;
+        long initial = now + engine.estimateMillis(DeliveryAgent.VehicleType.BIKE, PICKUP_LAT, PICKUP_LON,
+                PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, false);
+        engine.track(1L, DeliveryAgent.VehicleType.BIKE, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, initial);
+
+        // Same place one second later: well within the threshold
+        assertTrue(engine.onPing(1L, PICKUP_LAT, PICKUP_LON, now + 1_000).isEmpty());
+
+        // Ten minutes later without having moved: the ETA slipped by ten minutes
+        OptionalLong slipped = engine.onPing(1L, PICKUP_LAT, PICKUP_LON, now + 600_000);
+        assertTrue(slipped.isPresent());
+        assertEquals(initial + 600_000, slipped.getAsLong(), 1);
+    }
+
+    @Test
+    void testOnStatusChanged_PickupDropsFirstLegAndFinalStatusStopsTracking() {
+        engine.track(1L, DeliveryAgent.VehicleType.CAR, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, 0);
+        engine.onPing(1L, PICKUP_LAT, PICKUP_LON, 1_000);
+
+        engine.onStatusChanged(1L, Delivery.DeliveryStatus.PICKED_UP);
+        long atPickup = engine.onPing(1L, PICKUP_LAT, PICKUP_LON, 1_000).orElseThrow();
+
+        long expected = 1_000 + engine.estimateMillis(DeliveryAgent.VehicleType.CAR, PICKUP_LAT, PICKUP_LON,
+                PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, true);
+        assertEquals(expected, atPickup);
+
+        engine.onStatusChanged(1L, Delivery.DeliveryStatus.DELIVERED);
+        assertEquals(0, engine.trackedDeliveries());
+        assertTrue(engine.onPing(1L, DROP_LAT, DROP_LON, 2_000).isEmpty());
+    }
+
+    @Test
+    void testLoad_FollowsOpenDeliveriesFromTheirStoredEta() {
+        long now = 1_000_000;
+        LocalDateTime stored = LocalDateTime.ofInstant(Instant.ofEpochMilli(now + 1_200_000), ZoneId.systemDefault());
+        when(deliveryRepository.findOpenEtaDeliveries(anyList())).thenReturn(List.of(
+                new Object[]{5L, DeliveryAgent.VehicleType.CAR, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON,
+                        Delivery.DeliveryStatus.IN_TRANSIT, stored},
+                new Object[]{6L, DeliveryAgent.VehicleType.BIKE, null, null, DROP_LAT, DROP_LON,
+                        Delivery.DeliveryStatus.ASSIGNED, stored}));
+
+        engine.load();
+
+        assertEquals(1, engine.trackedDeliveries());
+        // Already on board and at the drop: only the stored ETA stands between it and now
+        assertEquals(now, engine.onPing(5L, DROP_LAT, DROP_LON, now).orElseThrow());
+        assertTrue(engine.onPing(6L, DROP_LAT, DROP_LON, now).isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.foodDelivery.geo;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.entity.DeliveryAgent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentSpatialIndexTest {
+
+    private AgentSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AgentSpatialIndex(0.01);
+    }
+
+    @Test
+    void testNearest_MatchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(7);
+        List<double[]> points = new ArrayList<>();
+        for (long id = 0; id < 2000; id++) {
+            double lat = random.nextDouble(18.40, 18.65);
+            double lon = random.nextDouble(73.70, 74.00);
+            points.add(new double[]{id, lat, lon});
+            index.upsert(id, lat, lon);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double lat = random.nextDouble(18.40, 18.65);
+            double lon = random.nextDouble(73.70, 74.00);
+
+            List<Long> expected = points.stream()
+                    .sorted(Comparator.comparingDouble(p -> GeoDistance.haversineKm(lat, lon, p[1], p[2])))
+                    .limit(5)
+                    .map(p -> (long) p[0])
+                    .toList();
+            List<Long> actual = index.nearest(lat, lon, 5, 50).stream()
+                    .map(AgentSpatialIndex.Neighbor::agentId)
+                    .toList();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testNearest_PrimitiveResultMatchesNeighbors() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (long id = 0; id < 500; id++) {
+            index.upsert(id, random.nextDouble(18.40, 18.65), random.nextDouble(73.70, 74.00));
+        }
+        NearestAgents nearest = new NearestAgents(5);
+
+        int found = index.nearest(18.52, 73.85, 50, nearest);
+
+        List<AgentSpatialIndex.Neighbor> expected = index.nearest(18.52, 73.85, 5, 50);
+        assertEquals(expected.size(), found);
+        for (int i = 0; i < found; i++) {
+            assertEquals(expected.get(i).agentId(), nearest.agentId(i));
+            assertEquals(expected.get(i).distanceKm(), nearest.distanceKm(i));
+        }
+    }
+
+    @Test
+    void testNearest_RespectsMaxRadius() {
+        index.upsert(1L, 18.5204, 73.8567);
+        index.upsert(2L, 18.7204, 73.8567); // ~22 km north
+
+        List<AgentSpatialIndex.Neighbor> result = index.nearest(18.5204, 73.8567, 5, 10);
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).agentId());
+    }
+
+    @Test
+    void testNearest_FindsSparseAgentFarAway() {
+        index.upsert(1L, 19.0760, 72.8777); // Mumbai, ~120 km from Pune
+
+        List<AgentSpatialIndex.Neighbor> result = index.nearest(18.5204, 73.8567, 1, 500);
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).agentId());
+    }
+
+    @Test
+    void testUpsert_MovesAgentBetweenCells() {
+        index.upsert(1L, 18.5204, 73.8567);
+        index.upsert(1L, 18.6204, 73.8567);
+
+        assertTrue(index.withinRadius(18.5204, 73.8567, 1).isEmpty());
+        assertEquals(1, index.withinRadius(18.6204, 73.8567, 1).size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testSync_RemovesAgentsThatAreNotAvailable() {
+        DeliveryAgent agent = new DeliveryAgent();
+        agent.setId(1L);
+        agent.setCurrentLatitude(18.5204);
+        agent.setCurrentLongitude(73.8567);
+        agent.setStatus(DeliveryAgent.AgentStatus.AVAILABLE);
+        index.sync(AgentState.of(agent));
+        assertTrue(index.contains(1L));
+
+        agent.setStatus(DeliveryAgent.AgentStatus.BUSY);
+        index.sync(AgentState.of(agent));
+
+        assertFalse(index.contains(1L));
+        assertTrue(index.nearest(18.5204, 73.8567, 1, 10).isEmpty());
+    }
+
+    @Test
+    void testWithinRadius_SortedByDistance() {
+        index.upsert(1L, 18.5300, 73.8567);
+        index.upsert(2L, 18.5210, 73.8567);
+        index.upsert(3L, 18.5250, 73.8567);
+
+        List<Long> ids = index.withinRadius(18.5204, 73.8567, 5).stream()
+                .map(AgentSpatialIndex.Neighbor::agentId)
+                .toList();
+
+        assertEquals(List.of(2L, 3L, 1L), ids);
+    }
+}
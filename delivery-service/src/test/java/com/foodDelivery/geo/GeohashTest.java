@@ -0,0 +1,40 @@
+package com.foodDelivery.geo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    void testEncode_MatchesKnownGeohash() {
+        // Reference value of the geohash algorithm
+        assertEquals("ezs42", Geohash.toBase32(Geohash.encode(42.6, -5.6, 5), 5));
+        assertEquals("tek", Geohash.toBase32(Geohash.encode(18.5204, 73.8567, 3), 3));
+    }
+
+    @Test
+    void testCenter_LiesInsideItsOwnCell() {
+        long cell = Geohash.encode(18.5204, 73.8567, 6);
+        double[] center = Geohash.center(cell, 6);
+
+        assertEquals(cell, Geohash.encode(center[0], center[1], 6));
+        // A precision-6 cell is about 1.2 km x 0.6 km
+        assertTrue(GeoDistance.haversineKm(18.5204, 73.8567, center[0], center[1]) < 0.7);
+    }
+
+    @Test
+    void testEncode_NearbyPointsShareCoarserCell() {
+        long a = Geohash.encode(18.5204, 73.8567, 5);
+        long b = Geohash.encode(18.5210, 73.8570, 5);
+
+        assertEquals(a, b);
+        assertNotEquals(Geohash.encode(18.5204, 73.8567, 5), Geohash.encode(19.0760, 72.8777, 5));
+    }
+
+    @Test
+    void testEncode_RejectsBadPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.toBase32(0, 13));
+    }
+}
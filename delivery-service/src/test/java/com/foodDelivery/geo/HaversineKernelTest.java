@@ -0,0 +1,86 @@
+package com.foodDelivery.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HaversineKernelTest {
+
+    @Test
+    void testDistancesKm_MatchesHaversine() {
+        SplittableRandom random = new SplittableRandom(11);
+        int n = 500;
+        long[] ids = new long[n];
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            lat[i] = random.nextDouble(-80, 80);
+            lon[i] = random.nextDouble(-180, 180);
+        }
+        CoordinateBlock block = CoordinateBlock.of(ids, lat, lon);
+        double[] km = new double[n];
+
+        HaversineKernel.distancesKm(HaversineKernel.Origin.of(18.5204, 73.8567), block, km);
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(GeoDistance.haversineKm(18.5204, 73.8567, lat[i], lon[i]), km[i], 1e-6);
+        }
+    }
+
+    @Test
+    void testLowerBound_NeverExceedsTerm() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 100_000; i++) {
+            HaversineKernel.Origin origin = HaversineKernel.Origin.of(random.nextDouble(-89, 89),
+                    random.nextDouble(-180, 180));
+            double latRad = Math.toRadians(random.nextDouble(-89, 89));
+            double lonRad = Math.toRadians(random.nextDouble(-180, 180));
+            double cosLat = Math.cos(latRad);
+
+            assertTrue(HaversineKernel.lowerBound(origin, latRad, lonRad, cosLat)
+                    <= HaversineKernel.term(origin, latRad, lonRad, cosLat));
+        }
+    }
+
+    @Test
+    void testKmToTerm_InvertsTermToKm() {
+        for (double km : new double[]{0, 0.05, 1, 25, 500, 10_000}) {
+            assertEquals(km, HaversineKernel.termToKm(HaversineKernel.kmToTerm(km)), 1e-6);
+        }
+        assertEquals(1, HaversineKernel.kmToTerm(30_000));
+    }
+
+    @Test
+    void testScan_KeepsNearestWithinRadius() {
+        CoordinateBlock block = CoordinateBlock.of(new long[]{1, 2, 3, 4},
+                new double[]{18.53, 18.60, 18.5204, 18.55}, new double[]{73.8567, 73.8567, 73.86, 73.8567});
+        NearestAgents nearest = new NearestAgents(2);
+
+        HaversineKernel.scan(HaversineKernel.Origin.of(18.5204, 73.8567), block, HaversineKernel.kmToTerm(5), nearest);
+        nearest.sort();
+
+        assertEquals(2, nearest.size());
+        assertEquals(3L, nearest.agentId(0));
+        assertEquals(1L, nearest.agentId(1));
+        assertEquals(GeoDistance.haversineKm(18.5204, 73.8567, 18.53, 73.8567), nearest.distanceKm(1), 1e-9);
+    }
+
+    @Test
+    void testBlock_WithAndWithoutKeepOriginalUntouched() {
+        CoordinateBlock block = CoordinateBlock.EMPTY.with(1, 18.0, 73.0).with(2, 18.1, 73.1).with(3, 18.2, 73.2);
+
+        CoordinateBlock moved = block.with(2, 19.0, 74.0);
+        CoordinateBlock removed = block.without(1);
+
+        assertEquals(3, moved.size());
+        assertEquals(19.0, moved.latitude(moved.indexOf(2)));
+        assertEquals(18.1, block.latitude(block.indexOf(2)));
+        assertEquals(2, removed.size());
+        assertEquals(-1, removed.indexOf(1));
+        assertEquals(18.2, removed.latitude(removed.indexOf(3)));
+        assertSame(CoordinateBlock.EMPTY, CoordinateBlock.EMPTY.with(1, 0, 0).without(1));
+    }
+}
@@ -0,0 +1,171 @@
+package com.foodDelivery.geofence;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.repository.DeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GeofenceEngineTest {
+
+    private static final double PICKUP_LAT = 18.5000;
+    private static final double PICKUP_LON = 73.8500;
+    private static final double DROP_LAT = 18.5200;
+    private static final double DROP_LON = 73.8700;
+
+    // North of a fence by about 33 m (inside), 100 m (between the radii) and 220 m (outside)
+    private static final double INSIDE = 0.0003;
+    private static final double BETWEEN = 0.0009;
+    private static final double OUTSIDE = 0.0020;
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private DeliveryRepository deliveryRepository;
+    private GeofenceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        deliveryRepository = mock(DeliveryRepository.class);
+        engine = new GeofenceEngine(deliveryRepository, 75, 120, 30_000, 15_000, new SimpleMeterRegistry());
+        engine.track(1L, 7L, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, false);
+    }
+
+    @Test
+    void testOnAgentPing_ArrivesOnlyAfterDwell() {
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT + INSIDE, PICKUP_LON, T0));
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT + INSIDE, PICKUP_LON, T0 + 29_000));
+        assertEquals(1, engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0 + 30_000));
+        // Fires once
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0 + 60_000));
+
+        List<GeofenceEngine.Transition> fired = engine.drain(10);
+        assertEquals(List.of(new GeofenceEngine.Transition(1L, 7L, GeofenceEngine.Fence.PICKUP,
+                GeofenceEngine.Kind.ARRIVED, T0 + 30_000)), fired);
+        assertEquals(0, engine.queued());
+    }
+
+    @Test
+    void testOnAgentPing_JitterBetweenRadiiKeepsDwellGoing() {
+        engine.onAgentPing(7L, PICKUP_LAT + INSIDE, PICKUP_LON, T0);
+        engine.onAgentPing(7L, PICKUP_LAT + BETWEEN, PICKUP_LON, T0 + 10_000);
+        assertEquals(1, engine.onAgentPing(7L, PICKUP_LAT + INSIDE, PICKUP_LON, T0 + 30_000));
+    }
+
+    @Test
+    void testOnAgentPing_LeavingBeforeDwellRestartsIt() {
+        engine.onAgentPing(7L, PICKUP_LAT + INSIDE, PICKUP_LON, T0);
+        engine.onAgentPing(7L, PICKUP_LAT + OUTSIDE, PICKUP_LON, T0 + 10_000);
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT + INSIDE, PICKUP_LON, T0 + 30_000));
+        assertEquals(1, engine.onAgentPing(7L, PICKUP_LAT + INSIDE, PICKUP_LON, T0 + 60_000));
+    }
+
+    @Test
+    void testOnAgentPing_DepartsAfterStayingOutside() {
+        arriveAtPickup();
+
+        engine.onAgentPing(7L, PICKUP_LAT + OUTSIDE, PICKUP_LON, T0 + 40_000);
+        // Back within the exit radius: the departure is called off
+        engine.onAgentPing(7L, PICKUP_LAT + BETWEEN, PICKUP_LON, T0 + 45_000);
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT + OUTSIDE, PICKUP_LON, T0 + 55_000));
+        assertEquals(1, engine.onAgentPing(7L, PICKUP_LAT + OUTSIDE, PICKUP_LON, T0 + 70_000));
+
+        GeofenceEngine.Transition departure = engine.drain(10).get(0);
+        assertEquals(GeofenceEngine.Fence.PICKUP, departure.fence());
+        assertEquals(GeofenceEngine.Kind.DEPARTED, departure.kind());
+    }
+
+    @Test
+    void testOnAgentPing_NoDepartureWithoutArrival() {
+        engine.onAgentPing(7L, PICKUP_LAT + OUTSIDE, PICKUP_LON, T0);
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT + OUTSIDE, PICKUP_LON, T0 + 60_000));
+    }
+
+    @Test
+    void testOnStatusChanged_PickedUpMovesFenceToDrop() {
+        engine.onStatusChanged(1L, Delivery.DeliveryStatus.PICKED_UP);
+
+        // The pickup no longer counts
+        engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0);
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0 + 60_000));
+
+        engine.onAgentPing(7L, DROP_LAT + INSIDE, DROP_LON, T0 + 120_000);
+        assertEquals(1, engine.onAgentPing(7L, DROP_LAT, DROP_LON, T0 + 150_000));
+        GeofenceEngine.Transition arrival = engine.drain(10).get(0);
+        assertEquals(GeofenceEngine.Fence.DROP, arrival.fence());
+        assertEquals(GeofenceEngine.Kind.ARRIVED, arrival.kind());
+    }
+
+    @Test
+    void testOnStatusChanged_FinishedDeliveryIsNoLongerWatched() {
+        engine.onStatusChanged(1L, Delivery.DeliveryStatus.CANCELLED);
+
+        assertEquals(0, engine.watched());
+        engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0);
+        assertEquals(0, engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0 + 60_000));
+    }
+
+    @Test
+    void testOnAgentPing_ChecksEveryDeliveryOfTheAgent() {
+        engine.track(2L, 7L, DROP_LAT, DROP_LON, PICKUP_LAT, PICKUP_LON, false);
+        engine.track(3L, 8L, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, false);
+
+        engine.onAgentPing(7L, DROP_LAT, DROP_LON, T0);
+        assertEquals(1, engine.onAgentPing(7L, DROP_LAT, DROP_LON, T0 + 30_000));
+        assertEquals(2L, engine.drain(10).get(0).deliveryId());
+    }
+
+    @Test
+    void testOnDeliveryPing_ChecksThatDeliveryOnly() {
+        engine.onDeliveryPing(1L, PICKUP_LAT, PICKUP_LON, T0);
+        assertEquals(1, engine.onDeliveryPing(1L, PICKUP_LAT, PICKUP_LON, T0 + 30_000));
+        assertEquals(0, engine.onDeliveryPing(99L, PICKUP_LAT, PICKUP_LON, T0 + 30_000));
+    }
+
+    @Test
+    void testDrain_TakesAtMostMaxOldestFirst() {
+        engine.track(2L, 8L, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, false);
+        engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0);
+        engine.onAgentPing(8L, PICKUP_LAT, PICKUP_LON, T0);
+        engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0 + 30_000);
+        engine.onAgentPing(8L, PICKUP_LAT, PICKUP_LON, T0 + 31_000);
+
+        assertEquals(1L, engine.drain(1).get(0).deliveryId());
+        assertEquals(1, engine.queued());
+        assertEquals(2L, engine.drain(5).get(0).deliveryId());
+    }
+
+    @Test
+    void testLoad_WatchesOpenDeliveriesAtTheirLiveFence() {
+        when(deliveryRepository.findOpenTripDeliveries(anyList())).thenReturn(List.of(
+                new Object[]{5L, 9L, 3L, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, Delivery.DeliveryStatus.IN_TRANSIT},
+                new Object[]{6L, 9L, 3L, null, null, DROP_LAT, DROP_LON, Delivery.DeliveryStatus.ASSIGNED}));
+
+        engine.load();
+
+        assertEquals(2, engine.watched());
+        engine.onAgentPing(9L, DROP_LAT, DROP_LON, T0);
+        engine.onAgentPing(9L, DROP_LAT, DROP_LON, T0 + 30_000);
+        GeofenceEngine.Transition arrival = engine.drain(10).get(0);
+        assertEquals(5L, arrival.deliveryId());
+        assertEquals(GeofenceEngine.Fence.DROP, arrival.fence());
+    }
+
+    @Test
+    void testConstructor_RejectsExitRadiusInsideRadius() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GeofenceEngine(deliveryRepository, 100, 50, 0, 0, new SimpleMeterRegistry()));
+    }
+
+    private void arriveAtPickup() {
+        engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0);
+        engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, T0 + 30_000);
+        engine.drain(10);
+    }
+}
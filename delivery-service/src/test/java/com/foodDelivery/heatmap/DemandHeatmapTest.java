@@ -0,0 +1,119 @@
+package com.foodDelivery.heatmap;
+
+import com.foodDelivery.entity.Delivery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandHeatmapTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long T0 = 1_000 * MINUTE;
+
+    private DemandHeatmap heatmap;
+
+    @BeforeEach
+    void setUp() {
+        heatmap = new DemandHeatmap(6, 60, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testOrderLifecycle_MovesCellLevels() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, T0);
+        heatmap.orderConfirmed(2L, 18.5205, 73.8568, T0);
+        assertCell(2, 0, 0);
+
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.ASSIGNED, T0 + 30 * MINUTE, T0 + MINUTE);
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.PICKED_UP, T0 + 30 * MINUTE, T0 + 2 * MINUTE);
+        DemandHeatmap.Cell cell = assertCell(1, 1, 0);
+        assertEquals(2, cell.recentPending());
+        assertEquals(1, cell.recentAssigned());
+
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.DELIVERED, null, T0 + 10 * MINUTE);
+        heatmap.orderCancelled(2L, T0 + 10 * MINUTE);
+        cell = assertCell(0, 0, 0);
+        assertEquals(0, cell.recentLate());
+    }
+
+    @Test
+    void testDeliveryEventBeforeOrderEvent_CountedOnceCellIsKnown() {
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.ASSIGNED, null, T0);
+        assertTrue(heatmap.snapshot(15, T0).isEmpty());
+
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, T0);
+        assertCell(0, 1, 0);
+
+        // Redelivered order event
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, T0);
+        assertCell(0, 1, 0);
+    }
+
+    @Test
+    void testSweep_MarksOverdueDeliveriesLate() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, T0);
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.ASSIGNED, T0 + 20 * MINUTE, T0);
+
+        assertEquals(0, heatmap.sweep(T0 + 10 * MINUTE));
+        assertEquals(1, heatmap.sweep(T0 + 21 * MINUTE));
+        assertEquals(0, heatmap.sweep(T0 + 22 * MINUTE));
+        DemandHeatmap.Cell cell = assertCell(T0 + 22 * MINUTE, 0, 1, 1);
+        assertEquals(1, cell.recentLate());
+
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.DELIVERED, null, T0 + 25 * MINUTE);
+        cell = assertCell(T0 + 25 * MINUTE, 0, 0, 0);
+        // Counted once, when it became late
+        assertEquals(1, cell.recentLate());
+    }
+
+    @Test
+    void testDeliveredAfterEta_CountedLate() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, T0);
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.ASSIGNED, T0 + 5 * MINUTE, T0);
+        heatmap.deliveryStatusChanged(1L, Delivery.DeliveryStatus.DELIVERED, null, T0 + 6 * MINUTE);
+
+        assertEquals(1, assertCell(0, 0, 0).recentLate());
+    }
+
+    @Test
+    void testWindow_OldCountsAgeOutAndIdleCellsAreDropped() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, T0);
+        heatmap.orderCancelled(1L, T0);
+
+        assertEquals(1, heatmap.snapshot(15, T0 + 14 * MINUTE).get(0).recentPending());
+        assertEquals(0, heatmap.snapshot(15, T0 + 15 * MINUTE).get(0).recentPending());
+
+        heatmap.sweep(T0 + 59 * MINUTE);
+        assertEquals(1, heatmap.snapshot(60, T0 + 59 * MINUTE).size());
+        heatmap.sweep(T0 + 60 * MINUTE);
+        assertTrue(heatmap.snapshot(60, T0 + 60 * MINUTE).isEmpty());
+    }
+
+    @Test
+    void testSweep_ForgetsOrdersThatStoppedMoving() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, T0);
+
+        heatmap.sweep(T0 + 239 * MINUTE);
+        assertCell(1, 0, 0);
+        heatmap.sweep(T0 + 241 * MINUTE);
+        assertTrue(heatmap.snapshot(60, T0 + 241 * MINUTE).isEmpty());
+    }
+
+    private DemandHeatmap.Cell assertCell(int pending, int assigned, int late) {
+        return assertCell(T0 + 10 * MINUTE, pending, assigned, late);
+    }
+
+    private DemandHeatmap.Cell assertCell(long nowMillis, int pending, int assigned, int late) {
+        List<DemandHeatmap.Cell> cells = heatmap.snapshot(15, nowMillis);
+        assertEquals(1, cells.size());
+        DemandHeatmap.Cell cell = cells.get(0);
+        assertEquals("tek", cell.geohash().substring(0, 3));
+        assertEquals(pending, cell.pending());
+        assertEquals(assigned, cell.assigned());
+        assertEquals(late, cell.late());
+        return cell;
+    }
+}
@@ -0,0 +1,105 @@
+package com.foodDelivery.heatmap;
+
+import com.foodDelivery.geo.AgentSpatialIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositioningAdvisorTest {
+
+    private static final long NOW = 1_000 * 60_000L;
+
+    private DemandHeatmap heatmap;
+    private AgentSpatialIndex index;
+    private RepositioningAdvisor advisor;
+
+    @BeforeEach
+    void setUp() {
+        heatmap = new DemandHeatmap(6, 60, new SimpleMeterRegistry());
+        index = new AgentSpatialIndex(0.01);
+        advisor = new RepositioningAdvisor(heatmap, index);
+    }
+
+    @Test
+    void testSuggest_PullsNearestIdleAgentsToShortCell() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, NOW);
+        heatmap.orderConfirmed(2L, 18.5204, 73.8567, NOW);
+        heatmap.orderCancelled(2L, NOW);
+        // Pending 1 plus 2 recent: three agents wanted, one already there
+        index.upsert(10L, 18.5205, 73.8568);
+        index.upsert(11L, 18.5400, 73.8567);
+        index.upsert(12L, 18.5500, 73.8567);
+        index.upsert(13L, 18.5600, 73.8567);
+        index.upsert(14L, 19.0760, 72.8777);
+
+        List<RepositioningAdvisor.Suggestion> suggestions = advisor.suggest(NOW);
+
+        assertEquals(List.of(11L, 12L), suggestions.stream().map(RepositioningAdvisor.Suggestion::agentId).toList());
+        assertEquals(2, suggestions.get(0).deficit());
+    }
+
+    @Test
+    void testSuggest_LeavesAgentsCoveringAnotherShortCell() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, NOW);
+        heatmap.orderConfirmed(2L, 18.5204, 73.8567, NOW);
+        heatmap.orderConfirmed(3L, 18.5504, 73.8567, NOW);
+        // Covers the second cell, which is short itself
+        index.upsert(10L, 18.5504, 73.8567);
+
+        assertTrue(advisor.suggest(NOW).isEmpty());
+    }
+
+    @Test
+    void testSuggest_DonorZoneKeepsAgentsForItsOwnDemand() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, NOW);
+        heatmap.orderConfirmed(2L, 18.5204, 73.8567, NOW);
+        heatmap.orderConfirmed(3L, 18.5404, 73.8567, NOW);
+        // Four idle agents where two are wanted: two to spare, the ones nearest the short cell go
+        index.upsert(10L, 18.5404, 73.8567);
+        index.upsert(11L, 18.5402, 73.8567);
+        index.upsert(12L, 18.5410, 73.8567);
+        index.upsert(13L, 18.5420, 73.8567);
+
+        List<RepositioningAdvisor.Suggestion> suggestions = advisor.suggest(NOW);
+
+        assertEquals(2, suggestions.size());
+        assertEquals(List.of(11L, 10L), suggestions.stream().map(RepositioningAdvisor.Suggestion::agentId).toList());
+        assertTrue(suggestions.stream().allMatch(s -> s.geohash().equals(suggestions.get(0).geohash())));
+        assertEquals(4, suggestions.get(0).deficit());
+    }
+
+    @Test
+    void testSuggest_WorstZoneServedFirstAndNoAgentTwice() {
+        for (long id = 1; id <= 3; id++) {
+            heatmap.orderConfirmed(id, 18.5204, 73.8567, NOW);
+        }
+        heatmap.orderConfirmed(4L, 18.5304, 73.8567, NOW);
+        index.upsert(10L, 18.5254, 73.8567);
+
+        List<RepositioningAdvisor.Suggestion> suggestions = advisor.suggest(NOW);
+
+        assertEquals(1, suggestions.size());
+        assertEquals(6, suggestions.get(0).deficit());
+    }
+
+    @Test
+    void testSuggest_NoAgentFurtherThanMaxMove() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, NOW);
+        index.upsert(10L, 18.6204, 73.8567);
+
+        assertTrue(advisor.suggest(NOW).isEmpty());
+    }
+
+    @Test
+    void testSuggest_NothingWhenSupplyMeetsDemand() {
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, NOW);
+        index.upsert(10L, 18.5205, 73.8568);
+        index.upsert(11L, 18.5206, 73.8569);
+
+        assertTrue(advisor.suggest(NOW).isEmpty());
+    }
+}
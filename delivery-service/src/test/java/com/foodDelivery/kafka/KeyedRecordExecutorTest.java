@@ -0,0 +1,117 @@
+package com.foodDelivery.kafka;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedRecordExecutorTest {
+
+    private KeyedRecordExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testSubmit_KeepsOrderWithinKey() throws Exception {
+        executor = new KeyedRecordExecutor(64);
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            String key = "order-" + (i % 10);
+            int sequence = i;
+            futures.add(executor.submit(key, () -> {
+                seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                Thread.yield();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(10, seen.size());
+        seen.values().forEach(list -> {
+            assertEquals(100, list.size());
+            for (int i = 1; i < list.size(); i++) {
+                assertTrue(list.get(i - 1) < list.get(i));
+            }
+        });
+        assertEquals(0, executor.inFlight());
+        assertEquals(0, executor.activeKeys());
+    }
+
+    @Test
+    void testSubmit_RunsDifferentKeysInParallel() throws Exception {
+        executor = new KeyedRecordExecutor(64);
+        // Every task waits for all others to start; only possible if they run concurrently
+        CountDownLatch allStarted = new CountDownLatch(8);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit("order-" + i, () -> {
+                allStarted.countDown();
+                try {
+                    assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testSubmit_FailedTaskDoesNotBlockItsKey() throws Exception {
+        executor = new KeyedRecordExecutor(4);
+        CompletableFuture<Void> failed = executor.submit("order-1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        AtomicInteger ran = new AtomicInteger();
+        CompletableFuture<Void> next = executor.submit("order-1", ran::incrementAndGet);
+
+        next.get(5, TimeUnit.SECONDS);
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(1, ran.get());
+    }
+
+    @Test
+    void testSubmit_BlocksWhenMaxInFlightReached() throws Exception {
+        executor = new KeyedRecordExecutor(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.submit("a", blocked);
+        executor.submit("b", blocked);
+
+        CompletableFuture<CompletableFuture<Void>> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return executor.submit("c", () -> { });
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+        assertEquals(2, executor.inFlight());
+
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+    }
+}
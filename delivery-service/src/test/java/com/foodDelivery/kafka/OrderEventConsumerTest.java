@@ -0,0 +1,133 @@
+package com.foodDelivery.kafka;
+
+import com.foodDelivery.config.KafkaTopicConfig;
+import com.foodDelivery.dto.DeliveryRequest;
+import com.foodDelivery.dto.DeliveryResponse;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.service.DeliveryService;
+import com.fooddelivery.events.KafkaTopics;
+import com.fooddelivery.events.OrderEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderEventConsumerTest {
+
+    private DeliveryService deliveryService;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private KeyedRecordExecutor executor;
+    private OrderEventConsumer consumer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        deliveryService = mock(DeliveryService.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(String.class), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        executor = new KeyedRecordExecutor(16);
+        consumer = new OrderEventConsumer(deliveryService, executor, kafkaTemplate, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testConsumeOrderEvent_AcknowledgesAfterHandling() throws Exception {
+        DeliveryResponse response = new DeliveryResponse();
+        response.setId(7L);
+        when(deliveryService.createDelivery(any(DeliveryRequest.class))).thenReturn(response);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.consumeOrderEvent(record(confirmed(1L)), ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        verify(deliveryService).createDelivery(any(DeliveryRequest.class));
+    }
+
+    @Test
+    void testProcess_RetriesTransientFailureThenDeadLetters() {
+        when(deliveryService.createDelivery(any(DeliveryRequest.class)))
+                .thenThrow(new IllegalStateException("database down"));
+        ConsumerRecord<String, OrderEvent> record = record(confirmed(2L));
+
+        assertTrue(consumer.process(record));
+
+        verify(deliveryService, times(3)).createDelivery(any(DeliveryRequest.class));
+        verify(kafkaTemplate).send(eq(KafkaTopicConfig.ORDER_EVENTS_DLT_TOPIC), eq("2"), eq(record.value()));
+    }
+
+    @Test
+    void testConsumeOrderEvent_LeavesRecordUnacknowledgedWhenDeadLetterFails() throws Exception {
+        when(deliveryService.createDelivery(any(DeliveryRequest.class)))
+                .thenThrow(new IllegalStateException("database down"));
+        when(kafkaTemplate.send(any(String.class), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.consumeOrderEvent(record(confirmed(6L)), ack);
+
+        // Every dead-letter attempt was awaited and failed
+        verify(kafkaTemplate, timeout(5000).times(3)).send(any(String.class), any(), any());
+        executor.close();
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void testProcess_SkipsDuplicateWithoutRetry() {
+        when(deliveryService.createDelivery(any(DeliveryRequest.class)))
+                .thenThrow(new IllegalArgumentException("Delivery already exists for order: 3"));
+
+        consumer.process(record(confirmed(3L)));
+
+        verify(deliveryService, times(1)).createDelivery(any(DeliveryRequest.class));
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void testConsumeOrderEvent_AcknowledgesEmptyRecordImmediately() throws Exception {
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.consumeOrderEvent(new ConsumerRecord<>(KafkaTopics.ORDER_EVENTS, 0, 0L, "4", null), ack);
+
+        verify(ack).acknowledge();
+        verifyNoInteractions(deliveryService);
+    }
+
+    @Test
+    void testProcess_ReadyForPickupExpeditesAssignment() {
+        OrderEvent ready = new OrderEvent();
+        ready.setOrderId(5L);
+        ready.setEventType("ORDER_READY_FOR_PICKUP");
+        when(deliveryService.expediteAssignment(5L)).thenReturn(Delivery.DeliveryStatus.PENDING);
+
+        consumer.process(record(ready));
+
+        verify(deliveryService).expediteAssignment(5L);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static OrderEvent confirmed(Long orderId) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(orderId);
+        event.setEventType("ORDER_CONFIRMED");
+        event.setDeliveryAddress("221B Baker Street");
+        return event;
+    }
+
+    private static ConsumerRecord<String, OrderEvent> record(OrderEvent event) {
+        return new ConsumerRecord<>(KafkaTopics.ORDER_EVENTS, 0, 0L, String.valueOf(event.getOrderId()), event);
+    }
+}
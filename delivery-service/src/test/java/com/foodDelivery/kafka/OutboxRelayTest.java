@@ -0,0 +1,150 @@
+package com.foodDelivery.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foodDelivery.entity.OutboxDeadLetter;
+import com.foodDelivery.entity.OutboxEvent;
+import com.foodDelivery.repository.OutboxDeadLetterRepository;
+import com.foodDelivery.repository.OutboxEventRepository;
+import com.fooddelivery.events.DeliveryEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.NotEnoughReplicasException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private OutboxEventRepository outboxRepository;
+    private OutboxDeadLetterRepository deadLetterRepository;
+    private KafkaProducerService kafkaProducerService;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(OutboxEventRepository.class);
+        deadLetterRepository = mock(OutboxDeadLetterRepository.class);
+        kafkaProducerService = mock(KafkaProducerService.class);
+        relay = new OutboxRelay(outboxRepository, deadLetterRepository, kafkaProducerService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), objectMapper, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testRelayBatch_PublishesOnceAndDeletesInBulk() throws Exception {
+        when(outboxRepository.lockNextBatch(any(Pageable.class))).thenReturn(rows(1, 2, 3));
+        when(kafkaProducerService.publish(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int published = relay.relayBatch();
+
+        assertEquals(3, published);
+        verify(kafkaProducerService, times(3)).publish(anyString(), any());
+        verify(kafkaProducerService).flush();
+        assertEquals(List.of(1L, 2L, 3L), deletedIds());
+    }
+
+    @Test
+    void testRelayBatch_StopsAtFirstFailureToKeepOrder() throws Exception {
+        when(outboxRepository.lockNextBatch(any(Pageable.class))).thenReturn(rows(1, 2, 3));
+        when(kafkaProducerService.publish(eq("101"), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducerService.publish(eq("102"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        when(kafkaProducerService.publish(eq("103"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int published = relay.relayBatch();
+
+        assertEquals(1, published);
+        assertEquals(List.of(1L), deletedIds());
+    }
+
+    @Test
+    void testRelayBatch_CountsFailuresThatRetryingWillNotFix() throws Exception {
+        List<OutboxEvent> rows = rows(1, 2);
+        when(outboxRepository.lockNextBatch(any(Pageable.class))).thenReturn(rows);
+        when(kafkaProducerService.publish(eq("101"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+        when(kafkaProducerService.publish(eq("102"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(0, relay.relayBatch());
+        assertEquals(1, rows.get(0).getAttempts());
+        verify(outboxRepository, never()).deleteByIdIn(any());
+        verifyNoInteractions(deadLetterRepository);
+    }
+
+    @Test
+    void testRelayBatch_TransientFailuresAreNotCounted() throws Exception {
+        List<OutboxEvent> rows = rows(1);
+        when(outboxRepository.lockNextBatch(any(Pageable.class))).thenReturn(rows);
+        when(kafkaProducerService.publish(anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new NotEnoughReplicasException("broker down")));
+
+        assertEquals(0, relay.relayBatch());
+        assertEquals(0, rows.get(0).getAttempts());
+    }
+
+    @Test
+    void testRelayBatch_ParksRowAtTheCapAndCarriesOn() throws Exception {
+        List<OutboxEvent> rows = rows(1, 2);
+        rows.get(0).setAttempts(4);
+        when(outboxRepository.lockNextBatch(any(Pageable.class))).thenReturn(rows);
+        when(kafkaProducerService.publish(eq("101"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+        when(kafkaProducerService.publish(eq("102"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(2, relay.relayBatch());
+
+        ArgumentCaptor<OutboxDeadLetter> parked = ArgumentCaptor.forClass(OutboxDeadLetter.class);
+        verify(deadLetterRepository).save(parked.capture());
+        assertEquals(1L, parked.getValue().getId());
+        assertEquals(5, parked.getValue().getAttempts());
+        assertEquals(List.of(2L, 1L), deletedIds());
+    }
+
+    @Test
+    void testRelayBatch_EmptyOutbox() {
+        when(outboxRepository.lockNextBatch(any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, relay.relayBatch());
+        verifyNoInteractions(kafkaProducerService);
+        verify(outboxRepository, never()).deleteByIdIn(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> deletedIds() {
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxRepository).deleteByIdIn(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private List<OutboxEvent> rows(long... ids) throws Exception {
+        List<OutboxEvent> rows = new ArrayList<>();
+        for (long id : ids) {
+            DeliveryEvent event = DeliveryEvent.builder()
+                    .eventType("DELIVERY_ASSIGNED")
+                    .deliveryId(id)
+                    .orderId(100 + id)
+                    .status("ASSIGNED")
+                    .build();
+            OutboxEvent row = new OutboxEvent(String.valueOf(100 + id), event.getEventType(),
+                    objectMapper.writeValueAsString(event));
+            row.setId(id);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,88 @@
+package com.foodDelivery.location;
+
+import com.foodDelivery.entity.Delivery;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackCodecTest {
+
+    @Test
+    void testDecode_RoundTripsWithinQuantization() {
+        List<TrackingPoint> trail = simulatedTrail(200, 1_760_000_000_000L);
+
+        List<TrackingPoint> decoded = TrackCodec.decode(7L, TrackCodec.encodeChunk(trail));
+
+        assertEquals(trail.size(), decoded.size());
+        for (int i = 0; i < trail.size(); i++) {
+            TrackingPoint expected = trail.get(i);
+            TrackingPoint actual = decoded.get(i);
+            assertEquals(7L, actual.deliveryId());
+            assertEquals(expected.latitude(), actual.latitude(), 0.6e-5);
+            assertEquals(expected.longitude(), actual.longitude(), 0.6e-5);
+            assertEquals(expected.epochMillis(), actual.epochMillis());
+            assertEquals(expected.status(), actual.status());
+            assertEquals(expected.remarks(), actual.remarks());
+        }
+    }
+
+    @Test
+    void testDecode_ConcatenatedChunks() {
+        List<TrackingPoint> first = simulatedTrail(10, 1_760_000_000_000L);
+        List<TrackingPoint> second = simulatedTrail(5, 1_760_000_100_000L);
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        blob.writeBytes(TrackCodec.encodeChunk(first));
+        blob.writeBytes(TrackCodec.encodeChunk(second));
+
+        List<TrackingPoint> decoded = TrackCodec.decode(7L, blob.toByteArray());
+
+        assertEquals(15, decoded.size());
+        assertEquals(second.get(0).epochMillis(), decoded.get(10).epochMillis());
+        assertEquals(second.get(4).status(), decoded.get(14).status());
+    }
+
+    @Test
+    void testEncodeChunk_FewBytesPerPoint() {
+        List<TrackingPoint> trail = simulatedTrail(32, 1_760_000_000_000L);
+
+        byte[] chunk = TrackCodec.encodeChunk(trail);
+
+        // A delivery_tracking row is ~50 bytes of data before row and index overhead
+        assertTrue(chunk.length / 32.0 < 6, "bytes per point: " + chunk.length / 32.0);
+    }
+
+    @Test
+    void testEncodeChunk_RejectsOutOfOrderPoints() {
+        List<TrackingPoint> trail = List.of(
+                new TrackingPoint(1L, 18.5, 73.8, Delivery.DeliveryStatus.PICKED_UP, null, 2000),
+                new TrackingPoint(1L, 18.5, 73.8, Delivery.DeliveryStatus.PICKED_UP, null, 1000));
+
+        assertThrows(IllegalArgumentException.class, () -> TrackCodec.encodeChunk(trail));
+    }
+
+    /**
+     * An agent moving at city speed, pinging every 3-5 s, with a repeated remark and one status change.
+     */
+    private static List<TrackingPoint> simulatedTrail(int points, long startMillis) {
+        SplittableRandom random = new SplittableRandom(3);
+        List<TrackingPoint> trail = new ArrayList<>(points);
+        double lat = 18.5204;
+        double lon = 73.8567;
+        long time = startMillis;
+        for (int i = 0; i < points; i++) {
+            lat += random.nextDouble(-0.0003, 0.0003);
+            lon += random.nextDouble(-0.0003, 0.0003);
+            time += random.nextLong(3000, 5000);
+            Delivery.DeliveryStatus status = i < points / 2
+                    ? Delivery.DeliveryStatus.PICKED_UP
+                    : Delivery.DeliveryStatus.IN_TRANSIT;
+            trail.add(new TrackingPoint(7L, lat, lon, status, "Agent location update", time));
+        }
+        return trail;
+    }
+}
@@ -0,0 +1,121 @@
+package com.foodDelivery.location;
+
+import com.foodDelivery.dto.DeliveryTrackingResponse;
+import com.foodDelivery.entity.Delivery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class TrackingStreamHubTest {
+
+    private TrackingStreamHub hub;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        hub = new TrackingStreamHub(new SimpleMeterRegistry());
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(hub)).build();
+    }
+
+    @Test
+    void testPublish_FansOutToEverySubscriberAndEndsOnFinalStatus() throws Exception {
+        MvcResult first = open(1L);
+        MvcResult second = open(1L);
+        MvcResult otherDelivery = open(2L);
+        awaitSubscribers(3);
+
+        hub.publishLocation(update(1L, 18.52, Delivery.DeliveryStatus.PICKED_UP));
+        hub.publishStatus(update(1L, 18.53, Delivery.DeliveryStatus.DELIVERED));
+
+        for (MvcResult result : new MvcResult[]{first, second}) {
+            String body = awaitBody(result, "DELIVERED");
+            assertTrue(body.contains("event:location"));
+            assertTrue(body.indexOf("18.52") < body.indexOf("DELIVERED"), "updates arrive in order");
+        }
+        assertFalse(otherDelivery.getResponse().getContentAsString().contains("18.52"));
+        awaitSubscribers(1);
+    }
+
+    @Test
+    void testSubscribe_ReplaysLatestState() throws Exception {
+        hub.publishStatus(update(1L, 18.50, Delivery.DeliveryStatus.PICKED_UP));
+        hub.publishLocation(update(1L, 18.61, Delivery.DeliveryStatus.PICKED_UP));
+
+        MvcResult late = open(1L);
+
+        String body = awaitBody(late, "18.61");
+        assertTrue(body.contains("event:status"));
+    }
+
+    @Test
+    void testSubscribe_FinishedDeliveryGetsStatusAndCompletes() throws Exception {
+        MvcResult result = mockMvc.perform(get("/stream/3?status=DELIVERED"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertTrue(awaitBody(result, "DELIVERED").contains("event:status"));
+        awaitSubscribers(0);
+    }
+
+    private MvcResult open(long deliveryId) throws Exception {
+        return mockMvc.perform(get("/stream/" + deliveryId + "?status=ASSIGNED"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hub.subscriberCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, hub.subscriberCount());
+    }
+
+    private static String awaitBody(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains(expected), body);
+        return body;
+    }
+
+    private static DeliveryTrackingResponse update(long deliveryId, double latitude, Delivery.DeliveryStatus status) {
+        DeliveryTrackingResponse response = new DeliveryTrackingResponse();
+        response.setDeliveryId(deliveryId);
+        response.setLatitude(latitude);
+        response.setLongitude(73.85);
+        response.setStatusUpdate(status);
+        return response;
+    }
+
+    @RestController
+    static class StreamController {
+
+        private final TrackingStreamHub hub;
+
+        StreamController(TrackingStreamHub hub) {
+            this.hub = hub;
+        }
+
+        @GetMapping("/stream/{deliveryId}")
+        SseEmitter stream(@PathVariable Long deliveryId, Delivery.DeliveryStatus status) {
+            return hub.subscribe(deliveryId, status);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.foodDelivery.route;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.repository.DeliveryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AgentTripsTest {
+
+    private DeliveryRepository deliveryRepository;
+    private AgentTrips agentTrips;
+
+    @BeforeEach
+    void setUp() {
+        deliveryRepository = mock(DeliveryRepository.class);
+        agentTrips = new AgentTrips(deliveryRepository, 0.01);
+    }
+
+    @Test
+    void testCapacity_ByVehicleCappedByMaxOrders() {
+        assertEquals(2, agentTrips.capacity(DeliveryAgent.VehicleType.BICYCLE));
+        assertEquals(3, agentTrips.capacity(DeliveryAgent.VehicleType.BIKE));
+        // Cars could carry four, but no agent holds more than max-orders
+        assertEquals(3, agentTrips.capacity(DeliveryAgent.VehicleType.CAR));
+        assertEquals(3, agentTrips.capacity(null));
+    }
+
+    @Test
+    void testStackableNear_FullTripsLeaveTheIndexUntilADeliveryEnds() {
+        for (long id = 1; id <= 3; id++) {
+            TripDelivery delivery = delivery(id, false);
+            agentTrips.add(7L, delivery, List.of(delivery.pickupStop(), delivery.dropStop()));
+            assertEquals(id < 3 ? List.of(7L) : List.of(), agentTrips.stackableNear(18.50, 73.85, 1.0));
+        }
+        assertEquals(3, agentTrips.get(7L).orElseThrow().size());
+
+        agentTrips.onStatusChanged(2L, Delivery.DeliveryStatus.DELIVERED);
+
+        assertEquals(List.of(7L), agentTrips.stackableNear(18.50, 73.85, 1.0));
+        assertTrue(agentTrips.agentOf(2L).isEmpty());
+        assertTrue(agentTrips.stackableNear(18.60, 73.85, 1.0).isEmpty());
+    }
+
+    @Test
+    void testOnStatusChanged_PickupLeavesRouteAndLastDeliveryEndsTrip() {
+        TripDelivery delivery = delivery(1L, false);
+        agentTrips.add(7L, delivery, List.of(delivery.pickupStop(), delivery.dropStop()));
+
+        agentTrips.onStatusChanged(1L, Delivery.DeliveryStatus.PICKED_UP);
+
+        AgentTrip trip = agentTrips.get(7L).orElseThrow();
+        assertEquals(List.of(delivery.dropStop()), trip.route());
+        assertTrue(trip.deliveries().get(0).pickedUp());
+
+        agentTrips.onStatusChanged(1L, Delivery.DeliveryStatus.DELIVERED);
+
+        assertTrue(agentTrips.get(7L).isEmpty());
+        assertEquals(0, agentTrips.size());
+        assertTrue(agentTrips.stackableNear(18.50, 73.85, 1.0).isEmpty());
+    }
+
+    @Test
+    void testLoad_RebuildsRoutesOfOpenDeliveries() {
+        when(deliveryRepository.findOpenTripDeliveries(anyList())).thenReturn(List.of(
+                new Object[]{1L, 7L, 100L, 18.50, 73.85, 18.55, 73.85, Delivery.DeliveryStatus.IN_TRANSIT},
+                new Object[]{2L, 7L, 100L, 18.50, 73.85, 18.56, 73.85, Delivery.DeliveryStatus.ASSIGNED},
+                // No coordinates to route with
+                new Object[]{3L, 8L, 101L, null, null, 18.56, 73.85, Delivery.DeliveryStatus.ASSIGNED}));
+
+        agentTrips.load();
+
+        AgentTrip trip = agentTrips.get(7L).orElseThrow();
+        assertEquals(2, trip.size());
+        // Delivery 1 is on board, so only its drop is left
+        assertEquals(List.of(Stop.drop(1L, 18.55, 73.85)),
+                trip.route().stream().filter(stop -> stop.deliveryId() == 1L).toList());
+        assertEquals(3, trip.route().size());
+        assertTrue(trip.route().indexOf(Stop.pickup(2L, 18.50, 73.85)) < trip.route().indexOf(Stop.drop(2L, 18.56, 73.85)));
+        assertTrue(agentTrips.get(8L).isEmpty());
+        assertEquals(7L, agentTrips.agentOf(2L).orElseThrow());
+    }
+
+    private static TripDelivery delivery(long id, boolean pickedUp) {
+        return new TripDelivery(id, 100L, 18.50, 73.85, 18.55 + id * 0.01, 73.85, pickedUp);
+    }
+}
@@ -0,0 +1,88 @@
+package com.foodDelivery.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteInsertionTest {
+
+    @Test
+    void testCheapest_EmptyRouteIsPickupThenDrop() {
+        Stop pickup = Stop.pickup(1L, 18.50, 73.85);
+        Stop drop = Stop.drop(1L, 18.55, 73.85);
+
+        RouteInsertion.Insertion insertion = RouteInsertion.cheapest(Double.NaN, Double.NaN, List.of(), pickup, drop);
+
+        assertEquals(List.of(pickup, drop), insertion.route());
+        assertEquals(RouteInsertion.lengthKm(Double.NaN, Double.NaN, List.of(pickup, drop)), insertion.addedKm(), 1e-9);
+        assertEquals(0.0, insertion.delayKm());
+    }
+
+    @Test
+    void testCheapest_SameRestaurantDropBeyondLastDropDelaysNobody() {
+        List<Stop> route = List.of(Stop.pickup(1L, 18.50, 73.85), Stop.drop(1L, 18.55, 73.85));
+        Stop pickup = Stop.pickup(2L, 18.50, 73.85);
+        Stop drop = Stop.drop(2L, 18.56, 73.85);
+
+        RouteInsertion.Insertion insertion = RouteInsertion.cheapest(18.50, 73.85, route, pickup, drop);
+
+        assertEquals(drop, insertion.route().get(3));
+        // One more hundredth of a degree of latitude, about 1.1 km
+        assertEquals(1.11, insertion.addedKm(), 0.01);
+        assertEquals(0.0, insertion.delayKm(), 1e-9);
+    }
+
+    @Test
+    void testCheapest_DropBeforeExistingDropCountsAsDelay() {
+        List<Stop> route = List.of(Stop.pickup(1L, 18.50, 73.85), Stop.drop(1L, 18.60, 73.85));
+        Stop pickup = Stop.pickup(2L, 18.50, 73.85);
+        // Just off the way to the first customer
+        Stop drop = Stop.drop(2L, 18.51, 73.86);
+
+        RouteInsertion.Insertion insertion = RouteInsertion.cheapest(18.50, 73.85, route, pickup, drop);
+
+        assertEquals(2, insertion.route().indexOf(drop));
+        assertEquals(route.get(1), insertion.route().get(3));
+        assertTrue(insertion.addedKm() > 0 && insertion.addedKm() < 1, "added " + insertion.addedKm());
+        assertEquals(insertion.addedKm(), insertion.delayKm(), 1e-9);
+    }
+
+    @Test
+    void testCheapest_MatchesExhaustiveSearch() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int n = random.nextInt(7);
+            List<Stop> route = new ArrayList<>();
+            for (int k = 0; k < n; k++) {
+                route.add(new Stop(k, random.nextBoolean(), 18.5 + random.nextDouble() * 0.1,
+                        73.8 + random.nextDouble() * 0.1));
+            }
+            boolean hasStart = random.nextBoolean();
+            double startLat = hasStart ? 18.5 + random.nextDouble() * 0.1 : Double.NaN;
+            double startLon = hasStart ? 73.8 + random.nextDouble() * 0.1 : Double.NaN;
+            Stop pickup = Stop.pickup(100L, 18.5 + random.nextDouble() * 0.1, 73.8 + random.nextDouble() * 0.1);
+            Stop drop = Stop.drop(100L, 18.5 + random.nextDouble() * 0.1, 73.8 + random.nextDouble() * 0.1);
+
+            RouteInsertion.Insertion insertion = RouteInsertion.cheapest(startLat, startLon, route, pickup, drop);
+
+            double before = RouteInsertion.lengthKm(startLat, startLon, route);
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i <= n; i++) {
+                for (int j = i; j <= n; j++) {
+                    List<Stop> candidate = new ArrayList<>(route);
+                    candidate.add(j, drop);
+                    candidate.add(i, pickup);
+                    best = Math.min(best, RouteInsertion.lengthKm(startLat, startLon, candidate) - before);
+                }
+            }
+            assertEquals(best, insertion.addedKm(), 1e-9, "round " + round);
+            assertEquals(best, RouteInsertion.lengthKm(startLat, startLon, insertion.route()) - before, 1e-9);
+            assertTrue(insertion.route().indexOf(pickup) < insertion.route().indexOf(drop));
+            assertTrue(insertion.delayKm() <= insertion.addedKm() + 1e-9);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.foodDelivery.route;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.repository.DeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RoutePlannerTest {
+
+    private AgentTrips agentTrips;
+    private RoutePlanner planner;
+
+    private final TripDelivery near = new TripDelivery(1L, 100L, 18.51, 73.85, 18.53, 73.85, true);
+    private final TripDelivery far = new TripDelivery(2L, 100L, 18.51, 73.85, 18.60, 73.85, true);
+
+    @BeforeEach
+    void setUp() {
+        agentTrips = new AgentTrips(mock(DeliveryRepository.class), 0.01);
+        planner = new RoutePlanner(agentTrips, new SimpleMeterRegistry());
+        // Both on board, the far drop listed first
+        agentTrips.add(7L, near, List.of(near.dropStop()));
+        agentTrips.add(7L, far, List.of(far.dropStop(), near.dropStop()));
+    }
+
+    @Test
+    void testReplan_ReordersWhenItSavesEnough() {
+        AgentTrip trip = planner.replan(7L, 18.50, 73.85).orElseThrow();
+
+        assertEquals(List.of(near.dropStop(), far.dropStop()), trip.route());
+        assertEquals(1, planner.cachedMatrices());
+    }
+
+    @Test
+    void testReplan_KeepsOrderWhenSavingIsBelowThreshold() {
+        TripDelivery other = new TripDelivery(3L, 100L, 18.51, 73.85, 18.601, 73.85, true);
+        agentTrips.add(8L, other, List.of(far.dropStop(), other.dropStop()));
+
+        // Swapping two drops 100 m apart saves far less than 0.2 km
+        assertEquals(List.of(far.dropStop(), other.dropStop()), planner.replan(8L, 18.50, 73.85).orElseThrow().route());
+    }
+
+    @Test
+    void testReplan_ReusesMatrixAsStopsAreVisitedAndForgetsFinishedTrips() {
+        planner.replan(7L, 18.50, 73.85);
+        agentTrips.onStatusChanged(1L, Delivery.DeliveryStatus.DELIVERED);
+
+        assertEquals(List.of(far.dropStop()), planner.replan(7L, 18.54, 73.85).orElseThrow().route());
+
+        agentTrips.onStatusChanged(2L, Delivery.DeliveryStatus.DELIVERED);
+
+        assertTrue(planner.replan(7L, 18.60, 73.85).isEmpty());
+        assertEquals(0, planner.cachedMatrices());
+    }
+
+    @Test
+    void testReplaceRoute_RefusesWhenTripChangedInBetween() {
+        List<Stop> seen = agentTrips.get(7L).orElseThrow().route();
+        agentTrips.onStatusChanged(1L, Delivery.DeliveryStatus.DELIVERED);
+
+        assertFalse(agentTrips.replaceRoute(7L, seen, List.of(near.dropStop(), far.dropStop())));
+        assertEquals(List.of(far.dropStop()), agentTrips.get(7L).orElseThrow().route());
+    }
+}
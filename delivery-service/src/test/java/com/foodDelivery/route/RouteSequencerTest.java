@@ -0,0 +1,115 @@
+package com.foodDelivery.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteSequencerTest {
+
+    @Test
+    void testSequence_VisitsStopsAlongTheWayInOrder() {
+        // Two deliveries picked up on the way north, dropped further north, listed back to front
+        List<Stop> route = List.of(
+                Stop.drop(2L, 18.58, 73.85),
+                Stop.pickup(2L, 18.52, 73.85),
+                Stop.drop(1L, 18.56, 73.85),
+                Stop.pickup(1L, 18.51, 73.85));
+
+        RouteSequencer.Sequence sequence = RouteSequencer.sequence(18.50, 73.85, route, DistanceMatrix.of(route));
+
+        assertEquals(List.of(route.get(3), route.get(1), route.get(2), route.get(0)), sequence.route());
+        assertEquals(RouteInsertion.lengthKm(18.50, 73.85, sequence.route()), sequence.lengthKm(), 1e-9);
+        assertTrue(sequence.lengthKm() < sequence.previousKm());
+    }
+
+    @Test
+    void testSequence_KeepsPickupBeforeDropEvenWhenDropIsCloser() {
+        List<Stop> route = List.of(Stop.pickup(1L, 18.60, 73.85), Stop.drop(1L, 18.51, 73.85));
+
+        RouteSequencer.Sequence sequence = RouteSequencer.sequence(18.50, 73.85, route, DistanceMatrix.of(route));
+
+        assertEquals(route, sequence.route());
+        assertEquals(sequence.previousKm(), sequence.lengthKm(), 1e-9);
+    }
+
+    @Test
+    void testSequence_UsesSubsetOfCachedMatrix() {
+        List<Stop> all = List.of(Stop.pickup(1L, 18.51, 73.85), Stop.drop(1L, 18.56, 73.85),
+                Stop.drop(2L, 18.53, 73.85));
+        DistanceMatrix matrix = DistanceMatrix.of(all);
+        // Delivery 1 has been picked up since the matrix was built
+        List<Stop> remaining = List.of(all.get(1), all.get(2));
+
+        assertTrue(matrix.covers(remaining));
+        assertEquals(List.of(all.get(2), all.get(1)),
+                RouteSequencer.sequence(18.50, 73.85, remaining, matrix).route());
+        assertThrows(IllegalArgumentException.class, () -> RouteSequencer.sequence(18.50, 73.85,
+                List.of(Stop.drop(3L, 18.5, 73.8)), matrix));
+    }
+
+    @Test
+    void testSequence_CloseToOptimalOnRandomTrips() {
+        Random random = new Random(7);
+        double totalFound = 0;
+        double totalOptimal = 0;
+        for (int round = 0; round < 100; round++) {
+            List<Stop> route = randomTrip(random, 1 + random.nextInt(4));
+            double startLat = 18.5 + random.nextDouble() * 0.1;
+            double startLon = 73.8 + random.nextDouble() * 0.1;
+
+            RouteSequencer.Sequence sequence = RouteSequencer.sequence(startLat, startLon, route,
+                    DistanceMatrix.of(route));
+
+            assertTrue(isFeasible(sequence.route()), "round " + round);
+            assertEquals(route.size(), sequence.route().size());
+            assertTrue(sequence.lengthKm() <= sequence.previousKm() + 1e-9);
+            double optimal = bestFeasible(startLat, startLon, new ArrayList<>(), new ArrayList<>(route));
+            assertTrue(sequence.lengthKm() >= optimal - 1e-9);
+            totalFound += sequence.lengthKm();
+            totalOptimal += optimal;
+        }
+        // Local search is a heuristic; across many trips it stays within a few percent of optimal
+        assertTrue(totalFound <= totalOptimal * 1.03, totalFound + " vs optimal " + totalOptimal);
+    }
+
+    // A mix of deliveries still to be picked up and deliveries already on board (drop only)
+    private static List<Stop> randomTrip(Random random, int deliveries) {
+        List<Stop> route = new ArrayList<>();
+        for (long id = 1; id <= deliveries; id++) {
+            if (random.nextInt(3) > 0) {
+                route.add(Stop.pickup(id, 18.5 + random.nextDouble() * 0.1, 73.8 + random.nextDouble() * 0.1));
+            }
+            route.add(Stop.drop(id, 18.5 + random.nextDouble() * 0.1, 73.8 + random.nextDouble() * 0.1));
+        }
+        return route;
+    }
+
+    private static boolean isFeasible(List<Stop> route) {
+        for (int k = 0; k < route.size(); k++) {
+            Stop stop = route.get(k);
+            for (int later = k + 1; later < route.size(); later++) {
+                if (stop.deliveryId() == route.get(later).deliveryId() && !stop.pickup() && route.get(later).pickup()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double bestFeasible(double startLat, double startLon, List<Stop> prefix, List<Stop> rest) {
+        if (rest.isEmpty()) {
+            return isFeasible(prefix) ? RouteInsertion.lengthKm(startLat, startLon, prefix) : Double.POSITIVE_INFINITY;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < rest.size(); k++) {
+            prefix.add(rest.remove(k));
+            best = Math.min(best, bestFeasible(startLat, startLon, prefix, rest));
+            rest.add(k, prefix.remove(prefix.size() - 1));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,95 @@
+package com.foodDelivery.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.repository.AgentStateRepository;
+import com.foodDelivery.repository.DeliveryRepository;
+import com.foodDelivery.route.AgentTrips;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Nearest-agent selection through {@link DeliveryAssignmentService} as assignment calls it: the
+ * spatial index query plus the state-table check of each candidate, over an in-memory fleet whose
+ * agents are all AVAILABLE. The repositories are never reached once the table is filled.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=AgentAssignmentBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentAssignmentBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int fleetSize;
+
+    private DeliveryAssignmentService assignmentService;
+    private Delivery[] deliveries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // The service logs every lookup at INFO; keep the console out of the measurement
+        ((Logger) LoggerFactory.getLogger("com.foodDelivery")).setLevel(Level.WARN);
+
+        SplittableRandom random = new SplittableRandom(42);
+        AgentSpatialIndex index = new AgentSpatialIndex(0.01);
+        AgentStateTable agentStates = new AgentStateTable(mock(AgentStateRepository.class), index);
+        for (long id = 1; id <= fleetSize; id++) {
+            DeliveryAgent agent = new DeliveryAgent();
+            agent.setId(id);
+            agent.setStatus(DeliveryAgent.AgentStatus.AVAILABLE);
+            agent.setVehicleType(DeliveryAgent.VehicleType.BIKE);
+            agent.setCurrentLatitude(random.nextDouble(18.40, 18.65));
+            agent.setCurrentLongitude(random.nextDouble(73.70, 74.00));
+            agentStates.put(agent);
+        }
+        assignmentService = new DeliveryAssignmentService(agentStates, index,
+                new AgentTrips(mock(DeliveryRepository.class), 0.01));
+
+        deliveries = new Delivery[1024];
+        for (int i = 0; i < deliveries.length; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setId((long) i);
+            delivery.setPickupLatitude(random.nextDouble(18.40, 18.65));
+            delivery.setPickupLongitude(random.nextDouble(73.70, 74.00));
+            deliveries[i] = delivery;
+        }
+    }
+
+    @Benchmark
+    public Optional<AgentState> findBestAvailableAgent() {
+        return assignmentService.findBestAvailableAgent(deliveries[next++ & (deliveries.length - 1)]);
+    }
+
+    @Benchmark
+    public List<AgentState> findCandidateAgents() {
+        return assignmentService.findCandidateAgents(deliveries[next++ & (deliveries.length - 1)]);
+    }
+}
@@ -0,0 +1,205 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.repository.DeliveryAgentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AgentClaimServiceTest {
+
+    // Stands in for the agent rows; compute() gives the same atomicity as the row-level UPDATE
+    private final Map<Long, DeliveryAgent.AgentStatus> rows = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> stacked = new ConcurrentHashMap<>();
+    private final AtomicInteger casCalls = new AtomicInteger();
+    private AgentStateTable agentStateTable;
+    private AgentClaimService claimService;
+
+    @BeforeEach
+    void setUp() {
+        DeliveryAgentRepository repository = mock(DeliveryAgentRepository.class);
+        when(repository.claimAvailable(anyLong())).thenAnswer(invocation -> {
+            casCalls.incrementAndGet();
+            Long id = invocation.getArgument(0);
+            int[] updated = {0};
+            rows.computeIfPresent(id, (k, current) -> {
+                if (current != DeliveryAgent.AgentStatus.AVAILABLE) {
+                    return current;
+                }
+                updated[0] = 1;
+                return DeliveryAgent.AgentStatus.BUSY;
+            });
+            return updated[0];
+        });
+        when(repository.claimAdditional(anyLong(), anyInt())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            int capacity = invocation.getArgument(1);
+            int[] updated = {0};
+            stacked.computeIfPresent(id, (k, count) -> {
+                if (rows.get(id) != DeliveryAgent.AgentStatus.BUSY || count >= capacity) {
+                    return count;
+                }
+                updated[0] = 1;
+                return count + 1;
+            });
+            return updated[0];
+        });
+        agentStateTable = mock(AgentStateTable.class);
+        claimService = new AgentClaimService(repository, agentStateTable);
+    }
+
+    @Test
+    void testClaim_SecondClaimLosesWhileFirstTransactionOpen() {
+        rows.put(1L, DeliveryAgent.AgentStatus.AVAILABLE);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(claimService.claim(1L, 100L));
+            assertFalse(claimService.claim(1L, 200L));
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(DeliveryAgent.AgentStatus.BUSY, rows.get(1L));
+        // Only the first claim reached the database
+        assertEquals(1, casCalls.get());
+        // Losing to a claim on this instance says nothing about the row
+        verify(agentStateTable, never()).refreshStatus(1L);
+    }
+
+    @Test
+    void testClaim_AgentClaimableAgainAfterRollback() {
+        rows.put(1L, DeliveryAgent.AgentStatus.AVAILABLE);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(claimService.claim(1L, 100L));
+            rows.put(1L, DeliveryAgent.AgentStatus.AVAILABLE); // what the rollback does to the row
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(claimService.claim(1L, 200L));
+    }
+
+    @Test
+    void testClaim_FailsWhenAgentNotAvailable() {
+        rows.put(1L, DeliveryAgent.AgentStatus.OFFLINE);
+
+        assertFalse(claimService.claim(1L, 100L));
+        verify(agentStateTable).refreshStatus(1L);
+
+        // The failed claim does not hold the agent
+        rows.put(1L, DeliveryAgent.AgentStatus.AVAILABLE);
+        assertTrue(claimService.claim(1L, 200L));
+    }
+
+    @Test
+    void testClaimAdditional_StopsAtCapacityAndNeedsBusyAgent() {
+        rows.put(1L, DeliveryAgent.AgentStatus.BUSY);
+        stacked.put(1L, 1);
+        rows.put(2L, DeliveryAgent.AgentStatus.AVAILABLE);
+        stacked.put(2L, 0);
+
+        assertTrue(claimService.claimAdditional(1L, 100L, 3));
+        assertTrue(claimService.claimAdditional(1L, 101L, 3));
+        assertFalse(claimService.claimAdditional(1L, 102L, 3));
+        assertEquals(3, stacked.get(1L));
+
+        // Stacking never takes a free agent; that is what claim() is for
+        assertFalse(claimService.claimAdditional(2L, 103L, 3));
+    }
+
+    @Test
+    void testClaim_ParallelDeliveriesNeverShareAnAgent() throws Exception {
+        int agents = 16;
+        int deliveries = 5000;
+        int threads = 32;
+        for (long id = 0; id < agents; id++) {
+            rows.put(id, DeliveryAgent.AgentStatus.AVAILABLE);
+        }
+
+        Map<Long, List<Long>> deliveriesByAgent = new ConcurrentHashMap<>();
+        AtomicInteger nextDelivery = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    int deliveryId;
+                    while ((deliveryId = nextDelivery.getAndIncrement()) < deliveries) {
+                        claimForDelivery(deliveryId, agents, deliveriesByAgent);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(agents, deliveriesByAgent.size());
+        deliveriesByAgent.forEach((agentId, won) ->
+                assertEquals(1, won.size(), "agent " + agentId + " claimed by " + won));
+        rows.values().forEach(status -> assertEquals(DeliveryAgent.AgentStatus.BUSY, status));
+    }
+
+    /**
+     * One delivery's transaction: try the agents in a random order until one is won.
+     */
+    private void claimForDelivery(long deliveryId, int agents, Map<Long, List<Long>> deliveriesByAgent) {
+        List<Long> order = new ArrayList<>();
+        for (long id = 0; id < agents; id++) {
+            order.add(id);
+        }
+        Collections.shuffle(order, ThreadLocalRandom.current());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (Long agentId : order) {
+                if (claimService.claim(agentId, deliveryId)) {
+                    deliveriesByAgent.computeIfAbsent(agentId, k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(deliveryId);
+                    break;
+                }
+            }
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(status));
+    }
+}
@@ -0,0 +1,103 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.assignment.AssignmentRetryQueue;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.repository.AgentStateRepository;
+import com.foodDelivery.repository.DeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AssignmentRetrySchedulerTest {
+
+    private AssignmentRetryQueue queue;
+    private DeliveryService deliveryService;
+    private AgentStateTable agentStates;
+    private DeliveryRepository deliveryRepository;
+    private AssignmentRetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        queue = new AssignmentRetryQueue(1_000, 8_000, 5, 1.5, 20, 0.1);
+        deliveryService = mock(DeliveryService.class);
+        agentStates = new AgentStateTable(mock(AgentStateRepository.class), new AgentSpatialIndex(0.01));
+        deliveryRepository = mock(DeliveryRepository.class);
+        scheduler = new AssignmentRetryScheduler(queue, deliveryService, deliveryRepository, agentStates,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testLoadPending_InBatchModeTakesOnlyDeliveriesWithoutPickup() {
+        when(deliveryRepository.findIdAndPickupByStatus(Delivery.DeliveryStatus.PENDING)).thenReturn(List.of(
+                new Object[] {1L, 18.52, 73.85},
+                new Object[] {2L, null, null}));
+        ReflectionTestUtils.setField(scheduler, "assignmentMode", "batch");
+
+        scheduler.loadPending();
+
+        assertFalse(queue.contains(1L));
+        assertTrue(queue.contains(2L));
+    }
+
+    @Test
+    void testRetryDue_ReschedulesWhileStillPending() {
+        queue.add(1L, 18.52, 73.85, 0);
+        when(deliveryService.retryAssignment(eq(1L), anyDouble())).thenReturn(Delivery.DeliveryStatus.PENDING);
+
+        assertEquals(0, scheduler.retryDue(1_000));
+        assertEquals(0, scheduler.retryDue(2_999));
+
+        verify(deliveryService, times(1)).retryAssignment(1L, 5.0);
+        assertTrue(queue.contains(1L));
+
+        scheduler.retryDue(3_000);
+        verify(deliveryService).retryAssignment(1L, 7.5);
+    }
+
+    @Test
+    void testRetryDue_RemovesAssignedAndFinishedDeliveries() {
+        queue.add(1L, 18.52, 73.85, 0);
+        queue.add(2L, 18.52, 73.85, 0);
+        queue.add(3L, 18.52, 73.85, 0);
+        when(deliveryService.retryAssignment(eq(1L), anyDouble())).thenReturn(Delivery.DeliveryStatus.ASSIGNED);
+        when(deliveryService.retryAssignment(eq(2L), anyDouble())).thenReturn(Delivery.DeliveryStatus.CANCELLED);
+        when(deliveryService.retryAssignment(eq(3L), anyDouble()))
+                .thenThrow(new ResourceNotFoundException("Delivery not found with id: 3"));
+
+        assertEquals(1, scheduler.retryDue(1_000));
+
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testAgentBecomingAvailable_RetriesNearbyDeliveryOnNextTick() {
+        long now = System.currentTimeMillis();
+        queue.add(1L, 18.52, 73.85, now);
+        agentStates.put(new AgentState(9L, DeliveryAgent.AgentStatus.BUSY, 18.521, 73.851,
+                DeliveryAgent.VehicleType.BIKE, 4.5, 0L));
+        when(deliveryService.retryAssignment(eq(1L), anyDouble())).thenReturn(Delivery.DeliveryStatus.ASSIGNED);
+
+        // Before the first scheduled retry
+        assertEquals(0, scheduler.retryDue(now));
+        agentStates.applyStatus(9L, DeliveryAgent.AgentStatus.AVAILABLE, now);
+
+        // Expedited at the wall-clock time the agent came back
+        assertEquals(1, scheduler.retryDue(System.currentTimeMillis()));
+        verify(deliveryService).retryAssignment(eq(1L), anyDouble());
+        verify(deliveryService, never()).expediteAssignment(anyLong());
+    }
+}
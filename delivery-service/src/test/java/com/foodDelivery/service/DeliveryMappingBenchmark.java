@@ -0,0 +1,146 @@
+package com.foodDelivery.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.assignment.AssignmentRetryQueue;
+import com.foodDelivery.assignment.PendingDeliveryQueue;
+import com.foodDelivery.dto.DeliveryResponse;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.eta.EtaEngine;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.geofence.GeofenceEngine;
+import com.foodDelivery.kafka.DeliveryEventOutbox;
+import com.foodDelivery.location.TrackingStreamHub;
+import com.foodDelivery.repository.AgentStateRepository;
+import com.foodDelivery.repository.DeliveryAgentRepository;
+import com.foodDelivery.repository.DeliveryRepository;
+import com.foodDelivery.repository.DeliveryTrackRepository;
+import com.foodDelivery.repository.DeliveryTrackingRepository;
+import com.foodDelivery.route.AgentTrips;
+import com.fooddelivery.events.DeliveryEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Per-delivery costs of the write path once the row is in hand: entity to {@link DeliveryResponse},
+ * entity to {@link DeliveryEvent}, and the event's three trips through Jackson (outbox payload,
+ * relay read-back, Kafka producer serializer with its default typing).
+ *
+ * The delivery is an assigned one with its agent loaded, so mapping never leaves memory; the
+ * service's collaborators are stand-ins that are not reached.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=DeliveryMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryMappingBenchmark {
+
+    private DeliveryService deliveryService;
+    private Delivery delivery;
+    private DeliveryEvent event;
+    private String payload;
+    private ObjectMapper outboxMapper;
+    private JsonSerializer<Object> producerSerializer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        AgentSpatialIndex index = new AgentSpatialIndex(0.01);
+        AgentStateTable agentStates = new AgentStateTable(mock(AgentStateRepository.class), index);
+        deliveryService = new DeliveryService(mock(DeliveryRepository.class), mock(DeliveryAgentRepository.class),
+                mock(DeliveryTrackingRepository.class), mock(DeliveryTrackRepository.class),
+                mock(DeliveryEventOutbox.class), mock(DeliveryAssignmentService.class), index,
+                mock(PendingDeliveryQueue.class), mock(AssignmentRetryQueue.class), mock(AgentClaimService.class),
+                agentStates, mock(LocationIngestionService.class), mock(TrackingStreamHub.class), new EtaEngine(mock(DeliveryRepository.class)),
+                mock(AgentTrips.class), mock(GeofenceEngine.class));
+
+        DeliveryAgent agent = new DeliveryAgent();
+        agent.setId(7L);
+        agent.setName("Ravi Kumar");
+        agent.setPhoneNumber("+919800000007");
+        agent.setStatus(DeliveryAgent.AgentStatus.BUSY);
+        agent.setVehicleType(DeliveryAgent.VehicleType.BIKE);
+        agent.setCurrentLatitude(18.5204);
+        agent.setCurrentLongitude(73.8567);
+        agentStates.put(agent);
+
+        LocalDateTime now = LocalDateTime.of(2026, 3, 14, 12, 0);
+        delivery = new Delivery();
+        delivery.setId(1001L);
+        delivery.setOrderId(5001L);
+        delivery.setRestaurantId(12L);
+        delivery.setCustomerId(34L);
+        delivery.setDeliveryAgent(agent);
+        delivery.setPickupAddress("Restaurant Aroma, FC Road, Pune");
+        delivery.setPickupLatitude(18.5204);
+        delivery.setPickupLongitude(73.8567);
+        delivery.setDeliveryAddress("Flat 12, Baner Road, Pune");
+        delivery.setDeliveryLatitude(18.5590);
+        delivery.setDeliveryLongitude(73.7868);
+        delivery.setStatus(Delivery.DeliveryStatus.ASSIGNED);
+        delivery.setAssignedAt(now);
+        delivery.setEstimatedDeliveryTime(now.plusMinutes(32));
+        delivery.setDeliveryInstructions("Ring the bell twice");
+        delivery.setDeliveryFee(50.0);
+        delivery.setCreatedAt(now.minusMinutes(3));
+        delivery.setUpdatedAt(now);
+
+        // Spring Boot's default mapper, which writes the outbox payload and reads it back in the relay
+        outboxMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        // As KafkaProducerConfig builds it
+        ObjectMapper producerMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        producerMapper.activateDefaultTyping(producerMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL);
+        producerSerializer = new JsonSerializer<>(producerMapper);
+        producerSerializer.setAddTypeInfo(false);
+
+        event = deliveryService.createDeliveryEvent(delivery, "DELIVERY_ASSIGNED");
+        payload = outboxMapper.writeValueAsString(event);
+    }
+
+    @Benchmark
+    public DeliveryResponse mapToResponse() {
+        return deliveryService.mapToResponse(delivery);
+    }
+
+    @Benchmark
+    public DeliveryEvent createDeliveryEvent() {
+        return deliveryService.createDeliveryEvent(delivery, "DELIVERY_ASSIGNED");
+    }
+
+    @Benchmark
+    public String serializeOutboxPayload() throws Exception {
+        return outboxMapper.writeValueAsString(event);
+    }
+
+    @Benchmark
+    public DeliveryEvent deserializeOutboxPayload() throws Exception {
+        return outboxMapper.readValue(payload, DeliveryEvent.class);
+    }
+
+    @Benchmark
+    public byte[] serializeForKafka() {
+        return producerSerializer.serialize("delivery-events", event);
+    }
+}
@@ -0,0 +1,60 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.heatmap.DemandHeatmap;
+import com.foodDelivery.heatmap.RepositioningAdvisor;
+import com.foodDelivery.kafka.KafkaProducerService;
+import com.fooddelivery.events.DeliveryEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DemandHeatmapServiceTest {
+
+    private static final long NOW = 1_000 * 60_000L;
+
+    private DemandHeatmap heatmap;
+    private AgentSpatialIndex index;
+    private KafkaProducerService kafkaProducerService;
+    private DemandHeatmapService service;
+
+    @BeforeEach
+    void setUp() {
+        heatmap = new DemandHeatmap(6, 60, new SimpleMeterRegistry());
+        index = new AgentSpatialIndex(0.01);
+        kafkaProducerService = mock(KafkaProducerService.class);
+        service = new DemandHeatmapService(heatmap, new RepositioningAdvisor(heatmap, index), kafkaProducerService,
+                new SimpleMeterRegistry());
+        heatmap.orderConfirmed(1L, 18.5204, 73.8567, NOW);
+        index.upsert(10L, 18.5400, 73.8567);
+    }
+
+    @Test
+    void testRebalance_NotifiesAgentAndKeepsPlan() {
+        assertTrue(service.getRepositioningSuggestion(10L).isEmpty());
+
+        assertEquals(1, service.rebalance(NOW));
+
+        ArgumentCaptor<DeliveryEvent> event = ArgumentCaptor.forClass(DeliveryEvent.class);
+        verify(kafkaProducerService).publishNotification(eq("10"), event.capture());
+        assertEquals(DemandHeatmapService.REPOSITIONING_EVENT, event.getValue().getEventType());
+        assertEquals(10L, event.getValue().getDeliveryAgentId());
+        assertEquals(1, service.getRepositioningSuggestions().size());
+        assertEquals(10L, service.getRepositioningSuggestion(10L).orElseThrow().getAgentId());
+    }
+
+    @Test
+    void testRebalance_SameCellNotSentAgainWithinCooldown() {
+        service.rebalance(NOW);
+        assertEquals(0, service.rebalance(NOW + 60_000));
+        assertEquals(1, service.rebalance(NOW + 300_000));
+
+        verify(kafkaProducerService, times(2)).publishNotification(any(), any());
+    }
+}
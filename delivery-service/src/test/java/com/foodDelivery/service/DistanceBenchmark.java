@@ -0,0 +1,81 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.geo.GeoDistance;
+import com.foodDelivery.repository.AgentStateRepository;
+import com.foodDelivery.repository.DeliveryRepository;
+import com.foodDelivery.route.AgentTrips;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * One Haversine distance: {@code DeliveryAssignmentService.calculateDistance} on boxed coordinates,
+ * as the full-scan fallback calls it, against {@link GeoDistance#haversineKm} on primitives.
+ *
+ * Run with:
+ * mvn -Pbenchmark verify -Djmh.include=DistanceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private DeliveryAssignmentService assignmentService;
+    private double[] lat;
+    private double[] lon;
+    private Double[] boxedLat;
+    private Double[] boxedLon;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AgentSpatialIndex index = new AgentSpatialIndex(0.01);
+        assignmentService = new DeliveryAssignmentService(new AgentStateTable(mock(AgentStateRepository.class), index),
+                index, new AgentTrips(mock(DeliveryRepository.class), 0.01));
+        SplittableRandom random = new SplittableRandom(42);
+        lat = new double[POINTS];
+        lon = new double[POINTS];
+        boxedLat = new Double[POINTS];
+        boxedLon = new Double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            lat[i] = random.nextDouble(18.40, 18.65);
+            lon[i] = random.nextDouble(73.70, 74.00);
+            boxedLat[i] = lat[i];
+            boxedLon[i] = lon[i];
+        }
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        int i = next++ & (POINTS - 1);
+        int j = (i + 1) & (POINTS - 1);
+        return assignmentService.calculateDistance(boxedLat[i], boxedLon[i], boxedLat[j], boxedLon[j]);
+    }
+
+    @Benchmark
+    public double haversinePrimitive() {
+        int i = next++ & (POINTS - 1);
+        int j = (i + 1) & (POINTS - 1);
+        return GeoDistance.haversineKm(lat[i], lon[i], lat[j], lon[j]);
+    }
+}
@@ -0,0 +1,80 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geofence.GeofenceEngine;
+import com.foodDelivery.repository.DeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class GeofenceTransitionServiceTest {
+
+    private static final double PICKUP_LAT = 18.50;
+    private static final double PICKUP_LON = 73.85;
+    private static final double DROP_LAT = 18.52;
+    private static final double DROP_LON = 73.87;
+
+    private GeofenceEngine engine;
+    private DeliveryService deliveryService;
+    private GeofenceTransitionService service;
+
+    @BeforeEach
+    void setUp() {
+        engine = new GeofenceEngine(mock(DeliveryRepository.class), 75, 120, 0, 0, new SimpleMeterRegistry());
+        deliveryService = mock(DeliveryService.class);
+        service = new GeofenceTransitionService(engine, deliveryService, new SimpleMeterRegistry());
+        engine.track(1L, 7L, PICKUP_LAT, PICKUP_LON, DROP_LAT, DROP_LON, false);
+    }
+
+    @Test
+    void testApplyFired_LeavingPickupMarksPickedUp() {
+        when(deliveryService.advanceStatus(anyLong(), any(), any(), anyString())).thenReturn(true);
+        engine.onAgentPing(7L, PICKUP_LAT, PICKUP_LON, 0);
+        engine.onAgentPing(7L, DROP_LAT, DROP_LON, 1_000);
+
+        // The arrival at the pickup changes nothing
+        assertEquals(1, service.applyFired());
+
+        verify(deliveryService).advanceStatus(eq(1L), eq(Set.of(Delivery.DeliveryStatus.ASSIGNED)),
+                eq(Delivery.DeliveryStatus.PICKED_UP), anyString());
+        verifyNoMoreInteractions(deliveryService);
+        assertEquals(0, engine.queued());
+    }
+
+    @Test
+    void testApplyFired_ArrivingAtDropMarksDelivered() {
+        when(deliveryService.advanceStatus(anyLong(), any(), any(), anyString())).thenReturn(true);
+        engine.onStatusChanged(1L, Delivery.DeliveryStatus.PICKED_UP);
+        engine.onAgentPing(7L, DROP_LAT, DROP_LON, 0);
+
+        assertEquals(1, service.applyFired());
+
+        verify(deliveryService).advanceStatus(eq(1L),
+                eq(Set.of(Delivery.DeliveryStatus.PICKED_UP, Delivery.DeliveryStatus.IN_TRANSIT)),
+                eq(Delivery.DeliveryStatus.DELIVERED), anyString());
+    }
+
+    @Test
+    void testApplyFired_StaleOrFailedTransitionsAreDropped() {
+        engine.track(2L, 8L, DROP_LAT, DROP_LON, PICKUP_LAT, PICKUP_LON, true);
+        engine.onStatusChanged(1L, Delivery.DeliveryStatus.PICKED_UP);
+        when(deliveryService.advanceStatus(eq(1L), any(), any(), anyString())).thenReturn(false);
+        when(deliveryService.advanceStatus(eq(2L), any(), any(), anyString()))
+                .thenThrow(new ResourceNotFoundException("Delivery not found with id: 2"));
+        engine.onAgentPing(7L, DROP_LAT, DROP_LON, 0);
+        engine.onAgentPing(8L, PICKUP_LAT, PICKUP_LON, 0);
+
+        assertEquals(0, service.applyFired());
+        assertEquals(0, engine.queued());
+    }
+}
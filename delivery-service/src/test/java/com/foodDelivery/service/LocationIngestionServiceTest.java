@@ -0,0 +1,210 @@
+package com.foodDelivery.service;
+
+import com.foodDelivery.agent.AgentState;
+import com.foodDelivery.agent.AgentStateTable;
+import com.foodDelivery.entity.Delivery;
+import com.foodDelivery.entity.DeliveryAgent;
+import com.foodDelivery.exception.ResourceNotFoundException;
+import com.foodDelivery.geo.AgentSpatialIndex;
+import com.foodDelivery.location.AgentPosition;
+import com.foodDelivery.location.TrackChunk;
+import com.foodDelivery.location.TrackCodec;
+import com.foodDelivery.location.TrackingPoint;
+import com.foodDelivery.repository.AgentStateRepository;
+import com.foodDelivery.repository.DeliveryRepository;
+import com.foodDelivery.repository.LocationBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocationIngestionServiceTest {
+
+    private final List<List<AgentPosition>> agentBatches = new ArrayList<>();
+    private final List<List<TrackChunk>> chunkBatches = new ArrayList<>();
+    private boolean failWrites;
+    private Runnable duringAppend = () -> { };
+
+    private DeliveryRepository deliveryRepository;
+    private AgentSpatialIndex spatialIndex;
+    private AgentStateTable agentStates;
+    private LocationIngestionService ingestion;
+
+    @BeforeEach
+    void setUp() {
+        LocationBatchRepository writer = new LocationBatchRepository(null, null) {
+            @Override
+            public void updateAgentPositions(List<AgentPosition> positions) {
+                if (failWrites) {
+                    throw new IllegalStateException("database down");
+                }
+                agentBatches.add(List.copyOf(positions));
+            }
+
+            @Override
+            public void appendTrackChunks(List<TrackChunk> chunks) {
+                duringAppend.run();
+                if (failWrites) {
+                    throw new IllegalStateException("database down");
+                }
+                chunkBatches.add(List.copyOf(chunks));
+            }
+        };
+        deliveryRepository = mock(DeliveryRepository.class);
+        spatialIndex = new AgentSpatialIndex(0.01);
+        agentStates = new AgentStateTable(mock(AgentStateRepository.class), spatialIndex);
+        for (long id = 1; id <= 2; id++) {
+            agentStates.put(new AgentState(id, DeliveryAgent.AgentStatus.BUSY, Double.NaN, Double.NaN,
+                    DeliveryAgent.VehicleType.BIKE, 0.0, 0L));
+        }
+        ingestion = new LocationIngestionService(writer, deliveryRepository, spatialIndex, agentStates,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testFlush_CoalescesPingsToLatestPerAgent() {
+        ingestion.acceptAgentPing(1L, 18.50, 73.80);
+        ingestion.acceptAgentPing(1L, 18.51, 73.81);
+        ingestion.acceptAgentPing(2L, 18.60, 73.90);
+        ingestion.acceptAgentPing(1L, 18.52, 73.82);
+
+        ingestion.flush();
+
+        assertEquals(1, agentBatches.size());
+        List<AgentPosition> batch = agentBatches.get(0);
+        assertEquals(2, batch.size());
+        AgentPosition agent1 = batch.stream().filter(p -> p.agentId() == 1L).findFirst().orElseThrow();
+        assertEquals(18.52, agent1.latitude());
+
+        ingestion.flush();
+        assertEquals(1, agentBatches.size(), "nothing new to write");
+    }
+
+    @Test
+    void testAcceptAgentPing_MovesOnlyIndexedAgents() {
+        spatialIndex.upsert(1L, 18.50, 73.80);
+
+        ingestion.acceptAgentPing(1L, 18.60, 73.90);
+        ingestion.acceptAgentPing(2L, 18.60, 73.90);
+
+        assertEquals(1L, spatialIndex.nearest(18.60, 73.90, 5, 1).get(0).agentId());
+        assertFalse(spatialIndex.contains(2L));
+        assertEquals(18.60, agentStates.get(2L).orElseThrow().latitude());
+    }
+
+    @Test
+    void testAcceptAgentPing_RejectsUnknownAgent() {
+        assertThrows(ResourceNotFoundException.class, () -> ingestion.acceptAgentPing(99L, 18.60, 73.90));
+
+        ingestion.flush();
+        assertTrue(agentBatches.isEmpty());
+    }
+
+    @Test
+    void testFlush_FailedWriteIsRetried() {
+        when(deliveryRepository.findStatusById(10L)).thenReturn(Optional.of(Delivery.DeliveryStatus.PICKED_UP));
+        ingestion.acceptAgentPing(1L, 18.50, 73.80);
+        ingestion.acceptDeliveryPing(10L, 18.50, 73.80, "first");
+        ingestion.onDeliveryStatusChanged(10L, Delivery.DeliveryStatus.DELIVERED);
+
+        failWrites = true;
+        ingestion.flush();
+        ingestion.acceptDeliveryPing(10L, 18.51, 73.81, "second");
+        failWrites = false;
+        ingestion.flush();
+
+        assertEquals(1, agentBatches.size());
+        // The failed chunk goes again unchanged, so a write that did land is recognised by its last point
+        TrackChunk retried = chunkBatches.get(0).get(0);
+        assertEquals(List.of("first"), remarks(retried));
+        assertEquals(List.of("second"), ingestion.pendingTrackingPoints(10L).stream()
+                .map(TrackingPoint::remarks).toList());
+
+        // The seal requested when the delivery finished still covers what arrived since
+        ingestion.flush();
+        TrackChunk rest = chunkBatches.get(1).get(0);
+        assertEquals(List.of("second"), remarks(rest));
+        assertTrue(rest.lastMillis() >= retried.lastMillis());
+        assertTrue(ingestion.pendingTrackingPoints(10L).isEmpty());
+    }
+
+    @Test
+    void testFlush_KeepsTailInMemoryUntilChunkIsFull() {
+        when(deliveryRepository.findStatusById(10L)).thenReturn(Optional.of(Delivery.DeliveryStatus.PICKED_UP));
+
+        for (int i = 0; i < 31; i++) {
+            ingestion.acceptDeliveryPing(10L, 18.50 + i * 1e-4, 73.80, null);
+        }
+        ingestion.flush();
+        assertTrue(chunkBatches.isEmpty());
+        assertEquals(31, ingestion.pendingTrackingPoints(10L).size());
+
+        ingestion.acceptDeliveryPing(10L, 18.51, 73.80, null);
+        ingestion.flush();
+
+        assertEquals(32, chunkBatches.get(0).get(0).pointCount());
+        assertTrue(ingestion.pendingTrackingPoints(10L).isEmpty());
+    }
+
+    @Test
+    void testFlush_SealsTailWhenDeliveryFinishes() {
+        when(deliveryRepository.findStatusById(10L)).thenReturn(Optional.of(Delivery.DeliveryStatus.PICKED_UP));
+
+        TrackingPoint point = ingestion.acceptDeliveryPing(10L, 18.50, 73.80, null);
+
+        assertEquals(Delivery.DeliveryStatus.PICKED_UP, point.status());
+        assertEquals(1, ingestion.pendingTrackingPoints(10L).size());
+        ingestion.onDeliveryStatusChanged(10L, Delivery.DeliveryStatus.DELIVERED);
+        ingestion.flush();
+        assertTrue(ingestion.pendingTrackingPoints(10L).isEmpty());
+        assertEquals(1, chunkBatches.get(0).get(0).pointCount());
+    }
+
+    @Test
+    void testFlush_TailStaysReadableWhileItsChunkIsWritten() {
+        when(deliveryRepository.findStatusById(10L)).thenReturn(Optional.of(Delivery.DeliveryStatus.PICKED_UP));
+        ingestion.acceptDeliveryPing(10L, 18.50, 73.80, "first");
+        ingestion.onDeliveryStatusChanged(10L, Delivery.DeliveryStatus.DELIVERED);
+        List<Integer> visibleDuringAppend = new ArrayList<>();
+        duringAppend = () -> visibleDuringAppend.add(ingestion.pendingTrackingPoints(10L).size());
+
+        failWrites = true;
+        ingestion.flush();
+        assertEquals(1, ingestion.pendingTrackingPoints(10L).size());
+
+        failWrites = false;
+        ingestion.flush();
+        assertEquals(List.of(1, 1), visibleDuringAppend);
+        assertTrue(ingestion.pendingTrackingPoints(10L).isEmpty());
+    }
+
+    @Test
+    void testAcceptDeliveryPing_DoesNotCacheFinishedDeliveries() {
+        when(deliveryRepository.findStatusById(10L)).thenReturn(Optional.of(Delivery.DeliveryStatus.DELIVERED));
+
+        ingestion.acceptDeliveryPing(10L, 18.50, 73.80, null);
+        ingestion.acceptDeliveryPing(10L, 18.51, 73.81, null);
+
+        verify(deliveryRepository, times(2)).findStatusById(10L);
+    }
+
+    @Test
+    void testAcceptDeliveryPing_UnknownDelivery() {
+        when(deliveryRepository.findStatusById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> ingestion.acceptDeliveryPing(99L, 18.5, 73.8, null));
+    }
+
+    private static List<String> remarks(TrackChunk chunk) {
+        return TrackCodec.decode(chunk.deliveryId(), chunk.data()).stream().map(TrackingPoint::remarks).toList();
+    }
+}
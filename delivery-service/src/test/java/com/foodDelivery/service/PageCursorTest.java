@@ -0,0 +1,40 @@
+package com.foodDelivery.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void testEncode_RoundTripsCreatedAtAndId() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_793_000), 42L);
+
+        String token = cursor.encode();
+
+        assertEquals(cursor, PageCursor.decode(token));
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testEncode_RoundTripsIdOnly() {
+        PageCursor cursor = new PageCursor(null, 7L);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testDecode_RejectsForeignToken() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("bm90LWEtZGF0ZXw0Mg"));
+    }
+
+    @Test
+    void testCheckLimit_RejectsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.checkLimit(0));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.checkLimit(PageCursor.MAX_PAGE_SIZE + 1));
+        assertDoesNotThrow(() -> PageCursor.checkLimit(PageCursor.MAX_PAGE_SIZE));
+    }
+}
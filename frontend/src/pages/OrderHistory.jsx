@@ -8,7 +8,9 @@ import toast from 'react-hot-toast';
 
 export default function OrderHistory() {
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const { user } = useAuth();
 
   useEffect(() => {
@@ -17,12 +19,10 @@ export default function OrderHistory() {
 
   const loadOrders = async () => {
     try {
+      // Pages come most recent first
       const response = await orderService.getByCustomer(user.id);
-      // Sort by most recent first
-      const sortedOrders = response.data.sort((a, b) => 
-        new Date(b.createdAt) - new Date(a.createdAt)
-      );
-      setOrders(sortedOrders);
+      setOrders(response.data.orders);
+      setNextCursor(response.data.nextCursor);
     } catch (error) {
       console.error('Failed to load orders:', error);
       toast.error('Failed to load order history');
@@ -31,6 +31,20 @@ export default function OrderHistory() {
     }
   };
 
+  const loadMoreOrders = async () => {
+    setLoadingMore(true);
+    try {
+      const response = await orderService.getByCustomer(user.id, nextCursor);
+      setOrders((loaded) => [...loaded, ...response.data.orders]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error('Failed to load more orders:', error);
+      toast.error('Failed to load more orders');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const getStatusBadgeClass = (status) => {
     switch (status) {
       case 'DELIVERED':
@@ -165,6 +179,13 @@ export default function OrderHistory() {
                 </div>
               </Link>
             ))}
+            {nextCursor && (
+              <div className="text-center pt-4">
+                <button onClick={loadMoreOrders} disabled={loadingMore} className="btn-outline">
+                  {loadingMore ? 'Loading...' : 'Load more orders'}
+                </button>
+              </div>
+            )}
           </div>
         )}
       </div>
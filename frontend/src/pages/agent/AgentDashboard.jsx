@@ -38,7 +38,7 @@ export default function AgentDashboard() {
       setAgent(agentRes.data);
 
       const deliveriesRes = await agentService.getAgentDeliveries(agentRes.data.id);
-      setDeliveries(deliveriesRes.data);
+      setDeliveries(deliveriesRes.data.items);
     } catch (error) {
       console.error('Failed to load agent data:', error);
       if (error.response?.status === 401) {
@@ -103,9 +103,10 @@ export const menuService = {
 export const orderService = {
   create: (data) => api.post('/orders', data),
   getById: (id) => api.get(`/orders/${id}`),
-  getByCustomer: (customerId) => api.get(`/orders/customer/${customerId}`),
-  getByRestaurant: (restaurantId) => api.get(`/orders/restaurant/${restaurantId}`),
-  getAll: () => api.get('/orders'),
+  // Listings are paged: each response is { orders, nextCursor }; pass nextCursor back for the next page
+  getByCustomer: (customerId, cursor) => api.get(`/orders/customer/${customerId}`, { params: { cursor } }),
+  getByRestaurant: (restaurantId, cursor) => api.get(`/orders/restaurant/${restaurantId}`, { params: { cursor } }),
+  getAll: (cursor) => api.get('/orders', { params: { cursor } }),
   updateStatus: (id, status) => api.put(`/orders/${id}/status`, { status }),
   cancel: (id) => api.delete(`/orders/${id}`),
 };
@@ -52,6 +52,28 @@ public class DeliveryEventConsumer {
         }
     }
 
+    // Agent-only messages from delivery-service. Delivery lifecycle events are copied to this topic
+    // too but are handled from delivery-events above, so only the agent message types are read here.
+    @KafkaListener(topics = KafkaTopics.NOTIFICATION_EVENTS, groupId = "notification-group", containerFactory = "deliveryEventKafkaListenerContainerFactory")
+    public void consumeAgentNotification(DeliveryEvent event) {
+        if (event == null || event.getDeliveryAgentId() == null
+                || !"AGENT_REPOSITIONING_SUGGESTED".equals(event.getEventType())) {
+            return;
+        }
+
+        log.info("Notifying: agent {} suggested to reposition to ({}, {})",
+                event.getDeliveryAgentId(), event.getCurrentLatitude(), event.getCurrentLongitude());
+        notificationService.createNotification(
+            event.getDeliveryAgentId(),
+            "DELIVERY_AGENT",
+            "Busy Area Nearby",
+            event.getNotes(),
+            "REPOSITIONING",
+            null,
+            null
+        );
+    }
+
     private void notifyDeliveryAssigned(DeliveryEvent event) {
         log.info("Notifying: Delivery agent {} assigned for order {}",
                 event.getDeliveryAgentName(), event.getOrderId());
@@ -81,4 +103,4 @@ public class DeliveryEventConsumer {
     private void notifyDeliveryCompleted(DeliveryEvent event) {
         log.info("Notifying: Order {} has been delivered", event.getOrderId());
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
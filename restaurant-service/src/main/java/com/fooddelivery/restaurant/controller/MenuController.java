@@ -40,6 +40,14 @@ public class MenuController {
     public MenuItem getMenuItemById(@PathVariable Long menuItemId) {
         return menuService.getMenuItemById(menuItemId);
     }
+
+    /**
+     * Get many menu items by ID in one call; ids that do not exist are left out
+     */
+    @GetMapping("/items")
+    public List<MenuItem> getMenuItemsByIds(@RequestParam List<Long> ids) {
+        return menuService.getMenuItemsByIds(ids);
+    }
  
     /**
      * Disable menu item (mark unavailable)
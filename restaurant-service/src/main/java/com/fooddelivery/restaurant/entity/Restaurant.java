@@ -25,6 +25,11 @@ public class Restaurant {
  
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
+
+    // Bumped by every change to the restaurant or its menu; sent with each RestaurantEvent
+    @Column(name = "catalog_version", nullable = false)
+    @JsonIgnore
+    private long catalogVersion;
  
     @OneToMany(
             mappedBy = "restaurant",
@@ -76,6 +81,23 @@ public class Restaurant {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Bump the catalog version for a change made in the current transaction.
+     *
+     * @return the new version
+     */
+    public long nextCatalogVersion() {
+        return ++catalogVersion;
+    }
  
     public List<MenuItem> getMenuItems() {
         return menuItems;
@@ -0,0 +1,77 @@
+package com.fooddelivery.restaurant.kafka;
+
+import com.fooddelivery.events.KafkaTopics;
+import com.fooddelivery.events.RestaurantEvent;
+import com.fooddelivery.restaurant.entity.MenuItem;
+import com.fooddelivery.restaurant.entity.Restaurant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+/**
+ * Publishes restaurant and menu changes to {@link KafkaTopics#RESTAURANT_EVENTS}, keyed by
+ * restaurant id so one restaurant's events stay in order. Inside a transaction the event is sent
+ * once it commits, so consumers never see a change that was rolled back.
+ */
+@Component
+public class RestaurantEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantEventPublisher.class);
+
+    private final KafkaTemplate<String, RestaurantEvent> kafkaTemplate;
+
+    public RestaurantEventPublisher(KafkaTemplate<String, RestaurantEvent> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void publishRestaurant(String eventType, Restaurant restaurant) {
+        publish(RestaurantEvent.builder()
+                .eventType(eventType)
+                .restaurantId(restaurant.getId())
+                .version(restaurant.getCatalogVersion())
+                .restaurantName(restaurant.getName())
+                .active(restaurant.isActive())
+                .build());
+    }
+
+    public void publishMenuItem(String eventType, MenuItem menuItem, Restaurant restaurant) {
+        publish(RestaurantEvent.builder()
+                .eventType(eventType)
+                .restaurantId(restaurant.getId())
+                .version(restaurant.getCatalogVersion())
+                .menuItemId(menuItem.getId())
+                .menuItemName(menuItem.getName())
+                .price(BigDecimal.valueOf(menuItem.getPrice()))
+                .available(menuItem.isAvailable())
+                .build());
+    }
+
+    private void publish(RestaurantEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    private void send(RestaurantEvent event) {
+        try {
+            kafkaTemplate.send(KafkaTopics.RESTAURANT_EVENTS, event.getRestaurantId().toString(), event);
+            logger.info("Published {} for restaurant {} at version {}",
+                    event.getEventType(), event.getRestaurantId(), event.getVersion());
+        } catch (Exception e) {
+            // Consumers detect the gap from the next version and stop trusting this restaurant's data
+            logger.error("Failed to publish {} for restaurant {}", event.getEventType(), event.getRestaurantId(), e);
+        }
+    }
+}
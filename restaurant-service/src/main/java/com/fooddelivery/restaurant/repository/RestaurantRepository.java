@@ -2,14 +2,24 @@ package com.fooddelivery.restaurant.repository;
 
 
 import com.fooddelivery.restaurant.entity.Restaurant;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
  
 import java.util.List;
+import java.util.Optional;
  
 @Repository
 public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
  
     // Find only active restaurants
     List<Restaurant> findByActiveTrue();
+
+    // Locks the row until commit, so changes to one restaurant get consecutive catalog versions
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Restaurant r WHERE r.id = :id")
+    Optional<Restaurant> findForUpdateById(@Param("id") Long id);
 }
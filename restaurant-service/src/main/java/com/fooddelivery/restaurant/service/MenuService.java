@@ -12,10 +12,12 @@ public interface MenuService {
     List<MenuItem> getMenuByRestaurant(Long restaurantId);
     
     MenuItem getMenuItemById(Long menuItemId);
+
+    List<MenuItem> getMenuItemsByIds(List<Long> menuItemIds);
  
     void disableMenuItem(Long menuItemId);
 
 	void deleteMenuItem(Long menuItemId);
 
 	
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,33 +4,44 @@ package com.fooddelivery.restaurant.service.impl;
 
 import com.fooddelivery.restaurant.entity.MenuItem;
 import com.fooddelivery.restaurant.entity.Restaurant;
+import com.fooddelivery.restaurant.kafka.RestaurantEventPublisher;
 import com.fooddelivery.restaurant.repository.MenuItemRepository;
 import com.fooddelivery.restaurant.repository.RestaurantRepository;
 import com.fooddelivery.restaurant.service.MenuService;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
  
 import java.util.List;
  
 @Service
 public  class MenuServiceImpl implements MenuService {
+
+    private static final int MAX_ITEMS_PER_LOOKUP = 100;
  
     private final MenuItemRepository menuItemRepository;
     private final RestaurantRepository restaurantRepository;
+    private final RestaurantEventPublisher eventPublisher;
  
     public MenuServiceImpl(MenuItemRepository menuItemRepository,
-                           RestaurantRepository restaurantRepository) {
+                           RestaurantRepository restaurantRepository,
+                           RestaurantEventPublisher eventPublisher) {
         this.menuItemRepository = menuItemRepository;
         this.restaurantRepository = restaurantRepository;
+        this.eventPublisher = eventPublisher;
     }
  
     @Override
+    @Transactional
     public MenuItem addMenuItem(Long restaurantId, MenuItem menuItem) {
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() ->
-                        new RuntimeException("Restaurant not found with id: " + restaurantId));
+        Restaurant restaurant = lockRestaurant(restaurantId);
  
         menuItem.setRestaurant(restaurant);
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        restaurant.nextCatalogVersion();
+        eventPublisher.publishMenuItem("MENU_ITEM_UPDATED", saved, restaurant);
+        return saved;
     }
  
     @Override
@@ -44,25 +55,49 @@ public  class MenuServiceImpl implements MenuService {
                 .orElseThrow(() ->
                         new RuntimeException("Menu item not found with id: " + menuItemId));
     }
+
+    @Override
+    public List<MenuItem> getMenuItemsByIds(List<Long> menuItemIds) {
+        if (menuItemIds.size() > MAX_ITEMS_PER_LOOKUP) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_ITEMS_PER_LOOKUP + " menu items can be fetched at once");
+        }
+        return menuItemRepository.findAllById(menuItemIds);
+    }
  
     @Override
+    @Transactional
     public void disableMenuItem(Long menuItemId) {
         MenuItem menuItem = menuItemRepository.findById(menuItemId)
                 .orElseThrow(() ->
                         new RuntimeException("Menu item not found with id: " + menuItemId));
+        Restaurant restaurant = lockRestaurant(menuItem.getRestaurant().getId());
  
         menuItem.setAvailable(false);
         menuItemRepository.save(menuItem);
+        restaurant.nextCatalogVersion();
+        eventPublisher.publishMenuItem("MENU_ITEM_UPDATED", menuItem, restaurant);
     } 
     
     //new line added
     
     @Override
+    @Transactional
     public void deleteMenuItem(Long menuItemId) {
         MenuItem menuItem = menuItemRepository.findById(menuItemId)
                 .orElseThrow(() ->
                         new RuntimeException("Menu item not found with id: " + menuItemId));
+        Restaurant restaurant = lockRestaurant(menuItem.getRestaurant().getId());
 
         menuItemRepository.delete(menuItem);
+        restaurant.nextCatalogVersion();
+        eventPublisher.publishMenuItem("MENU_ITEM_DELETED", menuItem, restaurant);
+    }
+
+    // Every menu change bumps the restaurant's catalog version under its row lock
+    private Restaurant lockRestaurant(Long restaurantId) {
+        return restaurantRepository.findForUpdateById(restaurantId)
+                .orElseThrow(() ->
+                        new RuntimeException("Restaurant not found with id: " + restaurantId));
     }
 }
@@ -58,10 +58,12 @@
 package com.fooddelivery.restaurant.service.impl;
  
 import com.fooddelivery.restaurant.entity.Restaurant;
+import com.fooddelivery.restaurant.kafka.RestaurantEventPublisher;
 import com.fooddelivery.restaurant.repository.RestaurantRepository;
 import com.fooddelivery.restaurant.service.RestaurantService;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
  
 import java.util.List;
  
@@ -69,15 +71,22 @@ import java.util.List;
 public class RestaurantServiceImpl implements RestaurantService {
  
     private final RestaurantRepository restaurantRepository;
+    private final RestaurantEventPublisher eventPublisher;
  
-    public RestaurantServiceImpl(RestaurantRepository restaurantRepository) {
+    public RestaurantServiceImpl(RestaurantRepository restaurantRepository,
+                                 RestaurantEventPublisher eventPublisher) {
         this.restaurantRepository = restaurantRepository;
+        this.eventPublisher = eventPublisher;
     }
  
     // ✅ CREATE RESTAURANT
     @Override
+    @Transactional
     public Restaurant createRestaurant(Restaurant restaurant) {
-        return restaurantRepository.save(restaurant);
+        restaurant.setCatalogVersion(1);
+        Restaurant saved = restaurantRepository.save(restaurant);
+        eventPublisher.publishRestaurant("RESTAURANT_REGISTERED", saved);
+        return saved;
     }
  
     // ✅ GET ALL RESTAURANTS
@@ -96,19 +105,27 @@ public class RestaurantServiceImpl implements RestaurantService {
  
     // ✅ DISABLE RESTAURANT
     @Override
+    @Transactional
     public void disableRestaurant(Long id) {
-        Restaurant restaurant = getRestaurantById(id);
+        Restaurant restaurant = restaurantRepository.findForUpdateById(id)
+                .orElseThrow(() ->
+                        new RuntimeException("Restaurant not found with id " + id));
         restaurant.setActive(false);
+        restaurant.nextCatalogVersion();
         restaurantRepository.save(restaurant);
+        eventPublisher.publishRestaurant("RESTAURANT_STATUS_CHANGED", restaurant);
     }
  
     // ✅ DELETE RESTAURANT
     @Override
+    @Transactional
     public void deleteRestaurant(Long id) {
-        Restaurant restaurant = restaurantRepository.findById(id)
+        Restaurant restaurant = restaurantRepository.findForUpdateById(id)
                 .orElseThrow(() ->
                         new RuntimeException("Restaurant not found with id " + id));
  
         restaurantRepository.delete(restaurant);
+        restaurant.nextCatalogVersion();
+        eventPublisher.publishRestaurant("RESTAURANT_DELETED", restaurant);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file